@@ -2,10 +2,10 @@ package cm.apicitamedica;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableFeignClients
+@EnableScheduling
 public class ApiCitaMedicaApplication {
 
     public static void main(String[] args) {
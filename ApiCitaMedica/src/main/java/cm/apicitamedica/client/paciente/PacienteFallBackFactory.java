@@ -7,6 +7,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 public class PacienteFallBackFactory implements FallbackFactory<PacienteFeignClient> {
@@ -16,31 +18,45 @@ public class PacienteFallBackFactory implements FallbackFactory<PacienteFeignCli
     // Implementación alternativa de PacienteFeignClient en caso de error
     @Override
     public PacienteFeignClient create(Throwable cause) {
-        return dni -> {
-
-            // Si el error es porque no se encontró el Paciente (404 NotFound)
-            if (cause instanceof FeignException.NotFound) {
-                log.warn("Paciente con ID: {} no encontrado", dni);
-                return new PacienteSimpleResponse(
-                        null,
-                        null,
-                        null,
-                        dni,
-                        null);
-            }
+        return new PacienteFeignClient() {
+
+            @Override
+            public PacienteSimpleResponse obtenerPacienteSimple(String dni) {
 
-            // Si el error es porque el microservicio de Pacientes está caído
-            if (esServicioCaido(cause)) {
-                log.error("Servicio de Pacientes caído. Causa: {}", cause.getMessage());
-                throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+                // Si el error es porque no se encontró el Paciente (404 NotFound)
+                if (cause instanceof FeignException.NotFound) {
+                    log.warn("Paciente con ID: {} no encontrado", dni);
+                    return new PacienteSimpleResponse(
+                            null,
+                            null,
+                            null,
+                            dni,
+                            null);
+                }
+
+                throw toExcepcion(cause);
             }
 
-            // Si el error es cualquier otro no manejado
-            log.error("Error no manejado en PacienteFeignClient: {}", cause.getMessage());
-            throw new RuntimeException("Error al obtener Paciente: " + cause.getMessage(), cause);
+            @Override
+            public List<PacienteSimpleResponse> obtenerPacientesSimples(List<String> dnis) {
+                // En la búsqueda por lote los no registrados ya vienen omitidos, no hay 404
+                throw toExcepcion(cause);
+            }
         };
     }
 
+    private RuntimeException toExcepcion(Throwable cause) {
+        // Si el error es porque el microservicio de Pacientes está caído
+        if (esServicioCaido(cause)) {
+            log.error("Servicio de Pacientes caído. Causa: {}", cause.getMessage());
+            return new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+        }
+
+        // Si el error es cualquier otro no manejado
+        log.error("Error no manejado en PacienteFeignClient: {}", cause.getMessage());
+        return new RuntimeException("Error al obtener Paciente: " + cause.getMessage(), cause);
+    }
+
     private boolean esServicioCaido(Throwable cause){
 
         // Si el error es porque el circuit breaker se activó
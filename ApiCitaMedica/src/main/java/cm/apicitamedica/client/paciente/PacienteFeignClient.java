@@ -3,6 +3,10 @@ package cm.apicitamedica.client.paciente;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 @FeignClient(name = "ApiPaciente", fallbackFactory = PacienteFallBackFactory.class)
 public interface PacienteFeignClient {
@@ -10,4 +14,10 @@ public interface PacienteFeignClient {
     @GetMapping("/pacientes/simple/dni/{dni}")
     PacienteSimpleResponse obtenerPacienteSimple(@PathVariable String dni);
 
+    /**
+     * Busca varios pacientes en una sola llamada; los DNIs no registrados no aparecen
+     */
+    @PostMapping("/pacientes/simple/dni/lote")
+    List<PacienteSimpleResponse> obtenerPacientesSimples(@RequestBody List<String> dnis);
+
 }
@@ -4,10 +4,15 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(name = "ApiPago")
 public interface PagoCitaFeignClient {
 
     @PostMapping("/pago-cita")
     void registrarPagoCita(@RequestBody PagoCitaRequest request);
 
+    @PostMapping("/pago-cita/batch")
+    void registrarPagos(@RequestBody List<PagoCitaRequest> requests);
+
 }
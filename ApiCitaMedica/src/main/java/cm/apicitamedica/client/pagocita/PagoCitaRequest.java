@@ -22,6 +22,10 @@ public record PagoCitaRequest(
         BigDecimal montoTotal,
 
         @Schema(description = "Método de Pago de la Cita Médica", example = "EFECTIVO")
-        String metodoPago
+        String metodoPago,
+
+        @Schema(description = "Clave para registrar el pago una sola vez aunque se reintente",
+                example = "REGISTRAR_PAGO-cita-1")
+        String claveIdempotencia
 ) {
 }
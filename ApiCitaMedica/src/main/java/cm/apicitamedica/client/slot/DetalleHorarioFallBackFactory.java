@@ -1,5 +1,6 @@
 package cm.apicitamedica.client.slot;
 
+import cm.apicitamedica.exceptions.ConflictException;
 import cm.apicitamedica.exceptions.ServiceUnavailableException;
 import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -27,11 +29,36 @@ public class DetalleHorarioFallBackFactory implements FallbackFactory<DetalleHor
                 return handleOcuparSlotError(cause, idHorario, idDetalle);
             }
 
+            @Override
+            public List<SlotClientResponse> obtenerSlots(List<SlotClientRequest> slots) {
+                return handleObtenerSlotsError(cause, slots);
+            }
+
+            @Override
+            public RetencionSlotResponse retenerSlot(Long idHorario, Long idDetalle, String titular) {
+                return handleRetenerSlotError(cause, idHorario, idDetalle);
+            }
+
+            @Override
+            public void soltarRetencion(Long idHorario, Long idDetalle, String titular) {
+                handleOperacionSlotError(cause, idHorario, idDetalle, "soltar retención de");
+            }
+
             @Override
             public void ocuparSlot(Long idHorario, Long idDetalle, Long idCita) {
                 handleOperacionSlotError(cause, idHorario, idDetalle, "ocupar");
             }
 
+            @Override
+            public List<OcuparSlotResponse> ocuparSlots(List<OcuparSlotRequest> slots) {
+                return handleOcuparSlotsError(cause, slots);
+            }
+
+            @Override
+            public List<LiberarSlotResponse> liberarSlots(List<LiberarSlotRequest> slots) {
+                return handleLiberarSlotsError(cause, slots);
+            }
+
             @Override
             public void liberarSlot(Long idHorario, Long idDetalle) {
                 handleOperacionSlotError(cause, idHorario, idDetalle, "liberar");
@@ -63,6 +90,57 @@ public class DetalleHorarioFallBackFactory implements FallbackFactory<DetalleHor
         throw new RuntimeException("Error al obtener Horario o Slot: " + cause.getMessage(), cause);
     }
 
+    private List<SlotClientResponse> handleObtenerSlotsError(Throwable cause, List<SlotClientRequest> slots) {
+
+        // Si el error es porque el microservicio de Horarios está caído
+        if (esServicioCaido(cause)) {
+            log.error("Servicio de Horarios caído al obtener {} slots, Causa: {}", slots.size(), cause.getMessage());
+            throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+        }
+
+        // Si el error es cualquier otro no manejado
+        log.error("Error no manejado en DetalleHorarioFeignClient.obtenerSlots: {}", cause.getMessage());
+        throw new RuntimeException("Error al obtener Slots: " + cause.getMessage(), cause);
+    }
+
+    private List<OcuparSlotResponse> handleOcuparSlotsError(Throwable cause, List<OcuparSlotRequest> slots) {
+
+        // Si el error es porque el microservicio de Horarios está caído
+        if (esServicioCaido(cause)) {
+            log.error("Servicio de Horarios caído al ocupar {} slots, Causa: {}", slots.size(), cause.getMessage());
+            throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+        }
+
+        // Si el error es cualquier otro no manejado
+        log.error("Error no manejado en DetalleHorarioFeignClient.ocuparSlots: {}", cause.getMessage());
+        throw new RuntimeException("Error al ocupar Slots: " + cause.getMessage(), cause);
+    }
+
+    private List<LiberarSlotResponse> handleLiberarSlotsError(Throwable cause, List<LiberarSlotRequest> slots) {
+
+        // Si el error es porque el microservicio de Horarios está caído
+        if (esServicioCaido(cause)) {
+            log.error("Servicio de Horarios caído al liberar {} slots, Causa: {}", slots.size(), cause.getMessage());
+            throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+        }
+
+        // Si el error es cualquier otro no manejado
+        log.error("Error no manejado en DetalleHorarioFeignClient.liberarSlots: {}", cause.getMessage());
+        throw new RuntimeException("Error al liberar Slots: " + cause.getMessage(), cause);
+    }
+
+    private RetencionSlotResponse handleRetenerSlotError(Throwable cause, Long idHorario, Long idDetalle) {
+
+        // Si el slot ya está ocupado, bloqueado o retenido por otro paciente (409 Conflict)
+        if (cause instanceof FeignException.Conflict) {
+            log.warn("Slot con ID: {} del Horario con ID: {} no disponible para retener", idDetalle, idHorario);
+            throw new ConflictException("Slot con ID: " + idDetalle + " no está disponible");
+        }
+
+        handleOperacionSlotError(cause, idHorario, idDetalle, "retener");
+        return null;
+    }
+
     private void handleOperacionSlotError(Throwable cause, Long idHorario, Long idDetalle, String operacion) {
 
         // Si el error es porque no se encontró el recurso (404 NotFound)
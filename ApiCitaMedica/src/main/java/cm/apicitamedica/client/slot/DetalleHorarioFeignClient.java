@@ -3,11 +3,14 @@ package cm.apicitamedica.client.slot;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @FeignClient(name = "ApiHorario", fallbackFactory = DetalleHorarioFallBackFactory.class)
 public interface DetalleHorarioFeignClient {
@@ -16,11 +19,30 @@ public interface DetalleHorarioFeignClient {
     SlotClientResponse obtenerSlot(@PathVariable("idHorario") Long idHorario,
                                    @PathVariable("idDetalle") Long idDetalle);
 
+    @PostMapping("/horarios/client/slots/batch")
+    List<SlotClientResponse> obtenerSlots(@RequestBody List<SlotClientRequest> slots);
+
+    @PutMapping("/horarios/{idHorario}/slots/{idDetalle}/retener")
+    RetencionSlotResponse retenerSlot(@PathVariable("idHorario") Long idHorario,
+                                      @PathVariable("idDetalle") Long idDetalle,
+                                      @RequestParam("titular") String titular);
+
+    @PutMapping("/horarios/{idHorario}/slots/{idDetalle}/soltar")
+    void soltarRetencion(@PathVariable("idHorario") Long idHorario,
+                         @PathVariable("idDetalle") Long idDetalle,
+                         @RequestParam("titular") String titular);
+
     @PutMapping("/horarios/{idHorario}/slots/{idDetalle}/ocupar")
     void ocuparSlot(@PathVariable("idHorario") Long idHorario,
                     @PathVariable("idDetalle") Long idDetalle,
                     @RequestParam("idCita") Long idCita);
 
+    @PutMapping("/horarios/slots/ocupar/batch")
+    List<OcuparSlotResponse> ocuparSlots(@RequestBody List<OcuparSlotRequest> slots);
+
+    @PutMapping("/horarios/slots/liberar/batch")
+    List<LiberarSlotResponse> liberarSlots(@RequestBody List<LiberarSlotRequest> slots);
+
     @PutMapping("/horarios/{idHorario}/slots/{idDetalle}/liberar")
     void liberarSlot(@PathVariable("idHorario") Long idHorario,
                      @PathVariable("idDetalle") Long idDetalle);
@@ -0,0 +1,9 @@
+package cm.apicitamedica.client.slot;
+
+public record LiberarSlotResponse(
+        Long idHorario,
+        Long idDetalle,
+        Long idCita,
+        boolean liberado
+) {
+}
@@ -0,0 +1,9 @@
+package cm.apicitamedica.client.slot;
+
+public record OcuparSlotRequest(
+        Long idHorario,
+        Long idDetalle,
+        Long idCita,
+        String titularRetencion
+) {
+}
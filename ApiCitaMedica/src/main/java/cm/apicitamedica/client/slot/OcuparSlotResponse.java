@@ -0,0 +1,10 @@
+package cm.apicitamedica.client.slot;
+
+public record OcuparSlotResponse(
+        Long idHorario,
+        Long idDetalle,
+        Long idCita,
+        boolean ocupado,
+        String mensaje
+) {
+}
@@ -0,0 +1,10 @@
+package cm.apicitamedica.client.slot;
+
+import java.time.LocalDateTime;
+
+public record RetencionSlotResponse(
+        Long idHorario,
+        Long idDetalle,
+        LocalDateTime retenidoHasta
+) {
+}
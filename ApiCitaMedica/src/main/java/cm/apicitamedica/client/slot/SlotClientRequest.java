@@ -0,0 +1,7 @@
+package cm.apicitamedica.client.slot;
+
+public record SlotClientRequest(
+        Long idHorario,
+        Long idDetalle
+) {
+}
@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 public record SlotClientResponse(
+        Long idHorario,
+        Long idDetalle,
         MedicoResponse medico,
         EspecialidadResponse especialidad,
         LocalDate fecha,
@@ -0,0 +1,35 @@
+package cm.apicitamedica.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ComprobantesConfig {
+
+    /**
+     * Pool acotado de hilos de plataforma para renderizar los comprobantes PDF, que consumen
+     * CPU. Con la cola llena rechaza nuevas tareas en lugar de crecer sin límite
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService comprobantesExecutor(
+            @Value("${citas.comprobantes.hilos:2}") int hilos,
+            @Value("${citas.comprobantes.cola:100}") int capacidadCola) {
+
+        return new ThreadPoolExecutor(
+                hilos,
+                hilos,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                Thread.ofPlatform().name("comprobante-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+}
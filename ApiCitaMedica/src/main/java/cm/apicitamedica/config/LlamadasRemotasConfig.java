@@ -0,0 +1,21 @@
+package cm.apicitamedica.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class LlamadasRemotasConfig {
+
+    /**
+     * Executor con un hilo virtual por tarea para lanzar en paralelo las llamadas
+     * Feign a otros microservicios, ya que pasan casi todo su tiempo bloqueadas en red
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService llamadasRemotasExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+}
@@ -3,9 +3,14 @@ package cm.apicitamedica.controller;
 import cm.apicitamedica.dto.CitaMedicaFeignResponse;
 import cm.apicitamedica.dto.CitaMedicaRequest;
 import cm.apicitamedica.dto.CitaMedicaResponse;
+import cm.apicitamedica.dto.CitaRegistradaResponse;
 import cm.apicitamedica.dto.MotivoReemplazoRequest;
+import cm.apicitamedica.dto.PaginaResponse;
 import cm.apicitamedica.exceptions.ErrorResponse;
+import cm.apicitamedica.repository.CitaMedica;
 import cm.apicitamedica.service.CitaMedicaService;
+import cm.apicitamedica.service.IdempotenciaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,18 +19,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
@@ -35,19 +48,33 @@ import java.util.List;
 @Tag(name = "Citas Médicas", description = "API para gestión de citas médicas")
 public class CitaMedicaController {
 
+    // Tamaño máximo de página en los listados paginados
+    private static final int MAX_LIMITE_PAGINA = 200;
+
+    // Máximo de citas que se pueden pedir en una llamada batch
+    private static final int MAX_CITAS_POR_LOTE = 500;
+
     private final CitaMedicaService service;
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
+
+    // Citas que se hidratan y envían por lote en los listados NDJSON
+    @Value("${citas.listados.lote-streaming:50}")
+    private int loteStreaming;
 
     // ENDPOINTS CRUD
 
-    @PostMapping(produces = MediaType.APPLICATION_PDF_VALUE)
-    @Operation(summary = "Registrar nueva cita médica y genera un PDF de la misma",
-            description = "Crea una nueva cita médica, genera un PDF de la misma y " +
-                    "ocupa automáticamente un Slot de un Horario")
+    @PostMapping
+    @Operation(summary = "Registrar nueva cita médica",
+            description = "Crea una nueva cita médica y ocupa automáticamente un Slot de un Horario. " +
+                    "El comprobante PDF se genera en segundo plano y se descarga desde la ruta devuelta. " +
+                    "Si se envía el header Idempotency-Key, los reintentos con la misma clave " +
+                    "devuelven la respuesta original sin registrar otra cita")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "201",
                     description = "Cita médica creada exitosamente",
-                    content = @Content(schema = @Schema(implementation = CitaMedicaResponse.class))
+                    content = @Content(schema = @Schema(implementation = CitaRegistradaResponse.class))
             ),
             @ApiResponse(
                     responseCode = "400",
@@ -59,21 +86,63 @@ public class CitaMedicaController {
                     description = "Ya existe una cita médica en ese slot",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<byte[]> registrar(
+    public ResponseEntity<CitaRegistradaResponse> registrar(
+            @Parameter(description = "Clave única por intento de registro, para reintentos seguros")
+            @RequestHeader(value = "Idempotency-Key", required = false)
+            @Size(max = 100, message = "La Idempotency-Key no puede superar 100 caracteres")
+            String claveIdempotencia,
+
             @Parameter(description = "Datos requeridos para registrar/actualizar citas")
             @RequestBody
             @Valid
             CitaMedicaRequest request) {
 
         log.info("Solicitud de registrar cita para: {} recibida", request.dniPaciente());
-        byte[] citaNueva = service.registrar(request);
+        IdempotenciaService.Resultado<CitaRegistradaResponse> resultado = (claveIdempotencia == null)
+                ? new IdempotenciaService.Resultado<>(service.registrar(request), false)
+                : idempotenciaService.ejecutar(claveIdempotencia, request, () -> service.registrar(request));
+        CitaRegistradaResponse citaNueva = resultado.valor();
         log.info("Solicitud de registrar cita para: {} terminada, respuesta enviada", request.dniPaciente());
 
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=cita-medica.pdf")
+        return ResponseEntity.created(URI.create(citaNueva.comprobante()))
+                .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
                 .body(citaNueva);
     }
 
+    @GetMapping(value = "/{id}/comprobante", produces = MediaType.APPLICATION_PDF_VALUE)
+    @Operation(summary = "Descargar comprobante PDF de una cita médica",
+            description = "Devuelve el comprobante PDF de la cita, generándolo si aún no está disponible")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Comprobante obtenido correctamente"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Cita médica no encontrada",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "El comprobante no pudo generarse a tiempo",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<byte[]> obtenerComprobante(
+            @Parameter(description = "Identificador único de la Cita Médica")
+            @PathVariable
+            @Positive(message = "El ID debe ser positivo")
+            Long id) {
+
+        log.info("Solicitud de obtener comprobante de cita con ID: {} recibida", id);
+        byte[] comprobante = service.obtenerComprobante(id);
+        log.info("Solicitud de obtener comprobante de cita con ID: {} terminada, respuesta enviada", id);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=cita-medica-" + id + ".pdf")
+                .body(comprobante);
+    }
+
     @GetMapping("/buscar/{idHorario}/{idDetalle}")
     @Operation(summary = "Buscar cita médica por idHorario e idDetalle",
             description = "Obtiene la cita médica de un slot y horario específicos")
@@ -113,14 +182,15 @@ public class CitaMedicaController {
         return ResponseEntity.ok().body(cita);
     }
 
-    @GetMapping("/buscar/{dni}")
-    @Operation(summary = "Buscar cita médica por DNI del Paciente",
-            description = "Obtiene una cita médica específica por DNI del paciente")
+    @GetMapping(value = "/buscar/{dni}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Buscar citas médicas pendientes por DNI del Paciente",
+            description = "Obtiene una página de las citas pendientes del paciente, ordenadas por ID. " +
+                    "Para la siguiente página enviar el siguienteCursor recibido como despuesDe")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
-                    description = "Cita médica obtenida correctamente",
-                    content = @Content(schema = @Schema(implementation = CitaMedicaResponse.class))
+                    description = "Citas médicas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = PaginaResponse.class))
             ),
             @ApiResponse(
                     responseCode = "404",
@@ -133,19 +203,204 @@ public class CitaMedicaController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
-    public ResponseEntity<List<CitaMedicaResponse>> buscarPorDniPaciente(
+    public ResponseEntity<PaginaResponse<CitaMedicaResponse>> buscarPorDniPaciente(
             @Parameter(description = "DNI único del Paciente")
             @PathVariable
             @NotNull(message = "El DNI es requerido")
-            String dni) {
+            String dni,
+
+            @Parameter(description = "ID de la última cita de la página anterior")
+            @RequestParam(required = false)
+            @Positive(message = "El cursor debe ser positivo")
+            Long despuesDe,
+
+            @Parameter(description = "Cantidad máxima de citas por página")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
 
         log.info("Solicitud de buscar por DNI: {} recibida", dni);
-        List<CitaMedicaResponse> citas = service.buscarPorDniPaciente(dni);
+        PaginaResponse<CitaMedicaResponse> citas = service.buscarPorDniPaciente(dni, despuesDe, limite);
         log.info("Solicitud de buscar por DNI: {} terminada, respuesta enviada", dni);
 
         return ResponseEntity.ok().body(citas);
     }
 
+    @GetMapping(value = "/buscar/{dni}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Transmitir citas médicas pendientes por DNI del Paciente",
+            description = "Envía todas las citas pendientes del paciente como NDJSON (una cita por línea), " +
+                    "escribiendo cada lote apenas está listo")
+    public ResponseEntity<StreamingResponseBody> transmitirPorDniPaciente(
+            @Parameter(description = "DNI único del Paciente")
+            @PathVariable
+            @NotNull(message = "El DNI es requerido")
+            String dni) {
+
+        log.info("Solicitud de transmitir citas por DNI: {} recibida", dni);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(transmitir(cursor -> service.buscarPorDniPaciente(dni, cursor, loteStreaming),
+                        "DNI: " + dni));
+    }
+
+    @GetMapping("/rango")
+    @Operation(summary = "Buscar citas médicas por rango de fechas",
+            description = "Obtiene una página de las citas entre dos fechas (máximo 31 días), ordenadas por " +
+                    "fecha y hora. Para la siguiente página enviar el siguienteCursor recibido como despuesDe")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Citas médicas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = PaginaResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Rango de fechas inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<PaginaResponse<CitaMedicaResponse>> buscarPorRango(
+            @Parameter(description = "Fecha inicial (inclusive)")
+            @RequestParam
+            LocalDate desde,
+
+            @Parameter(description = "Fecha final (inclusive)")
+            @RequestParam
+            LocalDate hasta,
+
+            @Parameter(description = "Estado de las citas (opcional)")
+            @RequestParam(required = false)
+            CitaMedica.EstadoCitaMedica estado,
+
+            @Parameter(description = "Cursor recibido como siguienteCursor en la página anterior")
+            @RequestParam(required = false)
+            @Size(max = 64, message = "El cursor no es válido")
+            String despuesDe,
+
+            @Parameter(description = "Cantidad máxima de citas por página")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
+
+        log.info("Solicitud de buscar citas entre: {} y {} recibida", desde, hasta);
+        PaginaResponse<CitaMedicaResponse> citas = service.buscarPorRango(desde, hasta, estado, despuesDe, limite);
+        log.info("Solicitud de buscar citas entre: {} y {} terminada, respuesta enviada", desde, hasta);
+
+        return ResponseEntity.ok().body(citas);
+    }
+
+    @GetMapping("/rango/medico/{idMedico}")
+    @Operation(summary = "Buscar citas médicas de un Médico por rango de fechas",
+            description = "Obtiene una página de la agenda del médico entre dos fechas (máximo 31 días), " +
+                    "ordenada por fecha y hora. Para la siguiente página enviar el siguienteCursor recibido como despuesDe")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Citas médicas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = PaginaResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Rango de fechas o ID inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<PaginaResponse<CitaMedicaResponse>> buscarPorMedicoYRango(
+            @Parameter(description = "Identificador único del Médico")
+            @PathVariable
+            @Positive(message = "El ID del Médico debe ser positivo")
+            Long idMedico,
+
+            @Parameter(description = "Fecha inicial (inclusive)")
+            @RequestParam
+            LocalDate desde,
+
+            @Parameter(description = "Fecha final (inclusive)")
+            @RequestParam
+            LocalDate hasta,
+
+            @Parameter(description = "Estado de las citas (opcional)")
+            @RequestParam(required = false)
+            CitaMedica.EstadoCitaMedica estado,
+
+            @Parameter(description = "Cursor recibido como siguienteCursor en la página anterior")
+            @RequestParam(required = false)
+            @Size(max = 64, message = "El cursor no es válido")
+            String despuesDe,
+
+            @Parameter(description = "Cantidad máxima de citas por página")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
+
+        log.info("Solicitud de buscar citas del Médico: {} entre: {} y {} recibida", idMedico, desde, hasta);
+        PaginaResponse<CitaMedicaResponse> citas =
+                service.buscarPorMedicoYRango(idMedico, desde, hasta, estado, despuesDe, limite);
+        log.info("Solicitud de buscar citas del Médico: {} entre: {} y {} terminada, respuesta enviada",
+                idMedico, desde, hasta);
+
+        return ResponseEntity.ok().body(citas);
+    }
+
+    @GetMapping("/rango/especialidad/{idEspecialidad}")
+    @Operation(summary = "Buscar citas médicas de una Especialidad por rango de fechas",
+            description = "Obtiene una página de las citas de la especialidad entre dos fechas (máximo 31 días), " +
+                    "ordenadas por fecha y hora. Para la siguiente página enviar el siguienteCursor recibido como despuesDe")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Citas médicas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = PaginaResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Rango de fechas o ID inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<PaginaResponse<CitaMedicaResponse>> buscarPorEspecialidadYRango(
+            @Parameter(description = "Identificador único de la Especialidad")
+            @PathVariable
+            @Positive(message = "El ID de la Especialidad debe ser positivo")
+            Long idEspecialidad,
+
+            @Parameter(description = "Fecha inicial (inclusive)")
+            @RequestParam
+            LocalDate desde,
+
+            @Parameter(description = "Fecha final (inclusive)")
+            @RequestParam
+            LocalDate hasta,
+
+            @Parameter(description = "Estado de las citas (opcional)")
+            @RequestParam(required = false)
+            CitaMedica.EstadoCitaMedica estado,
+
+            @Parameter(description = "Cursor recibido como siguienteCursor en la página anterior")
+            @RequestParam(required = false)
+            @Size(max = 64, message = "El cursor no es válido")
+            String despuesDe,
+
+            @Parameter(description = "Cantidad máxima de citas por página")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
+
+        log.info("Solicitud de buscar citas de la Especialidad: {} entre: {} y {} recibida",
+                idEspecialidad, desde, hasta);
+        PaginaResponse<CitaMedicaResponse> citas =
+                service.buscarPorEspecialidadYRango(idEspecialidad, desde, hasta, estado, despuesDe, limite);
+        log.info("Solicitud de buscar citas de la Especialidad: {} entre: {} y {} terminada, respuesta enviada",
+                idEspecialidad, desde, hasta);
+
+        return ResponseEntity.ok().body(citas);
+    }
+
     @PatchMapping("/{id}")
     @Operation(summary = "Actualizar cita médica",
             description = "Actualiza los datos de una cita médica existente")
@@ -165,6 +420,11 @@ public class CitaMedicaController {
                     description = "Cita médica no encontrada",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Ya existe una cita médica en ese slot",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Error interno del servidor",
@@ -323,6 +583,11 @@ public class CitaMedicaController {
                     description = "Cita médica no encontrada",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Ya existe una cita médica en ese slot",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Error interno del servidor",
@@ -352,20 +617,82 @@ public class CitaMedicaController {
         return ResponseEntity.ok().body(cita);
     }
 
-    @GetMapping("/delegadas/{idMedicoDelegado}")
-    public ResponseEntity<List<CitaMedicaResponse>> buscarCitasDelegadas(
+    @GetMapping(value = "/delegadas/{idMedicoDelegado}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Buscar citas delegadas a un Médico",
+            description = "Obtiene una página de las citas delegadas al médico, ordenadas por ID. " +
+                    "Para la siguiente página enviar el siguienteCursor recibido como despuesDe")
+    public ResponseEntity<PaginaResponse<CitaMedicaResponse>> buscarCitasDelegadas(
             @Parameter(description = "Identificador único de el Médico")
             @PathVariable
             @Positive(message = "El ID de el Médico debe ser positivo")
-            Long idMedicoDelegado) {
+            Long idMedicoDelegado,
+
+            @Parameter(description = "ID de la última cita de la página anterior")
+            @RequestParam(required = false)
+            @Positive(message = "El cursor debe ser positivo")
+            Long despuesDe,
+
+            @Parameter(description = "Cantidad máxima de citas por página")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
 
         log.info("Solicitud de buscar citas delegadas para Médico: {} recibida", idMedicoDelegado);
-        List<CitaMedicaResponse> citas = service.buscarCitasDelegadas(idMedicoDelegado);
+        PaginaResponse<CitaMedicaResponse> citas = service.buscarCitasDelegadas(idMedicoDelegado, despuesDe, limite);
         log.info("Solicitud de buscar citas delegadas para Médico: {} terminada, respuesta enviada", idMedicoDelegado);
 
         return ResponseEntity.ok().body(citas);
     }
 
+    @GetMapping(value = "/delegadas/{idMedicoDelegado}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Transmitir citas delegadas a un Médico",
+            description = "Envía todas las citas delegadas al médico como NDJSON (una cita por línea), " +
+                    "escribiendo cada lote apenas está listo")
+    public ResponseEntity<StreamingResponseBody> transmitirCitasDelegadas(
+            @Parameter(description = "Identificador único de el Médico")
+            @PathVariable
+            @Positive(message = "El ID de el Médico debe ser positivo")
+            Long idMedicoDelegado) {
+
+        log.info("Solicitud de transmitir citas delegadas para Médico: {} recibida", idMedicoDelegado);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(transmitir(cursor -> service.buscarCitasDelegadas(idMedicoDelegado, cursor, loteStreaming),
+                        "Médico: " + idMedicoDelegado));
+    }
+
+    /**
+     * Escribe las citas como NDJSON recorriendo las páginas con su cursor, de modo que en
+     * memoria solo hay una página a la vez y cada una se envía apenas se hidrata
+     */
+    private StreamingResponseBody transmitir(Function<Long, PaginaResponse<CitaMedicaResponse>> buscarPagina,
+                                             String descripcion) {
+        return out -> {
+            int total = 0;
+            Long cursor = null;
+            String siguiente;
+
+            do {
+                PaginaResponse<CitaMedicaResponse> pagina = buscarPagina.apply(cursor);
+
+                for (CitaMedicaResponse cita : pagina.contenido()) {
+                    out.write(objectMapper.writeValueAsBytes(cita));
+                    out.write('\n');
+                }
+                out.flush();
+
+                total += pagina.contenido().size();
+                // Las búsquedas que se transmiten son por ID, así que su cursor es el ID de la última cita
+                siguiente = pagina.siguienteCursor();
+                cursor = (siguiente != null) ? Long.valueOf(siguiente) : null;
+            } while (cursor != null);
+
+            log.info("Transmisión de citas para {} terminada, {} citas enviadas", descripcion, total);
+        };
+    }
+
     // ENDPOINTS PARA BRINDAR DATOS A OTROS MICROSERVICIOS
 
     @GetMapping("/feign/{id}")
@@ -399,4 +726,63 @@ public class CitaMedicaController {
 
         return ResponseEntity.ok().body(cita);
     }
+
+    @PostMapping("/feign/batch")
+    @Operation(summary = "Buscar varias citas por su ID (de utilidad para otros microservicios)",
+            description = "Obtiene varias citas médicas en una sola llamada, las que no existen se omiten")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Citas médicas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = CitaMedicaFeignResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "IDs inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<CitaMedicaFeignResponse>> brindarCitas(
+            @Parameter(description = "Identificadores únicos de las Citas")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un ID de Cita")
+            @Size(max = MAX_CITAS_POR_LOTE, message = "No se pueden pedir más de " + MAX_CITAS_POR_LOTE + " citas por llamada")
+            List<@NotNull @Positive(message = "El ID de la Cita Médica debe ser positivo") Long> ids) {
+
+        log.info("Solicitud de brindar {} citas recibida", ids.size());
+        List<CitaMedicaFeignResponse> citas = service.brindarCitas(ids);
+        log.info("Solicitud de brindar {} citas terminada, respuesta enviada", ids.size());
+
+        return ResponseEntity.ok().body(citas);
+    }
+
+    @PutMapping("/feign/slots/desactualizar")
+    @Operation(summary = "Marcar Slot como modificado (de utilidad para ApiHorario)",
+            description = "Invalida la copia local del Slot de las citas de un Horario o Slot, " +
+                    "para que se vuelva a obtener de ApiHorario en la siguiente lectura")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Citas marcadas correctamente"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "ID inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Void> marcarSlotDesactualizado(
+            @Parameter(description = "Identificador único del Horario")
+            @RequestParam
+            @Positive(message = "El ID del Horario debe ser positivo")
+            Long idHorario,
+
+            @Parameter(description = "Identificador único del Slot del Horario (opcional)")
+            @RequestParam(required = false)
+            @Positive(message = "El ID del Slot debe ser positivo")
+            Long idDetalle) {
+
+        log.info("Solicitud de desactualizar Slot para idHorario: {} e idDetalle: {} recibida", idHorario, idDetalle);
+        service.marcarSlotDesactualizado(idHorario, idDetalle);
+        log.info("Solicitud de desactualizar Slot para idHorario: {} terminada, respuesta enviada", idHorario);
+
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,17 @@
+package cm.apicitamedica.dto;
+
+import cm.apicitamedica.repository.CitaMedica;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record CitaRegistradaResponse(
+        @Schema(description = "Identificador único de la cita", example = "1")
+        Long id,
+
+        @Schema(description = "Estado de la cita", example = "PENDIENTE")
+        CitaMedica.EstadoCitaMedica estado,
+
+        @Schema(description = "Ruta para descargar el comprobante PDF de la cita",
+                example = "/citas-medicas/1/comprobante")
+        String comprobante
+) {
+}
@@ -0,0 +1,62 @@
+package cm.apicitamedica.dto;
+
+import cm.apicitamedica.repository.CitaMedica;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Cursor de las búsquedas por rango: la fecha, hora e ID de la última cita de una página.
+ * Viaja al cliente como un token opaco, y la consulta compara directamente esos valores
+ * sin volver a leer la cita (que pudo haberse eliminado o movido entre páginas)
+ *
+ * @param fecha Fecha del Slot de la cita
+ * @param horaInicio Hora de inicio del Slot de la cita
+ * @param id ID de la cita
+ */
+public record CursorCita(
+        LocalDate fecha,
+        LocalTime horaInicio,
+        Long id
+) {
+
+    private static final String SEPARADOR = "|";
+
+    /**
+     * Cursor de la primera página: va antes de cualquier cita desde esa fecha
+     */
+    public static CursorCita inicio(LocalDate desde) {
+        return new CursorCita(desde, LocalTime.MIN, 0L);
+    }
+
+    public static CursorCita de(CitaMedica cita) {
+        return new CursorCita(cita.getSlot().getFecha(), cita.getSlot().getHoraInicio(), cita.getId());
+    }
+
+    /**
+     * Lee un token generado por {@link #codificar()}
+     *
+     * @throws IllegalArgumentException Si el token no es un cursor válido
+     */
+    public static CursorCita decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\" + SEPARADOR, -1);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("El cursor no es válido");
+            }
+
+            return new CursorCita(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("El cursor no es válido", e);
+        }
+    }
+
+    public String codificar() {
+        String texto = fecha + SEPARADOR + horaInicio + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
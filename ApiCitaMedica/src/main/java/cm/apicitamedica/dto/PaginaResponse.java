@@ -0,0 +1,19 @@
+package cm.apicitamedica.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record PaginaResponse<T>(
+        @Schema(description = "Elementos de la página, en el orden de la búsqueda")
+        List<T> contenido,
+
+        @Schema(description = "Cursor para pedir la siguiente página (enviar como despuesDe), " +
+                "null si no hay más resultados. En las búsquedas por ID es el ID de la última cita; " +
+                "en las búsquedas por rango es un token con su fecha, hora e ID", example = "25")
+        String siguienteCursor,
+
+        @Schema(description = "Tamaño máximo de página usado", example = "20")
+        int limite
+) {
+}
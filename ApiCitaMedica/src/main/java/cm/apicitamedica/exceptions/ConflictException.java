@@ -0,0 +1,7 @@
+package cm.apicitamedica.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,300 @@
+package cm.apicitamedica.pdfgenerator;
+
+import cm.apicitamedica.dto.CitaMedicaResponse;
+import cm.apicitamedica.repository.CitaMedica;
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+import com.itextpdf.text.pdf.draw.LineSeparator;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Genera el comprobante PDF de una Cita Médica. Las partes estáticas del diseño (fuentes,
+ * colores, textos fijos, títulos de sección, párrafos del pie, anchos de columna y separador)
+ * se crean una sola vez y se comparten entre todos los comprobantes; por cada cita solo se
+ * arman los valores.
+ * <p>
+ * Las tablas ({@link PdfPTable}) y sus celdas se siguen creando por comprobante: iText les
+ * calcula y guarda anchos y alturas al maquetarlas, así que no se pueden compartir entre
+ * comprobantes que se generan a la vez. Los párrafos solo se leen al maquetar.
+ */
+@Component
+public class ComprobanteCitaPdfGenerator {
+
+    // ============ PLANTILLA: COLORES ============
+    private static final BaseColor AZUL = new BaseColor(41, 128, 185);
+    private static final BaseColor GRIS_ETIQUETA = new BaseColor(127, 140, 141);
+    private static final BaseColor GRIS_BORDE = new BaseColor(189, 195, 199);
+    private static final BaseColor GRIS_FONDO = new BaseColor(236, 240, 241);
+    private static final BaseColor AZUL_OSCURO = new BaseColor(52, 73, 94);
+    private static final BaseColor VERDE = new BaseColor(39, 174, 96);
+
+    // ============ PLANTILLA: FUENTES ============
+    // Las fuentes base se resuelven una sola vez en lugar de buscarlas por cada texto
+    private static final BaseFont HELVETICA = crearFuenteBase(BaseFont.HELVETICA);
+    private static final BaseFont HELVETICA_BOLD = crearFuenteBase(BaseFont.HELVETICA_BOLD);
+    private static final BaseFont HELVETICA_OBLIQUE = crearFuenteBase(BaseFont.HELVETICA_OBLIQUE);
+
+    private static final Font TITULO_FONT = new Font(HELVETICA_BOLD, 22, Font.NORMAL, BaseColor.WHITE);
+    private static final Font CODIGO_FONT = new Font(HELVETICA, 11, Font.NORMAL, BaseColor.WHITE);
+    private static final Font SUBTITULO_FONT = new Font(HELVETICA_BOLD, 14, Font.NORMAL, AZUL);
+    private static final Font LABEL_FONT = new Font(HELVETICA_BOLD, 10, Font.NORMAL, GRIS_ETIQUETA);
+    private static final Font NORMAL_FONT = new Font(HELVETICA, 11, Font.NORMAL, BaseColor.DARK_GRAY);
+    private static final Font DESTACADO_FONT = new Font(HELVETICA_BOLD, 12, Font.NORMAL, AZUL);
+    private static final Font COSTO_FONT = new Font(HELVETICA_BOLD, 16, Font.NORMAL, VERDE);
+    private static final Font ESTADO_FONT = new Font(HELVETICA_BOLD, 11, Font.NORMAL, AZUL_OSCURO);
+    private static final Font PIE_FONT = new Font(HELVETICA_BOLD, 11, Font.NORMAL, AZUL_OSCURO);
+    private static final Font PIE_NOTA_FONT = new Font(HELVETICA_OBLIQUE, 9, Font.NORMAL, BaseColor.GRAY);
+
+    // ============ PLANTILLA: TEXTOS Y DISEÑO FIJO ============
+    private static final String TITULO = "COMPROBANTE DE CITA MÉDICA";
+    private static final String TITULO_PACIENTE = "DATOS DEL PACIENTE";
+    private static final String TITULO_CITA = "DETALLES DE LA CITA";
+    private static final String LABEL_COSTO = "COSTO DE LA CONSULTA:";
+    private static final String PIE = "Gracias por confiar en nuestra clínica";
+    private static final String PIE_NOTA = "Por favor, llegue 15 minutos antes de su cita";
+
+    private static final int[] ANCHOS_DATOS = {1, 2};
+    private static final int[] ANCHOS_COSTO = {3, 1};
+
+    private static final LineSeparator SEPARADOR = new LineSeparator();
+
+    // ============ PLANTILLA: PÁRRAFOS FIJOS ============
+    private static final Paragraph ESPACIO = new Paragraph(" ");
+    private static final Paragraph ESPACIO_SECCION = new Paragraph(" ", NORMAL_FONT);
+    private static final Paragraph PARRAFO_TITULO = centrado(new Paragraph(TITULO, TITULO_FONT));
+    private static final Paragraph PARRAFO_TITULO_PACIENTE = new Paragraph(TITULO_PACIENTE, SUBTITULO_FONT);
+    private static final Paragraph PARRAFO_TITULO_CITA = new Paragraph(TITULO_CITA, SUBTITULO_FONT);
+    private static final Paragraph PARRAFO_PIE = centrado(new Paragraph(PIE, PIE_FONT));
+    private static final Paragraph PARRAFO_PIE_NOTA = centrado(new Paragraph(PIE_NOTA, PIE_NOTA_FONT));
+
+    static {
+        SEPARADOR.setLineColor(GRIS_BORDE);
+        PARRAFO_PIE_NOTA.setSpacingBefore(5);
+    }
+
+    // Tamaño del último comprobante, para reservar el buffer de salida sin redimensionarlo
+    private volatile int tamanoEstimado = 4096;
+
+    /**
+     * Genera un PDF con los datos de la Cita Médica
+     * para entregar al Paciente
+     *
+     * @param cita Objeto {@link CitaMedicaResponse} que contiene los datos de la Cita Médica
+     * @return PDF con los datos de la Cita Médica
+     */
+    public byte[] generarPdf(CitaMedicaResponse cita) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(tamanoEstimado)) {
+            Document document = new Document(PageSize.A4, 40, 40, 50, 50);
+            PdfWriter.getInstance(document, baos);
+            document.open();
+
+            // ============ ENCABEZADO CON FONDO AZUL ============
+            document.add(encabezado(cita.id()));
+            document.add(espacio());
+
+            // ============ INFORMACIÓN DEL PACIENTE ============
+            agregarTituloSeccion(document, PARRAFO_TITULO_PACIENTE);
+
+            PdfPTable pacienteTable = tablaDatos();
+            agregarFilaTabla(pacienteTable, "Paciente:",
+                    cita.paciente().nombres() + " " + cita.paciente().apellidos(), NORMAL_FONT);
+            agregarFilaTabla(pacienteTable, "DNI:", cita.paciente().dni(), NORMAL_FONT);
+            agregarFilaTabla(pacienteTable, "Fecha de Nacimiento:",
+                    cita.paciente().fechaNacimiento().toString(), NORMAL_FONT);
+
+            document.add(pacienteTable);
+            document.add(espacio());
+
+            // ============ LÍNEA SEPARADORA ============
+            agregarSeparador(document);
+
+            // ============ DETALLES DE LA CITA ============
+            agregarTituloSeccion(document, PARRAFO_TITULO_CITA);
+
+            PdfPTable citaTable = tablaDatos();
+            agregarFilaTabla(citaTable, "Médico:", cita.detalles().medico().nombreCompleto(), DESTACADO_FONT);
+            agregarFilaTabla(citaTable, "Especialidad:", cita.detalles().especialidad().nombre(), NORMAL_FONT);
+            agregarFilaTabla(citaTable, "Fecha:", cita.detalles().fecha().toString(), DESTACADO_FONT);
+            agregarFilaTabla(citaTable, "Hora:", cita.detalles().hora().toString(), DESTACADO_FONT);
+            agregarFilaTabla(citaTable, "Consultorio:", "N° " + cita.detalles().consultorio().nro_consultorio(), NORMAL_FONT);
+            agregarFilaTabla(citaTable, "Ubicación:", cita.detalles().consultorio().ubicacion(), NORMAL_FONT);
+
+            document.add(citaTable);
+            document.add(espacio());
+
+            // ============ LÍNEA SEPARADORA ============
+            agregarSeparador(document);
+
+            // ============ INFORMACIÓN DE PAGO ============
+            document.add(tablaCosto("S/ " + cita.costo().toString()));
+            document.add(espacio());
+
+            // ============ ESTADO DE LA CITA ============
+            document.add(tablaEstado(formatearEstado(cita.estado())));
+            document.add(espacio());
+            document.add(espacio());
+
+            // ============ PIE DE PÁGINA ============
+            document.add(pie());
+
+            document.close();
+
+            tamanoEstimado = baos.size();
+            return baos.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("Error generando PDF", e);
+        }
+    }
+
+    // PARTES ESTÁTICAS DE LA PLANTILLA
+
+    private PdfPTable encabezado(Long idCita) {
+        PdfPTable headerTable = new PdfPTable(1);
+        headerTable.setWidthPercentage(100);
+        PdfPCell headerCell = new PdfPCell();
+        headerCell.setBackgroundColor(AZUL);
+        headerCell.setBorder(Rectangle.NO_BORDER);
+        headerCell.setPadding(15);
+
+        headerCell.addElement(PARRAFO_TITULO);
+
+        Paragraph codigoCita = centrado(new Paragraph("N° " + formatearCodigo(idCita), CODIGO_FONT));
+        codigoCita.setSpacingBefore(5);
+        headerCell.addElement(codigoCita);
+
+        headerTable.addCell(headerCell);
+        return headerTable;
+    }
+
+    private void agregarSeparador(Document document) throws DocumentException {
+        document.add(new Chunk(SEPARADOR));
+        document.add(espacio());
+    }
+
+    private void agregarTituloSeccion(Document document, Paragraph titulo) throws DocumentException {
+        document.add(titulo);
+        document.add(ESPACIO_SECCION);
+    }
+
+    private PdfPTable tablaDatos() throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+        table.setWidths(ANCHOS_DATOS);
+        return table;
+    }
+
+    private PdfPTable tablaCosto(String costo) throws DocumentException {
+        PdfPTable costoTable = new PdfPTable(2);
+        costoTable.setWidthPercentage(100);
+        costoTable.setWidths(ANCHOS_COSTO);
+
+        PdfPCell costoLabelCell = new PdfPCell(new Phrase(LABEL_COSTO, LABEL_FONT));
+        costoLabelCell.setBorder(Rectangle.NO_BORDER);
+        costoLabelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        costoLabelCell.setPaddingRight(10);
+        costoTable.addCell(costoLabelCell);
+
+        PdfPCell costoValueCell = new PdfPCell(new Phrase(costo, COSTO_FONT));
+        costoValueCell.setBorder(Rectangle.NO_BORDER);
+        costoValueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        costoTable.addCell(costoValueCell);
+
+        return costoTable;
+    }
+
+    private PdfPTable tablaEstado(String estado) {
+        PdfPTable estadoTable = new PdfPTable(1);
+        estadoTable.setWidthPercentage(100);
+        PdfPCell estadoCell = new PdfPCell();
+        estadoCell.setBackgroundColor(GRIS_FONDO);
+        estadoCell.setBorder(Rectangle.BOX);
+        estadoCell.setBorderColor(GRIS_BORDE);
+        estadoCell.setPadding(10);
+        estadoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+
+        estadoCell.addElement(centrado(new Paragraph("Estado: " + estado, ESTADO_FONT)));
+
+        estadoTable.addCell(estadoCell);
+        return estadoTable;
+    }
+
+    private PdfPTable pie() {
+        PdfPTable footerTable = new PdfPTable(1);
+        footerTable.setWidthPercentage(100);
+        PdfPCell footerCell = new PdfPCell();
+        footerCell.setBorder(Rectangle.TOP);
+        footerCell.setBorderColor(GRIS_BORDE);
+        footerCell.setPaddingTop(15);
+        footerCell.setBorderWidth(1);
+
+        footerCell.addElement(PARRAFO_PIE);
+        footerCell.addElement(PARRAFO_PIE_NOTA);
+
+        footerTable.addCell(footerCell);
+        return footerTable;
+    }
+
+    private Paragraph espacio() {
+        return ESPACIO;
+    }
+
+    /**
+     * Metodo auxiliar para el generarPdf
+     */
+    private void agregarFilaTabla(PdfPTable table, String label, String value, Font valueFont) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, LABEL_FONT));
+        labelCell.setBorder(Rectangle.NO_BORDER);
+        labelCell.setPaddingBottom(8);
+        labelCell.setPaddingTop(5);
+        table.addCell(labelCell);
+
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, valueFont));
+        valueCell.setBorder(Rectangle.NO_BORDER);
+        valueCell.setPaddingBottom(8);
+        valueCell.setPaddingTop(5);
+        table.addCell(valueCell);
+    }
+
+    /**
+     * Código de 6 dígitos de la cita, sin pasar por {@code String.format}
+     */
+    private String formatearCodigo(Long idCita) {
+        if (idCita == null) {
+            return "------";
+        }
+
+        String id = idCita.toString();
+        return (id.length() >= 6) ? id : "000000".substring(id.length()) + id;
+    }
+
+    /**
+     * Formatea el estado de la Cita Médica a uno más legible
+     */
+    private String formatearEstado(CitaMedica.EstadoCitaMedica estado) {
+        return switch (estado) {
+            case PENDIENTE -> "Pendiente";
+            case COMPLETADA -> "Completada";
+            case CANCELADA -> "Cancelada";
+        };
+    }
+
+    private static Paragraph centrado(Paragraph parrafo) {
+        parrafo.setAlignment(Element.ALIGN_CENTER);
+        return parrafo;
+    }
+
+    private static BaseFont crearFuenteBase(String nombre) {
+        try {
+            return BaseFont.createFont(nombre, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DocumentException e) {
+            throw new IllegalStateException("No se pudo cargar la fuente " + nombre, e);
+        }
+    }
+
+}
@@ -9,13 +9,24 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "citas_medicas")
+@Table(name = "citas_medicas", uniqueConstraints = {
+        @UniqueConstraint(name = CitaMedica.UK_SLOT_ACTIVO, columnNames = {"id_horario", "slot_activo"})
+}, indexes = {
+        @Index(name = "idx_cita_dni_estado_id", columnList = "dni_paciente, estado, id"),
+        @Index(name = "idx_cita_medico_delegado_id", columnList = "id_medico_delegado, id"),
+        @Index(name = "idx_cita_fecha_hora", columnList = "fecha, hora_inicio, id"),
+        @Index(name = "idx_cita_medico_fecha_hora", columnList = "id_medico, fecha, hora_inicio, id"),
+        @Index(name = "idx_cita_especialidad_fecha_hora", columnList = "id_especialidad, fecha, hora_inicio, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CitaMedica {
 
+    // Restricción que permite una sola cita no cancelada por Slot
+    public static final String UK_SLOT_ACTIVO = "uk_cita_slot_activo";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,15 +40,28 @@ public class CitaMedica {
     @Column(name = "id_detalle_horario", nullable = false)
     private Long idDetalleHorario;
 
+    // Columna calculada por la BD: el Slot mientras la cita no esté cancelada, null si lo está.
+    // Como los null no chocan en un índice único, las citas canceladas liberan el Slot
+    @Column(name = "slot_activo", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS " +
+                    "(CASE WHEN estado <> 'CANCELADA' THEN id_detalle_horario END)")
+    private Long slotActivo;
+
     @Column(name = "id_medico_delegado")
     private Long idMedicoDelegado;
 
     @Column(name = "id_medico_original")
     private Long idMedicoOriginal;
 
+    @Column(name = "nombre_medico_original")
+    private String nombreMedicoOriginal;
+
     @Column(name = "motivo_reemplazo")
     private String motivoReemplazo;
 
+    @Column(name = "nombre_paciente")
+    private String nombrePaciente;
+
     @Column(name = "costo", nullable = false)
     private BigDecimal costo;
 
@@ -46,6 +70,15 @@ public class CitaMedica {
     @Builder.Default
     private EstadoCitaMedica estado = EstadoCitaMedica.PENDIENTE;
 
+    @Embedded
+    private SlotSnapshot slot;
+
+    @Column(name = "slot_version")
+    private Integer slotVersion;
+
+    @Column(name = "slot_desactualizado", nullable = false)
+    private boolean slotDesactualizado;
+
     public enum EstadoCitaMedica {
         PENDIENTE,
         COMPLETADA,
@@ -72,4 +105,20 @@ public class CitaMedica {
         this.estado = EstadoCitaMedica.COMPLETADA;
     }
 
+    /**
+     * Reemplaza la copia local del Slot y aumenta su versión
+     */
+    public void actualizarSlot(SlotSnapshot slot) {
+        this.slot = slot;
+        this.slotVersion = (this.slotVersion == null) ? 1 : this.slotVersion + 1;
+        this.slotDesactualizado = false;
+    }
+
+    /**
+     * Verifica si la copia local del Slot puede usarse sin consultar a ApiHorario
+     */
+    public boolean tieneSlotVigente() {
+        return this.slot != null && !this.slotDesactualizado;
+    }
+
 }
@@ -1,53 +1,144 @@
 package cm.apicitamedica.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface CitaMedicaRepository extends JpaRepository<CitaMedica, Long> {
+
+    /**
+     * Keyset de las búsquedas por rango: citas que van después del cursor en el orden
+     * (fecha, hora, ID). Es {@code (fecha, hora, id) > (:fechaCursor, :horaCursor, :idCursor)}
+     * desarrollado, comparando con los valores del cursor sin volver a leer su cita
+     */
+    String DESPUES_DEL_CURSOR = "(c.slot.fecha > :fechaCursor OR (c.slot.fecha = :fechaCursor AND (" +
+            "c.slot.horaInicio > :horaCursor OR " +
+            "(c.slot.horaInicio = :horaCursor AND c.id > :idCursor)))) ";
+
     Optional<CitaMedica> findByIdHorarioAndIdDetalleHorario(Long idHorario, Long idDetalleHorario);
 
+    Optional<CitaMedica> findByDniPaciente(String dniPaciente);
+
     /**
-     * Verifica si existe solapamiento al crear una nueva cita médica
-     * @param idHorario ID del horario
-     * @param idDetalle ID del detalle
-     * @param dniPaciente DNI del paciente (opcional)
-     * @return true si existe solapamiento, false en caso contrario
+     * Página (keyset) de citas de un paciente con un estado, con ID mayor al cursor
+     * @param dniPaciente DNI del paciente
+     * @param estado Estado de las citas
+     * @param despuesDe ID de la última cita de la página anterior (0 para la primera)
+     * @param limite Máximo de citas a devolver
+     * @return citas ordenadas por ID
      */
-    @Query("SELECT COUNT(c) > 0 FROM CitaMedica c WHERE " +
-            "c.idHorario = :idHorario AND " +
-            "c.idDetalleHorario = :idDetalle AND " +
-            "(:dniPaciente IS NULL OR c.dniPaciente = :dniPaciente) AND " +
-            "c.estado <> cm.apicitamedica.repository.CitaMedica.EstadoCitaMedica.CANCELADA")
-    boolean existeSolapamiento(@Param("idHorario") Long idHorario,
-                               @Param("idDetalle") Long idDetalle,
-                               @Param("dniPaciente") String dniPaciente);
+    List<CitaMedica> findByDniPacienteAndEstadoAndIdGreaterThanOrderByIdAsc(String dniPaciente,
+                                                                            CitaMedica.EstadoCitaMedica estado,
+                                                                            Long despuesDe,
+                                                                            Limit limite);
 
     /**
-     * Verifica si existe solapamiento al actualizar una cita médica, excluyendo la cita actual
-     * @param idHorario ID del horario
-     * @param idDetalle ID del detalle
-     * @param dniPaciente DNI del paciente (opcional)
-     * @param idCitaExcluir ID de la cita a excluir (la que se está actualizando)
-     * @return true si existe solapamiento, false en caso contrario
+     * Página (keyset) de citas delegadas a un médico, con ID mayor al cursor
+     * @param idMedicoDelegado ID del médico delegado
+     * @param despuesDe ID de la última cita de la página anterior (0 para la primera)
+     * @param limite Máximo de citas a devolver
+     * @return citas ordenadas por ID
      */
-    @Query("SELECT COUNT(c) > 0 FROM CitaMedica c WHERE " +
-            "c.idHorario = :idHorario AND " +
-            "c.idDetalleHorario = :idDetalle AND " +
-            "(:dniPaciente IS NULL OR c.dniPaciente = :dniPaciente) AND " +
-            "c.id <> :idCitaExcluir AND " +
-            "c.estado<> cm.apicitamedica.repository.CitaMedica.EstadoCitaMedica.CANCELADA")
-    boolean existeSolapamientoExcluyendoId(@Param("idHorario") Long idHorario,
-                                           @Param("idDetalle") Long idDetalle,
-                                           @Param("dniPaciente") String dniPaciente,
-                                           @Param("idCitaExcluir") Long idCitaExcluir);
+    List<CitaMedica> findByIdMedicoDelegadoAndIdGreaterThanOrderByIdAsc(Long idMedicoDelegado,
+                                                                         Long despuesDe,
+                                                                         Limit limite);
 
-    Optional<CitaMedica> findByDniPaciente(String dniPaciente);
+    /**
+     * Busca las citas de un rango de fechas usando la fecha y hora copiadas del Slot
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param fechaCursor Fecha de la última cita de la página anterior
+     * @param horaCursor Hora de la última cita de la página anterior
+     * @param idCursor ID de la última cita de la página anterior
+     * @param limite Máximo de citas a devolver
+     * @return citas ordenadas por fecha y hora
+     */
+    @Query("SELECT c FROM CitaMedica c WHERE " +
+            "c.slot.fecha BETWEEN :desde AND :hasta AND " +
+            "(:estado IS NULL OR c.estado = :estado) AND " +
+            DESPUES_DEL_CURSOR +
+            "ORDER BY c.slot.fecha, c.slot.horaInicio, c.id")
+    List<CitaMedica> findByRangoFechas(@Param("desde") LocalDate desde,
+                                       @Param("hasta") LocalDate hasta,
+                                       @Param("estado") CitaMedica.EstadoCitaMedica estado,
+                                       @Param("fechaCursor") LocalDate fechaCursor,
+                                       @Param("horaCursor") LocalTime horaCursor,
+                                       @Param("idCursor") Long idCursor,
+                                       Limit limite);
 
-    List<CitaMedica> findAllByDniPacienteAndEstado(String dniPaciente, CitaMedica.EstadoCitaMedica estado);
+    /**
+     * Busca las citas de un médico en un rango de fechas
+     * @param idMedico ID del médico del Slot
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param fechaCursor Fecha de la última cita de la página anterior
+     * @param horaCursor Hora de la última cita de la página anterior
+     * @param idCursor ID de la última cita de la página anterior
+     * @param limite Máximo de citas a devolver
+     * @return citas ordenadas por fecha y hora
+     */
+    @Query("SELECT c FROM CitaMedica c WHERE " +
+            "c.slot.idMedico = :idMedico AND " +
+            "c.slot.fecha BETWEEN :desde AND :hasta AND " +
+            "(:estado IS NULL OR c.estado = :estado) AND " +
+            DESPUES_DEL_CURSOR +
+            "ORDER BY c.slot.fecha, c.slot.horaInicio, c.id")
+    List<CitaMedica> findByMedicoYRangoFechas(@Param("idMedico") Long idMedico,
+                                              @Param("desde") LocalDate desde,
+                                              @Param("hasta") LocalDate hasta,
+                                              @Param("estado") CitaMedica.EstadoCitaMedica estado,
+                                              @Param("fechaCursor") LocalDate fechaCursor,
+                                              @Param("horaCursor") LocalTime horaCursor,
+                                              @Param("idCursor") Long idCursor,
+                                              Limit limite);
 
-    List<CitaMedica> findAllByIdMedicoDelegado(Long idMedicoDelegado);
+    /**
+     * Busca las citas de una especialidad en un rango de fechas
+     * @param idEspecialidad ID de la especialidad del Slot
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param fechaCursor Fecha de la última cita de la página anterior
+     * @param horaCursor Hora de la última cita de la página anterior
+     * @param idCursor ID de la última cita de la página anterior
+     * @param limite Máximo de citas a devolver
+     * @return citas ordenadas por fecha y hora
+     */
+    @Query("SELECT c FROM CitaMedica c WHERE " +
+            "c.slot.idEspecialidad = :idEspecialidad AND " +
+            "c.slot.fecha BETWEEN :desde AND :hasta AND " +
+            "(:estado IS NULL OR c.estado = :estado) AND " +
+            DESPUES_DEL_CURSOR +
+            "ORDER BY c.slot.fecha, c.slot.horaInicio, c.id")
+    List<CitaMedica> findByEspecialidadYRangoFechas(@Param("idEspecialidad") Long idEspecialidad,
+                                                    @Param("desde") LocalDate desde,
+                                                    @Param("hasta") LocalDate hasta,
+                                                    @Param("estado") CitaMedica.EstadoCitaMedica estado,
+                                                    @Param("fechaCursor") LocalDate fechaCursor,
+                                                    @Param("horaCursor") LocalTime horaCursor,
+                                                    @Param("idCursor") Long idCursor,
+                                                    Limit limite);
+
+    /**
+     * Marca como desactualizada la copia local del Slot de las citas de un horario,
+     * o de un solo slot si se indica idDetalle
+     * @param idHorario ID del horario
+     * @param idDetalle ID del detalle (opcional)
+     * @return cantidad de citas marcadas
+     */
+    @Modifying
+    @Query("UPDATE CitaMedica c SET c.slotDesactualizado = true WHERE " +
+            "c.idHorario = :idHorario AND " +
+            "(:idDetalle IS NULL OR c.idDetalleHorario = :idDetalle)")
+    int marcarSlotDesactualizado(@Param("idHorario") Long idHorario,
+                                 @Param("idDetalle") Long idDetalle);
 }
@@ -0,0 +1,140 @@
+package cm.apicitamedica.repository;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Comando pendiente de enviar a otro microservicio. Se guarda en la misma transacción
+ * que la Cita y lo entrega en segundo plano el {@code OutboxCitaService}
+ */
+@Entity
+@Table(name = "outbox_citas",
+        indexes = {
+                @Index(name = "idx_outbox_estado_tipo_proximo", columnList = "estado, tipo, proximo_intento")
+        },
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_outbox_clave_idempotencia", columnNames = "clave_idempotencia")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MensajeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoMensaje tipo;
+
+    // Se envía al microservicio destino para que los reintentos no dupliquen el efecto
+    @Column(name = "clave_idempotencia", nullable = false, length = 100)
+    private String claveIdempotencia;
+
+    @Column(name = "id_cita", nullable = false)
+    private Long idCita;
+
+    @Column(name = "id_horario")
+    private Long idHorario;
+
+    @Column(name = "id_detalle_horario")
+    private Long idDetalleHorario;
+
+    @Column(name = "dni_paciente")
+    private String dniPaciente;
+
+    @Column(name = "monto")
+    private BigDecimal monto;
+
+    @Column(name = "metodo_pago")
+    private String metodoPago;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    @Builder.Default
+    private EstadoMensaje estado = EstadoMensaje.PENDIENTE;
+
+    @Column(name = "intentos", nullable = false)
+    @Builder.Default
+    private int intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    @Builder.Default
+    private LocalDateTime proximoIntento = LocalDateTime.now();
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    @Builder.Default
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    public enum TipoMensaje {
+        OCUPAR_SLOT,
+        LIBERAR_SLOT,
+        REGISTRAR_PAGO
+    }
+
+    public enum EstadoMensaje {
+        PENDIENTE,
+        ENVIADO,
+        FALLIDO,
+        DESCARTADO
+    }
+
+    public void marcarEnviado() {
+        this.estado = EstadoMensaje.ENVIADO;
+        this.intentos++;
+        this.ultimoError = null;
+    }
+
+    /**
+     * Registra un intento fallido y programa el siguiente, o marca el mensaje
+     * como FALLIDO si se agotaron los intentos
+     *
+     * @return true si el mensaje ya no se volverá a intentar
+     */
+    public boolean registrarFallo(String error, Duration espera, int maxIntentos) {
+        this.intentos++;
+        this.ultimoError = recortar(error);
+
+        if (this.intentos >= maxIntentos) {
+            this.estado = EstadoMensaje.FALLIDO;
+            return true;
+        }
+
+        this.proximoIntento = LocalDateTime.now().plus(espera);
+        return false;
+    }
+
+    /**
+     * Marca el mensaje como FALLIDO sin más reintentos, porque el destino lo rechazó
+     */
+    public void rechazar(String motivo) {
+        this.intentos++;
+        this.estado = EstadoMensaje.FALLIDO;
+        this.ultimoError = recortar(motivo);
+    }
+
+    /**
+     * Marca el mensaje como DESCARTADO sin enviarlo, porque su cita ya no lo necesita
+     */
+    public void descartar(String motivo) {
+        this.estado = EstadoMensaje.DESCARTADO;
+        this.ultimoError = recortar(motivo);
+    }
+
+    private String recortar(String texto) {
+        return (texto != null && texto.length() > 500) ? texto.substring(0, 500) : texto;
+    }
+
+}
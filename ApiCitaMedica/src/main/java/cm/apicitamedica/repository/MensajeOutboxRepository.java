@@ -0,0 +1,26 @@
+package cm.apicitamedica.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MensajeOutboxRepository extends JpaRepository<MensajeOutbox, Long> {
+
+    /**
+     * Busca los mensajes de un tipo listos para enviarse, en orden de creación
+     */
+    List<MensajeOutbox> findByEstadoAndTipoAndProximoIntentoLessThanEqualOrderByIdAsc(
+            MensajeOutbox.EstadoMensaje estado,
+            MensajeOutbox.TipoMensaje tipo,
+            LocalDateTime ahora,
+            Pageable pageable);
+
+    /**
+     * Busca los mensajes de un tipo de una cita que están en un estado
+     */
+    List<MensajeOutbox> findByIdCitaAndTipoAndEstado(Long idCita,
+                                                     MensajeOutbox.TipoMensaje tipo,
+                                                     MensajeOutbox.EstadoMensaje estado);
+}
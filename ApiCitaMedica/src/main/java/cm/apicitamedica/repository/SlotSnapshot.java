@@ -0,0 +1,48 @@
+package cm.apicitamedica.repository;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Copia local de los datos del Slot de ApiHorario al que está asociada una Cita,
+ * para no volver a consultarlos en cada lectura
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlotSnapshot {
+
+    @Column(name = "id_medico")
+    private Long idMedico;
+
+    @Column(name = "nombre_medico")
+    private String nombreMedico;
+
+    @Column(name = "id_especialidad")
+    private Long idEspecialidad;
+
+    @Column(name = "nombre_especialidad")
+    private String nombreEspecialidad;
+
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    @Column(name = "hora_inicio")
+    private LocalTime horaInicio;
+
+    @Column(name = "nro_consultorio")
+    private String nroConsultorio;
+
+    @Column(name = "ubicacion_consultorio")
+    private String ubicacionConsultorio;
+
+}
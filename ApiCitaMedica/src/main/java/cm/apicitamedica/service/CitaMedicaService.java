@@ -4,84 +4,162 @@ import cm.apicitamedica.client.empleado.EmpleadoClientResponse;
 import cm.apicitamedica.client.empleado.EmpleadoFeignClient;
 import cm.apicitamedica.client.paciente.PacienteFeignClient;
 import cm.apicitamedica.client.paciente.PacienteSimpleResponse;
-import cm.apicitamedica.client.pagocita.PagoCitaFeignClient;
-import cm.apicitamedica.client.pagocita.PagoCitaRequest;
 import cm.apicitamedica.client.slot.DetalleHorarioFeignClient;
+import cm.apicitamedica.client.slot.RetencionSlotResponse;
+import cm.apicitamedica.client.slot.SlotClientRequest;
 import cm.apicitamedica.client.slot.SlotClientResponse;
 import cm.apicitamedica.client.slot.SlotDisponibleResponse;
 import cm.apicitamedica.dto.CitaMedicaFeignResponse;
 import cm.apicitamedica.dto.CitaMedicaRequest;
 import cm.apicitamedica.dto.CitaMedicaResponse;
+import cm.apicitamedica.dto.CitaRegistradaResponse;
+import cm.apicitamedica.dto.CursorCita;
 import cm.apicitamedica.dto.MotivoReemplazoRequest;
+import cm.apicitamedica.dto.PaginaResponse;
+import cm.apicitamedica.exceptions.ConflictException;
+import cm.apicitamedica.exceptions.ServiceUnavailableException;
 import cm.apicitamedica.repository.CitaMedica;
 import cm.apicitamedica.repository.CitaMedicaRepository;
-import com.itextpdf.text.pdf.draw.LineSeparator;
+import cm.apicitamedica.repository.SlotSnapshot;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CitaMedicaService {
 
+    // Máximo de slots que ApiHorario acepta por llamada batch
+    private static final int MAX_SLOTS_POR_LOTE = 200;
+
+    // Máximo de días que abarcan las búsquedas por rango de fechas
+    private static final int MAX_DIAS_RANGO = 31;
+
+    // Máximo de consultas a ApiPaciente en curso a la vez, sumando todas las solicitudes
+    private static final int MAX_CONSULTAS_PACIENTE = 16;
+
     private final CitaMedicaRepository repository;
     private final PacienteFeignClient pacienteClient;
     private final DetalleHorarioFeignClient detallesClient;
-    private final PagoCitaFeignClient pagoCitaClient;
     private final EmpleadoFeignClient empleadoClient;
+    private final ExecutorService llamadasRemotasExecutor;
+    private final ComprobanteCitaService comprobanteService;
+    private final OutboxCitaService outboxService;
+
+    private final Semaphore consultasPaciente = new Semaphore(MAX_CONSULTAS_PACIENTE);
+
+    // Tiempo máximo total para las llamadas remotas que arman una cita
+    @Value("${citas.llamadas-remotas.deadline-ms:4000}")
+    private long deadlineMs;
 
     // SERVICIOS CRUD
 
     /**
      * Registra una cita médica en la base de datos
      *
+     * La ocupación del Slot y el registro del pago se guardan en el outbox dentro de la misma
+     * transacción, y el comprobante PDF se genera en segundo plano una vez confirmada
+     *
      * @param request Objeto {@link CitaMedicaRequest} que contiene los datos requeridos para registrar la cita
-     * @return Objeto {@link CitaMedicaResponse} que contiene los datos de la cita ya registrada
+     * @return Objeto {@link CitaRegistradaResponse} con el ID de la cita ya registrada
      * @throws IllegalStateException Si el Slot del horario donde se registrará la cita
      * no está disponible
      * @throws IllegalArgumentException Si el idHorario o idDetalle usado en {@code obtenerSlot} es inválido
      */
     @Transactional
-    public byte[] registrar(CitaMedicaRequest request) {
+    public CitaRegistradaResponse registrar(CitaMedicaRequest request) {
         log.info("Inicio de proceso de registro para DNI: {}", request.dniPaciente());
 
-        SlotClientResponse slot = obtenerSlot(request.idHorario(), request.idDetalleHorario());
+        // Retener el Slot valida que esté disponible y lo aparta para este paciente hasta que
+        // el outbox lo ocupe; si otro paciente lo tiene, falla aquí antes de crear la cita
+        retenerSlot(request.idHorario(), request.idDetalleHorario(), request.dniPaciente());
+
+        // Si la cita no llega a confirmarse, la retención se suelta en lugar de esperar a que venza
+        siSeRevierte(() -> soltarRetencion(request.idHorario(), request.idDetalleHorario(), request.dniPaciente()));
+
+        long limite = calcularLimite();
+        Future<PacienteSimpleResponse> consultaPaciente = consultarPaciente(request.dniPaciente(), limite);
 
-        log.debug("Realizando validaciones");
-        validarSlot(request.idHorario(), request.idDetalleHorario(), null, request.dniPaciente(), slot.estado());
-        log.debug("Validaciones sin excepciones encontradas");
+        SlotClientResponse slot;
+        String nombrePaciente;
+        try {
+            slot = obtenerSlot(request.idHorario(), request.idDetalleHorario());
+            nombrePaciente = resolverNombrePaciente(request.dniPaciente(), consultaPaciente, limite);
+        } finally {
+            cancelarPendientes(Collections.singletonList(consultaPaciente));
+        }
 
         BigDecimal costo = slot.especialidad().costo();
 
         log.debug("Creando entidad CitaMedica para: {}", request);
         CitaMedica citaMedica = CitaMedica.builder()
                 .dniPaciente(request.dniPaciente())
+                .nombrePaciente(nombrePaciente)
                 .idHorario(request.idHorario())
                 .idDetalleHorario(request.idDetalleHorario())
                 .costo(costo)
                 .build();
+        citaMedica.actualizarSlot(toSnapshot(slot));
 
-        CitaMedica c = repository.save(citaMedica);
+        CitaMedica c = guardarEnSlot(citaMedica);
         log.info("Cita con ID: {} registrada correctamente", c.getId());
 
-        log.debug("Ocupando Slot con ID: {} con idCita: {}", request.idDetalleHorario(), c.getId());
-        ocuparSlot(request.idHorario(), request.idDetalleHorario(), c.getId());
-        log.debug("Slot con ID: {} ocupado correctamente con idCita: {}", request.idDetalleHorario(), c.getId());
+        // La ocupación del Slot y el registro del pago se entregan en segundo plano desde el outbox
+        outboxService.encolarOcuparSlot(c, request.metodoPago());
+        log.debug("Ocupación de Slot con ID: {} encolada para idCita: {}", request.idDetalleHorario(), c.getId());
 
-        log.debug("Registrando pago de cita para Cita Médica: {}", citaMedica.getId());
-        registrarPagoCita(citaMedica.getId(), citaMedica.getDniPaciente(), citaMedica.getCosto(), request.metodoPago());
-        log.debug("Pago de cita registrado para Cita Médica: {}", citaMedica.getId());
+        Long idCita = c.getId();
+        despuesDeConfirmar(() -> comprobanteService.generarEnSegundoPlano(idCita, () -> toResponse(buscarCita(idCita))));
 
-        return generarPdfCita(toResponse(c));
+        return new CitaRegistradaResponse(idCita, c.getEstado(), "/citas-medicas/" + idCita + "/comprobante");
+    }
+
+    /**
+     * Obtiene el comprobante PDF de una Cita Médica, desde caché o generándolo si no está
+     *
+     * @param id Identificador único de la Cita Médica
+     * @return PDF con los datos de la Cita Médica
+     * @throws EntityNotFoundException Si no se encuentra la cita con el ID brindado
+     */
+    public byte[] obtenerComprobante(Long id) {
+        log.info("Inicio de proceso de obtener comprobante de Cita con ID: {}", id);
+
+        if (!repository.existsById(id)) {
+            log.warn("Cita con ID: {} no encontrada", id);
+            throw new EntityNotFoundException("Cita con id: " + id + " no encontrada");
+        }
+
+        return comprobanteService.obtener(id, () -> toResponse(buscarCita(id)));
     }
 
     /**
@@ -109,37 +187,140 @@ public class CitaMedicaService {
     }
 
     /**
-     * Busca todas las citas pendientes de una Paciente por DNI
+     * Busca una página de las citas pendientes de una Paciente por DNI, ordenadas por ID
      *
      * @param dni DNI del paciente
-     * @return Lista de objetos {@link CitaMedicaResponse} que contiene los datos de las citas
-     * @throws EntityNotFoundException Si no se encuentra la cita con el DNI brindado
+     * @param despuesDe Cursor: ID de la última cita de la página anterior (null para la primera)
+     * @param limite Máximo de citas de la página
+     * @return Objeto {@link PaginaResponse} con las citas y el cursor de la siguiente página
      */
     @Transactional(readOnly = true)
-    public List<CitaMedicaResponse> buscarPorDniPaciente(String dni) {
-        log.info("Inicio de proceso de buscar por DNI: {}", dni);
+    public PaginaResponse<CitaMedicaResponse> buscarPorDniPaciente(String dni, Long despuesDe, int limite) {
+        log.info("Inicio de proceso de buscar por DNI: {} después de: {}", dni, despuesDe);
 
-        List<CitaMedica> citas = repository.findAllByDniPacienteAndEstado(
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<CitaMedica> citas = repository.findByDniPacienteAndEstadoAndIdGreaterThanOrderByIdAsc(
                 dni,
-                CitaMedica.EstadoCitaMedica.PENDIENTE
+                CitaMedica.EstadoCitaMedica.PENDIENTE,
+                (despuesDe != null) ? despuesDe : 0L,
+                Limit.of(limite + 1)
         );
-        log.info("Citas encontradas correctamente: {}", citas.size());
+        log.info("Citas encontradas correctamente: {}", Math.min(citas.size(), limite));
 
-        return citas.stream()
-                .map(this::toResponse)
-                .toList();
+        return toPagina(citas, limite, c -> String.valueOf(c.getId()));
     }
 
+    /**
+     * Busca una página de las citas delegadas a un Médico, ordenadas por ID
+     *
+     * @param idMedicoDelegado Identificador único del Médico delegado
+     * @param despuesDe Cursor: ID de la última cita de la página anterior (null para la primera)
+     * @param limite Máximo de citas de la página
+     * @return Objeto {@link PaginaResponse} con las citas y el cursor de la siguiente página
+     */
     @Transactional(readOnly = true)
-    public List<CitaMedicaResponse> buscarCitasDelegadas(Long idMedicoDelegado) {
-        log.info("Buscando Citas Delegas para Médico con ID: {}", idMedicoDelegado);
+    public PaginaResponse<CitaMedicaResponse> buscarCitasDelegadas(Long idMedicoDelegado, Long despuesDe, int limite) {
+        log.info("Buscando Citas Delegas para Médico con ID: {} después de: {}", idMedicoDelegado, despuesDe);
 
-        List<CitaMedica> citas = repository.findAllByIdMedicoDelegado(idMedicoDelegado);
-        log.info("Citas Delegadas encontradas correctamente: {}", citas.size());
+        List<CitaMedica> citas = repository.findByIdMedicoDelegadoAndIdGreaterThanOrderByIdAsc(
+                idMedicoDelegado,
+                (despuesDe != null) ? despuesDe : 0L,
+                Limit.of(limite + 1)
+        );
+        log.info("Citas Delegadas encontradas correctamente: {}", Math.min(citas.size(), limite));
 
-        return citas.stream()
-                .map(this::toResponse)
-                .toList();
+        return toPagina(citas, limite, c -> String.valueOf(c.getId()));
+    }
+
+    /**
+     * Busca una página de las citas de un rango de fechas con una sola consulta indexada,
+     * usando la fecha y hora copiadas del Slot (sin consultar a ApiHorario)
+     *
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param despuesDe Cursor: token {@link CursorCita} de la página anterior (null para la primera)
+     * @param limite Máximo de citas de la página
+     * @return Objeto {@link PaginaResponse} con las citas ordenadas por fecha y hora, y el cursor
+     * de la siguiente página
+     * @throws IllegalArgumentException Si el rango es inválido, supera {@value #MAX_DIAS_RANGO} días
+     * o el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaResponse<CitaMedicaResponse> buscarPorRango(LocalDate desde, LocalDate hasta,
+                                                             CitaMedica.EstadoCitaMedica estado,
+                                                             String despuesDe, int limite) {
+        log.info("Inicio de proceso de buscar citas entre: {} y {} después de: {}", desde, hasta, despuesDe);
+        validarRango(desde, hasta);
+
+        CursorCita cursor = toCursor(despuesDe, desde);
+        List<CitaMedica> citas = repository.findByRangoFechas(
+                desde, hasta, estado, cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(limite + 1));
+        log.info("Citas encontradas correctamente: {}", Math.min(citas.size(), limite));
+
+        return toPagina(citas, limite, c -> CursorCita.de(c).codificar());
+    }
+
+    /**
+     * Busca una página de las citas de un Médico en un rango de fechas
+     *
+     * @param idMedico Identificador único del Médico
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param despuesDe Cursor: token {@link CursorCita} de la página anterior (null para la primera)
+     * @param limite Máximo de citas de la página
+     * @return Objeto {@link PaginaResponse} con las citas ordenadas por fecha y hora, y el cursor
+     * de la siguiente página
+     * @throws IllegalArgumentException Si el rango es inválido, supera {@value #MAX_DIAS_RANGO} días
+     * o el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaResponse<CitaMedicaResponse> buscarPorMedicoYRango(Long idMedico, LocalDate desde, LocalDate hasta,
+                                                                    CitaMedica.EstadoCitaMedica estado,
+                                                                    String despuesDe, int limite) {
+        log.info("Inicio de proceso de buscar citas del Médico: {} entre: {} y {} después de: {}",
+                idMedico, desde, hasta, despuesDe);
+        validarRango(desde, hasta);
+
+        CursorCita cursor = toCursor(despuesDe, desde);
+        List<CitaMedica> citas = repository.findByMedicoYRangoFechas(
+                idMedico, desde, hasta, estado, cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(limite + 1));
+        log.info("Citas encontradas correctamente: {}", Math.min(citas.size(), limite));
+
+        return toPagina(citas, limite, c -> CursorCita.de(c).codificar());
+    }
+
+    /**
+     * Busca una página de las citas de una Especialidad en un rango de fechas
+     *
+     * @param idEspecialidad Identificador único de la Especialidad
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @param estado Estado de las citas (opcional)
+     * @param despuesDe Cursor: token {@link CursorCita} de la página anterior (null para la primera)
+     * @param limite Máximo de citas de la página
+     * @return Objeto {@link PaginaResponse} con las citas ordenadas por fecha y hora, y el cursor
+     * de la siguiente página
+     * @throws IllegalArgumentException Si el rango es inválido, supera {@value #MAX_DIAS_RANGO} días
+     * o el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaResponse<CitaMedicaResponse> buscarPorEspecialidadYRango(Long idEspecialidad, LocalDate desde,
+                                                                          LocalDate hasta,
+                                                                          CitaMedica.EstadoCitaMedica estado,
+                                                                          String despuesDe, int limite) {
+        log.info("Inicio de proceso de buscar citas de la Especialidad: {} entre: {} y {} después de: {}",
+                idEspecialidad, desde, hasta, despuesDe);
+        validarRango(desde, hasta);
+
+        CursorCita cursor = toCursor(despuesDe, desde);
+        List<CitaMedica> citas = repository.findByEspecialidadYRangoFechas(
+                idEspecialidad, desde, hasta, estado, cursor.fecha(), cursor.horaInicio(), cursor.id(),
+                Limit.of(limite + 1));
+        log.info("Citas encontradas correctamente: {}", Math.min(citas.size(), limite));
+
+        return toPagina(citas, limite, c -> CursorCita.de(c).codificar());
     }
 
     /**
@@ -150,32 +331,57 @@ public class CitaMedicaService {
      * @return Objeto {@link CitaMedicaResponse} que contiene los datos ya actualizados de la cita
      * @throws EntityNotFoundException Si no se encuentra una cita con el ID brindado
      * @throws IllegalArgumentException Si idHorario o idDetalle es inválido
+     * @throws IllegalStateException Si cambia el Slot de una cita que no está pendiente
+     * @throws ConflictException Si el nuevo Slot no está disponible o lo retiene otro paciente
      */
-    @Transactional(readOnly = true)
+    @Transactional
     public CitaMedicaResponse actualizar(CitaMedicaRequest request, Long id) {
 
         log.info("Inicio de proceso de actualizar con ID: {}", id);
 
-        SlotClientResponse slot = obtenerSlot(request.idHorario(), request.idDetalleHorario());
-        log.debug("Slot con ID: {} encontrado", request.idDetalleHorario());
-
         CitaMedica cita = repository.findById(id)
                         .orElseThrow(() -> {
                             log.warn("Cita con ID: {} no encontrada", id);
                             return new EntityNotFoundException("Cita con id: " + id + "no encontrada");
                         });
 
-        log.debug("Realizando validaciones");
-        validarSlot(
-                request.idHorario(),
-                request.idDetalleHorario(),
-                cita.getId(),
-                request.dniPaciente(),
-                slot.estado()
-        );
-        log.debug("Validaciones sin excepciones encontradas");
+        boolean cambioSlot = cambioSlot(cita, request);
+        String metodoPagoPendiente = null;
+
+        if (cambioSlot) {
+            if (cita.getEstado() != CitaMedica.EstadoCitaMedica.PENDIENTE) {
+                log.warn("Cita con ID: {} no está pendiente, no puede cambiar de Slot", id);
+                throw new IllegalStateException("Solo se puede cambiar el Slot de citas pendientes");
+            }
+
+            // Como al registrar: retener el nuevo Slot valida que esté disponible y lo aparta
+            retenerSlot(request.idHorario(), request.idDetalleHorario(), request.dniPaciente());
+            siSeRevierte(() -> soltarRetencion(request.idHorario(), request.idDetalleHorario(), request.dniPaciente()));
+
+            // El Slot anterior se libera desde el outbox, tanto si ya está ocupado como si sigue retenido
+            metodoPagoPendiente = outboxService.encolarLiberarSlot(cita);
+        }
 
-        if (!cita.getDniPaciente().equals(request.dniPaciente())) {
+        // El nombre del Paciente se vuelve a consultar si cambia el DNI o si aún no se tenía
+        boolean cambioPaciente = !cita.getDniPaciente().equals(request.dniPaciente());
+        long limite = calcularLimite();
+        Future<PacienteSimpleResponse> consultaPaciente = (cambioPaciente || cita.getNombrePaciente() == null)
+                ? consultarPaciente(request.dniPaciente(), limite)
+                : null;
+
+        SlotClientResponse slot;
+        try {
+            slot = obtenerSlot(request.idHorario(), request.idDetalleHorario());
+            log.debug("Slot con ID: {} encontrado", request.idDetalleHorario());
+
+            if (consultaPaciente != null) {
+                cita.setNombrePaciente(resolverNombrePaciente(request.dniPaciente(), consultaPaciente, limite));
+            }
+        } finally {
+            cancelarPendientes(Collections.singletonList(consultaPaciente));
+        }
+
+        if (cambioPaciente) {
             log.debug("Actualizando DNI de Paciente de: {} a: {}", cita.getDniPaciente(), request.dniPaciente());
             cita.setDniPaciente(request.dniPaciente());
         }
@@ -190,45 +396,56 @@ public class CitaMedicaService {
             cita.setIdDetalleHorario(request.idDetalleHorario());
         }
 
-        if (cambioSlot(cita, request)) {
-            liberarSlot(cita.getIdHorario(), cita.getIdDetalleHorario());
-        }
-
-        repository.save(cita);
+        cita.actualizarSlot(toSnapshot(slot));
+        guardarEnSlot(cita);
 
-        if (cambioSlot(cita, request)) {
-            ocuparSlot(request.idHorario(), request.idDetalleHorario(), cita.getId());
+        if (cambioSlot) {
+            outboxService.encolarReubicacion(cita, metodoPagoPendiente);
         }
 
+        despuesDeConfirmar(() -> comprobanteService.invalidar(id));
         log.info("Cita con ID: {} actualizada correctamente", id);
 
         return toResponse(cita);
     }
 
     /**
-     * Elimina una cita y libera el slot de horario asociado a ella
+     * Elimina una cita y libera el slot de horario asociado a ella. La liberación se entrega
+     * desde el outbox, porque el Slot puede seguir solo retenido si su ocupación aún no se envió
      *
      * @param id Identificador único de la cita
      * @param idHorario Identificador único del horario
      * @param idDetalle Identificador único del slot del horario
      * @throws EntityNotFoundException Si no se encuentra una cita con el ID brindado
+     * @throws IllegalArgumentException Si el Slot brindado no es el de la cita
      */
     @Transactional
     public void eliminar(Long id, Long idHorario, Long idDetalle) {
         log.info("Inicio de proceso de eliminar con ID: {}", id);
-        if (!repository.existsById(id)) {
-            log.warn("Cita con ID: {} no encontrada", id);
-            throw new EntityNotFoundException("Cita con id: " + id + "no encontrada");
+        CitaMedica cita = repository.findById(id)
+                .orElseThrow(() -> {
+                    log.warn("Cita con ID: {} no encontrada", id);
+                    return new EntityNotFoundException("Cita con id: " + id + "no encontrada");
+                });
+
+        if (!cita.getIdHorario().equals(idHorario) || !cita.getIdDetalleHorario().equals(idDetalle)) {
+            log.warn("Slot con ID: {} no corresponde a la Cita con ID: {}", idDetalle, id);
+            throw new IllegalArgumentException("El Slot brindado no corresponde a la Cita con id: " + id);
         }
 
-        repository.deleteById(id);
+        // Una cita cancelada ya encoló la liberación de su Slot al cancelarse
+        if (cita.getEstado() != CitaMedica.EstadoCitaMedica.CANCELADA) {
+            outboxService.encolarLiberarSlot(cita);
+            log.debug("Liberación del Slot con ID: {} encolada", idDetalle);
+        }
+
+        repository.delete(cita);
+        despuesDeConfirmar(() -> comprobanteService.invalidar(id));
         log.info("Cita con ID: {} eliminada correctamente", id);
-        liberarSlot(idHorario, idDetalle);
-        log.debug("Slot con ID: {} liberado correctamente", idDetalle);
     }
 
     /**
-     * Cancela una Cita y libera el Slot asociado a ella
+     * Cancela una Cita y encola la liberación del Slot asociado a ella en el outbox
      *
      * @param id Identificador único de la cita
      * @return Objeto {@link CitaMedicaResponse} que contiene los datos de la cita
@@ -246,10 +463,11 @@ public class CitaMedicaService {
 
         if (cita.getEstado() != CitaMedica.EstadoCitaMedica.CANCELADA) {
             cita.cancelarCita();
-            liberarSlot(cita.getIdHorario(), cita.getIdDetalleHorario());
+            outboxService.encolarLiberarSlot(cita);
         }
 
         repository.save(cita);
+        despuesDeConfirmar(() -> comprobanteService.invalidar(id));
         log.info("Cita con ID: {} cancelada correctamente", cita.getEstado());
 
         return toResponse(cita);
@@ -274,194 +492,10 @@ public class CitaMedicaService {
         cita.completarCita();
 
         repository.save(cita);
+        despuesDeConfirmar(() -> comprobanteService.invalidar(id));
         log.info("Cita con ID: {} cancelada correctamente", cita.getEstado());
     }
 
-    /**
-     * Genera un PDF con los datos de la Cita Médica
-     * para entregar al Paciente
-     *
-     * @param cita Objeto {@link CitaMedicaResponse} que contiene los datos de la Cita Médica
-     * @return PDF con los datos de la Cita Médica
-     */
-    private byte[] generarPdfCita(CitaMedicaResponse cita) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4, 40, 40, 50, 50);
-            PdfWriter.getInstance(document, baos);
-            document.open();
-
-            // Definición de fuentes y colores
-            Font tituloFont = new Font(Font.FontFamily.HELVETICA, 22, Font.BOLD, BaseColor.WHITE);
-            Font subtituloFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, new BaseColor(41, 128, 185));
-            Font labelFont = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD, new BaseColor(127, 140, 141));
-            Font normalFont = new Font(Font.FontFamily.HELVETICA, 11, Font.NORMAL, BaseColor.DARK_GRAY);
-            Font destacadoFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, new BaseColor(41, 128, 185));
-
-            // ============ ENCABEZADO CON FONDO AZUL ============
-            PdfPTable headerTable = new PdfPTable(1);
-            headerTable.setWidthPercentage(100);
-            PdfPCell headerCell = new PdfPCell();
-            headerCell.setBackgroundColor(new BaseColor(41, 128, 185));
-            headerCell.setBorder(Rectangle.NO_BORDER);
-            headerCell.setPadding(15);
-
-            Paragraph headerText = new Paragraph("COMPROBANTE DE CITA MÉDICA", tituloFont);
-            headerText.setAlignment(Element.ALIGN_CENTER);
-            headerCell.addElement(headerText);
-
-            Paragraph codigoCita = new Paragraph("N° " + (cita.id() != null ? String.format("%06d", cita.id()) : "------"),
-                    new Font(Font.FontFamily.HELVETICA, 11, Font.NORMAL, BaseColor.WHITE));
-            codigoCita.setAlignment(Element.ALIGN_CENTER);
-            codigoCita.setSpacingBefore(5);
-            headerCell.addElement(codigoCita);
-
-            headerTable.addCell(headerCell);
-            document.add(headerTable);
-            document.add(new Paragraph(" "));
-
-            // ============ INFORMACIÓN DEL PACIENTE ============
-            document.add(new Paragraph("DATOS DEL PACIENTE", subtituloFont));
-            document.add(new Paragraph(" ", normalFont));
-
-            PdfPTable pacienteTable = new PdfPTable(2);
-            pacienteTable.setWidthPercentage(100);
-            pacienteTable.setWidths(new int[]{1, 2});
-
-            agregarFilaTabla(pacienteTable, "Paciente:",
-                    cita.paciente().nombres() + " " + cita.paciente().apellidos(), labelFont, normalFont);
-            agregarFilaTabla(pacienteTable, "DNI:", cita.paciente().dni(), labelFont, normalFont);
-            agregarFilaTabla(pacienteTable, "Fecha de Nacimiento:",
-                    cita.paciente().fechaNacimiento().toString(), labelFont, normalFont);
-
-            document.add(pacienteTable);
-            document.add(new Paragraph(" "));
-
-            // ============ LÍNEA SEPARADORA ============
-            LineSeparator line = new LineSeparator();
-            line.setLineColor(new BaseColor(189, 195, 199));
-            document.add(new Chunk(line));
-            document.add(new Paragraph(" "));
-
-            // ============ DETALLES DE LA CITA ============
-            document.add(new Paragraph("DETALLES DE LA CITA", subtituloFont));
-            document.add(new Paragraph(" ", normalFont));
-
-            PdfPTable citaTable = new PdfPTable(2);
-            citaTable.setWidthPercentage(100);
-            citaTable.setWidths(new int[]{1, 2});
-
-            agregarFilaTabla(citaTable, "Médico:", cita.detalles().medico().nombreCompleto(), labelFont, destacadoFont);
-            agregarFilaTabla(citaTable, "Especialidad:", cita.detalles().especialidad().nombre(), labelFont, normalFont);
-            agregarFilaTabla(citaTable, "Fecha:", cita.detalles().fecha().toString(), labelFont, destacadoFont);
-            agregarFilaTabla(citaTable, "Hora:", cita.detalles().hora().toString(), labelFont, destacadoFont);
-            agregarFilaTabla(citaTable, "Consultorio:", "N° " + cita.detalles().consultorio().nro_consultorio(), labelFont, normalFont);
-            agregarFilaTabla(citaTable, "Ubicación:", cita.detalles().consultorio().ubicacion(), labelFont, normalFont);
-
-            document.add(citaTable);
-            document.add(new Paragraph(" "));
-
-            // ============ LÍNEA SEPARADORA ============
-            document.add(new Chunk(line));
-            document.add(new Paragraph(" "));
-
-            // ============ INFORMACIÓN DE PAGO ============
-            PdfPTable costoTable = new PdfPTable(2);
-            costoTable.setWidthPercentage(100);
-            costoTable.setWidths(new int[]{3, 1});
-
-            PdfPCell costoLabelCell = new PdfPCell(new Phrase("COSTO DE LA CONSULTA:", labelFont));
-            costoLabelCell.setBorder(Rectangle.NO_BORDER);
-            costoLabelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            costoLabelCell.setPaddingRight(10);
-            costoTable.addCell(costoLabelCell);
-
-            PdfPCell costoValueCell = new PdfPCell(new Phrase("S/ " +  cita.costo().toString(),
-                    new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD, new BaseColor(39, 174, 96))));
-            costoValueCell.setBorder(Rectangle.NO_BORDER);
-            costoValueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            costoTable.addCell(costoValueCell);
-
-            document.add(costoTable);
-            document.add(new Paragraph(" "));
-
-            // ============ ESTADO DE LA CITA ============
-            PdfPTable estadoTable = new PdfPTable(1);
-            estadoTable.setWidthPercentage(100);
-            PdfPCell estadoCell = new PdfPCell();
-            estadoCell.setBackgroundColor(new BaseColor(236, 240, 241));
-            estadoCell.setBorder(Rectangle.BOX);
-            estadoCell.setBorderColor(new BaseColor(189, 195, 199));
-            estadoCell.setPadding(10);
-            estadoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-            Paragraph estadoText = new Paragraph("Estado: " + formatearEstado(cita.estado()),
-                    new Font(Font.FontFamily.HELVETICA, 11, Font.BOLD, new BaseColor(52, 73, 94)));
-            estadoText.setAlignment(Element.ALIGN_CENTER);
-            estadoCell.addElement(estadoText);
-
-            estadoTable.addCell(estadoCell);
-            document.add(estadoTable);
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph(" "));
-
-            // ============ PIE DE PÁGINA ============
-            PdfPTable footerTable = new PdfPTable(1);
-            footerTable.setWidthPercentage(100);
-            PdfPCell footerCell = new PdfPCell();
-            footerCell.setBorder(Rectangle.TOP);
-            footerCell.setBorderColor(new BaseColor(189, 195, 199));
-            footerCell.setPaddingTop(15);
-            footerCell.setBorderWidth(1);
-
-            Paragraph footerText1 = new Paragraph("Gracias por confiar en nuestra clínica",
-                    new Font(Font.FontFamily.HELVETICA, 11, Font.BOLD, new BaseColor(52, 73, 94)));
-            footerText1.setAlignment(Element.ALIGN_CENTER);
-            footerCell.addElement(footerText1);
-
-            Paragraph footerText2 = new Paragraph("Por favor, llegue 15 minutos antes de su cita",
-                    new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY));
-            footerText2.setAlignment(Element.ALIGN_CENTER);
-            footerText2.setSpacingBefore(5);
-            footerCell.addElement(footerText2);
-
-            footerTable.addCell(footerCell);
-            document.add(footerTable);
-
-            document.close();
-            return baos.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generando PDF", e);
-        }
-    }
-
-    /**
-     * Metodo auxiliar para el generarPdfCita
-     */
-    private void agregarFilaTabla(PdfPTable table, String label, String value, Font labelFont, Font valueFont) {
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, labelFont));
-        labelCell.setBorder(Rectangle.NO_BORDER);
-        labelCell.setPaddingBottom(8);
-        labelCell.setPaddingTop(5);
-        table.addCell(labelCell);
-
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, valueFont));
-        valueCell.setBorder(Rectangle.NO_BORDER);
-        valueCell.setPaddingBottom(8);
-        valueCell.setPaddingTop(5);
-        table.addCell(valueCell);
-    }
-
-    /**
-     * Formatea el estado de la Cita Médica a uno más legible
-     */
-    public String formatearEstado(CitaMedica.EstadoCitaMedica estado) {
-        return switch (estado) {
-            case PENDIENTE -> "Pendiente";
-            case COMPLETADA -> "Completada";
-            case CANCELADA -> "Cancelada";
-        };
-    }
-
     // SERVICIOS PARA OBTENER DATOS DE OTROS MICROSERVICIOS
 
     /**
@@ -479,6 +513,21 @@ public class CitaMedicaService {
      * @param dni DNI del paciente
      * @return Objeto {@link PacienteSimpleResponse} que contiene los datos del paciente
      */
+    private Map<String, PacienteSimpleResponse> obtenerPacientesSimples(Set<String> dnis) {
+        Map<String, PacienteSimpleResponse> pacientes = new HashMap<>();
+        pacienteClient.obtenerPacientesSimples(List.copyOf(dnis)).forEach(p -> pacientes.put(p.dni(), p));
+
+        // Igual que en la consulta individual, un Paciente no registrado se responde solo con su DNI
+        for (String dni : dnis) {
+            if (!pacientes.containsKey(dni)) {
+                log.info("Paciente con DNI {} no registrado en el sistema - Primera visita", dni);
+                pacientes.put(dni, new PacienteSimpleResponse(null, null, null, dni, null));
+            }
+        }
+
+        return pacientes;
+    }
+
     private PacienteSimpleResponse obtenerPacienteSimple(String dni) {
         PacienteSimpleResponse paciente = pacienteClient.obtenerPacienteSimple(dni);
 
@@ -489,6 +538,41 @@ public class CitaMedicaService {
         return paciente;
     }
 
+    /**
+     * Retiene el Slot para el paciente a través del cliente {@code detallesClient}, de modo
+     * que ningún otro paciente pueda tomarlo mientras se registra la cita
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot del horario
+     * @param dniPaciente DNI del paciente, titular de la retención
+     * @return Objeto {@link RetencionSlotResponse} con el vencimiento de la retención
+     * @throws ConflictException Si el slot no está disponible o lo retiene otro paciente
+     */
+    private RetencionSlotResponse retenerSlot(Long idHorario, Long idDetalle, String dniPaciente) {
+        RetencionSlotResponse retencion = detallesClient.retenerSlot(idHorario, idDetalle, dniPaciente);
+        log.debug("Slot con ID: {} retenido para DNI: {} hasta: {}", idDetalle, dniPaciente, retencion.retenidoHasta());
+
+        return retencion;
+    }
+
+    /**
+     * Suelta la retención de un Slot a través del cliente {@code detallesClient}. Si falla
+     * solo se registra, la retención vencerá sola
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot del horario
+     * @param dniPaciente DNI del paciente, titular de la retención
+     */
+    private void soltarRetencion(Long idHorario, Long idDetalle, String dniPaciente) {
+        try {
+            detallesClient.soltarRetencion(idHorario, idDetalle, dniPaciente);
+            log.info("Retención del Slot con ID: {} soltada para DNI: {}", idDetalle, dniPaciente);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo soltar la retención del Slot con ID: {}, vencerá sola: {}",
+                    idDetalle, e.getMessage());
+        }
+    }
+
     /**
      * Obtiene los siguientes datos del Slot a través del cliente {@code detallesClient}:
      * <ul>
@@ -526,62 +610,225 @@ public class CitaMedicaService {
     // SERVICIO PARA BRINDAR DATOS A OTROS MICROSERVICIOS
 
     /**
-     * Ocupa un Slot con el ID de una cita a través del cliente {@code detallesClient},
-     * Si ocurre un error durante este proceso, el Slot no se ocupará y se eliminará
-     * la cita
+     * Obtiene los Slots de varias citas a través del cliente {@code detallesClient}
+     * usando el endpoint batch de ApiHorario, en lotes de {@value #MAX_SLOTS_POR_LOTE}
      *
-     * @param idHorario Identificador único del horario
-     * @param idDetalle Identificador único del slot del horario
-     * @param idCita Identificador único de la cita
+     * @param citas Lista de {@link CitaMedica} cuyos slots se quieren obtener
+     * @return Mapa de {@link SlotClientRequest} a {@link SlotClientResponse}
      */
-    private void ocuparSlot(Long idHorario, Long idDetalle, Long idCita) {
-        if (idHorario == null || idHorario <= 0) {
-            log.error("Intento de obtener nombre con idHorario inválido: {}", idHorario);
-            throw new IllegalArgumentException("idHorario inválido");
+    private Map<SlotClientRequest, SlotClientResponse> obtenerSlots(List<CitaMedica> citas) {
+        List<SlotClientRequest> pares = citas.stream()
+                .map(c -> new SlotClientRequest(c.getIdHorario(), c.getIdDetalleHorario()))
+                .distinct()
+                .toList();
+
+        Map<SlotClientRequest, SlotClientResponse> slots = new HashMap<>();
+        for (int i = 0; i < pares.size(); i += MAX_SLOTS_POR_LOTE) {
+            List<SlotClientRequest> lote = pares.subList(i, Math.min(i + MAX_SLOTS_POR_LOTE, pares.size()));
+            detallesClient.obtenerSlots(lote)
+                    .forEach(slot -> slots.put(new SlotClientRequest(slot.idHorario(), slot.idDetalle()), slot));
         }
 
-        if (idDetalle == null || idDetalle <= 0) {
-            log.error("Intento de obtener nombre con idDetalle inválido: {}", idDetalle);
-            throw new IllegalArgumentException("idDetalle inválido");
+        return slots;
+    }
+
+    /**
+     * Inicia en paralelo la consulta del Médico original de una cita delegada a través del
+     * cliente {@code empleadoClient}, solo si su nombre aún no está guardado en la cita
+     *
+     * @param cita Cita Médica
+     * @return Tarea en curso, o null si no hace falta consultar
+     */
+    private Future<EmpleadoClientResponse> consultarMedicoOriginal(CitaMedica cita) {
+        if (!esDelegada(cita) || cita.getNombreMedicoOriginal() != null) {
+            return null;
+        }
+
+        Long idMedicoOriginal = cita.getIdMedicoOriginal();
+        return enParalelo(() -> empleadoClient.obtenerNombre(idMedicoOriginal));
+    }
+
+    /**
+     * Obtiene el ID y nombre del Médico original de una cita delegada. El nombre es un dato
+     * opcional: si la consulta falla o no llega antes del límite se devuelve sin nombre.
+     * Es una lectura, así que el nombre consultado no se guarda en la cita
+     *
+     * @param cita Cita Médica delegada
+     * @param consulta Tarea iniciada con {@code consultarMedicoOriginal} (puede ser null)
+     * @param limite Instante límite en {@link System#nanoTime()}
+     * @return Objeto {@link SlotClientResponse.MedicoResponse} con los datos del Médico
+     */
+    private SlotClientResponse.MedicoResponse resolverMedicoOriginal(CitaMedica cita,
+                                                                     Future<EmpleadoClientResponse> consulta,
+                                                                     long limite) {
+        String nombre = cita.getNombreMedicoOriginal();
+        if (consulta != null && nombre == null) {
+            try {
+                nombre = esperar(consulta, limite).nombreCompleto();
+            } catch (RuntimeException e) {
+                log.warn("Nombre del Médico original con ID: {} no disponible: {}",
+                        cita.getIdMedicoOriginal(), e.getMessage());
+            }
         }
 
-        if (idCita == null || idCita <= 0) {
-            log.error("Intento de obtener nombre con idCita inválido: {}", idCita);
-            throw new IllegalArgumentException("idCita inválido");
+        return new SlotClientResponse.MedicoResponse(cita.getIdMedicoOriginal(), nombre);
+    }
+
+    /**
+     * Inicia en paralelo la consulta del Slot de una cita a través del cliente
+     * {@code detallesClient}, solo si la cita no tiene una copia local vigente
+     *
+     * @param cita Cita Médica
+     * @return Tarea en curso, o null si no hace falta consultar
+     */
+    private Future<SlotClientResponse> consultarSlot(CitaMedica cita) {
+        if (cita.tieneSlotVigente()) {
+            return null;
+        }
+
+        Long idHorario = cita.getIdHorario();
+        Long idDetalle = cita.getIdDetalleHorario();
+        return enParalelo(() -> obtenerSlot(idHorario, idDetalle));
+    }
+
+    /**
+     * Obtiene el Slot de una cita desde su copia local, o desde ApiHorario si no la tiene
+     * vigente; si esa consulta falla pero existe una copia anterior se usa esa. La copia local
+     * solo se escribe al registrar, actualizar o delegar la cita, nunca desde una lectura
+     *
+     * @param cita Cita Médica
+     * @param consulta Tarea iniciada con {@code consultarSlot} (puede ser null)
+     * @param limite Instante límite en {@link System#nanoTime()}
+     * @return Objeto {@link SlotClientResponse} con los datos del Slot
+     */
+    private SlotClientResponse resolverSlot(CitaMedica cita, Future<SlotClientResponse> consulta, long limite) {
+        if (consulta == null) {
+            return toSlotClientResponse(cita);
         }
 
+        SlotClientResponse slot;
         try {
-            detallesClient.ocuparSlot(idHorario, idDetalle, idCita);
-        } catch (Exception e) {
-            repository.deleteById(idCita);
-            throw new RuntimeException("Error inesperado al ocupar slot del horario", e);
+            slot = esperar(consulta, limite);
+        } catch (RuntimeException e) {
+            if (cita.getSlot() == null) {
+                throw e;
+            }
+
+            log.warn("No se pudo refrescar el Slot de la Cita con ID: {}, se usa la versión: {}",
+                    cita.getId(), cita.getSlotVersion());
+            return toSlotClientResponse(cita);
         }
+
+        return slot;
     }
 
     /**
-     * Libera un Slot de un Horario a través del cliente {@code detallesClient}
-     * Si ocurre un error durante este proceso el Slot no se liberará y la {@link CitaMedica}
-     * permanecerá asociada a este
+     * Obtiene el nombre completo del Paciente para guardarlo en la cita. Es un dato opcional:
+     * si el Paciente no está registrado (primera visita) o la consulta falla o no llega antes
+     * del límite, se devuelve null y las lecturas lo siguen consultando a ApiPaciente
      *
-     * @param idHorario Identificador único del Horario
-     * @param idDetalle Identificador único del Slot del Horario
-     * @throws IllegalArgumentException Si idHorario o idDetalle es inválido
+     * @param consulta Tarea iniciada con {@code consultarPaciente}
+     * @param limite Instante límite en {@link System#nanoTime()}
      */
-    private void liberarSlot(Long idHorario, Long idDetalle) {
-        if (idHorario == null || idHorario <= 0) {
-            log.error("Intento de obtener nombre con idHorario inválido: {}", idHorario);
-            throw new IllegalArgumentException("idHorario inválido");
+    private String resolverNombrePaciente(String dni, Future<PacienteSimpleResponse> consulta, long limite) {
+        try {
+            PacienteSimpleResponse paciente = esperar(consulta, limite);
+
+            return (paciente.idPaciente() != null) ? paciente.nombres() + " " + paciente.apellidos() : null;
+        } catch (RuntimeException e) {
+            log.warn("Nombre del Paciente con DNI: {} no disponible: {}", dni, e.getMessage());
+            return null;
         }
+    }
 
-        if (idDetalle == null || idDetalle <= 0) {
-            log.error("Intento de obtener nombre con idDetalle inválido: {}", idDetalle);
-            throw new IllegalArgumentException("idDetalle inválido");
+    /**
+     * Lanza una llamada remota en un hilo virtual del {@code llamadasRemotasExecutor}
+     */
+    private <T> Future<T> enParalelo(Callable<T> llamada) {
+        return llamadasRemotasExecutor.submit(llamada);
+    }
+
+    /**
+     * Consulta a un Paciente en paralelo, sin superar {@value #MAX_CONSULTAS_PACIENTE} consultas
+     * a ApiPaciente en curso. Si no consigue turno antes del instante límite, falla igual que
+     * una llamada que no termina a tiempo
+     */
+    private Future<PacienteSimpleResponse> consultarPaciente(String dni, long limite) {
+        return enParalelo(() -> conTurnoDePaciente(() -> obtenerPacienteSimple(dni), limite));
+    }
+
+    /**
+     * Consulta en una sola llamada a los Pacientes de varias citas (una página o un lote)
+     *
+     * @return Future con el Paciente de cada DNI; los no registrados vienen solo con su DNI
+     */
+    private Future<Map<String, PacienteSimpleResponse>> consultarPacientes(Set<String> dnis, long limite) {
+        return enParalelo(() -> conTurnoDePaciente(() -> obtenerPacientesSimples(dnis), limite));
+    }
+
+    /**
+     * Ejecuta una llamada a ApiPaciente con un turno del semáforo de consultas, esperándolo
+     * como máximo hasta el límite
+     */
+    private <T> T conTurnoDePaciente(Callable<T> llamada, long limite) throws Exception {
+        if (!consultasPaciente.tryAcquire(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            log.warn("Sin turno para consultar a ApiPaciente antes del límite");
+            throw new ServiceUnavailableException("Tiempo de espera agotado al consultar otros servicios");
         }
 
         try {
-            detallesClient.liberarSlot(idHorario, idDetalle);
-        } catch (Exception e) {
-            throw new RuntimeException("Error inesperado al liberar slot del horario", e);
+            return llamada.call();
+        } finally {
+            consultasPaciente.release();
+        }
+    }
+
+    /**
+     * Calcula el instante límite, en {@link System#nanoTime()}, para las llamadas remotas
+     * de la solicitud actual
+     */
+    private long calcularLimite() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+    }
+
+    /**
+     * Espera el resultado de una llamada remota como máximo hasta el instante límite
+     *
+     * @param tarea Tarea iniciada con {@code enParalelo}
+     * @param limite Instante límite en {@link System#nanoTime()}
+     * @return Resultado de la llamada
+     * @throws ServiceUnavailableException Si la llamada no termina antes del límite
+     */
+    private <T> T esperar(Future<T> tarea, long limite) {
+        try {
+            return tarea.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            tarea.cancel(true);
+            log.warn("Llamada remota cancelada por superar el límite de {} ms", deadlineMs);
+            throw new ServiceUnavailableException("Tiempo de espera agotado al consultar otros servicios");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException ex) {
+                throw ex;
+            }
+            throw new RuntimeException("Error inesperado en llamada remota", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Llamada remota interrumpida");
+        }
+    }
+
+    /**
+     * Cancela las llamadas remotas de una solicitud que siguen en curso. Se usa al terminar
+     * de armar la respuesta, incluso si se agotó el límite o falló una de ellas, para no dejar
+     * hilos consultando otros servicios cuando ya nadie espera el resultado
+     *
+     * @param tareas Tareas iniciadas con {@code enParalelo} (se ignoran las null)
+     */
+    private void cancelarPendientes(Collection<? extends Future<?>> tareas) {
+        for (Future<?> tarea : tareas) {
+            if (tarea != null && !tarea.isDone()) {
+                tarea.cancel(true);
+            }
         }
     }
 
@@ -591,6 +838,7 @@ public class CitaMedicaService {
      * @param id Identificador único de la Cita Médica
      * @return Objeto {@link CitaMedicaFeignResponse} que contiene los datos de la Cita Médica
      */
+    @Transactional(readOnly = true)
     public CitaMedicaFeignResponse brindarCita(Long id) {
         CitaMedica cita = repository.findById(id)
                 .orElseThrow(() -> {
@@ -598,31 +846,51 @@ public class CitaMedicaService {
                     return new EntityNotFoundException("Cita Médica con ID: " + id + "no encontrada");
                 });
 
-        PacienteSimpleResponse paciente = obtenerPacienteSimple(cita.getDniPaciente());
+        long limite = calcularLimite();
+
+        // Solo se consulta al Paciente mientras no esté registrado (primera visita)
+        Future<PacienteSimpleResponse> consultaPaciente = (cita.getNombrePaciente() == null)
+                ? consultarPaciente(cita.getDniPaciente(), limite)
+                : null;
+        Future<SlotClientResponse> consultaSlot = consultarSlot(cita);
+        Future<EmpleadoClientResponse> consultaMedico = consultarMedicoOriginal(cita);
+
+        try {
+            return brindarCita(cita, consultaPaciente, consultaSlot, consultaMedico, limite);
+        } finally {
+            cancelarPendientes(Arrays.asList(consultaPaciente, consultaSlot, consultaMedico));
+        }
+    }
+
+    private CitaMedicaFeignResponse brindarCita(CitaMedica cita,
+                                                Future<PacienteSimpleResponse> consultaPaciente,
+                                                Future<SlotClientResponse> consultaSlot,
+                                                Future<EmpleadoClientResponse> consultaMedico,
+                                                long limite) {
+        String nombrePaciente = (consultaPaciente != null)
+                ? resolverNombrePaciente(cita.getDniPaciente(), consultaPaciente, limite)
+                : cita.getNombrePaciente();
+
         CitaMedicaFeignResponse.DatosPaciente datosPaciente = new CitaMedicaFeignResponse.DatosPaciente(
-                (paciente.idPaciente() != null) ? paciente.nombres() + " " + paciente.apellidos() : null,
-                paciente.dni()
+                nombrePaciente,
+                cita.getDniPaciente()
         );
 
         String motivoReemplazo = (cita.getMotivoReemplazo() != null) ? cita.getMotivoReemplazo() : null;
 
-        SlotClientResponse slot = obtenerSlot(cita.getIdHorario(), cita.getIdDetalleHorario());
+        SlotClientResponse slot = resolverSlot(cita, consultaSlot, limite);
 
         // Si la cita está delegada, usar el médico original
-        String nombreMedico;
-        Long idMedico;
-        if (cita.getIdMedicoDelegado() != null && cita.getIdMedicoOriginal() != null) {
-            EmpleadoClientResponse medicoOriginal = empleadoClient.obtenerNombre(cita.getIdMedicoOriginal());
-            nombreMedico = medicoOriginal.nombreCompleto();
-            idMedico = medicoOriginal.id();
-        } else {
-            nombreMedico = slot.medico().nombreCompleto();
-            idMedico = slot.medico().id();
-        }
+        SlotClientResponse.MedicoResponse medico = esDelegada(cita)
+                ? resolverMedicoOriginal(cita, consultaMedico, limite)
+                : slot.medico();
+        String nombreMedico = medico.nombreCompleto();
+        Long idMedico = medico.id();
 
         return toFeignResponse(
                 cita.getId(),
                 cita.getEstado(),
+                cita.getCosto(),
                 slot,
                 datosPaciente,
                 nombreMedico,
@@ -632,6 +900,151 @@ public class CitaMedicaService {
         );
     }
 
+    /**
+     * Brinda los datos de varias Citas Médicas en una sola llamada. Los Slots sin copia
+     * vigente se piden a ApiHorario en lote, y cada Paciente o Médico original que haga
+     * falta consultar se consulta una sola vez y en paralelo
+     *
+     * @param ids Identificadores únicos de las Citas Médicas
+     * @return Lista de objetos {@link CitaMedicaFeignResponse} en el orden recibido,
+     * las citas que no existen se omiten
+     */
+    @Transactional(readOnly = true)
+    public List<CitaMedicaFeignResponse> brindarCitas(List<Long> ids) {
+        log.info("Inicio de proceso de brindar {} citas", ids.size());
+
+        Map<Long, CitaMedica> citasPorId = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CitaMedica::getId, Function.identity()));
+
+        List<CitaMedica> citas = ids.stream()
+                .distinct()
+                .map(citasPorId::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (citas.isEmpty()) {
+            return List.of();
+        }
+
+        long limite = calcularLimite();
+
+        List<CitaMedica> sinSlotVigente = citas.stream()
+                .filter(c -> !c.tieneSlotVigente())
+                .toList();
+
+        Future<Map<SlotClientRequest, SlotClientResponse>> consultaSlots = sinSlotVigente.isEmpty()
+                ? null
+                : enParalelo(() -> obtenerSlots(sinSlotVigente));
+
+        // Solo se consulta a los Pacientes que aún no están registrados (primera visita), en una sola llamada
+        Set<String> dnis = new HashSet<>();
+        Map<Long, Future<EmpleadoClientResponse>> medicosOriginales = new HashMap<>();
+        for (CitaMedica cita : citas) {
+            if (cita.getNombrePaciente() == null) {
+                dnis.add(cita.getDniPaciente());
+            }
+
+            if (esDelegada(cita) && cita.getNombreMedicoOriginal() == null) {
+                medicosOriginales.computeIfAbsent(cita.getIdMedicoOriginal(), id -> consultarMedicoOriginal(cita));
+            }
+        }
+
+        Future<Map<String, PacienteSimpleResponse>> consultaPacientes = dnis.isEmpty()
+                ? null
+                : consultarPacientes(dnis, limite);
+
+        try {
+            List<CitaMedicaFeignResponse> response =
+                    brindarCitas(citas, consultaSlots, consultaPacientes, medicosOriginales, limite);
+            log.info("Citas brindadas correctamente: {} de {}", response.size(), ids.size());
+
+            return response;
+        } finally {
+            cancelarPendientes(Collections.singletonList(consultaSlots));
+            cancelarPendientes(Collections.singletonList(consultaPacientes));
+            cancelarPendientes(medicosOriginales.values());
+        }
+    }
+
+    private List<CitaMedicaFeignResponse> brindarCitas(List<CitaMedica> citas,
+                                                       Future<Map<SlotClientRequest, SlotClientResponse>> consultaSlots,
+                                                       Future<Map<String, PacienteSimpleResponse>> consultaPacientes,
+                                                       Map<Long, Future<EmpleadoClientResponse>> medicosOriginales,
+                                                       long limite) {
+        Map<SlotClientRequest, SlotClientResponse> slots = (consultaSlots == null)
+                ? Map.of()
+                : esperar(consultaSlots, limite);
+
+        // El nombre del Paciente es opcional en esta respuesta: si ApiPaciente no responde se omite
+        Map<String, PacienteSimpleResponse> pacientes = Map.of();
+        if (consultaPacientes != null) {
+            try {
+                pacientes = esperar(consultaPacientes, limite);
+            } catch (RuntimeException e) {
+                log.warn("Nombres de {} Pacientes no disponibles: {}", citas.size(), e.getMessage());
+            }
+        }
+        Map<String, PacienteSimpleResponse> encontrados = pacientes;
+
+        List<CitaMedicaFeignResponse> response = citas.stream()
+                .map(cita -> {
+                    SlotClientResponse slot = cita.tieneSlotVigente()
+                            ? toSlotClientResponse(cita)
+                            : slots.get(new SlotClientRequest(cita.getIdHorario(), cita.getIdDetalleHorario()));
+
+                    if (slot == null) {
+                        if (cita.getSlot() == null) {
+                            log.warn("Horario con ID: {} o Slot con ID: {} no encontrado para Cita con ID: {}",
+                                    cita.getIdHorario(), cita.getIdDetalleHorario(), cita.getId());
+                            return null;
+                        }
+
+                        slot = toSlotClientResponse(cita);
+                    }
+
+                    String nombrePaciente = cita.getNombrePaciente();
+                    PacienteSimpleResponse paciente = encontrados.get(cita.getDniPaciente());
+                    if (nombrePaciente == null && paciente != null && paciente.idPaciente() != null) {
+                        nombrePaciente = paciente.nombres() + " " + paciente.apellidos();
+                    }
+
+                    SlotClientResponse.MedicoResponse medico = esDelegada(cita)
+                            ? resolverMedicoOriginal(cita, medicosOriginales.get(cita.getIdMedicoOriginal()), limite)
+                            : slot.medico();
+
+                    return toFeignResponse(
+                            cita.getId(),
+                            cita.getEstado(),
+                            cita.getCosto(),
+                            slot,
+                            new CitaMedicaFeignResponse.DatosPaciente(nombrePaciente, cita.getDniPaciente()),
+                            medico.nombreCompleto(),
+                            medico.id(),
+                            cita.getIdMedicoDelegado(),
+                            cita.getMotivoReemplazo()
+                    );
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        return response;
+    }
+
+    /**
+     * Marca como desactualizada la copia local del Slot de las citas de un Horario
+     * (o de un solo Slot). Las lecturas consultan esos Slots a ApiHorario sin guardarlos,
+     * hasta que la cita se vuelva a actualizar o delegar
+     *
+     * @param idHorario Identificador único del Horario
+     * @param idDetalle Identificador único del Slot del Horario (opcional)
+     */
+    @Transactional
+    public void marcarSlotDesactualizado(Long idHorario, Long idDetalle) {
+        int citas = repository.marcarSlotDesactualizado(idHorario, idDetalle);
+        log.info("Slot de {} citas marcado como desactualizado para idHorario: {} e idDetalle: {}",
+                citas, idHorario, idDetalle);
+    }
+
     /**
      * Delega una Cita Médica a otro Médico
      * Mueve la cita del horario del Médico A al horario del Médico B
@@ -674,107 +1087,97 @@ public class CitaMedicaService {
         log.debug("Slot disponible encontrado para Médico B - idHorario: {}, idSlot: {}, hora: {}",
                 slotDisponible.idHorario(), slotDisponible.idSlot(), slotDisponible.horaInicio());
 
-        // Guardar los IDs del horario y slot originales antes de liberarlos
-        Long idHorarioOriginal = cita.getIdHorario();
-        Long idDetalleOriginal = cita.getIdDetalleHorario();
+        // Retener el slot del Médico B valida que siga disponible, igual que al registrar
+        String dniPaciente = cita.getDniPaciente();
+        retenerSlot(slotDisponible.idHorario(), slotDisponible.idSlot(), dniPaciente);
+        siSeRevierte(() -> soltarRetencion(slotDisponible.idHorario(), slotDisponible.idSlot(), dniPaciente));
 
-        // Liberar el slot del Médico A
-        log.debug("Liberando slot del Médico A - idHorario: {}, idSlot: {}", idHorarioOriginal, idDetalleOriginal);
-        liberarSlot(idHorarioOriginal, idDetalleOriginal);
+        // El slot del Médico A se libera desde el outbox, tanto si ya está ocupado como si sigue retenido
+        log.debug("Encolando liberación del slot del Médico A - idHorario: {}, idSlot: {}",
+                cita.getIdHorario(), cita.getIdDetalleHorario());
+        String metodoPagoPendiente = outboxService.encolarLiberarSlot(cita);
 
         // Actualizar la cita con el nuevo horario y slot del Médico B
         cita.setIdHorario(slotDisponible.idHorario());
         cita.setIdDetalleHorario(slotDisponible.idSlot());
         cita.setIdMedicoDelegado(idMedicoDelegado);
         cita.setIdMedicoOriginal(idMedicoOriginal); // Guardar el médico original
+        cita.setNombreMedicoOriginal(slotOriginal.medico().nombreCompleto());
         cita.setMotivoReemplazo(request.motivoReemplazo());
+        cita.actualizarSlot(toSnapshot(obtenerSlot(slotDisponible.idHorario(), slotDisponible.idSlot())));
 
         // Guardar la cita actualizada
-        repository.save(cita);
+        guardarEnSlot(cita);
         log.debug("Cita actualizada con nuevo horario - idHorario: {}, idSlot: {}",
                 cita.getIdHorario(), cita.getIdDetalleHorario());
 
-        // Ocupar el nuevo slot del Médico B
-        log.debug("Ocupando slot del Médico B - idHorario: {}, idSlot: {}, idCita: {}",
+        // La ocupación del nuevo slot del Médico B se entrega desde el outbox
+        log.debug("Encolando ocupación del slot del Médico B - idHorario: {}, idSlot: {}, idCita: {}",
                 slotDisponible.idHorario(), slotDisponible.idSlot(), cita.getId());
-        ocuparSlot(slotDisponible.idHorario(), slotDisponible.idSlot(), cita.getId());
+        outboxService.encolarReubicacion(cita, metodoPagoPendiente);
+        despuesDeConfirmar(() -> comprobanteService.invalidar(idCita));
 
         log.info("Cita con ID: {} delegada correctamente al medico: {} y movida al nuevo horario", idCita, idMedicoDelegado);
 
         return toResponse(cita);
     }
 
+    // VALIDACIONES
+
     /**
-     * Registra un Pago de Cita una vez la Cita Médica
-     * haya sido marcada como COMPLETADA
+     * Valida que el rango de fechas sea correcto y no supere {@value #MAX_DIAS_RANGO} días
      *
-     * @param idCitaMedica Identificador único de la Cita Médica
-     * @param dniPaciente DNI único del Paciente
-     * @param montoTotal Monto Total de la Cita Médica
-     * @param metodoPago Metodo de Pago para la Cita Médica
-     * @throws RuntimeException Si ocurre un error durante el proceso
+     * @throws IllegalArgumentException Si desde es posterior a hasta o el rango es muy amplio
      */
-    public void registrarPagoCita(
-            Long idCitaMedica,
-            String dniPaciente,
-            BigDecimal montoTotal,
-            String metodoPago
-    ) {
-        try {
-            PagoCitaRequest request = new PagoCitaRequest(
-                    idCitaMedica,
-                    dniPaciente,
-                    montoTotal,
-                    metodoPago
-            );
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            log.warn("Rango de fechas inválido: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
 
-            pagoCitaClient.registrarPagoCita(request);
-        } catch (Exception e) {
-            log.error("Error al registrar el pago Cita: {}", e.getMessage());
-            throw new RuntimeException("Error inesperado al registrar pago cita", e);
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_RANGO) {
+            log.warn("Rango de fechas demasiado amplio: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("El rango de fechas no puede superar " + MAX_DIAS_RANGO + " días");
         }
     }
 
-    // VALIDACIONES
-
     /**
-     * Realiza las siguientes validaciones:
-     * <ul>
-     *     <li>Que el Slot al que se quiera asociar una cita tenga un estado de DISPONIBLE</li>
-     *     <li>Que el Slot no esté asociado a otra cita</li>
-     * </ul>
+     * Valida que el Slot al que se quiera asociar una cita tenga un estado de DISPONIBLE.
+     * Que el Slot no tenga otra cita activa lo garantiza la restricción única
+     * {@value CitaMedica#UK_SLOT_ACTIVO} al guardar (ver {@code guardarEnSlot})
      *
-     * @param idHorario Identificador único del horario
      * @param idDetalle Identificador único del slot del horario
-     * @param idCita Identificador único de la cita
-     * @param dniPaciente DNI del paciente
      * @param estado Estado actual del slot
-     * @throws IllegalStateException Si la primera validación no se cumple
-     * @throws IllegalArgumentException Si la segunda validación no se cumple
-     */
-    public void validarSlot(
-            Long idHorario,
-            Long idDetalle,
-            Long idCita,
-            String dniPaciente,
-            String estado
-    ) {
+     * @throws IllegalStateException Si el Slot no está disponible
+     */
+    public void validarSlot(Long idDetalle, String estado) {
         log.debug("Verificando disponibilidad de Slot con ID: {}", idDetalle);
         if (!"DISPONIBLE".equals(estado)) {
             log.warn("Slot con ID: {} ocupado", idDetalle);
             throw new IllegalStateException("Slot con ID: " + idDetalle + " no está disponible");
         }
         log.debug("Slot con ID: {} disponible", idDetalle);
+    }
 
-        boolean existeSolapamiento = (idCita == null)
-                ? repository.existeSolapamiento(idHorario, idDetalle, dniPaciente)
-                : repository.existeSolapamientoExcluyendoId(idHorario, idDetalle, dniPaciente, idCita);
-
-        if (existeSolapamiento) {
-            log.warn("Slot con ID: {} ya está asociado a una Cita", idDetalle);
-            throw new IllegalArgumentException(
-                    "Ya existe una Cita asociada al Slot con ID: " + idDetalle
-            );
+    /**
+     * Guarda la cita y fuerza el INSERT/UPDATE de inmediato, para que una segunda cita
+     * activa en el mismo Slot falle aquí, antes de cualquier llamada a otros microservicios
+     *
+     * @param cita Cita Médica a guardar
+     * @return Cita Médica guardada
+     * @throws ConflictException Si el Slot ya tiene otra cita no cancelada
+     */
+    private CitaMedica guardarEnSlot(CitaMedica cita) {
+        try {
+            return repository.saveAndFlush(cita);
+        } catch (DataIntegrityViolationException e) {
+            String detalle = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (!detalle.toLowerCase().contains(CitaMedica.UK_SLOT_ACTIVO)) {
+                throw e;
+            }
+
+            log.warn("Slot con ID: {} ya está asociado a una Cita", cita.getIdDetalleHorario());
+            throw new ConflictException("Ya existe una Cita asociada al Slot con ID: " + cita.getIdDetalleHorario());
         }
     }
 
@@ -792,27 +1195,122 @@ public class CitaMedicaService {
 
     // MAPEADORES A DTO
 
+    /**
+     * Mapea una cita consultando en paralelo al Paciente, al Slot y al Médico original,
+     * todos bajo un mismo límite de tiempo {@code deadlineMs}
+     */
     private CitaMedicaResponse toResponse(CitaMedica citaMedica) {
+        long limite = calcularLimite();
 
-        PacienteSimpleResponse paciente = obtenerPacienteSimple(citaMedica.getDniPaciente());
-        SlotClientResponse slot = obtenerSlot(citaMedica.getIdHorario(), citaMedica.getIdDetalleHorario());
+        Future<PacienteSimpleResponse> consultaPaciente =
+                consultarPaciente(citaMedica.getDniPaciente(), limite);
+        Future<SlotClientResponse> consultaSlot = consultarSlot(citaMedica);
+        Future<EmpleadoClientResponse> consultaMedico = consultarMedicoOriginal(citaMedica);
 
-        String motivoReemplazo = (citaMedica.getMotivoReemplazo() != null) ? citaMedica.getMotivoReemplazo() : null;
+        try {
+            PacienteSimpleResponse paciente = esperar(consultaPaciente, limite);
+            SlotClientResponse slot = resolverSlot(citaMedica, consultaSlot, limite);
+
+            // Si la cita está delegada, usar el médico original en lugar del médico del slot actual
+            SlotClientResponse.MedicoResponse medicoOriginal = esDelegada(citaMedica)
+                    ? resolverMedicoOriginal(citaMedica, consultaMedico, limite)
+                    : null;
+
+            return toResponse(citaMedica, paciente, slot, medicoOriginal);
+        } finally {
+            cancelarPendientes(Arrays.asList(consultaPaciente, consultaSlot, consultaMedico));
+        }
+    }
 
-        // Si la cita está delegada, usar el médico original en lugar del médico del slot actual
-        SlotClientResponse.MedicoResponse medicoAResponse;
-        if (citaMedica.getIdMedicoDelegado() != null && citaMedica.getIdMedicoOriginal() != null) {
-            // Obtener información del médico original
-            EmpleadoClientResponse medicoOriginal = empleadoClient.obtenerNombre(citaMedica.getIdMedicoOriginal());
-            medicoAResponse = new SlotClientResponse.MedicoResponse(
-                    medicoOriginal.id(),
-                    medicoOriginal.nombreCompleto()
-            );
-        } else {
-            // Usar el médico del slot actual (cita no delegada)
-            medicoAResponse = slot.medico();
+    /**
+     * Mapea varias citas con un número constante de llamadas remotas, lanzadas en paralelo
+     * bajo un mismo límite de tiempo: los slots se leen de su copia local, los que no la
+     * tienen vigente se piden en una llamada batch y cada paciente o médico original
+     * distinto se consulta una sola vez
+     */
+    private List<CitaMedicaResponse> toResponses(List<CitaMedica> citas) {
+        if (citas.isEmpty()) {
+            return List.of();
         }
 
+        long limite = calcularLimite();
+
+        List<CitaMedica> sinSlotVigente = citas.stream()
+                .filter(c -> !c.tieneSlotVigente())
+                .toList();
+
+        Future<Map<SlotClientRequest, SlotClientResponse>> consultaSlots = sinSlotVigente.isEmpty()
+                ? null
+                : enParalelo(() -> obtenerSlots(sinSlotVigente));
+
+        // Todos los Pacientes de la página se consultan en una sola llamada
+        Future<Map<String, PacienteSimpleResponse>> consultaPacientes = consultarPacientes(
+                citas.stream().map(CitaMedica::getDniPaciente).collect(Collectors.toSet()), limite);
+
+        Map<Long, Future<EmpleadoClientResponse>> medicosOriginales = new HashMap<>();
+        for (CitaMedica cita : citas) {
+            if (esDelegada(cita) && cita.getNombreMedicoOriginal() == null) {
+                medicosOriginales.computeIfAbsent(cita.getIdMedicoOriginal(), id -> consultarMedicoOriginal(cita));
+            }
+        }
+
+        try {
+            return toResponses(citas, consultaSlots, consultaPacientes, medicosOriginales, limite);
+        } finally {
+            cancelarPendientes(Collections.singletonList(consultaSlots));
+            cancelarPendientes(Collections.singletonList(consultaPacientes));
+            cancelarPendientes(medicosOriginales.values());
+        }
+    }
+
+    private List<CitaMedicaResponse> toResponses(List<CitaMedica> citas,
+                                                 Future<Map<SlotClientRequest, SlotClientResponse>> consultaSlots,
+                                                 Future<Map<String, PacienteSimpleResponse>> consultaPacientes,
+                                                 Map<Long, Future<EmpleadoClientResponse>> medicosOriginales,
+                                                 long limite) {
+        Map<SlotClientRequest, SlotClientResponse> slots = (consultaSlots == null)
+                ? Map.of()
+                : esperar(consultaSlots, limite);
+        Map<String, PacienteSimpleResponse> pacientes = esperar(consultaPacientes, limite);
+
+        return citas.stream()
+                .map(cita -> {
+                    SlotClientResponse slot = cita.tieneSlotVigente()
+                            ? toSlotClientResponse(cita)
+                            : slots.get(new SlotClientRequest(cita.getIdHorario(), cita.getIdDetalleHorario()));
+
+                    if (slot == null) {
+                        log.warn("Horario con ID: {} o Slot con ID: {} no encontrado para Cita con ID: {}",
+                                cita.getIdHorario(), cita.getIdDetalleHorario(), cita.getId());
+
+                        if (cita.getSlot() == null) {
+                            throw new EntityNotFoundException("Horario o Slot no encontrado");
+                        }
+
+                        slot = toSlotClientResponse(cita);
+                    }
+
+                    PacienteSimpleResponse paciente = pacientes.get(cita.getDniPaciente());
+
+                    SlotClientResponse.MedicoResponse medicoOriginal = esDelegada(cita)
+                            ? resolverMedicoOriginal(cita, medicosOriginales.get(cita.getIdMedicoOriginal()), limite)
+                            : null;
+
+                    return toResponse(cita, paciente, slot, medicoOriginal);
+                })
+                .toList();
+    }
+
+    private CitaMedicaResponse toResponse(CitaMedica citaMedica,
+                                          PacienteSimpleResponse paciente,
+                                          SlotClientResponse slot,
+                                          SlotClientResponse.MedicoResponse medicoOriginal) {
+
+        String motivoReemplazo = (citaMedica.getMotivoReemplazo() != null) ? citaMedica.getMotivoReemplazo() : null;
+
+        // Usar el médico del slot actual si la cita no está delegada
+        SlotClientResponse.MedicoResponse medicoAResponse = (medicoOriginal != null) ? medicoOriginal : slot.medico();
+
         CitaMedicaResponse.DetallesCita detallesCita = toDetallesCita(slot, medicoAResponse, motivoReemplazo);
 
         return new CitaMedicaResponse(
@@ -824,6 +1322,108 @@ public class CitaMedicaService {
         );
     }
 
+    /**
+     * Arma una página a partir de hasta {@code limite + 1} filas: la fila extra solo
+     * indica que existe una página siguiente y no se mapea
+     *
+     * @param cursor Arma el cursor a partir de la última cita de la página
+     */
+    private PaginaResponse<CitaMedicaResponse> toPagina(List<CitaMedica> filas, int limite,
+                                                        Function<CitaMedica, String> cursor) {
+        boolean hayMas = filas.size() > limite;
+        List<CitaMedica> citas = hayMas ? filas.subList(0, limite) : filas;
+        String siguienteCursor = hayMas ? cursor.apply(citas.get(citas.size() - 1)) : null;
+
+        return new PaginaResponse<>(toResponses(citas), siguienteCursor, limite);
+    }
+
+    /**
+     * Lee el cursor de una búsqueda por rango; sin cursor se empieza por la fecha inicial
+     */
+    private CursorCita toCursor(String despuesDe, LocalDate desde) {
+        return (despuesDe != null) ? CursorCita.decodificar(despuesDe) : CursorCita.inicio(desde);
+    }
+
+    private CitaMedica buscarCita(Long id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Cita con id: " + id + " no encontrada"));
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción actual se confirma, o de inmediato si no hay una activa
+     */
+    private void despuesDeConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta una acción si la transacción actual termina sin confirmarse (se revierte o
+     * falla el commit). Sin transacción activa no hace nada
+     */
+    private void siSeRevierte(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    private boolean esDelegada(CitaMedica cita) {
+        return cita.getIdMedicoDelegado() != null && cita.getIdMedicoOriginal() != null;
+    }
+
+    private SlotSnapshot toSnapshot(SlotClientResponse slot) {
+        return SlotSnapshot.builder()
+                .idMedico(slot.medico().id())
+                .nombreMedico(slot.medico().nombreCompleto())
+                .idEspecialidad(slot.especialidad().id())
+                .nombreEspecialidad(slot.especialidad().nombre())
+                .fecha(slot.fecha())
+                .horaInicio(slot.hora())
+                .nroConsultorio(slot.consultorio().nro_consultorio())
+                .ubicacionConsultorio(slot.consultorio().ubicacion())
+                .build();
+    }
+
+    private SlotClientResponse toSlotClientResponse(CitaMedica cita) {
+        SlotSnapshot snapshot = cita.getSlot();
+
+        return new SlotClientResponse(
+                cita.getIdHorario(),
+                cita.getIdDetalleHorario(),
+                new SlotClientResponse.MedicoResponse(snapshot.getIdMedico(), snapshot.getNombreMedico()),
+                new SlotClientResponse.EspecialidadResponse(
+                        snapshot.getIdEspecialidad(),
+                        snapshot.getNombreEspecialidad(),
+                        cita.getCosto()
+                ),
+                snapshot.getFecha(),
+                snapshot.getHoraInicio(),
+                new SlotClientResponse.ConsultorioResponse(
+                        snapshot.getNroConsultorio(),
+                        snapshot.getUbicacionConsultorio()
+                ),
+                null
+        );
+    }
+
     private CitaMedicaResponse.DetallesCita toDetallesCita(
             SlotClientResponse slot,
             SlotClientResponse.MedicoResponse medico,
@@ -846,6 +1446,7 @@ public class CitaMedicaService {
 
     private CitaMedicaFeignResponse toFeignResponse(Long id,
                                                     CitaMedica.EstadoCitaMedica estado,
+                                                    BigDecimal costo,
                                                     SlotClientResponse slot,
                                                     CitaMedicaFeignResponse.DatosPaciente paciente,
                                                     String nombreMedico,
@@ -857,7 +1458,7 @@ public class CitaMedicaService {
                 slot.fecha(),
                 slot.hora(),
                 paciente,
-                slot.especialidad().costo(),
+                costo,
                 nombreMedico,
                 slot.especialidad().nombre(),
                 estado,
@@ -0,0 +1,197 @@
+package cm.apicitamedica.service;
+
+import cm.apicitamedica.dto.CitaMedicaResponse;
+import cm.apicitamedica.exceptions.ServiceUnavailableException;
+import cm.apicitamedica.pdfgenerator.ComprobanteCitaPdfGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Genera los comprobantes PDF de las Citas Médicas en un pool de hilos acotado
+ * ({@code comprobantesExecutor}) y los guarda en una caché limitada por tamaño,
+ * para que el registro de una cita no espere al renderizado del PDF. Los datos de la cita,
+ * que requieren llamadas Feign, se obtienen antes en un hilo virtual
+ * ({@code llamadasRemotasExecutor}), de modo que el pool solo se ocupa de renderizar
+ */
+@Slf4j
+@Service
+public class ComprobanteCitaService {
+
+    private final ExecutorService comprobantesExecutor;
+    private final ExecutorService llamadasRemotasExecutor;
+    private final ComprobanteCitaPdfGenerator pdfGenerator;
+    private final long maxBytesCache;
+    private final long esperaMaximaMs;
+
+    // Caché LRU (orden de acceso) de comprobantes ya generados, limitada por bytes totales
+    private final LinkedHashMap<Long, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesEnCache = 0;
+
+    // Comprobantes que se están generando, para no renderizar dos veces la misma cita
+    private final Map<Long, CompletableFuture<byte[]>> enCurso = new ConcurrentHashMap<>();
+
+    public ComprobanteCitaService(
+            ExecutorService comprobantesExecutor,
+            ExecutorService llamadasRemotasExecutor,
+            ComprobanteCitaPdfGenerator pdfGenerator,
+            @Value("${citas.comprobantes.cache-max-bytes:16777216}") long maxBytesCache,
+            @Value("${citas.comprobantes.espera-maxima-ms:10000}") long esperaMaximaMs) {
+        this.comprobantesExecutor = comprobantesExecutor;
+        this.llamadasRemotasExecutor = llamadasRemotasExecutor;
+        this.pdfGenerator = pdfGenerator;
+        this.maxBytesCache = maxBytesCache;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Programa la generación del comprobante de una cita en segundo plano. Si el pool
+     * está saturado no se genera ahora, se hará bajo demanda cuando se solicite
+     *
+     * @param idCita Identificador único de la Cita Médica
+     * @param datos Proveedor de los datos de la cita, se invoca en un hilo virtual
+     */
+    public void generarEnSegundoPlano(Long idCita, Supplier<CitaMedicaResponse> datos) {
+        iniciarGeneracion(idCita, datos);
+    }
+
+    /**
+     * Obtiene el comprobante de una cita desde la caché. Si no está (nunca se generó o fue
+     * desalojado) se genera en el pool y se espera como máximo {@code esperaMaximaMs}
+     *
+     * @param idCita Identificador único de la Cita Médica
+     * @param datos Proveedor de los datos de la cita, se invoca en un hilo virtual
+     * @return PDF con los datos de la Cita Médica
+     * @throws ServiceUnavailableException Si el pool está saturado o el PDF no se genera a tiempo
+     */
+    public byte[] obtener(Long idCita, Supplier<CitaMedicaResponse> datos) {
+        byte[] pdf = leerCache(idCita);
+        if (pdf != null) {
+            log.debug("Comprobante de la Cita con ID: {} obtenido de caché", idCita);
+            return pdf;
+        }
+
+        CompletableFuture<byte[]> generacion = iniciarGeneracion(idCita, datos);
+
+        try {
+            return generacion.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Comprobante de la Cita con ID: {} no generado en {} ms", idCita, esperaMaximaMs);
+            throw new ServiceUnavailableException("El comprobante aún se está generando, intente nuevamente");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException ex) {
+                throw ex;
+            }
+            throw new RuntimeException("Error generando PDF", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Generación de comprobante interrumpida");
+        }
+    }
+
+    /**
+     * Descarta el comprobante de una cita cuyos datos cambiaron. Si se estaba generando,
+     * el resultado de esa generación ya no se guardará en caché
+     *
+     * @param idCita Identificador único de la Cita Médica
+     */
+    public void invalidar(Long idCita) {
+        enCurso.remove(idCita);
+        synchronized (cache) {
+            byte[] pdf = cache.remove(idCita);
+            if (pdf != null) {
+                bytesEnCache -= pdf.length;
+            }
+        }
+        log.debug("Comprobante de la Cita con ID: {} invalidado", idCita);
+    }
+
+    /**
+     * Inicia (o reutiliza, si ya está en curso) la generación del comprobante de una cita.
+     * Si el pool está saturado, la generación termina con {@link ServiceUnavailableException}
+     * y el comprobante se generará bajo demanda cuando se vuelva a solicitar
+     */
+    private CompletableFuture<byte[]> iniciarGeneracion(Long idCita, Supplier<CitaMedicaResponse> datos) {
+        CompletableFuture<byte[]> generacion = new CompletableFuture<>();
+        CompletableFuture<byte[]> existente = enCurso.putIfAbsent(idCita, generacion);
+        if (existente != null) {
+            return existente;
+        }
+
+        CompletableFuture.supplyAsync(datos, llamadasRemotasExecutor)
+                .thenAcceptAsync(cita -> renderizar(idCita, cita, generacion), comprobantesExecutor)
+                .exceptionally(e -> {
+                    fallar(idCita, generacion, (e instanceof CompletionException) ? e.getCause() : e);
+                    return null;
+                });
+
+        return generacion;
+    }
+
+    private void renderizar(Long idCita, CitaMedicaResponse cita, CompletableFuture<byte[]> generacion) {
+        byte[] pdf = pdfGenerator.generarPdf(cita);
+
+        // Solo se guarda si no fue invalidado mientras se generaba
+        if (enCurso.remove(idCita, generacion)) {
+            guardarCache(idCita, pdf);
+        }
+        generacion.complete(pdf);
+        log.debug("Comprobante de la Cita con ID: {} generado ({} bytes)", idCita, pdf.length);
+    }
+
+    private void fallar(Long idCita, CompletableFuture<byte[]> generacion, Throwable causa) {
+        enCurso.remove(idCita, generacion);
+
+        if (causa instanceof RejectedExecutionException) {
+            log.warn("Pool de comprobantes saturado, el comprobante de la Cita con ID: {} se generará bajo demanda",
+                    idCita);
+            generacion.completeExceptionally(
+                    new ServiceUnavailableException("Servicio de comprobantes ocupado, intente nuevamente"));
+            return;
+        }
+
+        log.error("Error generando comprobante de la Cita con ID: {}: {}", idCita, causa.getMessage());
+        generacion.completeExceptionally(causa);
+    }
+
+    private byte[] leerCache(Long idCita) {
+        synchronized (cache) {
+            return cache.get(idCita);
+        }
+    }
+
+    /**
+     * Guarda un comprobante en caché desalojando los menos usados recientemente
+     * hasta no superar {@code maxBytesCache}
+     */
+    private void guardarCache(Long idCita, byte[] pdf) {
+        if (pdf.length > maxBytesCache) {
+            return;
+        }
+
+        synchronized (cache) {
+            byte[] anterior = cache.put(idCita, pdf);
+            bytesEnCache += pdf.length - (anterior != null ? anterior.length : 0);
+
+            Iterator<byte[]> it = cache.values().iterator();
+            while (bytesEnCache > maxBytesCache && it.hasNext()) {
+                bytesEnCache -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package cm.apicitamedica.service;
+
+import cm.apicitamedica.exceptions.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Almacén en memoria de claves {@code Idempotency-Key}, acotado por cantidad y con
+ * expiración por TTL. Un reintento con la misma clave recibe la respuesta original sin
+ * volver a ejecutar la operación; si la original sigue en curso, espera su resultado
+ * como máximo {@code esperaMs}
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    private final long ttlMs;
+    private final int maxClaves;
+    private final long esperaMs;
+
+    // Orden de inserción: como todas las entradas tienen el mismo TTL, la primera es la más antigua
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+    public IdempotenciaService(
+            @Value("${citas.idempotencia.ttl-ms:600000}") long ttlMs,
+            @Value("${citas.idempotencia.max-claves:10000}") int maxClaves,
+            @Value("${citas.idempotencia.espera-ms:10000}") long esperaMs) {
+        this.ttlMs = ttlMs;
+        this.maxClaves = maxClaves;
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Resultado de una operación idempotente
+     *
+     * @param valor Respuesta de la operación
+     * @param repetido true si se devolvió la respuesta guardada de una solicitud anterior
+     */
+    public record Resultado<T>(T valor, boolean repetido) {
+    }
+
+    private record Entrada(Object solicitud, CompletableFuture<Object> respuesta, long expiraEn) {
+    }
+
+    /**
+     * Ejecuta una operación una sola vez por clave mientras la clave no expire
+     *
+     * @param clave Valor del header {@code Idempotency-Key}
+     * @param solicitud Datos de la solicitud, deben coincidir en los reintentos
+     * @param operacion Operación a ejecutar la primera vez
+     * @return Objeto {@link Resultado} con la respuesta y si fue repetida
+     * @throws IllegalArgumentException Si la clave ya se usó con otros datos
+     * @throws ServiceUnavailableException Si la solicitud original sigue en curso pasado {@code esperaMs}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Resultado<T> ejecutar(String clave, Object solicitud, Supplier<T> operacion) {
+        Entrada existente;
+        Entrada nueva = null;
+
+        synchronized (entradas) {
+            long ahora = System.currentTimeMillis();
+            purgarExpiradas(ahora);
+
+            existente = entradas.get(clave);
+            if (existente == null) {
+                nueva = new Entrada(solicitud, new CompletableFuture<>(), ahora + ttlMs);
+                entradas.put(clave, nueva);
+
+                if (entradas.size() > maxClaves) {
+                    Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+                    it.next();
+                    it.remove();
+                }
+            }
+        }
+
+        if (existente != null) {
+            if (!existente.solicitud().equals(solicitud)) {
+                log.warn("Idempotency-Key: {} reutilizada con otros datos", clave);
+                throw new IllegalArgumentException("La Idempotency-Key ya fue usada con otros datos");
+            }
+
+            log.info("Idempotency-Key: {} repetida, se devuelve la respuesta original", clave);
+            return new Resultado<>((T) esperar(existente.respuesta()), true);
+        }
+
+        try {
+            T valor = operacion.get();
+            nueva.respuesta().complete(valor);
+            return new Resultado<>(valor, false);
+        } catch (RuntimeException e) {
+            // Si falló, la clave se libera para que el cliente pueda reintentar
+            synchronized (entradas) {
+                entradas.remove(clave, nueva);
+            }
+            nueva.respuesta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void purgarExpiradas(long ahora) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (entrada.expiraEn() > ahora) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Espera la respuesta de la solicitud original, que puede seguir en curso, como máximo
+     * {@code esperaMs}. Al agotarse no se cancela la original: el cliente puede volver a
+     * reintentar con la misma clave y recibirá su respuesta cuando termine
+     */
+    private Object esperar(CompletableFuture<Object> respuesta) {
+        try {
+            return respuesta.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Solicitud original sin respuesta tras {} ms", esperaMs);
+            throw new ServiceUnavailableException("La solicitud original con esta Idempotency-Key sigue en curso");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException ex) {
+                throw ex;
+            }
+            throw new RuntimeException("Error inesperado en la solicitud original", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Espera de la solicitud original interrumpida");
+        }
+    }
+
+}
@@ -0,0 +1,494 @@
+package cm.apicitamedica.service;
+
+import cm.apicitamedica.client.pagocita.PagoCitaFeignClient;
+import cm.apicitamedica.client.pagocita.PagoCitaRequest;
+import cm.apicitamedica.client.slot.DetalleHorarioFeignClient;
+import cm.apicitamedica.client.slot.LiberarSlotRequest;
+import cm.apicitamedica.client.slot.LiberarSlotResponse;
+import cm.apicitamedica.client.slot.OcuparSlotRequest;
+import cm.apicitamedica.client.slot.OcuparSlotResponse;
+import cm.apicitamedica.repository.CitaMedica;
+import cm.apicitamedica.repository.CitaMedicaRepository;
+import cm.apicitamedica.repository.MensajeOutbox;
+import cm.apicitamedica.repository.MensajeOutboxRepository;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox de la saga de registro de citas: los comandos para ApiHorario (ocupar slot) y
+ * ApiPago (registrar pago) se guardan en la misma transacción que la Cita y se entregan
+ * en segundo plano, por lotes, con reintentos y clave de idempotencia.
+ * El pago solo se encola cuando el slot quedó ocupado; si ApiHorario rechaza el slot,
+ * la cita se cancela. Si la ocupación agota sus intentos sin respuesta, la cita también se
+ * cancela, pero un intento pudo haber ocupado el slot sin que llegara la respuesta: se encola
+ * una liberación del slot, que ApiHorario solo aplica si la cita lo ocupa.
+ * Cancelar, eliminar o cambiar de slot una cita también libera su slot desde aquí, porque
+ * mientras su ocupación no se entregue el slot solo está retenido y ApiHorario no puede
+ * liberarlo como ocupado
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxCitaService {
+
+    private final MensajeOutboxRepository repository;
+    private final CitaMedicaRepository citaRepository;
+    private final DetalleHorarioFeignClient detallesClient;
+    private final PagoCitaFeignClient pagoCitaClient;
+    private final ComprobanteCitaService comprobanteService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Máximo de mensajes de cada tipo que se envían por llamada
+    @Value("${citas.outbox.lote:100}")
+    private int tamanoLote;
+
+    @Value("${citas.outbox.max-intentos:10}")
+    private int maxIntentos;
+
+    @Value("${citas.outbox.espera-base-ms:1000}")
+    private long esperaBaseMs;
+
+    @Value("${citas.outbox.espera-maxima-ms:60000}")
+    private long esperaMaximaMs;
+
+    /**
+     * Encola la ocupación del Slot de una cita recién registrada. Debe llamarse dentro
+     * de la transacción que guarda la cita
+     *
+     * @param cita Cita Médica ya guardada (con ID)
+     * @param metodoPago Método de pago a usar cuando se registre el pago
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolarOcuparSlot(CitaMedica cita, String metodoPago) {
+        MensajeOutbox mensaje = MensajeOutbox.builder()
+                .tipo(MensajeOutbox.TipoMensaje.OCUPAR_SLOT)
+                .claveIdempotencia("OCUPAR_SLOT-cita-" + cita.getId() + "-" +
+                        cita.getIdHorario() + "-" + cita.getIdDetalleHorario())
+                .idCita(cita.getId())
+                .idHorario(cita.getIdHorario())
+                .idDetalleHorario(cita.getIdDetalleHorario())
+                .dniPaciente(cita.getDniPaciente())
+                .monto(cita.getCosto())
+                .metodoPago(metodoPago)
+                .build();
+
+        repository.save(mensaje);
+        log.debug("Ocupación de Slot con ID: {} encolada para Cita con ID: {}",
+                cita.getIdDetalleHorario(), cita.getId());
+    }
+
+    /**
+     * Encola la ocupación del nuevo Slot de una cita que cambió de Slot. Normalmente no lleva
+     * método de pago, porque el pago se encoló al ocuparse el primer Slot; si esa ocupación se
+     * descartó antes de entregarse, su método de pago pasa a esta. Debe llamarse dentro de la
+     * transacción que guarda la cita, después de cambiarle el Slot
+     *
+     * @param cita Cita Médica ya guardada con su nuevo Slot
+     * @param metodoPago Método de pago aún no encolado, devuelto por {@code encolarLiberarSlot} (puede ser null)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolarReubicacion(CitaMedica cita, String metodoPago) {
+        MensajeOutbox mensaje = MensajeOutbox.builder()
+                .tipo(MensajeOutbox.TipoMensaje.OCUPAR_SLOT)
+                .claveIdempotencia("OCUPAR_SLOT-cita-" + cita.getId() + "-" +
+                        cita.getIdHorario() + "-" + cita.getIdDetalleHorario() + "-v" + cita.getSlotVersion())
+                .idCita(cita.getId())
+                .idHorario(cita.getIdHorario())
+                .idDetalleHorario(cita.getIdDetalleHorario())
+                .dniPaciente(cita.getDniPaciente())
+                .monto((metodoPago != null) ? cita.getCosto() : null)
+                .metodoPago(metodoPago)
+                .build();
+
+        repository.save(mensaje);
+        log.debug("Ocupación del nuevo Slot con ID: {} encolada para Cita con ID: {}",
+                cita.getIdDetalleHorario(), cita.getId());
+    }
+
+    /**
+     * Encola la liberación del Slot de una cita que se cancela, se elimina o cambia de Slot.
+     * Si la ocupación de ese Slot aún no se envió se descarta, y la liberación suelta la
+     * retención del paciente; si ya se envió, libera el Slot ocupado por la cita. Debe
+     * llamarse dentro de la transacción que modifica la cita, antes de cambiarle el Slot
+     *
+     * @param cita Cita Médica con el Slot que deja
+     * @return Método de pago de la ocupación descartada, cuyo pago aún no se encoló (null si no hubo)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String encolarLiberarSlot(CitaMedica cita) {
+        List<MensajeOutbox> ocupaciones = repository.findByIdCitaAndTipoAndEstado(
+                cita.getId(), MensajeOutbox.TipoMensaje.OCUPAR_SLOT, MensajeOutbox.EstadoMensaje.PENDIENTE);
+        String metodoPago = null;
+        for (MensajeOutbox m : ocupaciones) {
+            if (m.getIdDetalleHorario().equals(cita.getIdDetalleHorario())) {
+                m.descartar("La Cita dejó el Slot antes de ocuparlo");
+                metodoPago = (m.getMetodoPago() != null) ? m.getMetodoPago() : metodoPago;
+                log.debug("Ocupación de Slot con ID: {} descartada para Cita con ID: {}",
+                        m.getIdDetalleHorario(), cita.getId());
+            }
+        }
+        repository.saveAll(ocupaciones);
+
+        MensajeOutbox mensaje = MensajeOutbox.builder()
+                .tipo(MensajeOutbox.TipoMensaje.LIBERAR_SLOT)
+                .claveIdempotencia("LIBERAR_SLOT-cita-" + cita.getId() + "-" +
+                        cita.getIdHorario() + "-" + cita.getIdDetalleHorario() + "-v" + cita.getSlotVersion())
+                .idCita(cita.getId())
+                .idHorario(cita.getIdHorario())
+                .idDetalleHorario(cita.getIdDetalleHorario())
+                .dniPaciente(cita.getDniPaciente())
+                .build();
+
+        repository.save(mensaje);
+        log.debug("Liberación de Slot con ID: {} encolada para Cita con ID: {}",
+                cita.getIdDetalleHorario(), cita.getId());
+
+        return metodoPago;
+    }
+
+    /**
+     * Envía los mensajes pendientes. Primero las ocupaciones de slot, porque al
+     * confirmarse encolan los pagos correspondientes
+     */
+    @Scheduled(fixedDelayString = "${citas.outbox.intervalo-ms:1000}")
+    public void despachar() {
+        despacharOcupaciones();
+        despacharLiberaciones();
+        despacharPagos();
+    }
+
+    // OCUPAR SLOT
+
+    private void despacharOcupaciones() {
+        List<MensajeOutbox> mensajes = descartarSinCitaPendiente(buscarPendientes(MensajeOutbox.TipoMensaje.OCUPAR_SLOT));
+        if (mensajes.isEmpty()) {
+            return;
+        }
+
+        log.debug("Enviando {} ocupaciones de slot a ApiHorario", mensajes.size());
+
+        List<OcuparSlotResponse> resultados;
+        try {
+            resultados = detallesClient.ocuparSlots(mensajes.stream()
+                    .map(m -> new OcuparSlotRequest(m.getIdHorario(), m.getIdDetalleHorario(), m.getIdCita(),
+                            m.getDniPaciente()))
+                    .toList());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo enviar el lote de {} ocupaciones de slot: {}", mensajes.size(), e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> {
+                List<MensajeOutbox> liberaciones = new ArrayList<>();
+                mensajes.forEach(m -> registrarFalloOcupacion(m, e.getMessage(), liberaciones));
+                repository.saveAll(mensajes);
+                repository.saveAll(liberaciones);
+            });
+            return;
+        }
+
+        // Cada resultado se asocia a su mensaje por cita y slot, no por su posición en la respuesta
+        Map<ClaveOcupacion, OcuparSlotResponse> porSlot = new HashMap<>();
+        resultados.forEach(r -> porSlot.put(new ClaveOcupacion(r.idCita(), r.idDetalle()), r));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<MensajeOutbox> pagos = new ArrayList<>();
+            List<MensajeOutbox> liberaciones = new ArrayList<>();
+
+            // Una cita cancelada durante el envío ya encoló la liberación de su Slot y no se cobra
+            Map<Long, CitaMedica.EstadoCitaMedica> estados = buscarEstados(mensajes);
+
+            for (MensajeOutbox m : mensajes) {
+                OcuparSlotResponse resultado = porSlot.get(new ClaveOcupacion(m.getIdCita(), m.getIdDetalleHorario()));
+
+                if (resultado == null) {
+                    log.warn("ApiHorario no informó el resultado del Slot con ID: {} para la Cita con ID: {}",
+                            m.getIdDetalleHorario(), m.getIdCita());
+                    registrarFalloOcupacion(m, "Sin respuesta de ApiHorario", liberaciones);
+                } else if (resultado.ocupado()) {
+                    m.marcarEnviado();
+
+                    // Las reubicaciones sin método de pago son de citas que ya encolaron su pago
+                    if (m.getMetodoPago() != null &&
+                            estados.get(m.getIdCita()) == CitaMedica.EstadoCitaMedica.PENDIENTE) {
+                        pagos.add(toMensajePago(m));
+                    }
+                } else {
+                    log.warn("ApiHorario rechazó el Slot con ID: {} para la Cita con ID: {}: {}",
+                            m.getIdDetalleHorario(), m.getIdCita(), resultado.mensaje());
+                    m.rechazar(resultado.mensaje());
+                    cancelarCita(m.getIdCita());
+                }
+            }
+
+            repository.saveAll(mensajes);
+            repository.saveAll(pagos);
+            repository.saveAll(liberaciones);
+        });
+
+        log.info("Lote de {} ocupaciones de slot procesado", mensajes.size());
+    }
+
+    /**
+     * Descarta las ocupaciones de citas que se cancelaron, completaron o eliminaron mientras su
+     * mensaje esperaba, para no ocupar un Slot que ya nadie liberaría
+     *
+     * @return Los mensajes cuya cita sigue pendiente
+     */
+    private List<MensajeOutbox> descartarSinCitaPendiente(List<MensajeOutbox> mensajes) {
+        if (mensajes.isEmpty()) {
+            return mensajes;
+        }
+
+        Map<Long, CitaMedica.EstadoCitaMedica> estados = buscarEstados(mensajes);
+        List<MensajeOutbox> pendientes = new ArrayList<>(mensajes.size());
+        List<MensajeOutbox> descartados = new ArrayList<>();
+
+        for (MensajeOutbox m : mensajes) {
+            if (estados.get(m.getIdCita()) == CitaMedica.EstadoCitaMedica.PENDIENTE) {
+                pendientes.add(m);
+            } else {
+                m.descartar("La Cita ya no está pendiente");
+                descartados.add(m);
+            }
+        }
+
+        if (!descartados.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> repository.saveAll(descartados));
+            log.info("Ocupaciones de slot descartadas por citas que ya no están pendientes: {}", descartados.size());
+        }
+
+        return pendientes;
+    }
+
+    /**
+     * Obtiene el estado actual de las citas de los mensajes; las citas eliminadas no aparecen
+     */
+    private Map<Long, CitaMedica.EstadoCitaMedica> buscarEstados(List<MensajeOutbox> mensajes) {
+        Map<Long, CitaMedica.EstadoCitaMedica> estados = new HashMap<>();
+        citaRepository.findAllById(mensajes.stream().map(MensajeOutbox::getIdCita).distinct().toList())
+                .forEach(c -> estados.put(c.getId(), c.getEstado()));
+
+        return estados;
+    }
+
+    /**
+     * Registra un intento fallido de ocupación. Si se agotaron los intentos cancela la cita y
+     * agrega a {@code liberaciones} la liberación de su slot, por si algún intento lo ocupó
+     */
+    private void registrarFalloOcupacion(MensajeOutbox m, String error, List<MensajeOutbox> liberaciones) {
+        if (!m.registrarFallo(error, calcularEspera(m), maxIntentos)) {
+            return;
+        }
+
+        log.error("Ocupación de Slot con ID: {} agotó sus intentos, se cancela la Cita con ID: {} y se libera el Slot",
+                m.getIdDetalleHorario(), m.getIdCita());
+        cancelarCita(m.getIdCita());
+        liberaciones.add(toMensajeLiberacion(m));
+    }
+
+    /**
+     * Compensa una cita cuyo Slot no pudo ocuparse
+     */
+    private void cancelarCita(Long idCita) {
+        citaRepository.findById(idCita).ifPresent(cita -> {
+            if (cita.getEstado() == CitaMedica.EstadoCitaMedica.PENDIENTE) {
+                cita.cancelarCita();
+                citaRepository.save(cita);
+                despuesDeConfirmar(() -> comprobanteService.invalidar(idCita));
+                log.info("Cita con ID: {} cancelada por no poder ocupar su Slot", idCita);
+            }
+        });
+    }
+
+    private MensajeOutbox toMensajeLiberacion(MensajeOutbox ocupacion) {
+        return MensajeOutbox.builder()
+                .tipo(MensajeOutbox.TipoMensaje.LIBERAR_SLOT)
+                .claveIdempotencia("LIBERAR_SLOT-cita-" + ocupacion.getIdCita() + "-" +
+                        ocupacion.getIdHorario() + "-" + ocupacion.getIdDetalleHorario())
+                .idCita(ocupacion.getIdCita())
+                .idHorario(ocupacion.getIdHorario())
+                .idDetalleHorario(ocupacion.getIdDetalleHorario())
+                .dniPaciente(ocupacion.getDniPaciente())
+                .build();
+    }
+
+    private MensajeOutbox toMensajePago(MensajeOutbox ocupacion) {
+        return MensajeOutbox.builder()
+                .tipo(MensajeOutbox.TipoMensaje.REGISTRAR_PAGO)
+                .claveIdempotencia("REGISTRAR_PAGO-cita-" + ocupacion.getIdCita())
+                .idCita(ocupacion.getIdCita())
+                .dniPaciente(ocupacion.getDniPaciente())
+                .monto(ocupacion.getMonto())
+                .metodoPago(ocupacion.getMetodoPago())
+                .build();
+    }
+
+    // LIBERAR SLOT
+
+    /**
+     * Envía las liberaciones de slots de citas canceladas, eliminadas o reubicadas, y de las
+     * canceladas por no poder confirmar su ocupación. ApiHorario solo libera el slot si lo
+     * ocupa la cita, o suelta la retención si aún la tiene su paciente, así que reintentar es seguro
+     */
+    private void despacharLiberaciones() {
+        List<MensajeOutbox> mensajes = buscarPendientes(MensajeOutbox.TipoMensaje.LIBERAR_SLOT);
+        if (mensajes.isEmpty()) {
+            return;
+        }
+
+        log.debug("Enviando {} liberaciones de slot a ApiHorario", mensajes.size());
+
+        try {
+            List<LiberarSlotResponse> resultados = detallesClient.liberarSlots(mensajes.stream()
+                    .map(m -> new LiberarSlotRequest(m.getIdHorario(), m.getIdDetalleHorario(), m.getIdCita(),
+                            m.getDniPaciente()))
+                    .toList());
+
+            resultados.stream()
+                    .filter(LiberarSlotResponse::liberado)
+                    .forEach(r -> log.info("Slot con ID: {} liberado de la Cita con ID: {}",
+                            r.idDetalle(), r.idCita()));
+            mensajes.forEach(MensajeOutbox::marcarEnviado);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo enviar el lote de {} liberaciones de slot: {}", mensajes.size(), e.getMessage());
+            mensajes.forEach(m -> {
+                if (m.registrarFallo(e.getMessage(), calcularEspera(m), maxIntentos)) {
+                    log.error("Liberación del Slot con ID: {} de la Cita con ID: {} agotó sus intentos, " +
+                            "requiere revisión manual", m.getIdDetalleHorario(), m.getIdCita());
+                }
+            });
+        }
+
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(mensajes));
+        log.info("Lote de {} liberaciones de slot procesado", mensajes.size());
+    }
+
+    // REGISTRAR PAGO
+
+    private void despacharPagos() {
+        List<MensajeOutbox> mensajes = buscarPendientes(MensajeOutbox.TipoMensaje.REGISTRAR_PAGO);
+        if (mensajes.isEmpty()) {
+            return;
+        }
+
+        log.debug("Enviando {} pagos de cita a ApiPago", mensajes.size());
+
+        try {
+            pagoCitaClient.registrarPagos(mensajes.stream().map(this::toPagoCitaRequest).toList());
+            mensajes.forEach(MensajeOutbox::marcarEnviado);
+        } catch (RuntimeException e) {
+            if (esRechazoDefinitivo(e) && mensajes.size() > 1) {
+                // Un pago inválido no debe bloquear al resto del lote: se envían uno por uno
+                log.warn("ApiPago rechazó el lote de {} pagos, se reintentan por separado", mensajes.size());
+                mensajes.forEach(this::enviarPago);
+            } else {
+                registrarFalloPago(mensajes, e);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(mensajes));
+        log.info("Lote de {} pagos de cita procesado", mensajes.size());
+    }
+
+    private void enviarPago(MensajeOutbox mensaje) {
+        try {
+            pagoCitaClient.registrarPagos(List.of(toPagoCitaRequest(mensaje)));
+            mensaje.marcarEnviado();
+        } catch (RuntimeException e) {
+            registrarFalloPago(List.of(mensaje), e);
+        }
+    }
+
+    private void registrarFalloPago(List<MensajeOutbox> mensajes, RuntimeException e) {
+        boolean definitivo = esRechazoDefinitivo(e);
+
+        for (MensajeOutbox m : mensajes) {
+            if (definitivo) {
+                m.rechazar(e.getMessage());
+            } else if (!m.registrarFallo(e.getMessage(), calcularEspera(m), maxIntentos)) {
+                continue;
+            }
+
+            log.error("Pago de la Cita con ID: {} no registrado en ApiPago, requiere revisión manual: {}",
+                    m.getIdCita(), e.getMessage());
+        }
+    }
+
+    private PagoCitaRequest toPagoCitaRequest(MensajeOutbox mensaje) {
+        return new PagoCitaRequest(
+                mensaje.getIdCita(),
+                mensaje.getDniPaciente(),
+                mensaje.getMonto(),
+                mensaje.getMetodoPago(),
+                mensaje.getClaveIdempotencia()
+        );
+    }
+
+    // AUXILIARES
+
+    private record ClaveOcupacion(Long idCita, Long idDetalle) {
+    }
+
+    private List<MensajeOutbox> buscarPendientes(MensajeOutbox.TipoMensaje tipo) {
+        return repository.findByEstadoAndTipoAndProximoIntentoLessThanEqualOrderByIdAsc(
+                MensajeOutbox.EstadoMensaje.PENDIENTE,
+                tipo,
+                LocalDateTime.now(),
+                PageRequest.of(0, tamanoLote)
+        );
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción actual se confirma, o de inmediato si no hay una activa
+     */
+    private void despuesDeConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Espera exponencial según los intentos ya realizados, con tope {@code esperaMaximaMs}
+     */
+    private Duration calcularEspera(MensajeOutbox mensaje) {
+        long espera = esperaBaseMs << Math.min(mensaje.getIntentos(), 20);
+        return Duration.ofMillis(Math.min(espera, esperaMaximaMs));
+    }
+
+    /**
+     * Un 4xx (salvo 408 y 429) indica que el destino rechazó los datos y reintentar no servirá
+     */
+    private boolean esRechazoDefinitivo(Throwable e) {
+        for (Throwable c = e; c != null; c = c.getCause()) {
+            if (c instanceof FeignException feignException) {
+                int status = feignException.status();
+                return status >= 400 && status < 500 && status != 408 && status != 429;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,81 @@
+package cm.apicitamedica.pdfgenerator;
+
+import cm.apicitamedica.client.paciente.PacienteSimpleResponse;
+import cm.apicitamedica.client.slot.SlotClientResponse;
+import cm.apicitamedica.dto.CitaMedicaResponse;
+import cm.apicitamedica.repository.CitaMedica;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH del tiempo y la memoria asignada por cada comprobante PDF de una Cita Médica.
+ * <p>
+ * No es un test: surefire no lo ejecuta. Se corre desde el IDE con {@link #main}, o con
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=cm.apicitamedica.pdfgenerator.ComprobanteCitaPdfGeneratorBenchmark}.
+ * El tiempo por PDF sale en {@code avgt} y los bytes asignados por PDF en
+ * {@code gc.alloc.rate.norm}. Para comparar antes y después de un cambio en la plantilla,
+ * se corre en ambas versiones del generador con el mismo JDK y los mismos parámetros
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ComprobanteCitaPdfGeneratorBenchmark {
+
+    private ComprobanteCitaPdfGenerator generator;
+    private CitaMedicaResponse cita;
+
+    @Setup
+    public void preparar() {
+        generator = new ComprobanteCitaPdfGenerator();
+        cita = new CitaMedicaResponse(
+                1234L,
+                new PacienteSimpleResponse(10L, "María Fernanda", "Quispe Huamán", "71234567",
+                        LocalDate.of(1990, 5, 20)),
+                new BigDecimal("45.50"),
+                CitaMedica.EstadoCitaMedica.PENDIENTE,
+                new CitaMedicaResponse.DetallesCita(
+                        new SlotClientResponse.MedicoResponse(7L, "Dr. Carlos Alberto Mendoza Ríos"),
+                        new CitaMedicaResponse.DatosEspecialidad(3L, "Cardiología"),
+                        LocalDate.of(2026, 11, 3),
+                        LocalTime.of(9, 30),
+                        new SlotClientResponse.ConsultorioResponse("204", "Segundo piso, pabellón B"),
+                        null));
+    }
+
+    @Benchmark
+    public byte[] generarPdf() {
+        return generator.generarPdf(cita);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(ComprobanteCitaPdfGeneratorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opciones).run();
+    }
+
+}
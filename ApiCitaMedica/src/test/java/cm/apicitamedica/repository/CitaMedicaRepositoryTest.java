@@ -0,0 +1,204 @@
+package cm.apicitamedica.repository;
+
+import cm.apicitamedica.dto.CursorCita;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class CitaMedicaRepositoryTest {
+
+    private static final Long ID_HORARIO = 1L;
+    private static final Long ID_DETALLE = 2048L;
+    private static final LocalDate FECHA = LocalDate.of(2026, 10, 19);
+
+    @Autowired
+    private CitaMedicaRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void segundaCitaActivaEnElMismoSlot_violaLaRestriccion() {
+        repository.saveAndFlush(cita("11111111", ID_DETALLE));
+
+        assertThatThrownBy(() -> repository.saveAndFlush(cita("22222222", ID_DETALLE)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .satisfies(e -> assertThat(((DataIntegrityViolationException) e).getMostSpecificCause().getMessage())
+                        .containsIgnoringCase(CitaMedica.UK_SLOT_ACTIVO));
+    }
+
+    @Test
+    void citaCancelada_liberaElSlot() {
+        CitaMedica cancelada = repository.saveAndFlush(cita("11111111", ID_DETALLE));
+        cancelada.cancelarCita();
+        repository.saveAndFlush(cancelada);
+
+        CitaMedica nueva = repository.saveAndFlush(cita("22222222", ID_DETALLE));
+
+        assertThat(nueva.getId()).isNotNull();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void citaCompletada_sigueOcupandoElSlot() {
+        CitaMedica completada = repository.saveAndFlush(cita("11111111", ID_DETALLE));
+        completada.completarCita();
+        repository.saveAndFlush(completada);
+
+        assertThatThrownBy(() -> repository.saveAndFlush(cita("22222222", ID_DETALLE)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void slotsDistintosDelMismoHorario_noChocan() {
+        repository.saveAndFlush(cita("11111111", ID_DETALLE));
+        repository.saveAndFlush(cita("22222222", ID_DETALLE + 1));
+
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void registrosConcurrentes_soloUnoTomaElSlot() throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int intentos = 8;
+        ExecutorService hilos = Executors.newFixedThreadPool(intentos);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger registradas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < intentos; i++) {
+                String dni = String.valueOf(10000000 + i);
+                tareas.add(hilos.submit(() -> {
+                    largada.await();
+                    try {
+                        transaccion.executeWithoutResult(s -> repository.saveAndFlush(cita(dni, ID_DETALLE)));
+                        registradas.incrementAndGet();
+                    } catch (DataIntegrityViolationException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(registradas).hasValue(1);
+            assertThat(rechazadas).hasValue(intentos - 1);
+            assertThat(repository.count()).isEqualTo(1);
+        } finally {
+            hilos.shutdownNow();
+            repository.deleteAll();
+        }
+    }
+
+    @Test
+    void findByRangoFechas_recorridoConElCursor_devuelveTodasEnOrdenSinRepetir() {
+        // Dos citas por hora: el ID desempata las que comparten fecha y hora
+        List<CitaMedica> guardadas = repository.saveAllAndFlush(List.of(
+                citaEn(ID_DETALLE, FECHA.plusDays(1), 9),
+                citaEn(ID_DETALLE + 1, FECHA, 10),
+                citaEn(ID_DETALLE + 2, FECHA, 9),
+                citaEn(ID_DETALLE + 3, FECHA, 10),
+                citaEn(ID_DETALLE + 4, FECHA, 9)));
+
+        List<Long> recorridas = new ArrayList<>();
+        CursorCita cursor = CursorCita.inicio(FECHA);
+        List<CitaMedica> pagina;
+        do {
+            pagina = repository.findByRangoFechas(FECHA, FECHA.plusDays(1), null,
+                    cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(2));
+            pagina.forEach(c -> recorridas.add(c.getId()));
+            if (!pagina.isEmpty()) {
+                cursor = CursorCita.decodificar(CursorCita.de(pagina.get(pagina.size() - 1)).codificar());
+            }
+        } while (pagina.size() == 2);
+
+        assertThat(recorridas).containsExactly(
+                guardadas.get(2).getId(), guardadas.get(4).getId(),
+                guardadas.get(1).getId(), guardadas.get(3).getId(),
+                guardadas.get(0).getId());
+    }
+
+    @Test
+    void findByRangoFechas_citaDelCursorEliminada_sigueDesdeSusValores() {
+        List<CitaMedica> guardadas = repository.saveAllAndFlush(List.of(
+                citaEn(ID_DETALLE, FECHA, 9),
+                citaEn(ID_DETALLE + 1, FECHA, 10),
+                citaEn(ID_DETALLE + 2, FECHA, 11)));
+        CursorCita cursor = CursorCita.de(guardadas.get(0));
+        repository.delete(guardadas.get(0));
+        repository.flush();
+
+        List<CitaMedica> siguientes = repository.findByRangoFechas(FECHA, FECHA, null,
+                cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(10));
+
+        assertThat(siguientes).extracting(CitaMedica::getId)
+                .containsExactly(guardadas.get(1).getId(), guardadas.get(2).getId());
+    }
+
+    @Test
+    void findByMedicoYRangoFechas_soloLasDelMedicoDespuesDelCursor() {
+        CitaMedica primera = repository.saveAndFlush(citaEn(ID_DETALLE, FECHA, 9));
+        repository.saveAndFlush(citaEn(ID_DETALLE + 1, FECHA, 10));
+        CitaMedica deOtroMedico = citaEn(ID_DETALLE + 2, FECHA, 11);
+        deOtroMedico.getSlot().setIdMedico(8L);
+        repository.saveAndFlush(deOtroMedico);
+        CursorCita cursor = CursorCita.de(primera);
+
+        List<CitaMedica> siguientes = repository.findByMedicoYRangoFechas(7L, FECHA, FECHA, null,
+                cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(10));
+
+        assertThat(siguientes).extracting(c -> c.getSlot().getHoraInicio()).containsExactly(LocalTime.of(10, 0));
+    }
+
+    // AUXILIARES
+
+    private static CitaMedica citaEn(Long idDetalle, LocalDate fecha, int hora) {
+        CitaMedica cita = cita("11111111", idDetalle);
+        cita.actualizarSlot(SlotSnapshot.builder()
+                .idMedico(7L)
+                .idEspecialidad(3L)
+                .fecha(fecha)
+                .horaInicio(LocalTime.of(hora, 0))
+                .build());
+        return cita;
+    }
+
+    private static CitaMedica cita(String dni, Long idDetalle) {
+        return CitaMedica.builder()
+                .dniPaciente(dni)
+                .idHorario(ID_HORARIO)
+                .idDetalleHorario(idDetalle)
+                .costo(new BigDecimal("45.50"))
+                .build();
+    }
+
+}
@@ -0,0 +1,156 @@
+package cm.apicitamedica.service;
+
+import cm.apicitamedica.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotenciaServiceTest {
+
+    private static final String CLAVE = "clave-1";
+
+    @Test
+    void reintentoConLaMismaClave_devuelveLaRespuestaOriginalSinRepetirLaOperacion() {
+        IdempotenciaService service = new IdempotenciaService(60_000, 100, 5_000);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        IdempotenciaService.Resultado<Integer> primero =
+                service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet);
+        IdempotenciaService.Resultado<Integer> reintento =
+                service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet);
+
+        assertThat(primero.repetido()).isFalse();
+        assertThat(reintento.repetido()).isTrue();
+        assertThat(reintento.valor()).isEqualTo(primero.valor());
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void mismaClaveConOtrosDatos_esRechazada() {
+        IdempotenciaService service = new IdempotenciaService(60_000, 100, 5_000);
+        service.ejecutar(CLAVE, "solicitud", () -> 1);
+
+        assertThatThrownBy(() -> service.ejecutar(CLAVE, "otra solicitud", () -> 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void operacionFallida_liberaLaClaveParaReintentar() {
+        IdempotenciaService service = new IdempotenciaService(60_000, 100, 5_000);
+
+        assertThatThrownBy(() -> service.ejecutar(CLAVE, "solicitud", () -> {
+            throw new IllegalStateException("Slot no disponible");
+        })).isInstanceOf(IllegalStateException.class);
+
+        IdempotenciaService.Resultado<Integer> reintento = service.ejecutar(CLAVE, "solicitud", () -> 7);
+
+        assertThat(reintento.repetido()).isFalse();
+        assertThat(reintento.valor()).isEqualTo(7);
+    }
+
+    @Test
+    void claveExpirada_vuelveAEjecutarLaOperacion() {
+        IdempotenciaService service = new IdempotenciaService(0, 100, 5_000);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet);
+        IdempotenciaService.Resultado<Integer> segundo =
+                service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet);
+
+        assertThat(segundo.repetido()).isFalse();
+        assertThat(ejecuciones).hasValue(2);
+    }
+
+    @Test
+    void reintentoMientrasLaOriginalSigueEnCurso_esperaSuRespuesta() throws Exception {
+        IdempotenciaService service = new IdempotenciaService(60_000, 100, 5_000);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<IdempotenciaService.Resultado<Integer>> original = hilos.submit(() ->
+                    service.ejecutar(CLAVE, "solicitud", () -> {
+                        enCurso.countDown();
+                        await(terminar);
+                        return ejecuciones.incrementAndGet();
+                    }));
+
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<IdempotenciaService.Resultado<Integer>> reintento = hilos.submit(() ->
+                    service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet));
+
+            terminar.countDown();
+
+            assertThat(original.get(5, TimeUnit.SECONDS).repetido()).isFalse();
+            assertThat(reintento.get(5, TimeUnit.SECONDS).repetido()).isTrue();
+            assertThat(reintento.get().valor()).isEqualTo(original.get().valor());
+            assertThat(ejecuciones).hasValue(1);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void reintentoMientrasLaOriginalNoTerminaAntesDeLaEspera_fallaSinRepetirLaOperacion() throws Exception {
+        IdempotenciaService service = new IdempotenciaService(60_000, 100, 50);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<IdempotenciaService.Resultado<Integer>> original = hilos.submit(() ->
+                    service.ejecutar(CLAVE, "solicitud", () -> {
+                        enCurso.countDown();
+                        await(terminar);
+                        return ejecuciones.incrementAndGet();
+                    }));
+
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> service.ejecutar(CLAVE, "solicitud", ejecuciones::incrementAndGet))
+                    .isInstanceOf(ServiceUnavailableException.class);
+
+            terminar.countDown();
+
+            assertThat(original.get(5, TimeUnit.SECONDS).repetido()).isFalse();
+            assertThat(ejecuciones).hasValue(1);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void superadoElMaximoDeClaves_descartaLaMasAntigua() {
+        IdempotenciaService service = new IdempotenciaService(60_000, 2, 5_000);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        service.ejecutar("a", "solicitud", ejecuciones::incrementAndGet);
+        service.ejecutar("b", "solicitud", ejecuciones::incrementAndGet);
+        service.ejecutar("c", "solicitud", ejecuciones::incrementAndGet);
+
+        assertThat(service.ejecutar("b", "solicitud", ejecuciones::incrementAndGet).repetido()).isTrue();
+        assertThat(service.ejecutar("a", "solicitud", ejecuciones::incrementAndGet).repetido()).isFalse();
+        assertThat(ejecuciones).hasValue(4);
+    }
+
+    // AUXILIARES
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+package cm.apicitamedica.service;
+
+import cm.apicitamedica.client.pagocita.PagoCitaFeignClient;
+import cm.apicitamedica.client.slot.DetalleHorarioFeignClient;
+import cm.apicitamedica.client.slot.LiberarSlotRequest;
+import cm.apicitamedica.client.slot.LiberarSlotResponse;
+import cm.apicitamedica.client.slot.OcuparSlotRequest;
+import cm.apicitamedica.client.slot.OcuparSlotResponse;
+import cm.apicitamedica.repository.CitaMedica;
+import cm.apicitamedica.repository.CitaMedicaRepository;
+import cm.apicitamedica.repository.MensajeOutbox;
+import cm.apicitamedica.repository.MensajeOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxCitaServiceTest {
+
+    private static final Long CITA = 10L;
+    private static final Long HORARIO = 1L;
+    private static final Long SLOT = 2048L;
+    private static final Long OTRO_SLOT = 2049L;
+    private static final String DNI = "12345678";
+
+    private MensajeOutboxRepository repository;
+    private CitaMedicaRepository citaRepository;
+    private DetalleHorarioFeignClient detallesClient;
+    private PagoCitaFeignClient pagoCitaClient;
+    private ComprobanteCitaService comprobanteService;
+    private OutboxCitaService service;
+
+    /**
+     * Citas que la base de datos tiene guardadas, por ID
+     */
+    private final Map<Long, CitaMedica> citas = new HashMap<>();
+
+    /**
+     * Mensajes pendientes que devuelve la base de datos, por tipo
+     */
+    private final Map<MensajeOutbox.TipoMensaje, List<MensajeOutbox>> pendientes =
+            new EnumMap<>(MensajeOutbox.TipoMensaje.class);
+
+    /**
+     * Mensajes guardados, en orden
+     */
+    private final List<MensajeOutbox> guardados = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        repository = mock(MensajeOutboxRepository.class);
+        citaRepository = mock(CitaMedicaRepository.class);
+        detallesClient = mock(DetalleHorarioFeignClient.class);
+        pagoCitaClient = mock(PagoCitaFeignClient.class);
+        comprobanteService = mock(ComprobanteCitaService.class);
+
+        when(repository.findByEstadoAndTipoAndProximoIntentoLessThanEqualOrderByIdAsc(
+                eq(MensajeOutbox.EstadoMensaje.PENDIENTE), any(), any(), any()))
+                .thenAnswer(i -> List.copyOf(pendientes.getOrDefault(i.getArgument(1), List.of())));
+        when(repository.save(any())).thenAnswer(i -> {
+            guardados.add(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(repository.saveAll(anyList())).thenAnswer(i -> {
+            guardados.addAll(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(citaRepository.findAllById(anyList())).thenAnswer(i -> {
+            Collection<Long> ids = i.getArgument(0);
+            return ids.stream().filter(citas::containsKey).map(citas::get).toList();
+        });
+        when(citaRepository.findById(anyLong())).thenAnswer(i ->
+                Optional.ofNullable(citas.get(i.<Long>getArgument(0))));
+
+        service = new OutboxCitaService(repository, citaRepository, detallesClient, pagoCitaClient,
+                comprobanteService, transaccion());
+        ReflectionTestUtils.setField(service, "tamanoLote", 100);
+        ReflectionTestUtils.setField(service, "maxIntentos", 3);
+        ReflectionTestUtils.setField(service, "esperaBaseMs", 1000L);
+        ReflectionTestUtils.setField(service, "esperaMaximaMs", 60000L);
+    }
+
+    // ENCOLAR LIBERACIÓN
+
+    @Test
+    void encolarLiberarSlot_ocupacionPendienteDelMismoSlot_laDescartaYDevuelveSuMetodoDePago() {
+        CitaMedica cita = cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+        MensajeOutbox ocupacion = ocupacion(SLOT, "TARJETA");
+        MensajeOutbox deOtroSlot = ocupacion(OTRO_SLOT, null);
+        when(repository.findByIdCitaAndTipoAndEstado(CITA, MensajeOutbox.TipoMensaje.OCUPAR_SLOT,
+                MensajeOutbox.EstadoMensaje.PENDIENTE)).thenReturn(List.of(ocupacion, deOtroSlot));
+
+        String metodoPago = service.encolarLiberarSlot(cita);
+
+        assertThat(metodoPago).isEqualTo("TARJETA");
+        assertThat(ocupacion.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.DESCARTADO);
+        assertThat(deOtroSlot.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.PENDIENTE);
+        assertThat(guardados)
+                .filteredOn(m -> m.getTipo() == MensajeOutbox.TipoMensaje.LIBERAR_SLOT)
+                .singleElement()
+                .satisfies(m -> {
+                    assertThat(m.getIdDetalleHorario()).isEqualTo(SLOT);
+                    assertThat(m.getDniPaciente()).isEqualTo(DNI);
+                });
+    }
+
+    @Test
+    void encolarReubicacion_conMetodoDePagoHeredado_llevaElCostoDeLaCita() {
+        CitaMedica cita = cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+
+        service.encolarReubicacion(cita, "TARJETA");
+        service.encolarReubicacion(cita, null);
+
+        assertThat(guardados).extracting(MensajeOutbox::getMonto, MensajeOutbox::getMetodoPago)
+                .containsExactly(
+                        tuple(new BigDecimal("50.00"), "TARJETA"),
+                        tuple(null, null));
+    }
+
+    // DESPACHAR OCUPACIONES
+
+    @Test
+    void despachar_citaCanceladaMientrasEsperaba_descartaLaOcupacionSinEnviarla() {
+        cita(CitaMedica.EstadoCitaMedica.CANCELADA);
+        MensajeOutbox ocupacion = pendiente(ocupacion(SLOT, "TARJETA"));
+
+        service.despachar();
+
+        assertThat(ocupacion.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.DESCARTADO);
+        verify(detallesClient, never()).ocuparSlots(anyList());
+    }
+
+    @Test
+    void despachar_citaEliminada_descartaLaOcupacionSinEnviarla() {
+        MensajeOutbox ocupacion = pendiente(ocupacion(SLOT, "TARJETA"));
+
+        service.despachar();
+
+        assertThat(ocupacion.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.DESCARTADO);
+        verify(detallesClient, never()).ocuparSlots(anyList());
+    }
+
+    @Test
+    void despachar_ocupacionAceptada_encolaElPago() {
+        cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+        pendiente(ocupacion(SLOT, "TARJETA"));
+        ocupacionesAceptadas(true);
+
+        service.despachar();
+
+        assertThat(guardados).filteredOn(m -> m.getTipo() == MensajeOutbox.TipoMensaje.REGISTRAR_PAGO)
+                .singleElement()
+                .extracting(MensajeOutbox::getMetodoPago)
+                .isEqualTo("TARJETA");
+    }
+
+    @Test
+    void despachar_reubicacionAceptada_noEncolaOtroPago() {
+        cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+        MensajeOutbox reubicacion = pendiente(ocupacion(SLOT, null));
+        ocupacionesAceptadas(true);
+
+        service.despachar();
+
+        assertThat(reubicacion.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.ENVIADO);
+        assertThat(guardados).noneMatch(m -> m.getTipo() == MensajeOutbox.TipoMensaje.REGISTRAR_PAGO);
+    }
+
+    @Test
+    void despachar_citaCanceladaDuranteElEnvio_noEncolaElPago() {
+        CitaMedica cita = cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+        pendiente(ocupacion(SLOT, "TARJETA"));
+        when(detallesClient.ocuparSlots(anyList())).thenAnswer(i -> {
+            cita.cancelarCita();
+            return respuestasOcupacion(i.getArgument(0), true);
+        });
+
+        service.despachar();
+
+        assertThat(guardados).noneMatch(m -> m.getTipo() == MensajeOutbox.TipoMensaje.REGISTRAR_PAGO);
+    }
+
+    @Test
+    void despachar_ocupacionRechazada_cancelaLaCitaEInvalidaElComprobante() {
+        CitaMedica cita = cita(CitaMedica.EstadoCitaMedica.PENDIENTE);
+        pendiente(ocupacion(SLOT, "TARJETA"));
+        ocupacionesAceptadas(false);
+
+        service.despachar();
+
+        assertThat(cita.getEstado()).isEqualTo(CitaMedica.EstadoCitaMedica.CANCELADA);
+        verify(comprobanteService).invalidar(CITA);
+    }
+
+    // DESPACHAR LIBERACIONES
+
+    @Test
+    void despachar_liberacion_enviaElDniComoTitularDeLaRetencion() {
+        MensajeOutbox liberacion = pendiente(MensajeOutbox.builder()
+                .id(2L)
+                .tipo(MensajeOutbox.TipoMensaje.LIBERAR_SLOT)
+                .idCita(CITA)
+                .idHorario(HORARIO)
+                .idDetalleHorario(SLOT)
+                .dniPaciente(DNI)
+                .build());
+        when(detallesClient.liberarSlots(anyList()))
+                .thenReturn(List.of(new LiberarSlotResponse(HORARIO, SLOT, CITA, true)));
+
+        service.despachar();
+
+        verify(detallesClient).liberarSlots(List.of(new LiberarSlotRequest(HORARIO, SLOT, CITA, DNI)));
+        assertThat(liberacion.getEstado()).isEqualTo(MensajeOutbox.EstadoMensaje.ENVIADO);
+    }
+
+    // AUXILIARES
+
+    private CitaMedica cita(CitaMedica.EstadoCitaMedica estado) {
+        CitaMedica cita = CitaMedica.builder()
+                .id(CITA)
+                .dniPaciente(DNI)
+                .idHorario(HORARIO)
+                .idDetalleHorario(SLOT)
+                .costo(new BigDecimal("50.00"))
+                .estado(estado)
+                .slotVersion(1)
+                .build();
+        citas.put(CITA, cita);
+        return cita;
+    }
+
+    private static MensajeOutbox ocupacion(Long idDetalle, String metodoPago) {
+        return MensajeOutbox.builder()
+                .id(idDetalle)
+                .tipo(MensajeOutbox.TipoMensaje.OCUPAR_SLOT)
+                .claveIdempotencia("OCUPAR_SLOT-cita-" + CITA + "-" + HORARIO + "-" + idDetalle)
+                .idCita(CITA)
+                .idHorario(HORARIO)
+                .idDetalleHorario(idDetalle)
+                .dniPaciente(DNI)
+                .monto((metodoPago != null) ? new BigDecimal("50.00") : null)
+                .metodoPago(metodoPago)
+                .build();
+    }
+
+    private MensajeOutbox pendiente(MensajeOutbox mensaje) {
+        pendientes.computeIfAbsent(mensaje.getTipo(), t -> new ArrayList<>()).add(mensaje);
+        return mensaje;
+    }
+
+    private void ocupacionesAceptadas(boolean ocupado) {
+        when(detallesClient.ocuparSlots(anyList())).thenAnswer(i -> respuestasOcupacion(i.getArgument(0), ocupado));
+    }
+
+    private static List<OcuparSlotResponse> respuestasOcupacion(List<OcuparSlotRequest> slots, boolean ocupado) {
+        return slots.stream()
+                .map(s -> new OcuparSlotResponse(s.idHorario(), s.idDetalle(), s.idCita(), ocupado,
+                        ocupado ? null : "Slot no disponible"))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate transaccion() {
+        TransactionTemplate transaccion = mock(TransactionTemplate.class);
+        doAnswer(i -> {
+            ((Consumer<TransactionStatus>) i.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transaccion).executeWithoutResult(any());
+        return transaccion;
+    }
+
+}
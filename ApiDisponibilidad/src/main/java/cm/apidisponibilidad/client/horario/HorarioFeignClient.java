@@ -0,0 +1,16 @@
+package cm.apidisponibilidad.client.horario;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+@FeignClient(name = "ApiHorario", fallbackFactory = HorarioFallBackFactory.class)
+public interface HorarioFeignClient {
+
+    // Registra varios horarios, con un resultado por horario en el mismo orden
+    @PostMapping("/horarios/client/lote")
+    List<HorarioLoteResponse> registrarLote(@RequestBody List<HorarioRequest> horarios);
+
+}
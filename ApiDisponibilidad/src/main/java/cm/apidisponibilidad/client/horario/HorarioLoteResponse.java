@@ -0,0 +1,14 @@
+package cm.apidisponibilidad.client.horario;
+
+public record HorarioLoteResponse(
+        Long idHorario,
+        ResultadoLote resultado,
+        String mensaje
+) {
+
+    public enum ResultadoLote {
+        CREADO,
+        EXISTENTE,
+        RECHAZADO
+    }
+}
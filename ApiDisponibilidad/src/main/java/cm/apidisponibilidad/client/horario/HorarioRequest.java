@@ -0,0 +1,19 @@
+package cm.apidisponibilidad.client.horario;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record HorarioRequest(
+        Long idEmpleado,
+        String nro_consultorio,
+        LocalDate fecha,
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaInicio,
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaFin,
+        Integer duracionSlotMinutos,
+        Long idEspecialidad
+) {
+}
@@ -0,0 +1,13 @@
+package cm.apidisponibilidad.config;
+
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Habilita los clientes Feign fuera de la clase principal, para que los tests de capa
+ * como {@code @DataJpaTest} no intenten crearlos sin la configuración de Feign
+ */
+@Configuration
+@EnableFeignClients(basePackages = "cm.apidisponibilidad.client")
+public class FeignConfig {
+}
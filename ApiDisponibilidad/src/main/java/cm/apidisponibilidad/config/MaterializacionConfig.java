@@ -0,0 +1,34 @@
+package cm.apidisponibilidad.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MaterializacionConfig {
+
+    /**
+     * Pool que envía los tramos de la materialización a ApiHorario. Tiene un hilo por tramo
+     * en vuelo permitido; el lector no envía otro tramo hasta confirmar el más antiguo
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService materializacionExecutor(
+            @Value("${disponibilidades.materializacion.max-tramos-en-vuelo:2}") int maxTramosEnVuelo) {
+
+        return new ThreadPoolExecutor(
+                maxTramosEnVuelo,
+                maxTramosEnVuelo,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxTramosEnVuelo),
+                Thread.ofPlatform().name("materializacion-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+}
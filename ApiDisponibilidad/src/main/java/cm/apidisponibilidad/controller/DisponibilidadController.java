@@ -1,9 +1,14 @@
 package cm.apidisponibilidad.controller;
 
+import cm.apidisponibilidad.dto.CacheEstadisticasResponse;
 import cm.apidisponibilidad.dto.DisponibilidadRequest;
 import cm.apidisponibilidad.dto.DisponibilidadResponse;
+import cm.apidisponibilidad.dto.EjecucionMaterializacionResponse;
+import cm.apidisponibilidad.dto.PaginaResponse;
 import cm.apidisponibilidad.exceptions.ErrorResponse;
 import cm.apidisponibilidad.service.DisponibilidadService;
+import cm.apidisponibilidad.service.MaterializacionHorariosService;
+import cm.apidisponibilidad.service.NombresCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,7 +17,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -20,6 +29,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -31,6 +41,10 @@ import java.util.List;
 public class DisponibilidadController {
 
     private final DisponibilidadService service;
+    private final NombresCacheService nombresCache;
+    private final MaterializacionHorariosService materializacion;
+
+    private static final int MAX_LIMITE_PAGINA = 200;
 
     // ENDPOINTS CRUD
 
@@ -66,13 +80,59 @@ public class DisponibilidadController {
         return ResponseEntity.status(HttpStatus.CREATED).body(nuevaDisponibilidad);
     }
 
+    @PostMapping("/lote")
+    @Operation(
+            summary = "Registrar lote de disponibilidades",
+            description = "Registra varias disponibilidades en una sola operación, si alguna es inválida o se " +
+                    "solapa no se registra ninguna"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Disponibilidades registradas exitosamente",
+                    content = @Content(schema = @Schema(implementation = DisponibilidadResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Datos inválidos o disponibilidades solapadas",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error Interno del servidor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<DisponibilidadResponse>> registrarLote(
+            @Parameter(description = "Lista de disponibilidades a registrar")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos una disponibilidad")
+            @Size(max = 1000, message = "No se pueden registrar más de 1000 disponibilidades por lote")
+            List<@Valid DisponibilidadRequest> requests) {
+
+        log.info("Solicitud de registro de lote de {} disponibilidades recibida", requests.size());
+        List<DisponibilidadResponse> nuevasDisponibilidades = service.registrarLote(requests);
+        log.info("Solicitud de registro de lote de disponibilidades terminada, respuesta enviada");
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(nuevasDisponibilidades);
+    }
+
     @GetMapping
-    @Operation(summary = "Listar disponibilidades", description = "Lista todas las disponibilidades")
+    @Operation(summary = "Buscar disponibilidades",
+            description = "Obtiene una página de las disponibilidades de un rango de fechas (por defecto desde hoy), " +
+                    "ordenadas por fecha, hora de inicio e ID y filtradas opcionalmente por médico y especialidad. " +
+                    "Se pagina por cursor, no por número de página: para la siguiente página enviar el " +
+                    "siguienteCursor recibido como despuesDe")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
-                    description = "Lista de disponibilidades obtenida correctamente",
-                    content = @Content(schema = @Schema(implementation = DisponibilidadResponse.class))
+                    description = "Página de disponibilidades obtenida correctamente",
+                    content = @Content(schema = @Schema(implementation = PaginaResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Filtros o rango de fechas inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
             @ApiResponse(
                     responseCode = "500",
@@ -80,18 +140,47 @@ public class DisponibilidadController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
-    public ResponseEntity<List<DisponibilidadResponse>> listar() {
+    public ResponseEntity<PaginaResponse<DisponibilidadResponse>> buscar(
+            @Parameter(description = "Fecha inicial (inclusive, opcional, por defecto hoy)", example = "2025-10-15")
+            @RequestParam(required = false)
+            LocalDate desde,
 
-        log.info("Solicitud de listar recibida");
-        List<DisponibilidadResponse> disponibilidades = service.listar();
-        log.info("Solicitud de listar terminada, respuesta enviada");
+            @Parameter(description = "Fecha final (inclusive, opcional, por defecto 92 días desde la inicial)")
+            @RequestParam(required = false)
+            LocalDate hasta,
+
+            @Parameter(description = "Identificador único del médico (opcional)", example = "1")
+            @RequestParam(required = false)
+            @Positive(message = "El ID debe ser positivo")
+            Long idMedico,
+
+            @Parameter(description = "Identificador único de la especialidad (opcional)", example = "1")
+            @RequestParam(required = false)
+            @Positive(message = "El ID debe ser positivo")
+            Long idEspecialidad,
+
+            @Parameter(description = "Cursor (siguienteCursor) recibido en la página anterior")
+            @RequestParam(required = false)
+            @Size(max = 64, message = "El cursor no es válido")
+            String despuesDe,
+
+            @Parameter(description = "Cantidad máxima de disponibilidades por página")
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = MAX_LIMITE_PAGINA, message = "El límite no puede superar " + MAX_LIMITE_PAGINA)
+            int limite) {
+
+        log.info("Solicitud de buscar disponibilidades recibida");
+        PaginaResponse<DisponibilidadResponse> disponibilidades =
+                service.buscar(desde, hasta, idMedico, idEspecialidad, despuesDe, limite);
+        log.info("Solicitud de buscar disponibilidades terminada, respuesta enviada");
 
         return ResponseEntity.ok(disponibilidades);
     }
 
     @GetMapping("/{idMedico}")
-    @Operation(summary = "Buscar todas las disponibilidades por médico",
-            description = "Busca todas las disponibilidades de un médico por su ID")
+    @Operation(summary = "Buscar próximas disponibilidades por médico",
+            description = "Busca las disponibilidades de un médico por su ID desde hoy, en orden cronológico")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
@@ -196,4 +285,136 @@ public class DisponibilidadController {
 
         return ResponseEntity.noContent().build();
     }
+
+    // ENDPOINTS DE MATERIALIZACIÓN DE HORARIOS
+
+    @PostMapping("/materializacion")
+    @Operation(summary = "Materializar horarios",
+            description = "Inicia en segundo plano la generación de horarios en ApiHorario a partir de las " +
+                    "próximas disponibilidades con consultorio, reanudando la última ejecución si no terminó")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Materialización iniciada"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Ya hay una materialización en curso",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Void> materializar() {
+
+        log.info("Solicitud de materialización de horarios recibida");
+        materializacion.materializar();
+        log.info("Solicitud de materialización de horarios terminada, respuesta enviada");
+
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/materializacion")
+    @Operation(summary = "Estado de materialización de horarios",
+            description = "Devuelve el estado y el punto de control de la última ejecución")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Estado obtenido correctamente",
+                    content = @Content(schema = @Schema(implementation = EjecucionMaterializacionResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Nunca se ejecutó la materialización",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<EjecucionMaterializacionResponse> obtenerMaterializacion() {
+
+        log.info("Solicitud de estado de materialización recibida");
+        EjecucionMaterializacionResponse ejecucion = materializacion.obtenerUltimaEjecucion();
+        log.info("Solicitud de estado de materialización terminada, respuesta enviada");
+
+        return ResponseEntity.ok(ejecucion);
+    }
+
+    // ENDPOINTS DE CACHÉ DE NOMBRES
+
+    @GetMapping("/cache-nombres")
+    @Operation(summary = "Estadísticas de caché de nombres",
+            description = "Devuelve aciertos, fallos, desalojos y vencimientos de las cachés de médicos y especialidades")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Estadísticas obtenidas correctamente",
+                    content = @Content(schema = @Schema(implementation = CacheEstadisticasResponse.class))
+            )
+    })
+    public ResponseEntity<List<CacheEstadisticasResponse>> estadisticasCacheNombres() {
+
+        log.info("Solicitud de estadísticas de caché de nombres recibida");
+        List<CacheEstadisticasResponse> estadisticas = nombresCache.estadisticas();
+        log.info("Solicitud de estadísticas de caché de nombres terminada, respuesta enviada");
+
+        return ResponseEntity.ok(estadisticas);
+    }
+
+    @DeleteMapping("/cache-nombres")
+    @Operation(summary = "Vaciar caché de nombres",
+            description = "Descarta todos los nombres de médicos y especialidades guardados en caché")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Caché vaciada exitosamente")
+    })
+    public ResponseEntity<Void> invalidarCacheNombres() {
+
+        log.info("Solicitud de vaciar caché de nombres recibida");
+        nombresCache.invalidarTodo();
+        log.info("Solicitud de vaciar caché de nombres terminada, respuesta enviada");
+
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/cache-nombres/medicos/{idMedico}")
+    @Operation(summary = "Invalidar nombre de médico",
+            description = "Descarta de la caché el nombre de un médico, por ejemplo tras actualizar sus datos")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Médico invalidado exitosamente"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "ID inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Void> invalidarMedicoCache(
+            @Parameter(description = "Identificador único del médico", example = "1")
+            @PathVariable
+            @Positive(message = "El ID debe ser positivo")
+            Long idMedico) {
+
+        log.info("Solicitud de invalidar caché de médico con ID: {} recibida", idMedico);
+        nombresCache.invalidarMedico(idMedico);
+        log.info("Solicitud de invalidar caché de médico con ID: {} terminada, respuesta enviada", idMedico);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/cache-nombres/especialidades/{idEspecialidad}")
+    @Operation(summary = "Invalidar nombre de especialidad",
+            description = "Descarta de la caché el nombre de una especialidad, por ejemplo tras actualizar sus datos")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Especialidad invalidada exitosamente"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "ID inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Void> invalidarEspecialidadCache(
+            @Parameter(description = "Identificador único de la especialidad", example = "1")
+            @PathVariable
+            @Positive(message = "El ID debe ser positivo")
+            Long idEspecialidad) {
+
+        log.info("Solicitud de invalidar caché de especialidad con ID: {} recibida", idEspecialidad);
+        nombresCache.invalidarEspecialidad(idEspecialidad);
+        log.info("Solicitud de invalidar caché de especialidad con ID: {} terminada, respuesta enviada",
+                idEspecialidad);
+
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,30 @@
+package cm.apidisponibilidad.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record CacheEstadisticasResponse(
+        @Schema(description = "Nombre de la caché", example = "médicos")
+        String nombre,
+
+        @Schema(description = "Cantidad de entradas guardadas", example = "42")
+        int entradas,
+
+        @Schema(description = "Cantidad máxima de entradas", example = "1000")
+        int maxEntradas,
+
+        @Schema(description = "Consultas resueltas desde la caché", example = "9950")
+        long aciertos,
+
+        @Schema(description = "Consultas que requirieron llamar al microservicio", example = "50")
+        long fallos,
+
+        @Schema(description = "Entradas desalojadas por superar el máximo", example = "0")
+        long desalojos,
+
+        @Schema(description = "Entradas descartadas por vencimiento", example = "8")
+        long expiraciones,
+
+        @Schema(description = "Proporción de consultas resueltas desde la caché", example = "0.995")
+        double tasaAciertos
+) {
+}
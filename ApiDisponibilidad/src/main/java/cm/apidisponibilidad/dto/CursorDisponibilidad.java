@@ -0,0 +1,64 @@
+package cm.apidisponibilidad.dto;
+
+import cm.apidisponibilidad.repository.Disponibilidad;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Cursor de la búsqueda de disponibilidades: la fecha, hora de inicio e ID de la última
+ * disponibilidad de una página. Viaja al cliente como un token opaco, y la consulta compara
+ * directamente esos valores sin volver a leer la disponibilidad (que pudo haberse eliminado
+ * entre páginas)
+ *
+ * @param fecha Fecha de la disponibilidad
+ * @param horaInicio Hora de inicio de la disponibilidad
+ * @param id ID de la disponibilidad
+ */
+public record CursorDisponibilidad(
+        LocalDate fecha,
+        LocalTime horaInicio,
+        Long id
+) {
+
+    private static final String SEPARADOR = "|";
+
+    /**
+     * Cursor de la primera página: va antes de cualquier disponibilidad desde esa fecha
+     */
+    public static CursorDisponibilidad inicio(LocalDate desde) {
+        return new CursorDisponibilidad(desde, LocalTime.MIN, 0L);
+    }
+
+    public static CursorDisponibilidad de(Disponibilidad disponibilidad) {
+        return new CursorDisponibilidad(disponibilidad.getFecha(), disponibilidad.getHora_inicio(), disponibilidad.getId());
+    }
+
+    /**
+     * Lee un token generado por {@link #codificar()}
+     *
+     * @throws IllegalArgumentException Si el token no es un cursor válido
+     */
+    public static CursorDisponibilidad decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\" + SEPARADOR, -1);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("El cursor no es válido");
+            }
+
+            return new CursorDisponibilidad(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]),
+                    Long.valueOf(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("El cursor no es válido", e);
+        }
+    }
+
+    public String codificar() {
+        String texto = fecha + SEPARADOR + horaInicio + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
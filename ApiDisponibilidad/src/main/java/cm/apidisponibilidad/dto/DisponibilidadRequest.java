@@ -34,6 +34,10 @@ public record DisponibilidadRequest(
         @Schema(description = "Hora de fin a la que está disponible el médico", example = "14:00:00")
         @NotNull(message = "La hora de fin es obligatoria")
         @JsonFormat(pattern = "HH:mm:ss")
-        LocalTime hora_fin
+        LocalTime hora_fin,
+
+        @Schema(description = "Número del consultorio donde atenderá el médico (opcional, necesario para " +
+                "generar su horario)", example = "B0103")
+        String nroConsultorio
 ) {
 }
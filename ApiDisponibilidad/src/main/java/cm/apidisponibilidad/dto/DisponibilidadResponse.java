@@ -25,6 +25,13 @@ public record DisponibilidadResponse(
         LocalTime hora_inicio,
 
         @Schema(description = "Hora de fin a la que está disponible el médico", example = "14:00:00")
-        LocalTime hora_fin
+        LocalTime hora_fin,
+
+        @Schema(description = "Número del consultorio donde atenderá el médico", example = "B0103")
+        String nroConsultorio,
+
+        @Schema(description = "Identificador único del horario generado a partir de la disponibilidad, " +
+                "null si aún no se generó", example = "1")
+        Long idHorario
 ) {
 }
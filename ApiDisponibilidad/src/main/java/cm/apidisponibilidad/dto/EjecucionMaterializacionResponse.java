@@ -0,0 +1,44 @@
+package cm.apidisponibilidad.dto;
+
+import cm.apidisponibilidad.repository.EjecucionMaterializacion;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record EjecucionMaterializacionResponse(
+        @Schema(description = "Identificador único de la ejecución", example = "1")
+        Long id,
+
+        @Schema(description = "Estado de la ejecución", example = "COMPLETADA")
+        EjecucionMaterializacion.EstadoEjecucion estado,
+
+        @Schema(description = "Fecha desde la que se materializan las disponibilidades", example = "2025-10-15")
+        LocalDate desde,
+
+        @Schema(description = "ID de la última disponibilidad procesada (punto de control)", example = "1200")
+        long ultimoIdProcesado,
+
+        @Schema(description = "Disponibilidades leídas", example = "1200")
+        long leidas,
+
+        @Schema(description = "Horarios creados en ApiHorario", example = "1150")
+        long creadas,
+
+        @Schema(description = "Disponibilidades que ya tenían un horario idéntico en ApiHorario", example = "30")
+        long existentes,
+
+        @Schema(description = "Disponibilidades rechazadas por ApiHorario", example = "20")
+        long rechazadas,
+
+        @Schema(description = "Fecha y hora de inicio de la ejecución", example = "2025-10-15T02:00:00")
+        LocalDateTime inicio,
+
+        @Schema(description = "Fecha y hora de fin de la ejecución, null si sigue en curso",
+                example = "2025-10-15T02:03:10")
+        LocalDateTime fin,
+
+        @Schema(description = "Error que detuvo la ejecución, null si no falló", example = "Servicio Horarios caído")
+        String ultimoError
+) {
+}
@@ -0,0 +1,18 @@
+package cm.apidisponibilidad.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record PaginaResponse<T>(
+        @Schema(description = "Elementos de la página, ordenados por fecha, hora de inicio e ID")
+        List<T> contenido,
+
+        @Schema(description = "Cursor opaco para pedir la siguiente página (enviar como despuesDe), " +
+                "null si no hay más resultados", example = "MjAyNS0xMC0xNXwwODowMHwyNQ")
+        String siguienteCursor,
+
+        @Schema(description = "Tamaño máximo de página usado", example = "20")
+        int limite
+) {
+}
@@ -37,6 +37,25 @@ public class GlobalHandlerException {
         return ResponseEntity.status(status).body(errorResponse);
     }
 
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalStateException(
+            IllegalStateException ex,
+            WebRequest request) {
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        String uri = obtenerUri(request);
+
+        log.warn("IllegalStateException manejada: {} - URI: {}", ex.getMessage(), uri, ex);
+
+        ErrorResponse errorResponse = toErrorResponse(
+                status,
+                ex.getMessage(),
+                uri
+        );
+
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleEntityNotFoundException(
             EntityNotFoundException ex,
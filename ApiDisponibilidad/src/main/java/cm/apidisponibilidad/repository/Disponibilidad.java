@@ -10,7 +10,11 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "disponibilidades")
+@Table(name = "disponibilidades", indexes = {
+        @Index(name = "idx_fecha_hora", columnList = "fecha, hora_inicio, id"),
+        @Index(name = "idx_medico_fecha_hora", columnList = "id_medico, fecha, hora_inicio, id"),
+        @Index(name = "idx_especialidad_fecha_hora", columnList = "id_especialidad, fecha, hora_inicio, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +22,8 @@ import java.time.LocalTime;
 public class Disponibilidad {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "disponibilidad_seq")
+    @SequenceGenerator(name = "disponibilidad_seq", sequenceName = "disponibilidad_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "id_medico", nullable = false)
@@ -36,4 +41,11 @@ public class Disponibilidad {
     @Column(name = "hora_fin", nullable = false)
     private LocalTime hora_fin;
 
+    @Column(name = "nro_consultorio")
+    private String nroConsultorio;
+
+    // Horario de ApiHorario generado a partir de esta disponibilidad, null mientras no se materialice
+    @Column(name = "id_horario")
+    private Long idHorario;
+
 }
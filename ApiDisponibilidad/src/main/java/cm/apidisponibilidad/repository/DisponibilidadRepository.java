@@ -1,11 +1,13 @@
 package cm.apidisponibilidad.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface DisponibilidadRepository extends JpaRepository<Disponibilidad, Long> {
@@ -36,5 +38,92 @@ public interface DisponibilidadRepository extends JpaRepository<Disponibilidad,
                                            @Param("horaFin") LocalTime horaFin);
 
 
-    List<Disponibilidad> findAllByIdMedico(Long idMedico);
+    // Disponibilidades de un médico desde una fecha, en orden cronológico
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.idMedico = :idMedico AND " +
+            "d.fecha >= :desde " +
+            "ORDER BY d.fecha, d.hora_inicio")
+    List<Disponibilidad> findProximasByIdMedico(@Param("idMedico") Long idMedico,
+                                                @Param("desde") LocalDate desde);
+
+    // Página de disponibilidades desde una fecha que aún no tienen horario en ApiHorario, con ID mayor al cursor
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.fecha >= :desde AND " +
+            "d.idHorario IS NULL AND " +
+            "d.nroConsultorio IS NOT NULL AND " +
+            "d.id > :despuesDe " +
+            "ORDER BY d.id")
+    List<Disponibilidad> findPendientesDeMaterializar(@Param("desde") LocalDate desde,
+                                                      @Param("despuesDe") Long despuesDe,
+                                                      Limit limite);
+
+    // Posteriores al cursor de búsqueda en el orden (fecha, hora_inicio, id)
+    String DESPUES_DEL_CURSOR = "(d.fecha > :fechaCursor OR (d.fecha = :fechaCursor AND (" +
+            "d.hora_inicio > :horaCursor OR " +
+            "(d.hora_inicio = :horaCursor AND d.id > :idCursor)))) ";
+
+    String ORDEN_CURSOR = "ORDER BY d.fecha, d.hora_inicio, d.id";
+
+    // Páginas (keyset) de disponibilidades en un rango de fechas, posteriores al cursor y en orden cronológico.
+    // Hay una consulta por combinación de filtros para que cada una recorra su índice en orden
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.fecha BETWEEN :desde AND :hasta AND " +
+            DESPUES_DEL_CURSOR +
+            ORDEN_CURSOR)
+    List<Disponibilidad> findPaginaPorFechas(@Param("desde") LocalDate desde,
+                                             @Param("hasta") LocalDate hasta,
+                                             @Param("fechaCursor") LocalDate fechaCursor,
+                                             @Param("horaCursor") LocalTime horaCursor,
+                                             @Param("idCursor") Long idCursor,
+                                             Limit limite);
+
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.idMedico = :idMedico AND " +
+            "d.fecha BETWEEN :desde AND :hasta AND " +
+            DESPUES_DEL_CURSOR +
+            ORDEN_CURSOR)
+    List<Disponibilidad> findPaginaPorMedicoYFechas(@Param("idMedico") Long idMedico,
+                                                    @Param("desde") LocalDate desde,
+                                                    @Param("hasta") LocalDate hasta,
+                                                    @Param("fechaCursor") LocalDate fechaCursor,
+                                                    @Param("horaCursor") LocalTime horaCursor,
+                                                    @Param("idCursor") Long idCursor,
+                                                    Limit limite);
+
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.idEspecialidad = :idEspecialidad AND " +
+            "d.fecha BETWEEN :desde AND :hasta AND " +
+            DESPUES_DEL_CURSOR +
+            ORDEN_CURSOR)
+    List<Disponibilidad> findPaginaPorEspecialidadYFechas(@Param("idEspecialidad") Long idEspecialidad,
+                                                          @Param("desde") LocalDate desde,
+                                                          @Param("hasta") LocalDate hasta,
+                                                          @Param("fechaCursor") LocalDate fechaCursor,
+                                                          @Param("horaCursor") LocalTime horaCursor,
+                                                          @Param("idCursor") Long idCursor,
+                                                          Limit limite);
+
+    // Usa el índice del médico: la especialidad se filtra sobre sus filas
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.idMedico = :idMedico AND " +
+            "d.idEspecialidad = :idEspecialidad AND " +
+            "d.fecha BETWEEN :desde AND :hasta AND " +
+            DESPUES_DEL_CURSOR +
+            ORDEN_CURSOR)
+    List<Disponibilidad> findPaginaPorMedicoEspecialidadYFechas(@Param("idMedico") Long idMedico,
+                                                                @Param("idEspecialidad") Long idEspecialidad,
+                                                                @Param("desde") LocalDate desde,
+                                                                @Param("hasta") LocalDate hasta,
+                                                                @Param("fechaCursor") LocalDate fechaCursor,
+                                                                @Param("horaCursor") LocalTime horaCursor,
+                                                                @Param("idCursor") Long idCursor,
+                                                                Limit limite);
+
+    // Disponibilidades de varios médicos en un rango de fechas, para validar un lote
+    @Query("SELECT d FROM Disponibilidad d WHERE " +
+            "d.idMedico IN :idsMedico AND " +
+            "d.fecha BETWEEN :desde AND :hasta")
+    List<Disponibilidad> findByMedicosYFechas(@Param("idsMedico") Collection<Long> idsMedico,
+                                              @Param("desde") LocalDate desde,
+                                              @Param("hasta") LocalDate hasta);
 }
@@ -0,0 +1,106 @@
+package cm.apidisponibilidad.repository;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ejecución de la materialización de disponibilidades en horarios de ApiHorario. Guarda el
+ * punto de control (ID de la última disponibilidad procesada) tras cada tramo confirmado,
+ * para que una ejecución interrumpida se reanude desde ahí
+ */
+@Entity
+@Table(name = "materializacion_ejecuciones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EjecucionMaterializacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    @Builder.Default
+    private EstadoEjecucion estado = EstadoEjecucion.EN_CURSO;
+
+    // Solo se materializan las disponibilidades desde esta fecha
+    @Column(name = "desde", nullable = false)
+    private LocalDate desde;
+
+    @Column(name = "ultimo_id_procesado", nullable = false)
+    @Builder.Default
+    private long ultimoIdProcesado = 0;
+
+    @Column(name = "leidas", nullable = false)
+    @Builder.Default
+    private long leidas = 0;
+
+    @Column(name = "creadas", nullable = false)
+    @Builder.Default
+    private long creadas = 0;
+
+    @Column(name = "existentes", nullable = false)
+    @Builder.Default
+    private long existentes = 0;
+
+    @Column(name = "rechazadas", nullable = false)
+    @Builder.Default
+    private long rechazadas = 0;
+
+    @Column(name = "inicio", nullable = false)
+    @Builder.Default
+    private LocalDateTime inicio = LocalDateTime.now();
+
+    @Column(name = "fin")
+    private LocalDateTime fin;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    public enum EstadoEjecucion {
+        EN_CURSO,
+        COMPLETADA,
+        FALLIDA
+    }
+
+    /**
+     * Avanza el punto de control tras confirmar un tramo
+     */
+    public void registrarTramo(long ultimoId, int leidas, int creadas, int existentes, int rechazadas) {
+        this.ultimoIdProcesado = ultimoId;
+        this.leidas += leidas;
+        this.creadas += creadas;
+        this.existentes += existentes;
+        this.rechazadas += rechazadas;
+    }
+
+    /**
+     * Retoma una ejecución interrumpida desde su punto de control
+     */
+    public void reanudar(LocalDate hoy) {
+        this.estado = EstadoEjecucion.EN_CURSO;
+        this.desde = desde.isBefore(hoy) ? hoy : desde;
+        this.fin = null;
+        this.ultimoError = null;
+    }
+
+    public void completar() {
+        this.estado = EstadoEjecucion.COMPLETADA;
+        this.fin = LocalDateTime.now();
+    }
+
+    public void fallar(String error) {
+        this.estado = EstadoEjecucion.FALLIDA;
+        this.fin = LocalDateTime.now();
+        this.ultimoError = (error != null && error.length() > 500) ? error.substring(0, 500) : error;
+    }
+
+}
@@ -0,0 +1,10 @@
+package cm.apidisponibilidad.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface EjecucionMaterializacionRepository extends JpaRepository<EjecucionMaterializacion, Long> {
+
+    Optional<EjecucionMaterializacion> findFirstByOrderByIdDesc();
+}
@@ -0,0 +1,169 @@
+package cm.apidisponibilidad.service;
+
+import cm.apidisponibilidad.dto.CacheEstadisticasResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché LRU de datos obtenidos de otro microservicio, limitada por cantidad de entradas y con
+ * vencimiento por antigüedad. Si varios hilos piden el mismo ID sin estar en caché, solo uno
+ * hace la llamada remota y los demás esperan su resultado. Los errores no se guardan
+ *
+ * @param <V> Tipo del valor guardado
+ */
+@Slf4j
+class CacheNombres<V> {
+
+    private final String nombre;
+    private final int maxEntradas;
+    private final long ttlNanos;
+
+    // Orden de acceso, la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<Long, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Cargas en curso, para no llamar dos veces por el mismo ID
+    private final Map<Long, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiraciones = new LongAdder();
+
+    private record Entrada<V>(V valor, long venceEn) {
+    }
+
+    CacheNombres(String nombre, int maxEntradas, Duration ttl) {
+        this.nombre = nombre;
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Obtiene el valor de un ID desde la caché, o lo carga si no está o ya venció
+     *
+     * @param id Identificador único a buscar
+     * @param cargar Llamada remota que obtiene el valor si no está en caché
+     * @return Valor asociado al ID
+     */
+    V obtener(Long id, Function<Long, V> cargar) {
+        long ahora = System.nanoTime();
+
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(id);
+            if (entrada != null) {
+                if (entrada.venceEn() - ahora > 0) {
+                    aciertos.increment();
+                    return entrada.valor();
+                }
+                entradas.remove(id);
+                expiraciones.increment();
+            }
+        }
+
+        fallos.increment();
+
+        CompletableFuture<V> carga = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(id, carga);
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        try {
+            V valor = cargar.apply(id);
+
+            // Solo se guarda si no fue invalidado mientras se cargaba
+            if (enCurso.remove(id, carga) && valor != null) {
+                guardar(id, valor);
+            }
+            carga.complete(valor);
+            return valor;
+        } catch (RuntimeException e) {
+            enCurso.remove(id, carga);
+            carga.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Descarta el valor de un ID. Si se estaba cargando, el resultado no se guardará
+     */
+    void invalidar(Long id) {
+        enCurso.remove(id);
+        synchronized (entradas) {
+            entradas.remove(id);
+        }
+        log.debug("Caché de {}: ID {} invalidado", nombre, id);
+    }
+
+    /**
+     * Descarta todos los valores de la caché
+     */
+    void invalidarTodo() {
+        enCurso.clear();
+        synchronized (entradas) {
+            entradas.clear();
+        }
+        log.info("Caché de {} vaciada", nombre);
+    }
+
+    CacheEstadisticasResponse estadisticas() {
+        int tamano;
+        synchronized (entradas) {
+            tamano = entradas.size();
+        }
+
+        long totalAciertos = aciertos.sum();
+        long totalFallos = fallos.sum();
+        long consultas = totalAciertos + totalFallos;
+
+        return new CacheEstadisticasResponse(
+                nombre,
+                tamano,
+                maxEntradas,
+                totalAciertos,
+                totalFallos,
+                desalojos.sum(),
+                expiraciones.sum(),
+                consultas == 0 ? 0.0 : (double) totalAciertos / consultas
+        );
+    }
+
+    // AUXILIARES
+
+    private V esperar(CompletableFuture<V> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException ex) {
+                throw ex;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Guarda un valor desalojando los menos usados recientemente hasta no superar {@code maxEntradas}
+     */
+    private void guardar(Long id, V valor) {
+        synchronized (entradas) {
+            entradas.put(id, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+
+            Iterator<Entrada<V>> it = entradas.values().iterator();
+            while (entradas.size() > maxEntradas && it.hasNext()) {
+                it.next();
+                it.remove();
+                desalojos.increment();
+            }
+        }
+    }
+
+}
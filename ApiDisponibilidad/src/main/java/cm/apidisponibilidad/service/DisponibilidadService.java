@@ -1,32 +1,44 @@
 package cm.apidisponibilidad.service;
 
 import cm.apidisponibilidad.client.empleado.EmpleadoClientResponse;
-import cm.apidisponibilidad.client.empleado.EmpleadoFeignClient;
-import cm.apidisponibilidad.client.especialidad.EspecialidadFeignClient;
 import cm.apidisponibilidad.client.especialidad.EspecialidadResponse;
+import cm.apidisponibilidad.dto.CursorDisponibilidad;
 import cm.apidisponibilidad.dto.DisponibilidadRequest;
 import cm.apidisponibilidad.dto.DisponibilidadResponse;
+import cm.apidisponibilidad.dto.PaginaResponse;
 import cm.apidisponibilidad.repository.Disponibilidad;
 import cm.apidisponibilidad.repository.DisponibilidadRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DisponibilidadService {
 
-    private final EmpleadoFeignClient empleadoClient;
-    private final EspecialidadFeignClient especialidadClient;
+    private final NombresCacheService nombresCache;
     private final DisponibilidadRepository repository;
 
+    // Máximo de días que puede abarcar la búsqueda de disponibilidades
+    private static final int MAX_DIAS_LISTADO = 92;
+
     // SERVICIOS CRUD
 
     /**
@@ -58,6 +70,7 @@ public class DisponibilidadService {
                 .fecha(request.fecha())
                 .hora_inicio(request.hora_inicio())
                 .hora_fin(request.hora_fin())
+                .nroConsultorio(request.nroConsultorio())
                 .build();
 
         repository.save(d);
@@ -67,25 +80,101 @@ public class DisponibilidadService {
     }
 
     /**
-     * Lista todas las disponibilidades de la base de datos
+     * Registra un lote de disponibilidades en una sola operación. Las ventanas se ordenan por
+     * médico, especialidad, fecha y hora de inicio junto con las ya registradas en esas fechas,
+     * y un solo recorrido detecta los solapamientos dentro del lote y contra la base de datos.
+     * Si alguna ventana es inválida o se solapa no se registra ninguna
      *
-     * @return Una lista de objetos {@link DisponibilidadResponse}
+     * @param requests Lista de objetos {@link DisponibilidadRequest} con las ventanas a registrar
+     * @return Lista de objetos {@link DisponibilidadResponse} en el mismo orden recibido
+     * @throws IllegalArgumentException Si alguna validación no se cumple
      */
-    @Transactional(readOnly = true)
-    public List<DisponibilidadResponse> listar() {
-        log.info("Inicio de proceso de listar disponibilidades");
+    @Transactional
+    public List<DisponibilidadResponse> registrarLote(List<DisponibilidadRequest> requests) {
+        log.info("Inicio de proceso de registro de lote de {} disponibilidades", requests.size());
 
-        List<Disponibilidad> disponibilidades = repository.findAll();
+        log.debug("Validando rango de horas y fecha de cada disponibilidad");
+        requests.forEach(r -> validarRangoYFecha(r.fecha(), r.hora_inicio(), r.hora_fin()));
 
-        log.info("Disponibilidades listadas correctamente: {}", disponibilidades.size());
+        log.debug("Validando solapamiento de disponibilidades del lote");
+        validarSolapamientosLote(requests);
+        log.debug("Validaciones sin excepciones encontradas");
 
-        return disponibilidades.stream()
-                .map(this::toResponse)
+        List<Disponibilidad> disponibilidades = requests.stream()
+                .map(r -> Disponibilidad.builder()
+                        .idMedico(r.idMedico())
+                        .idEspecialidad(r.idEspecialidad())
+                        .fecha(r.fecha())
+                        .hora_inicio(r.hora_inicio())
+                        .hora_fin(r.hora_fin())
+                        .nroConsultorio(r.nroConsultorio())
+                        .build())
                 .toList();
+
+        // Si algún médico o especialidad no existe falla antes de insertar
+        Nombres nombres = obtenerNombres(disponibilidades);
+
+        repository.saveAll(disponibilidades);
+        log.info("Lote de disponibilidades registrado correctamente: {}", disponibilidades.size());
+
+        return toResponses(disponibilidades, nombres);
     }
 
     /**
-     * Busca todas las disponibilidades de un médico por su ID
+     * Busca una página de las disponibilidades de un rango de fechas, ordenadas por fecha,
+     * hora de inicio e ID, filtrando opcionalmente por médico y especialidad. Solo se obtienen
+     * los nombres de los médicos y especialidades de la página.
+     * Se pagina por cursor en lugar de por número de página: cada página continúa desde la
+     * última fila de la anterior recorriendo el índice, sin saltar filas con OFFSET
+     *
+     * @param desde Fecha inicial (inclusive, opcional, por defecto hoy)
+     * @param hasta Fecha final (inclusive, opcional, por defecto {@code MAX_DIAS_LISTADO} días desde la inicial)
+     * @param idMedico Identificador único del médico (opcional)
+     * @param idEspecialidad Identificador único de la especialidad (opcional)
+     * @param despuesDe Cursor: token {@link CursorDisponibilidad} de la página anterior (null para la primera)
+     * @param limite Máximo de disponibilidades de la página
+     * @return Objeto {@link PaginaResponse} con las disponibilidades y el cursor de la siguiente página
+     * @throws IllegalArgumentException Si el rango de fechas es inválido, supera {@code MAX_DIAS_LISTADO} días
+     * o el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaResponse<DisponibilidadResponse> buscar(LocalDate desde, LocalDate hasta, Long idMedico,
+                                                         Long idEspecialidad, String despuesDe, int limite) {
+        LocalDate inicio = (desde != null) ? desde : LocalDate.now();
+        LocalDate fin = (hasta != null) ? hasta : inicio.plusDays(MAX_DIAS_LISTADO - 1);
+
+        log.info("Inicio de proceso de buscar disponibilidades entre: {} y {}, médico: {}, especialidad: {}, " +
+                "después de: {}", inicio, fin, idMedico, idEspecialidad, despuesDe);
+
+        validarRango(inicio, fin);
+        CursorDisponibilidad cursor = (despuesDe != null)
+                ? CursorDisponibilidad.decodificar(despuesDe)
+                : CursorDisponibilidad.inicio(inicio);
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        Limit filas = Limit.of(limite + 1);
+        List<Disponibilidad> disponibilidades;
+        if (idMedico != null && idEspecialidad != null) {
+            disponibilidades = repository.findPaginaPorMedicoEspecialidadYFechas(idMedico, idEspecialidad,
+                    inicio, fin, cursor.fecha(), cursor.horaInicio(), cursor.id(), filas);
+        } else if (idMedico != null) {
+            disponibilidades = repository.findPaginaPorMedicoYFechas(idMedico,
+                    inicio, fin, cursor.fecha(), cursor.horaInicio(), cursor.id(), filas);
+        } else if (idEspecialidad != null) {
+            disponibilidades = repository.findPaginaPorEspecialidadYFechas(idEspecialidad,
+                    inicio, fin, cursor.fecha(), cursor.horaInicio(), cursor.id(), filas);
+        } else {
+            disponibilidades = repository.findPaginaPorFechas(
+                    inicio, fin, cursor.fecha(), cursor.horaInicio(), cursor.id(), filas);
+        }
+
+        log.info("Disponibilidades encontradas correctamente: {}", Math.min(disponibilidades.size(), limite));
+
+        return toPagina(disponibilidades, limite);
+    }
+
+    /**
+     * Busca las disponibilidades de un médico por su ID desde hoy, en orden cronológico
      *
      * @param idMedico Identificador único del médico
      * @return Objeto {@link DisponibilidadResponse} que contiene los datos de la disponibilidad
@@ -94,13 +183,11 @@ public class DisponibilidadService {
     public List<DisponibilidadResponse> buscarTodosPorMedico(Long idMedico) {
         log.info("Inicio de proceso de búsqueda con idMedico: {}", idMedico);
 
-        List<Disponibilidad> disponibilidad = repository.findAllByIdMedico(idMedico);
+        List<Disponibilidad> disponibilidad = repository.findProximasByIdMedico(idMedico, LocalDate.now());
 
         log.info("Disponibilidad con idMedico: {} encontrada", idMedico);
 
-        return disponibilidad.stream()
-                .map(this::toResponse)
-                .toList();
+        return toResponses(disponibilidad, obtenerNombres(disponibilidad));
     }
 
     /**
@@ -131,6 +218,7 @@ public class DisponibilidadService {
                    return new EntityNotFoundException("Disponibilidad con ID: " + id + " no encontrada");
                 });
         log.debug("Disponibilidad con ID: {} encontrada", id);
+        validarNoMaterializada(d);
 
         if (!d.getIdEspecialidad().equals(request.idEspecialidad())) {
             log.debug("Actualizando idEspecialidad de '{}' a '{}'", d.getIdEspecialidad(), request.idEspecialidad());
@@ -152,6 +240,11 @@ public class DisponibilidadService {
             d.setHora_fin(request.hora_fin());
         }
 
+        if (!Objects.equals(d.getNroConsultorio(), request.nroConsultorio())) {
+            log.debug("Actualizando consultorio de '{}' a '{}'", d.getNroConsultorio(), request.nroConsultorio());
+            d.setNroConsultorio(request.nroConsultorio());
+        }
+
         repository.save(d);
         log.info("Disponibilidad con ID: {} actualizada", id);
 
@@ -165,19 +258,35 @@ public class DisponibilidadService {
         Disponibilidad d = repository.findById(id)
                 .orElseThrow(() -> {
                     log.warn("Disponibilidad con ID: {} no encontrada", id);
-                    return new EntityNotFoundException("Especialidad con ID: " + id + " no encontrada");
+                    return new EntityNotFoundException("Disponibilidad con ID: " + id + " no encontrada");
                 });
+        validarNoMaterializada(d);
 
         repository.delete(d);
 
         log.info("Disponibilidad con ID: {} eliminada correctamente", id);
     }
 
+    /**
+     * Una disponibilidad ya materializada tiene su horario en ApiHorario, con slots que pueden
+     * estar reservados. Cambiarla o eliminarla aquí dejaría ese horario desactualizado o huérfano,
+     * por lo que debe modificarse primero el horario en ApiHorario
+     *
+     * @throws IllegalStateException Si la disponibilidad ya fue materializada
+     */
+    private void validarNoMaterializada(Disponibilidad d) {
+        if (d.getIdHorario() != null) {
+            log.warn("Disponibilidad con ID: {} ya materializada en el horario con ID: {}", d.getId(), d.getIdHorario());
+            throw new IllegalStateException("La disponibilidad con ID: " + d.getId() +
+                    " ya fue materializada en el horario con ID: " + d.getIdHorario() + " y no puede modificarse");
+        }
+    }
+
     // SERVICIOS PARA OBTENER DATOS DE OTROS MICROSERVICIOS
 
     /**
-     * Obtiene el ID y nombre de un empleado a través del cliente {@code empleadoClient},
-     * si el empleado no existe (404), devuelve error.
+     * Obtiene el ID y nombre de un empleado desde {@code nombresCache}, que llama al cliente
+     * {@code empleadoClient} si no lo tiene, si el empleado no existe (404), devuelve error.
      *
      * @param id Identificador único del empleado
      * @return Objeto {@link EmpleadoClientResponse} que contiene el ID y nombre del empleado
@@ -189,13 +298,12 @@ public class DisponibilidadService {
             throw new IllegalArgumentException("Id inválido");
         }
 
-        return empleadoClient.obtenerNombre(id);
-
+        return nombresCache.obtenerMedico(id);
     }
 
     /**
-     * Obtiene el ID y nombre de una especialidad a través del cliente {@code especialidadClient},
-     * si la especialidad no existe (404), devuelve error.
+     * Obtiene el ID y nombre de una especialidad desde {@code nombresCache}, que llama al cliente
+     * {@code especialidadClient} si no la tiene, si la especialidad no existe (404), devuelve error.
      *
      * @param id Identificador único de la especialidad
      * @return Objeto {@link EspecialidadResponse} que contiene el ID y nombre de la especialidad
@@ -207,11 +315,46 @@ public class DisponibilidadService {
             throw new IllegalArgumentException("Id inválido");
         }
 
-        return especialidadClient.obtenerEspecialidad(id);
+        return nombresCache.obtenerEspecialidad(id);
+    }
+
+    /**
+     * Nombres de médicos y especialidades ya resueltos para un grupo de disponibilidades
+     */
+    private record Nombres(Map<Long, EmpleadoClientResponse> medicos, Map<Long, EspecialidadResponse> especialidades) {
+    }
+
+    /**
+     * Resuelve una sola vez cada médico y especialidad distintos de las disponibilidades,
+     * aunque la caché de nombres esté vacía
+     */
+    private Nombres obtenerNombres(List<Disponibilidad> disponibilidades) {
+        Map<Long, EmpleadoClientResponse> medicos = new HashMap<>();
+        Map<Long, EspecialidadResponse> especialidades = new HashMap<>();
+
+        disponibilidades.forEach(d -> {
+            medicos.computeIfAbsent(d.getIdMedico(), this::obtenerEmpleadoNombre);
+            especialidades.computeIfAbsent(d.getIdEspecialidad(), this::obtenerEspecialidadNombre);
+        });
+        log.debug("Nombres obtenidos: {} médicos, {} especialidades", medicos.size(), especialidades.size());
+
+        return new Nombres(medicos, especialidades);
     }
 
     // AUXILIARES
 
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            log.warn("Rango de fechas inválido: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_LISTADO) {
+            log.warn("Rango de fechas demasiado amplio: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("El rango de fechas no puede superar " + MAX_DIAS_LISTADO + " días");
+        }
+    }
+
     /**
      * Realiza las siguientes validaciones para {@link Disponibilidad}:
      * <ul>
@@ -236,6 +379,27 @@ public class DisponibilidadService {
             LocalTime horaInicio,
             LocalTime horaFin
     ) {
+        validarRangoYFecha(fecha, horaInicio, horaFin);
+
+        log.debug("Validando solapamiento por rango de horas y fecha");
+        boolean existeSolapamiento = (idDisponibilidad == null)
+                ? repository.existeSolapamiento(
+                        idMedico, idEspecialidad, fecha, horaInicio, horaFin)
+                : repository.existeSolapamientoExcluyendoId(
+                        idDisponibilidad, idMedico, idEspecialidad, fecha, horaInicio, horaFin);
+
+        if (existeSolapamiento) {
+            log.warn("Ya existe una disponibilidad registrada para ese médico, especialidad, fecha y rango horario");
+            throw new IllegalArgumentException("Ya existe una disponibilidad registrada en ese rango");
+        }
+    }
+
+    /**
+     * Valida que {@code hora_fin} sea posterior a {@code hora_inicio} y que {@code fecha} sea una fecha futura
+     *
+     * @throws IllegalArgumentException Si alguna validación no se cumple
+     */
+    private void validarRangoYFecha(LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
         log.debug("Validando rango de horas de disponibilidad");
         if (!horaFin.isAfter(horaInicio)) {
             log.warn("Intento de registro inválido, hora de fin: {} es anterior a hora de inicio: {}", horaFin, horaInicio);
@@ -247,17 +411,79 @@ public class DisponibilidadService {
             log.warn("Intento de registro inválido, fecha: {} no es una fecha futura", fecha);
             throw new IllegalArgumentException("La disponibilidad debe ser para una fecha futura");
         }
+    }
 
-        log.debug("Validando solapamiento por rango de horas y fecha");
-        boolean existeSolapamiento = (idDisponibilidad == null)
-                ? repository.existeSolapamiento(
-                        idMedico, idEspecialidad, fecha, horaInicio, horaFin)
-                : repository.existeSolapamientoExcluyendoId(
-                        idDisponibilidad, idMedico, idEspecialidad, fecha, horaInicio, horaFin);
+    /**
+     * Ventana de un médico y especialidad en una fecha. {@code indice} es la posición en el
+     * lote, o -1 si la ventana ya está registrada
+     */
+    private record Ventana(Long idMedico, Long idEspecialidad, LocalDate fecha,
+                           LocalTime horaInicio, LocalTime horaFin, int indice) {
 
-        if (existeSolapamiento) {
-            log.warn("Ya existe una disponibilidad registrada para ese médico, especialidad, fecha y rango horario");
-            throw new IllegalArgumentException("Ya existe una disponibilidad registrada en ese rango");
+        boolean mismoGrupo(Ventana otra) {
+            return idMedico.equals(otra.idMedico)
+                    && idEspecialidad.equals(otra.idEspecialidad)
+                    && fecha.equals(otra.fecha);
+        }
+    }
+
+    private static final Comparator<Ventana> ORDEN_VENTANAS = Comparator
+            .comparing(Ventana::idMedico)
+            .thenComparing(Ventana::idEspecialidad)
+            .thenComparing(Ventana::fecha)
+            .thenComparing(Ventana::horaInicio);
+
+    /**
+     * Detecta los solapamientos del lote con una sola consulta y un solo recorrido. Las ventanas
+     * del lote y las registradas se ordenan por (médico, especialidad, fecha, hora de inicio);
+     * dentro de cada grupo una ventana se solapa si empieza antes del mayor fin visto hasta ahí.
+     * Los solapamientos entre dos ventanas ya registradas se ignoran
+     *
+     * @throws IllegalArgumentException Si alguna ventana del lote se solapa, indicando cuáles
+     */
+    private void validarSolapamientosLote(List<DisponibilidadRequest> requests) {
+        List<Ventana> ventanas = new ArrayList<>(requests.size());
+        Set<Long> idsMedico = new HashSet<>();
+        LocalDate desde = null;
+        LocalDate hasta = null;
+
+        for (int i = 0; i < requests.size(); i++) {
+            DisponibilidadRequest r = requests.get(i);
+            ventanas.add(new Ventana(r.idMedico(), r.idEspecialidad(), r.fecha(), r.hora_inicio(), r.hora_fin(), i));
+            idsMedico.add(r.idMedico());
+            desde = (desde == null || r.fecha().isBefore(desde)) ? r.fecha() : desde;
+            hasta = (hasta == null || r.fecha().isAfter(hasta)) ? r.fecha() : hasta;
+        }
+
+        repository.findByMedicosYFechas(idsMedico, desde, hasta)
+                .forEach(d -> ventanas.add(new Ventana(
+                        d.getIdMedico(), d.getIdEspecialidad(), d.getFecha(), d.getHora_inicio(), d.getHora_fin(), -1)));
+
+        ventanas.sort(ORDEN_VENTANAS);
+
+        Set<Integer> solapadas = new TreeSet<>();
+        Ventana abierta = null; // Ventana con el mayor fin del grupo actual
+
+        for (Ventana v : ventanas) {
+            if (abierta != null && abierta.mismoGrupo(v) && v.horaInicio().isBefore(abierta.horaFin())) {
+                if (v.indice() >= 0) {
+                    solapadas.add(v.indice());
+                }
+                if (abierta.indice() >= 0) {
+                    solapadas.add(abierta.indice());
+                }
+            }
+
+            if (abierta == null || !abierta.mismoGrupo(v) || v.horaFin().isAfter(abierta.horaFin())) {
+                abierta = v;
+            }
+        }
+
+        if (!solapadas.isEmpty()) {
+            log.warn("Disponibilidades del lote solapadas en las posiciones: {}", solapadas);
+            throw new IllegalArgumentException(
+                    "Ya existe una disponibilidad registrada en ese rango para las posiciones del lote: " + solapadas
+            );
         }
     }
 
@@ -269,13 +495,50 @@ public class DisponibilidadService {
 
         EspecialidadResponse especialidad = obtenerEspecialidadNombre(disponibilidad.getIdEspecialidad());
 
+        return toResponse(disponibilidad, medico, especialidad);
+    }
+
+    /**
+     * Arma una página a partir de hasta {@code limite + 1} filas: la fila extra solo
+     * indica que existe una página siguiente y no se mapea
+     */
+    private PaginaResponse<DisponibilidadResponse> toPagina(List<Disponibilidad> filas, int limite) {
+        boolean hayMas = filas.size() > limite;
+        List<Disponibilidad> disponibilidades = hayMas ? filas.subList(0, limite) : filas;
+        String siguienteCursor = hayMas
+                ? CursorDisponibilidad.de(disponibilidades.get(disponibilidades.size() - 1)).codificar()
+                : null;
+
+        return new PaginaResponse<>(
+                toResponses(disponibilidades, obtenerNombres(disponibilidades)),
+                siguienteCursor,
+                limite
+        );
+    }
+
+    private List<DisponibilidadResponse> toResponses(List<Disponibilidad> disponibilidades, Nombres nombres) {
+        return disponibilidades.stream()
+                .map(d -> toResponse(
+                        d,
+                        nombres.medicos().get(d.getIdMedico()),
+                        nombres.especialidades().get(d.getIdEspecialidad())))
+                .toList();
+    }
+
+    private DisponibilidadResponse toResponse(
+            Disponibilidad disponibilidad,
+            EmpleadoClientResponse medico,
+            EspecialidadResponse especialidad) {
+
         return new DisponibilidadResponse(
                 disponibilidad.getId(),
                 medico,
                 especialidad,
                 disponibilidad.getFecha(),
                 disponibilidad.getHora_inicio(),
-                disponibilidad.getHora_fin()
+                disponibilidad.getHora_fin(),
+                disponibilidad.getNroConsultorio(),
+                disponibilidad.getIdHorario()
         );
     }
 
@@ -0,0 +1,295 @@
+package cm.apidisponibilidad.service;
+
+import cm.apidisponibilidad.client.horario.HorarioFeignClient;
+import cm.apidisponibilidad.client.horario.HorarioLoteResponse;
+import cm.apidisponibilidad.client.horario.HorarioRequest;
+import cm.apidisponibilidad.dto.EjecucionMaterializacionResponse;
+import cm.apidisponibilidad.repository.Disponibilidad;
+import cm.apidisponibilidad.repository.DisponibilidadRepository;
+import cm.apidisponibilidad.repository.EjecucionMaterializacion;
+import cm.apidisponibilidad.repository.EjecucionMaterializacionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materializa las próximas disponibilidades como horarios de ApiHorario. Las disponibilidades
+ * pendientes se leen por tramos ordenados por ID y cada tramo se envía al endpoint de lote de
+ * ApiHorario, con a lo sumo {@code maxTramosEnVuelo} tramos enviándose a la vez.
+ * Los tramos se confirman en orden: el punto de control de la ejecución solo avanza hasta el
+ * último tramo confirmado, y una ejecución interrumpida se reanuda desde ahí. Reenviar un tramo
+ * no duplica horarios, porque ApiHorario informa los ya registrados como EXISTENTE
+ */
+@Slf4j
+@Service
+public class MaterializacionHorariosService {
+
+    private final DisponibilidadRepository disponibilidadRepository;
+    private final EjecucionMaterializacionRepository ejecucionRepository;
+    private final HorarioFeignClient horarioClient;
+    private final ExecutorService materializacionExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoTramo;
+    private final int maxTramosEnVuelo;
+    private final int duracionSlotMinutos;
+
+    // Evita dos ejecuciones a la vez (la programada y una manual)
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    public MaterializacionHorariosService(
+            DisponibilidadRepository disponibilidadRepository,
+            EjecucionMaterializacionRepository ejecucionRepository,
+            HorarioFeignClient horarioClient,
+            ExecutorService materializacionExecutor,
+            TransactionTemplate transactionTemplate,
+            @Value("${disponibilidades.materializacion.tramo:200}") int tamanoTramo,
+            @Value("${disponibilidades.materializacion.max-tramos-en-vuelo:2}") int maxTramosEnVuelo,
+            @Value("${disponibilidades.materializacion.duracion-slot-minutos:30}") int duracionSlotMinutos) {
+        this.disponibilidadRepository = disponibilidadRepository;
+        this.ejecucionRepository = ejecucionRepository;
+        this.horarioClient = horarioClient;
+        this.materializacionExecutor = materializacionExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoTramo = tamanoTramo;
+        this.maxTramosEnVuelo = maxTramosEnVuelo;
+        this.duracionSlotMinutos = duracionSlotMinutos;
+    }
+
+    /**
+     * Tramo enviado a ApiHorario y aún no confirmado
+     *
+     * @param ultimoId ID de la última disponibilidad del tramo, nuevo punto de control al confirmarlo
+     */
+    private record Tramo(long ultimoId, int leidas, Future<ResumenTramo> envio) {
+    }
+
+    private record ResumenTramo(int creadas, int existentes, int rechazadas) {
+    }
+
+    /**
+     * Ejecución programada, por defecto todas las noches
+     */
+    @Scheduled(cron = "${disponibilidades.materializacion.cron:0 0 2 * * *}")
+    public void materializarProgramado() {
+        if (!enCurso.compareAndSet(false, true)) {
+            log.warn("Materialización programada omitida, ya hay una ejecución en curso");
+            return;
+        }
+
+        ejecutar();
+    }
+
+    /**
+     * Inicia una ejecución en segundo plano
+     *
+     * @throws IllegalStateException Si ya hay una ejecución en curso
+     */
+    public void materializar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una materialización de horarios en curso");
+        }
+
+        Thread.ofVirtual().name("materializacion-manual").start(this::ejecutar);
+    }
+
+    /**
+     * Obtiene el estado de la última ejecución
+     *
+     * @throws EntityNotFoundException Si nunca se ejecutó
+     */
+    public EjecucionMaterializacionResponse obtenerUltimaEjecucion() {
+        return ejecucionRepository.findFirstByOrderByIdDesc()
+                .map(this::toResponse)
+                .orElseThrow(() -> new EntityNotFoundException("No hay ejecuciones de materialización"));
+    }
+
+    // AUXILIARES
+
+    private void ejecutar() {
+        try {
+            procesar(iniciarOReanudar());
+        } catch (RuntimeException e) {
+            log.error("Error iniciando la materialización de horarios: {}", e.getMessage(), e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    /**
+     * Reanuda la última ejecución si no terminó, o crea una nueva desde hoy
+     */
+    private EjecucionMaterializacion iniciarOReanudar() {
+        LocalDate hoy = LocalDate.now();
+
+        return ejecucionRepository.findFirstByOrderByIdDesc()
+                .filter(e -> e.getEstado() != EjecucionMaterializacion.EstadoEjecucion.COMPLETADA)
+                .map(e -> {
+                    e.reanudar(hoy);
+                    log.info("Reanudando materialización con ID: {} desde disponibilidad con ID: {}",
+                            e.getId(), e.getUltimoIdProcesado());
+                    return ejecucionRepository.save(e);
+                })
+                .orElseGet(() -> {
+                    EjecucionMaterializacion e = ejecucionRepository.save(
+                            EjecucionMaterializacion.builder().desde(hoy).build());
+                    log.info("Materialización con ID: {} iniciada desde: {}", e.getId(), hoy);
+                    return e;
+                });
+    }
+
+    private void procesar(EjecucionMaterializacion ejecucion) {
+        Deque<Tramo> enVuelo = new ArrayDeque<>();
+        long cursor = ejecucion.getUltimoIdProcesado();
+
+        try {
+            List<Disponibilidad> pagina;
+            do {
+                pagina = disponibilidadRepository.findPendientesDeMaterializar(
+                        ejecucion.getDesde(), cursor, Limit.of(tamanoTramo));
+
+                if (pagina.isEmpty()) {
+                    break;
+                }
+                cursor = pagina.get(pagina.size() - 1).getId();
+
+                // Con el máximo de tramos en vuelo, se confirma el más antiguo antes de enviar otro
+                if (enVuelo.size() == maxTramosEnVuelo) {
+                    confirmar(ejecucion, enVuelo.poll());
+                }
+
+                List<Long> ids = pagina.stream().map(Disponibilidad::getId).toList();
+                List<HorarioRequest> horarios = pagina.stream().map(this::toHorarioRequest).toList();
+                enVuelo.add(new Tramo(cursor, pagina.size(), materializacionExecutor.submit(() -> enviar(ids, horarios))));
+            } while (pagina.size() == tamanoTramo);
+
+            while (!enVuelo.isEmpty()) {
+                confirmar(ejecucion, enVuelo.poll());
+            }
+
+            ejecucion.completar();
+            ejecucionRepository.save(ejecucion);
+            log.info("Materialización con ID: {} completada: {} leídas, {} creadas, {} existentes, {} rechazadas",
+                    ejecucion.getId(), ejecucion.getLeidas(), ejecucion.getCreadas(),
+                    ejecucion.getExistentes(), ejecucion.getRechazadas());
+        } catch (RuntimeException e) {
+            // Los tramos posteriores al punto de control se reenviarán al reanudar
+            enVuelo.forEach(t -> t.envio().cancel(false));
+            ejecucion.fallar(e.getMessage());
+            ejecucionRepository.save(ejecucion);
+            log.error("Materialización con ID: {} detenida en disponibilidad con ID: {}: {}",
+                    ejecucion.getId(), ejecucion.getUltimoIdProcesado(), e.getMessage());
+        }
+    }
+
+    /**
+     * Espera el envío de un tramo y avanza el punto de control de la ejecución
+     */
+    private void confirmar(EjecucionMaterializacion ejecucion, Tramo tramo) {
+        ResumenTramo resumen;
+        try {
+            resumen = tramo.envio().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Materialización interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException ex) {
+                throw ex;
+            }
+            throw new IllegalStateException("Error enviando tramo a ApiHorario", e.getCause());
+        }
+
+        ejecucion.registrarTramo(tramo.ultimoId(), tramo.leidas(),
+                resumen.creadas(), resumen.existentes(), resumen.rechazadas());
+        ejecucionRepository.save(ejecucion);
+        log.debug("Tramo hasta disponibilidad con ID: {} confirmado", tramo.ultimoId());
+    }
+
+    /**
+     * Envía un tramo a ApiHorario y guarda el horario de cada disponibilidad creada o ya existente,
+     * en una sola transacción con actualizaciones en lote
+     */
+    private ResumenTramo enviar(List<Long> ids, List<HorarioRequest> horarios) {
+        List<HorarioLoteResponse> resultados = horarioClient.registrarLote(horarios);
+
+        if (resultados.size() != ids.size()) {
+            throw new IllegalStateException("ApiHorario devolvió " + resultados.size() +
+                    " resultados para " + ids.size() + " horarios");
+        }
+
+        Map<Long, Long> horarioPorDisponibilidad = new HashMap<>();
+        int creadas = 0;
+        int existentes = 0;
+        int rechazadas = 0;
+
+        for (int i = 0; i < ids.size(); i++) {
+            HorarioLoteResponse resultado = resultados.get(i);
+
+            switch (resultado.resultado()) {
+                case CREADO -> {
+                    creadas++;
+                    horarioPorDisponibilidad.put(ids.get(i), resultado.idHorario());
+                }
+                case EXISTENTE -> {
+                    existentes++;
+                    horarioPorDisponibilidad.put(ids.get(i), resultado.idHorario());
+                }
+                case RECHAZADO -> {
+                    rechazadas++;
+                    log.warn("Disponibilidad con ID: {} no materializada: {}", ids.get(i), resultado.mensaje());
+                }
+            }
+        }
+
+        if (!horarioPorDisponibilidad.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    disponibilidadRepository.findAllById(horarioPorDisponibilidad.keySet())
+                            .forEach(d -> d.setIdHorario(horarioPorDisponibilidad.get(d.getId()))));
+        }
+
+        return new ResumenTramo(creadas, existentes, rechazadas);
+    }
+
+    private HorarioRequest toHorarioRequest(Disponibilidad d) {
+        return new HorarioRequest(
+                d.getIdMedico(),
+                d.getNroConsultorio(),
+                d.getFecha(),
+                d.getHora_inicio(),
+                d.getHora_fin(),
+                duracionSlotMinutos,
+                d.getIdEspecialidad()
+        );
+    }
+
+    private EjecucionMaterializacionResponse toResponse(EjecucionMaterializacion e) {
+        return new EjecucionMaterializacionResponse(
+                e.getId(),
+                e.getEstado(),
+                e.getDesde(),
+                e.getUltimoIdProcesado(),
+                e.getLeidas(),
+                e.getCreadas(),
+                e.getExistentes(),
+                e.getRechazadas(),
+                e.getInicio(),
+                e.getFin(),
+                e.getUltimoError()
+        );
+    }
+
+}
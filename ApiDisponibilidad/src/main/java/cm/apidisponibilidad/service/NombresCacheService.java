@@ -0,0 +1,70 @@
+package cm.apidisponibilidad.service;
+
+import cm.apidisponibilidad.client.empleado.EmpleadoClientResponse;
+import cm.apidisponibilidad.client.empleado.EmpleadoFeignClient;
+import cm.apidisponibilidad.client.especialidad.EspecialidadFeignClient;
+import cm.apidisponibilidad.client.especialidad.EspecialidadResponse;
+import cm.apidisponibilidad.dto.CacheEstadisticasResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cachés de nombres de médicos y especialidades delante de los clientes Feign, para no
+ * llamar a ApiEmpleado y ApiEspecialidad por cada disponibilidad mapeada
+ */
+@Slf4j
+@Service
+public class NombresCacheService {
+
+    private final EmpleadoFeignClient empleadoClient;
+    private final EspecialidadFeignClient especialidadClient;
+    private final CacheNombres<EmpleadoClientResponse> medicos;
+    private final CacheNombres<EspecialidadResponse> especialidades;
+
+    public NombresCacheService(
+            EmpleadoFeignClient empleadoClient,
+            EspecialidadFeignClient especialidadClient,
+            @Value("${disponibilidades.cache-nombres.max-entradas:1000}") int maxEntradas,
+            @Value("${disponibilidades.cache-nombres.ttl-segundos:300}") long ttlSegundos) {
+        this.empleadoClient = empleadoClient;
+        this.especialidadClient = especialidadClient;
+        this.medicos = new CacheNombres<>("médicos", maxEntradas, Duration.ofSeconds(ttlSegundos));
+        this.especialidades = new CacheNombres<>("especialidades", maxEntradas, Duration.ofSeconds(ttlSegundos));
+    }
+
+    /**
+     * Obtiene el ID y nombre de un médico desde la caché o, si no está, desde {@code empleadoClient}
+     */
+    public EmpleadoClientResponse obtenerMedico(Long id) {
+        return medicos.obtener(id, empleadoClient::obtenerNombre);
+    }
+
+    /**
+     * Obtiene el ID y nombre de una especialidad desde la caché o, si no está, desde {@code especialidadClient}
+     */
+    public EspecialidadResponse obtenerEspecialidad(Long id) {
+        return especialidades.obtener(id, especialidadClient::obtenerEspecialidad);
+    }
+
+    public void invalidarMedico(Long id) {
+        medicos.invalidar(id);
+    }
+
+    public void invalidarEspecialidad(Long id) {
+        especialidades.invalidar(id);
+    }
+
+    public void invalidarTodo() {
+        medicos.invalidarTodo();
+        especialidades.invalidarTodo();
+    }
+
+    public List<CacheEstadisticasResponse> estadisticas() {
+        return List.of(medicos.estadisticas(), especialidades.estadisticas());
+    }
+
+}
@@ -0,0 +1,207 @@
+package cm.apidisponibilidad.repository;
+
+import cm.apidisponibilidad.client.empleado.EmpleadoClientResponse;
+import cm.apidisponibilidad.client.especialidad.EspecialidadResponse;
+import cm.apidisponibilidad.dto.CursorDisponibilidad;
+import cm.apidisponibilidad.dto.DisponibilidadRequest;
+import cm.apidisponibilidad.service.DisponibilidadService;
+import cm.apidisponibilidad.service.NombresCacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+class DisponibilidadRepositoryTest {
+
+    private static final Long MEDICO = 1L;
+    private static final Long OTRO_MEDICO = 2L;
+    private static final Long TERCER_MEDICO = 3L;
+    private static final Long ESPECIALIDAD = 5L;
+    private static final LocalDate FECHA = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private DisponibilidadRepository repository;
+
+    @Test
+    void findByMedicosYFechas_soloLosMedicosYElRangoDeFechasPedidos() {
+        repository.saveAllAndFlush(List.of(
+                disponibilidad(MEDICO, FECHA, 8, 10),
+                disponibilidad(MEDICO, FECHA.plusDays(2), 8, 10),
+                disponibilidad(MEDICO, FECHA.plusDays(3), 8, 10),
+                disponibilidad(OTRO_MEDICO, FECHA.plusDays(1), 8, 10),
+                disponibilidad(TERCER_MEDICO, FECHA, 8, 10)));
+
+        List<Disponibilidad> encontradas = repository.findByMedicosYFechas(
+                Set.of(MEDICO, OTRO_MEDICO), FECHA, FECHA.plusDays(2));
+
+        assertThat(encontradas)
+                .extracting(Disponibilidad::getIdMedico, Disponibilidad::getFecha)
+                .containsExactlyInAnyOrder(
+                        tuple(MEDICO, FECHA),
+                        tuple(MEDICO, FECHA.plusDays(2)),
+                        tuple(OTRO_MEDICO, FECHA.plusDays(1)));
+    }
+
+    @Test
+    void existeSolapamiento_rangosContiguosNoSeSolapan() {
+        repository.saveAndFlush(disponibilidad(MEDICO, FECHA, 8, 10));
+
+        assertThat(repository.existeSolapamiento(MEDICO, ESPECIALIDAD, FECHA, hora(9), hora(11))).isTrue();
+        assertThat(repository.existeSolapamiento(MEDICO, ESPECIALIDAD, FECHA, hora(10), hora(12))).isFalse();
+        assertThat(repository.existeSolapamiento(MEDICO, ESPECIALIDAD, FECHA, hora(6), hora(8))).isFalse();
+    }
+
+    @Test
+    void registrarLote_coincideConExisteSolapamientoVentanaPorVentana() {
+        Set<Long> registradas = repository.saveAllAndFlush(List.of(
+                        disponibilidad(MEDICO, FECHA, 8, 10),
+                        disponibilidad(MEDICO, FECHA, 13, 18),
+                        disponibilidad(OTRO_MEDICO, FECHA, 9, 12)))
+                .stream()
+                .map(Disponibilidad::getId)
+                .collect(Collectors.toSet());
+        DisponibilidadService service = servicio();
+
+        // Cada ventana por separado: el barrido del lote debe coincidir con la consulta por ventana
+        for (Long idMedico : List.of(MEDICO, OTRO_MEDICO)) {
+            for (int desde = 6; desde < 20; desde++) {
+                for (int hasta = desde + 1; hasta <= 20; hasta++) {
+                    DisponibilidadRequest request = request(idMedico, desde, hasta);
+                    boolean esperado = repository.existeSolapamiento(
+                            idMedico, ESPECIALIDAD, FECHA, hora(desde), hora(hasta));
+
+                    assertThat(seSolapa(service, request))
+                            .as("médico %d de %d a %d", idMedico, desde, hasta)
+                            .isEqualTo(esperado);
+
+                    // Las aceptadas se descartan para no cambiar las registradas de la siguiente vuelta
+                    repository.deleteAll(repository.findByMedicosYFechas(Set.of(idMedico), FECHA, FECHA).stream()
+                            .filter(d -> !registradas.contains(d.getId()))
+                            .toList());
+                    repository.flush();
+                }
+            }
+        }
+    }
+
+    @Test
+    void registrarLote_conSolapamiento_noRegistraNingunaVentana() {
+        repository.saveAndFlush(disponibilidad(MEDICO, FECHA, 8, 10));
+        long antes = repository.count();
+
+        assertThat(seSolapa(servicio(), request(OTRO_MEDICO, 8, 10), request(MEDICO, 9, 11))).isTrue();
+        assertThat(repository.count()).isEqualTo(antes);
+    }
+
+    @Test
+    void registrarLote_sinSolapamiento_quedaVisibleParaElSiguienteLote() {
+        DisponibilidadService service = servicio();
+
+        assertThat(seSolapa(service, request(MEDICO, 8, 10), request(MEDICO, 10, 12))).isFalse();
+        repository.flush();
+
+        assertThat(seSolapa(service, request(MEDICO, 11, 13))).isTrue();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void findPaginaPorFechas_recorridoConElCursor_devuelveTodasEnOrdenCronologicoSinRepetir() {
+        // Se guardan fuera de orden: el ID no sigue a la fecha y hora, y desempata las que las comparten
+        List<Disponibilidad> guardadas = repository.saveAllAndFlush(List.of(
+                disponibilidad(MEDICO, FECHA.plusDays(1), 8, 10),
+                disponibilidad(MEDICO, FECHA, 13, 15),
+                disponibilidad(OTRO_MEDICO, FECHA, 8, 10),
+                disponibilidad(TERCER_MEDICO, FECHA, 13, 15),
+                disponibilidad(MEDICO, FECHA, 8, 10)));
+
+        List<Long> recorridas = new ArrayList<>();
+        CursorDisponibilidad cursor = CursorDisponibilidad.inicio(FECHA);
+        List<Disponibilidad> pagina;
+        do {
+            pagina = repository.findPaginaPorFechas(FECHA, FECHA.plusDays(1),
+                    cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(2));
+            pagina.forEach(d -> recorridas.add(d.getId()));
+            if (!pagina.isEmpty()) {
+                cursor = CursorDisponibilidad.decodificar(
+                        CursorDisponibilidad.de(pagina.get(pagina.size() - 1)).codificar());
+            }
+        } while (pagina.size() == 2);
+
+        assertThat(recorridas).containsExactly(
+                guardadas.get(2).getId(), guardadas.get(4).getId(),
+                guardadas.get(1).getId(), guardadas.get(3).getId(),
+                guardadas.get(0).getId());
+    }
+
+    @Test
+    void findPaginaPorMedicoYFechas_soloLasDelMedicoDespuesDelCursor() {
+        Disponibilidad primera = repository.saveAndFlush(disponibilidad(MEDICO, FECHA, 8, 10));
+        repository.saveAndFlush(disponibilidad(MEDICO, FECHA, 13, 15));
+        repository.saveAndFlush(disponibilidad(OTRO_MEDICO, FECHA, 16, 18));
+        CursorDisponibilidad cursor = CursorDisponibilidad.de(primera);
+
+        List<Disponibilidad> siguientes = repository.findPaginaPorMedicoYFechas(MEDICO, FECHA, FECHA,
+                cursor.fecha(), cursor.horaInicio(), cursor.id(), Limit.of(10));
+
+        assertThat(siguientes).extracting(Disponibilidad::getHora_inicio).containsExactly(hora(13));
+    }
+
+    // AUXILIARES
+
+    private DisponibilidadService servicio() {
+        NombresCacheService nombresCache = mock(NombresCacheService.class);
+        when(nombresCache.obtenerMedico(anyLong()))
+                .thenAnswer(i -> new EmpleadoClientResponse(i.getArgument(0), "Médico"));
+        when(nombresCache.obtenerEspecialidad(anyLong()))
+                .thenAnswer(i -> new EspecialidadResponse(i.getArgument(0), "Especialidad"));
+
+        return new DisponibilidadService(nombresCache, repository);
+    }
+
+    /**
+     * Registra el lote y devuelve si fue rechazado por solapamiento
+     */
+    private static boolean seSolapa(DisponibilidadService service, DisponibilidadRequest... requests) {
+        try {
+            service.registrarLote(List.of(requests));
+            return false;
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageStartingWith("Ya existe una disponibilidad registrada");
+            return true;
+        }
+    }
+
+    private static DisponibilidadRequest request(Long idMedico, int desde, int hasta) {
+        return new DisponibilidadRequest(idMedico, ESPECIALIDAD, FECHA, hora(desde), hora(hasta), "101");
+    }
+
+    private static Disponibilidad disponibilidad(Long idMedico, LocalDate fecha, int desde, int hasta) {
+        return Disponibilidad.builder()
+                .idMedico(idMedico)
+                .idEspecialidad(ESPECIALIDAD)
+                .fecha(fecha)
+                .hora_inicio(hora(desde))
+                .hora_fin(hora(hasta))
+                .nroConsultorio("101")
+                .build();
+    }
+
+    private static LocalTime hora(int hora) {
+        return LocalTime.of(hora, 0);
+    }
+
+}
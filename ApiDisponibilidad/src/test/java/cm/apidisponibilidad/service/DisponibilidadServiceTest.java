@@ -0,0 +1,237 @@
+package cm.apidisponibilidad.service;
+
+import cm.apidisponibilidad.client.empleado.EmpleadoClientResponse;
+import cm.apidisponibilidad.client.especialidad.EspecialidadResponse;
+import cm.apidisponibilidad.dto.DisponibilidadRequest;
+import cm.apidisponibilidad.dto.DisponibilidadResponse;
+import cm.apidisponibilidad.repository.Disponibilidad;
+import cm.apidisponibilidad.repository.DisponibilidadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DisponibilidadServiceTest {
+
+    private static final Long MEDICO = 1L;
+    private static final Long OTRO_MEDICO = 2L;
+    private static final Long ESPECIALIDAD = 5L;
+    private static final Long OTRA_ESPECIALIDAD = 6L;
+    private static final LocalDate FECHA = LocalDate.now().plusDays(1);
+
+    private DisponibilidadRepository repository;
+    private DisponibilidadService service;
+
+    @BeforeEach
+    void preparar() {
+        repository = mock(DisponibilidadRepository.class);
+        NombresCacheService nombresCache = mock(NombresCacheService.class);
+        when(nombresCache.obtenerMedico(anyLong()))
+                .thenAnswer(i -> new EmpleadoClientResponse(i.getArgument(0), "Médico " + i.getArgument(0)));
+        when(nombresCache.obtenerEspecialidad(anyLong()))
+                .thenAnswer(i -> new EspecialidadResponse(i.getArgument(0), "Especialidad " + i.getArgument(0)));
+
+        service = new DisponibilidadService(nombresCache, repository);
+    }
+
+    // SOLAPAMIENTOS DENTRO DEL LOTE
+
+    @Test
+    void registrarLote_ventanasDelLoteQueSeCruzan_rechazaTodoIndicandoLasPosiciones() {
+        registradas();
+
+        assertThatThrownBy(() -> service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                request(OTRO_MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                request(MEDICO, ESPECIALIDAD, FECHA, 9, 11)
+        )))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("[0, 2]");
+
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void registrarLote_ventanasContiguasOEnOtroGrupo_seRegistranEnElOrdenRecibido() {
+        registradas();
+
+        List<DisponibilidadResponse> registradas = service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 10, 12),
+                request(MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                request(MEDICO, OTRA_ESPECIALIDAD, FECHA, 9, 11),
+                request(MEDICO, ESPECIALIDAD, FECHA.plusDays(1), 9, 11),
+                request(OTRO_MEDICO, ESPECIALIDAD, FECHA, 9, 11)
+        ));
+
+        assertThat(registradas).extracting(DisponibilidadResponse::hora_inicio)
+                .containsExactly(hora(10), hora(8), hora(9), hora(9), hora(9));
+        verify(repository).saveAll(anyList());
+    }
+
+    @Test
+    void registrarLote_ventanaQueEmpiezaAntesDelMayorFinVisto_seSolapaAunqueNoConLaAnterior() {
+        registradas();
+
+        // 09:00-10:00 termina antes que 11:00-12:00 empiece, pero ambas caen dentro de 08:00-13:00
+        assertThatThrownBy(() -> service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 8, 13),
+                request(MEDICO, ESPECIALIDAD, FECHA, 9, 10),
+                request(MEDICO, ESPECIALIDAD, FECHA, 11, 12)
+        )))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("[0, 1, 2]");
+    }
+
+    // SOLAPAMIENTOS CON LAS VENTANAS REGISTRADAS
+
+    @Test
+    void registrarLote_ventanaQueSeCruzaConUnaRegistrada_soloIndicaLaPosicionDelLote() {
+        registradas(registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 10));
+
+        assertThatThrownBy(() -> service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 12, 14),
+                request(MEDICO, ESPECIALIDAD, FECHA, 9, 11)
+        )))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("[1]");
+    }
+
+    @Test
+    void registrarLote_registradaLargaQueCubreVariasDelLote_lasIndicaTodas() {
+        registradas(registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 13));
+
+        assertThatThrownBy(() -> service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 9, 10),
+                request(MEDICO, ESPECIALIDAD, FECHA, 13, 14),
+                request(MEDICO, ESPECIALIDAD, FECHA, 12, 13)
+        )))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("[0, 2]");
+    }
+
+    @Test
+    void registrarLote_registradasSolapadasEntreSi_noBloqueanElLote() {
+        registradas(
+                registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                registrada(MEDICO, ESPECIALIDAD, FECHA, 9, 11));
+
+        List<DisponibilidadResponse> registradas = service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 11, 12)
+        ));
+
+        assertThat(registradas).hasSize(1);
+    }
+
+    @Test
+    void registrarLote_registradasDeOtraEspecialidad_noSeSolapan() {
+        registradas(registrada(MEDICO, OTRA_ESPECIALIDAD, FECHA, 8, 10));
+
+        assertThat(service.registrarLote(List.of(request(MEDICO, ESPECIALIDAD, FECHA, 8, 10)))).hasSize(1);
+    }
+
+    @Test
+    void registrarLote_consultaLasRegistradasDeLosMedicosEntreLaPrimeraYUltimaFecha() {
+        registradas();
+
+        service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA.plusDays(3), 8, 10),
+                request(OTRO_MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                request(MEDICO, ESPECIALIDAD, FECHA.plusDays(1), 8, 10)
+        ));
+
+        verify(repository).findByMedicosYFechas(Set.of(MEDICO, OTRO_MEDICO), FECHA, FECHA.plusDays(3));
+    }
+
+    @Test
+    void registrarLote_rangoDeHorasInvalido_noConsultaLasRegistradas() {
+        assertThatThrownBy(() -> service.registrarLote(List.of(
+                request(MEDICO, ESPECIALIDAD, FECHA, 8, 10),
+                request(MEDICO, ESPECIALIDAD, FECHA, 10, 9)
+        ))).isInstanceOf(IllegalArgumentException.class);
+
+        verify(repository, never()).findByMedicosYFechas(anyCollection(), any(), any());
+    }
+
+    // DISPONIBILIDADES MATERIALIZADAS
+
+    @Test
+    void actualizar_disponibilidadMaterializada_seRechazaSinGuardar() {
+        Disponibilidad materializada = registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 10);
+        materializada.setId(7L);
+        materializada.setIdHorario(30L);
+        when(repository.findById(7L)).thenReturn(Optional.of(materializada));
+
+        assertThatThrownBy(() -> service.actualizar(request(MEDICO, ESPECIALIDAD, FECHA, 9, 11), 7L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("horario con ID: 30");
+
+        assertThat(materializada.getHora_inicio()).isEqualTo(hora(8));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void eliminar_disponibilidadMaterializada_seRechazaSinEliminar() {
+        Disponibilidad materializada = registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 10);
+        materializada.setId(7L);
+        materializada.setIdHorario(30L);
+        when(repository.findById(7L)).thenReturn(Optional.of(materializada));
+
+        assertThatThrownBy(() -> service.eliminar(7L)).isInstanceOf(IllegalStateException.class);
+
+        verify(repository, never()).delete(any());
+    }
+
+    @Test
+    void eliminar_disponibilidadSinMaterializar_seElimina() {
+        Disponibilidad pendiente = registrada(MEDICO, ESPECIALIDAD, FECHA, 8, 10);
+        pendiente.setId(7L);
+        when(repository.findById(7L)).thenReturn(Optional.of(pendiente));
+
+        service.eliminar(7L);
+
+        verify(repository).delete(pendiente);
+    }
+
+    // AUXILIARES
+
+    private void registradas(Disponibilidad... disponibilidades) {
+        when(repository.findByMedicosYFechas(anyCollection(), any(), any())).thenReturn(List.of(disponibilidades));
+    }
+
+    private static DisponibilidadRequest request(Long idMedico, Long idEspecialidad, LocalDate fecha,
+                                                 int desde, int hasta) {
+        return new DisponibilidadRequest(idMedico, idEspecialidad, fecha, hora(desde), hora(hasta), "101");
+    }
+
+    private static Disponibilidad registrada(Long idMedico, Long idEspecialidad, LocalDate fecha,
+                                             int desde, int hasta) {
+        return Disponibilidad.builder()
+                .idMedico(idMedico)
+                .idEspecialidad(idEspecialidad)
+                .fecha(fecha)
+                .hora_inicio(hora(desde))
+                .hora_fin(hora(hasta))
+                .nroConsultorio("101")
+                .build();
+    }
+
+    private static LocalTime hora(int hora) {
+        return LocalTime.of(hora, 0);
+    }
+
+}
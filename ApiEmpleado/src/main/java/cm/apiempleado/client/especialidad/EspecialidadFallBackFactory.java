@@ -7,33 +7,55 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Component
 public class EspecialidadFallBackFactory implements FallbackFactory<EspecialidadFeignClient> {
 
-    private static final String SERVICIO_CAIDO_MSG = "SERVICE_UNAVAILABLE";
+    public static final String SERVICIO_CAIDO_MSG = "SERVICE_UNAVAILABLE";
 
     // Implementación alternativa de EspecialidadFeignClient en caso de error
     @Override
     public EspecialidadFeignClient create(Throwable cause){
-        return id -> {
-
-            // Si el error es porque no se encontró la especialidad (404 NotFound)
-            if (cause instanceof FeignException.NotFound) {
-                log.warn("Especialidad {} no encontrada", id);
-                return null;
+        return new EspecialidadFeignClient() {
+
+            @Override
+            public EspecialidadResponse obtenerEspecialidad(Long id) {
+
+                // Si el error es porque no se encontró la especialidad (404 NotFound)
+                if (cause instanceof FeignException.NotFound) {
+                    log.warn("Especialidad {} no encontrada", id);
+                    return null;
+                }
+
+                // Si el error es porque el microservicio de especialidad está caído
+                if (esServicioCaido(cause)){
+                    log.error("Servicio de Especialidades caído. Causa: {}", cause.getMessage());
+                    return new EspecialidadResponse(-1L, SERVICIO_CAIDO_MSG);
+                }
+
+                // Si el error es cualquier otro no manejado
+                log.error("Error no manejado en EspecialidadFeignClient: {}", cause.getMessage());
+                throw new RuntimeException("Error al obtener especialidad: " + cause.getMessage(), cause);
             }
 
-            // Si el error es porque el microservicio de especialidad está caído
-            if (esServicioCaido(cause)){
-                log.error("Servicio de Especialidades caído. Causa: {}", cause.getMessage());
-                return new EspecialidadResponse(-1L, SERVICIO_CAIDO_MSG);
-            }
+            @Override
+            public List<EspecialidadResponse> obtenerEspecialidades(Collection<Long> ids) {
 
-            // Si el error es cualquier otro no manejado
-            log.error("Error no manejado en EspecialidadFeignClient: {}", cause.getMessage());
-            throw new RuntimeException("Error al obtener especialidad: " + cause.getMessage(), cause);
+                // Si el error es porque el microservicio de especialidad está caído se devuelve null,
+                // una lista vacía se confundiría con especialidades inexistentes
+                if (esServicioCaido(cause)){
+                    log.error("Servicio de Especialidades caído al buscar {} especialidades. Causa: {}",
+                            ids.size(), cause.getMessage());
+                    return null;
+                }
+
+                // Si el error es cualquier otro no manejado
+                log.error("Error no manejado en EspecialidadFeignClient: {}", cause.getMessage());
+                throw new RuntimeException("Error al obtener especialidades: " + cause.getMessage(), cause);
+            }
 
         };
     }
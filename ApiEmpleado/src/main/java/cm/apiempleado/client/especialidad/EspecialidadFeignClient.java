@@ -3,6 +3,11 @@ package cm.apiempleado.client.especialidad;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Collection;
+import java.util.List;
 
 @FeignClient(name = "ApiEspecialidad", fallbackFactory = EspecialidadFallBackFactory.class)
 public interface EspecialidadFeignClient {
@@ -11,4 +16,8 @@ public interface EspecialidadFeignClient {
     @GetMapping("/especialidades/{id}")
     EspecialidadResponse obtenerEspecialidad(@PathVariable("id") Long id);
 
+    // Obtiene el ID y nombre de varias especialidades, los IDs que no existen se omiten
+    @PostMapping("/especialidades/batch")
+    List<EspecialidadResponse> obtenerEspecialidades(@RequestBody Collection<Long> ids);
+
 }
@@ -0,0 +1,118 @@
+package cm.apiempleado.service;
+
+import cm.apiempleado.client.especialidad.EspecialidadFallBackFactory;
+import cm.apiempleado.client.especialidad.EspecialidadFeignClient;
+import cm.apiempleado.client.especialidad.EspecialidadResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché local del catálogo de especialidades delante de {@code especialidadClient}. El catálogo es
+ * pequeño y cambia poco, así que cada especialidad se guarda hasta que vence, y las que faltan se
+ * piden a ApiEspecialidad en lotes de hasta {@value #MAX_IDS_POR_LOTE} IDs en lugar de una llamada por ID
+ */
+@Slf4j
+@Service
+public class CatalogoEspecialidadesService {
+
+    // Máximo de IDs que ApiEspecialidad acepta por llamada batch
+    private static final int MAX_IDS_POR_LOTE = 500;
+
+    // Igual que la respuesta de EspecialidadFallBackFactory cuando el servicio está caído
+    private static final EspecialidadResponse NO_DISPONIBLE =
+            new EspecialidadResponse(-1L, EspecialidadFallBackFactory.SERVICIO_CAIDO_MSG);
+
+    private final EspecialidadFeignClient especialidadClient;
+    private final long ttlNanos;
+
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private record Entrada(EspecialidadResponse especialidad, long venceEn) {
+    }
+
+    public CatalogoEspecialidadesService(
+            EspecialidadFeignClient especialidadClient,
+            @Value("${empleados.catalogo-especialidades.ttl-segundos:300}") long ttlSegundos) {
+        this.especialidadClient = especialidadClient;
+        this.ttlNanos = Duration.ofSeconds(ttlSegundos).toNanos();
+    }
+
+    /**
+     * Obtiene el ID y nombre de varias especialidades desde la caché y, las que no están o ya
+     * vencieron, desde {@code especialidadClient} en lotes de hasta {@value #MAX_IDS_POR_LOTE} IDs
+     *
+     * @param ids Identificadores únicos de las especialidades
+     * @return Un mapa de ID a {@link EspecialidadResponse}. Los IDs que no existen no están en el mapa.
+     * Si ApiEspecialidad está caído, los IDs de los lotes que fallaron se asocian a una especialidad
+     * con ID -1, que no se guarda
+     */
+    public Map<Long, EspecialidadResponse> obtener(Collection<Long> ids) {
+        Map<Long, EspecialidadResponse> especialidades = new HashMap<>();
+        Set<Long> faltantes = new LinkedHashSet<>();
+        long ahora = System.nanoTime();
+
+        for (Long id : ids) {
+            if (especialidades.containsKey(id) || faltantes.contains(id)) {
+                continue;
+            }
+
+            Entrada entrada = entradas.get(id);
+            if (entrada != null && entrada.venceEn() - ahora > 0) {
+                especialidades.put(id, entrada.especialidad());
+            } else {
+                faltantes.add(id);
+            }
+        }
+
+        if (faltantes.isEmpty()) {
+            return especialidades;
+        }
+
+        log.debug("Obteniendo {} especialidades que no están en caché", faltantes.size());
+        List<Long> pendientes = List.copyOf(faltantes);
+        int obtenidas = 0;
+
+        for (int i = 0; i < pendientes.size(); i += MAX_IDS_POR_LOTE) {
+            List<Long> lote = pendientes.subList(i, Math.min(i + MAX_IDS_POR_LOTE, pendientes.size()));
+            List<EspecialidadResponse> encontradas = especialidadClient.obtenerEspecialidades(lote);
+
+            if (encontradas == null) {
+                log.warn("No se pudieron obtener las especialidades con IDs: {}", lote);
+                lote.forEach(id -> especialidades.put(id, NO_DISPONIBLE));
+                continue;
+            }
+
+            long venceEn = System.nanoTime() + ttlNanos;
+            for (EspecialidadResponse especialidad : encontradas) {
+                entradas.put(especialidad.id(), new Entrada(especialidad, venceEn));
+                especialidades.put(especialidad.id(), especialidad);
+            }
+            obtenidas += encontradas.size();
+        }
+
+        log.info("Especialidades obtenidas correctamente: {} de {}", obtenidas, faltantes.size());
+
+        return especialidades;
+    }
+
+    /**
+     * Obtiene el ID y nombre de una especialidad, o null si no existe
+     *
+     * @param id Identificador único de la especialidad
+     * @return Un objeto {@link EspecialidadResponse} que contiene el ID y nombre de la especialidad
+     */
+    public EspecialidadResponse obtener(Long id) {
+        return obtener(List.of(id)).get(id);
+    }
+
+}
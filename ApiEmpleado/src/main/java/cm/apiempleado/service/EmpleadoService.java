@@ -1,6 +1,5 @@
 package cm.apiempleado.service;
 
-import cm.apiempleado.client.especialidad.EspecialidadFeignClient;
 import cm.apiempleado.client.especialidad.EspecialidadResponse;
 import cm.apiempleado.client.usuario.UserFeignClient;
 import cm.apiempleado.client.usuario.UserRequest;
@@ -14,17 +13,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmpleadoService {
 
-    private final EspecialidadFeignClient especialidadClient;
+    private final CatalogoEspecialidadesService catalogoEspecialidades;
     private final UserFeignClient userClient;
     private final EmpleadoRepository repository;
 
@@ -87,7 +89,8 @@ public class EmpleadoService {
     }
 
     /**
-     * Lista a todos los empleados activos de la base de datos
+     * Lista a todos los empleados activos de la base de datos. Las especialidades de todos los
+     * empleados se obtienen juntas, en una sola consulta
      *
      * @return Una lista de objetos {@link EmpleadoSumResponse} que contiene:
      * <ul>
@@ -103,12 +106,23 @@ public class EmpleadoService {
 
         List<Empleados> empleados = repository.findAll();
 
+        List<Empleados> activos = empleados
+                .stream()
+                .filter(Empleados::getActivo)
+                .toList();
+
+        Map<Long, EspecialidadResponse> especialidades = obtenerEspecialidades(activos
+                .stream()
+                .map(Empleados::getEspecialidadIds)
+                .filter(Objects::nonNull)
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet()));
+
         log.info("Empleados listados correctamente: {}", empleados.size());
 
-        return empleados
+        return activos
                 .stream()
-                .filter(Empleados::getActivo)
-                .map(this::toSumResponse)
+                .map(e -> toSumResponse(e, especialidades))
                 .toList();
     }
 
@@ -329,15 +343,31 @@ public class EmpleadoService {
     // SERVICIOS PARA OBTENER DATOS DE OTROS MICROSERVICIOS
 
     /**
-     * Obtiene el ID y nombre de una especialidad a través del cliente {@code especialidadClient},
-     * si la especialidad no existe (404) devuelve null
+     * Obtiene el ID y nombre de una especialidad a través de {@code catalogoEspecialidades},
+     * si la especialidad no existe devuelve null
      *
      * @param id Identificador único de la especialidad
      * @return Un objeto {@link EspecialidadResponse} que contiene el ID y nombre de la especialidad
      */
     private EspecialidadResponse obtenerEspecialidad(Long id){
         log.info("Nombre de especialidad con ID: {} encontrado correctamente", id);
-        return especialidadClient.obtenerEspecialidad(id);
+        return catalogoEspecialidades.obtener(id);
+    }
+
+    /**
+     * Obtiene el ID y nombre de varias especialidades a través de {@code catalogoEspecialidades},
+     * con a lo sumo una llamada a ApiEspecialidad
+     *
+     * @param ids Identificadores únicos de las especialidades
+     * @return Un mapa de ID a {@link EspecialidadResponse}, sin los IDs que no existen
+     */
+    private Map<Long, EspecialidadResponse> obtenerEspecialidades(Collection<Long> ids){
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        log.debug("Obteniendo {} especialidades", ids.size());
+        return catalogoEspecialidades.obtener(ids);
     }
 
     // MAPEADORES A DTO
@@ -345,17 +375,7 @@ public class EmpleadoService {
     private EmpleadoResponse toResponse(Empleados empleado){
         List<EspecialidadResponse> especialidades = empleado.getEspecialidadIds() == null || empleado.getEspecialidadIds().isEmpty()
                 ? List.of()
-                : empleado.getEspecialidadIds()
-                .stream()
-                .map(id -> {
-                    EspecialidadResponse esp = obtenerEspecialidad(id);
-                    if (esp == null) {
-                        eliminarEspecialidadNoEncontrada(id, empleado);
-                    }
-                    return esp;
-                })
-                .filter(Objects::nonNull)
-                .toList();
+                : toEspecialidades(empleado, obtenerEspecialidades(empleado.getEspecialidadIds()));
 
         return new EmpleadoResponse(
                 empleado.getId(),
@@ -371,20 +391,10 @@ public class EmpleadoService {
         );
     }
 
-    private EmpleadoSumResponse toSumResponse(Empleados empleado) {
+    private EmpleadoSumResponse toSumResponse(Empleados empleado, Map<Long, EspecialidadResponse> encontradas) {
         List<EspecialidadResponse> especialidades = empleado.getEspecialidadIds() == null || empleado.getEspecialidadIds().isEmpty()
                 ? List.of()
-                : empleado.getEspecialidadIds()
-                .stream()
-                .map(id -> {
-                    EspecialidadResponse esp = obtenerEspecialidad(id);
-                    if (esp == null) {
-                        eliminarEspecialidadNoEncontrada(id, empleado);
-                    }
-                    return esp;
-                })
-                .filter(Objects::nonNull)
-                .toList();
+                : toEspecialidades(empleado, encontradas);
 
         return new EmpleadoSumResponse(
                 empleado.getId(),
@@ -425,6 +435,22 @@ public class EmpleadoService {
         );
     }
 
+    /**
+     * Toma de {@code encontradas} las especialidades del empleado, y quita del empleado las que no existen
+     */
+    private List<EspecialidadResponse> toEspecialidades(Empleados empleado, Map<Long, EspecialidadResponse> encontradas) {
+        List<Long> noEncontradas = empleado.getEspecialidadIds()
+                .stream()
+                .filter(id -> !encontradas.containsKey(id))
+                .toList();
+        noEncontradas.forEach(id -> eliminarEspecialidadNoEncontrada(id, empleado));
+
+        return empleado.getEspecialidadIds()
+                .stream()
+                .map(encontradas::get)
+                .toList();
+    }
+
     private void eliminarEspecialidadNoEncontrada(Long id, Empleados e) {
         if (e != null && e.getEspecialidadIds() != null) {
             e.getEspecialidadIds().remove(id);
@@ -12,7 +12,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -127,6 +129,40 @@ public class EspecialidadController {
         return ResponseEntity.ok(especialidad);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Buscar especialidades por IDs",
+            description = "Obtiene varias especialidades en una sola consulta. Los IDs que no existen se omiten de la respuesta")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Especialidades encontradas exitosamente",
+                    content = @Content(schema = @Schema(implementation = EspecialidadResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Lista vacía, demasiados IDs o IDs inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error interno del servidor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<EspecialidadResponse>> buscarVarias(
+            @Parameter(description = "Identificadores únicos de las especialidades, hasta 500")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un ID")
+            @Size(max = 500, message = "No puede buscar más de 500 especialidades a la vez")
+            List<@Positive(message = "El ID debe ser positivo") Long> ids){
+
+        log.info("Solicitud de búsqueda de {} especialidades recibida", ids.size());
+        List<EspecialidadResponse> especialidades = service.buscarVarias(ids);
+        log.info("Solicitud de búsqueda de {} especialidades terminada, respuesta enviada", ids.size());
+
+        return ResponseEntity.ok(especialidades);
+    }
+
     @PatchMapping("/{id}")
     @Operation(summary = "Actualizar especialidad",
             description = "Actualiza la información de una especialidad existente")
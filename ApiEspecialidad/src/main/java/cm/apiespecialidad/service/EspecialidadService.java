@@ -10,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -119,6 +120,27 @@ public class EspecialidadService {
                 });
     }
 
+    /**
+     * Busca varias especialidades por ID en una sola consulta
+     *
+     * @param ids Identificadores únicos de las especialidades, los repetidos se consultan una vez
+     * @return Una lista de objetos {@link EspecialidadResponse} con las especialidades encontradas,
+     * los IDs que no existen se omiten
+     */
+    @Transactional(readOnly = true)
+    public List<EspecialidadResponse> buscarVarias(Collection<Long> ids) {
+        log.info("Inicio de proceso de búsqueda de {} especialidades", ids.size());
+
+        List<Especialidad> especialidades = repository.findAllById(ids.stream().distinct().toList());
+
+        log.info("Especialidades encontradas correctamente: {}", especialidades.size());
+
+        return especialidades
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
     /**
      * Actualiza los datos de una especialidad
      *
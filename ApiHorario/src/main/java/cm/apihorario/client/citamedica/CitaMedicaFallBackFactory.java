@@ -8,6 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 public class CitaMedicaFallBackFactory implements FallbackFactory<CitaMedicaFeignClient> {
@@ -18,23 +20,54 @@ public class CitaMedicaFallBackFactory implements FallbackFactory<CitaMedicaFeig
     // Implementación alternativa de CitaMedicaFeignClient en caso de error
     @Override
     public CitaMedicaFeignClient create(Throwable cause) {
-        return id -> {
+        return new CitaMedicaFeignClient() {
+            @Override
+            public CitaMedicaFeignResponse obtenerCita(Long id) {
+
+                // Si el error es porque no se encontró la Cita Médica (404 NotFound)
+                if (cause instanceof FeignException.NotFound) {
+                    log.warn("Cita Médica con ID: {} no encontrado", id);
+                    throw new EntityNotFoundException("Cita Médica con ID: " + id + " no encontrada");
+                }
 
-            // Si el error es porque no se encontró la Cita Médica (404 NotFound)
-            if (cause instanceof FeignException.NotFound) {
-                log.warn("Cita Médica con ID: {} no encontrado", id);
-                throw new EntityNotFoundException("Cita Médica con ID: " + id + " no encontrada");
+                // Si el error es porque el microservicio de Cita Médica está caído
+                if (esServicioCaido(cause)) {
+                    log.error("Servicio de Citas Médicas caído. Causa: {}", cause.getMessage());
+                    throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+                }
+
+                // Si el error es cualquier otro no manejado
+                log.error("Error no manejado en CitaMedicaFeignClient: {}", cause.getMessage());
+                throw new RuntimeException("Error al obtener la Cita Médica: " + cause.getMessage(), cause);
             }
 
-            // Si el error es porque el microservicio de Cita Médica está caído
-            if (esServicioCaido(cause)) {
-                log.error("Servicio de Citas Médicas caído. Causa: {}", cause.getMessage());
-                throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+            @Override
+            public List<CitaMedicaFeignResponse> obtenerCitas(List<Long> ids) {
+
+                // Si el error es porque el microservicio de Cita Médica está caído
+                if (esServicioCaido(cause)) {
+                    log.error("Servicio de Citas Médicas caído. Causa: {}", cause.getMessage());
+                    throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+                }
+
+                // Si el error es cualquier otro no manejado
+                log.error("Error no manejado en CitaMedicaFeignClient.obtenerCitas: {}", cause.getMessage());
+                throw new RuntimeException("Error al obtener las Citas Médicas: " + cause.getMessage(), cause);
             }
 
-            // Si el error es cualquier otro no manejado
-            log.error("Error no manejado en CitaMedicaFeignClient: {}", cause.getMessage());
-            throw new RuntimeException("Error al obtener la Cita Médica: " + cause.getMessage(), cause);
+            @Override
+            public void marcarSlotDesactualizado(Long idHorario, Long idDetalle) {
+
+                // Si el error es porque el microservicio de Cita Médica está caído
+                if (esServicioCaido(cause)) {
+                    log.error("Servicio de Citas Médicas caído. Causa: {}", cause.getMessage());
+                    throw new ServiceUnavailableException(SERVICIO_CAIDO_MSG);
+                }
+
+                // Si el error es cualquier otro no manejado
+                log.error("Error no manejado en CitaMedicaFeignClient.marcarSlotDesactualizado: {}", cause.getMessage());
+                throw new RuntimeException("Error al notificar cambio de Slot: " + cause.getMessage(), cause);
+            }
         };
     }
 
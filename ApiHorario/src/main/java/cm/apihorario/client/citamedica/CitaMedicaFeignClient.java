@@ -3,6 +3,12 @@ package cm.apihorario.client.citamedica;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "ApiCitaMedica", fallbackFactory = CitaMedicaFallBackFactory.class)
 public interface CitaMedicaFeignClient {
@@ -10,4 +16,13 @@ public interface CitaMedicaFeignClient {
     @GetMapping("/citas-medicas/feign/{id}")
     CitaMedicaFeignResponse obtenerCita(@PathVariable Long id);
 
+    // Obtiene varias citas en una sola llamada, las que no existen se omiten
+    @PostMapping("/citas-medicas/feign/batch")
+    List<CitaMedicaFeignResponse> obtenerCitas(@RequestBody List<Long> ids);
+
+    // Avisa a ApiCitaMedica que los datos de un horario o slot cambiaron
+    @PutMapping("/citas-medicas/feign/slots/desactualizar")
+    void marcarSlotDesactualizado(@RequestParam("idHorario") Long idHorario,
+                                  @RequestParam(value = "idDetalle", required = false) Long idDetalle);
+
 }
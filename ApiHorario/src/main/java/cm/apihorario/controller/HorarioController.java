@@ -1,10 +1,23 @@
 package cm.apihorario.controller;
 
+import cm.apihorario.dto.HorarioRecurrenteRequest;
+import cm.apihorario.dto.HorarioLoteResponse;
 import cm.apihorario.dto.HorarioRequest;
 import cm.apihorario.dto.HorarioResponse;
+import cm.apihorario.dto.HorarioResumenResponse;
+import cm.apihorario.dto.LiberarSlotRequest;
+import cm.apihorario.dto.LiberarSlotResponse;
+import cm.apihorario.dto.OcuparSlotRequest;
+import cm.apihorario.dto.OcuparSlotResponse;
+import cm.apihorario.dto.RetencionSlotResponse;
+import cm.apihorario.dto.SlotClientRequest;
 import cm.apihorario.dto.SlotClientResponse;
 import cm.apihorario.dto.SlotDisponibleResponse;
+import cm.apihorario.dto.SlotEventoResponse;
+import cm.apihorario.dto.SolapamientoRequest;
+import cm.apihorario.dto.SolapamientoResponse;
 import cm.apihorario.exceptions.ErrorResponse;
+import cm.apihorario.service.EventosSlotsService;
 import cm.apihorario.service.HorarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,14 +27,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -36,6 +55,7 @@ import java.util.List;
 public class HorarioController {
 
     private final HorarioService horarioService;
+    private final EventosSlotsService eventosSlotsService;
 
     @PostMapping
     @Operation(summary = "Registrar nuevo horario", 
@@ -69,6 +89,65 @@ public class HorarioController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/recurrentes")
+    @Operation(summary = "Registrar horarios recurrentes",
+               description = "Crea el mismo horario, con sus slots, en cada día de la semana indicado " +
+                       "dentro de un rango de fechas (máximo 92 días)")
+    @ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "201",
+                description = "Horarios creados exitosamente",
+                content = @Content(schema = @Schema(implementation = HorarioResumenResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos de entrada inválidos o solapamiento con otros horarios",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<List<HorarioResumenResponse>> registrarRecurrente(
+            @Parameter(description = "Patrón semanal y rango de fechas de los horarios")
+            @RequestBody
+            @Valid
+            HorarioRecurrenteRequest request) {
+
+        log.info("Solicitud de registro recurrente recibida para ID médico: {}", request.idEmpleado());
+        List<HorarioResumenResponse> response = horarioService.registrarRecurrente(request);
+        log.info("Solicitud de registro recurrente para ID médico: {} terminada, respuesta enviada", request.idEmpleado());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/solapamientos")
+    @Operation(summary = "Validar solapamiento de horarios",
+               description = "Indica qué horarios candidatos se cruzan con horarios existentes del mismo " +
+                       "médico o consultorio, o con candidatos anteriores del lote, sin registrarlos")
+    @ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Resultado de cada candidato en el mismo orden recibido",
+                content = @Content(schema = @Schema(implementation = SolapamientoResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos inválidos",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<List<SolapamientoResponse>> validarSolapamientos(
+            @Parameter(description = "Horarios candidatos a validar")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un horario")
+            @Size(max = 5000, message = "No se pueden validar más de 5000 horarios por llamada")
+            List<@Valid SolapamientoRequest> candidatos) {
+
+        log.info("Solicitud de validar solapamiento de {} horarios recibida", candidatos.size());
+        List<SolapamientoResponse> response = horarioService.validarSolapamientos(candidatos);
+        log.info("Solicitud de validar solapamiento de horarios terminada, respuesta enviada");
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     @Operation(summary = "Listar horarios", description = "Lista todos los horarios de la base de datos")
     @ApiResponses({
@@ -92,6 +171,67 @@ public class HorarioController {
         return ResponseEntity.ok(horarios);
     }
 
+    @GetMapping("/resumen")
+    @Operation(summary = "Resumen de ocupación de horarios",
+               description = "Obtiene la cantidad de slots por estado de cada horario entre dos fechas " +
+                       "(máximo 31 días), sin el detalle de los slots")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Resumen obtenido correctamente",
+                    content = @Content(schema = @Schema(implementation = HorarioResumenResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Rango de fechas inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<HorarioResumenResponse>> resumir(
+            @Parameter(description = "Fecha inicial (inclusive)")
+            @RequestParam
+            LocalDate desde,
+
+            @Parameter(description = "Fecha final (inclusive)")
+            @RequestParam
+            LocalDate hasta) {
+
+        log.info("Solicitud de resumen de horarios entre: {} y {} recibida", desde, hasta);
+        List<HorarioResumenResponse> resumen = horarioService.resumir(desde, hasta);
+        log.info("Solicitud de resumen de horarios entre: {} y {} terminada, respuesta enviada", desde, hasta);
+
+        return ResponseEntity.ok(resumen);
+    }
+
+    @GetMapping(value = "/slots/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suscribirse a cambios de estado de slots",
+               description = "Abre un stream SSE que envía un evento 'slot' (idHorario, idDetalle, estado, " +
+                       "timestamp) cada vez que un slot se ocupa, retiene, libera, bloquea o desbloquea. " +
+                       "Si el cliente no alcanza a leer los eventos recibe un evento 'desfase' y debe " +
+                       "volver a consultar los listados")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Suscripción abierta",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = SlotEventoResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Se alcanzó el máximo de suscriptores",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public SseEmitter suscribirEventosSlots() {
+        log.info("Solicitud de suscripción a eventos de slots recibida");
+        SseEmitter emitter = eventosSlotsService.suscribir();
+        log.info("Solicitud de suscripción a eventos de slots terminada, stream abierto");
+
+        return emitter;
+    }
+
     @GetMapping("/empleado/{idEmpleado}/fecha/{fecha}")
     @Operation(summary = "Buscar horarios por empleado y fecha",
                description = "Obtiene todos los horarios de un empleado en una fecha específica")
@@ -164,6 +304,147 @@ public class HorarioController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/{idHorario}/slots/{idDetalle}/retener")
+    @Operation(summary = "Retener slot",
+               description = "Reserva temporalmente un slot mientras se completa el registro de la cita. " +
+                       "La retención vence sola si el slot no se ocupa a tiempo")
+    @ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Slot retenido exitosamente",
+                content = @Content(schema = @Schema(implementation = RetencionSlotResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos inválidos o slot no encontrado",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "409",
+                description = "Slot no disponible o retenido por otro titular",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<RetencionSlotResponse> retenerSlot(
+            @Parameter(description = "Identificador único del horario")
+            @PathVariable
+            @Positive(message = "El ID de Horario debe ser positivo")
+            Long idHorario,
+
+            @Parameter(description = "Identificador único del detalle/slot")
+            @PathVariable
+            @Positive(message = "El ID de Detalle debe ser positivo")
+            Long idDetalle,
+
+            @Parameter(description = "Titular de la retención (DNI del paciente)")
+            @RequestParam
+            @NotBlank(message = "El titular es requerido")
+            @Size(max = 50, message = "El titular no puede superar 50 caracteres")
+            String titular) {
+
+        log.info("Solicitud de retener slot: {} recibida", idDetalle);
+        RetencionSlotResponse response = horarioService.retenerSlot(idHorario, idDetalle, titular);
+        log.info("Solicitud de retener slot: {} terminada, respuesta enviada", idDetalle);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/{idHorario}/slots/{idDetalle}/soltar")
+    @Operation(summary = "Soltar retención de slot",
+               description = "Devuelve a disponible un slot retenido por el titular cuando la reserva no se " +
+                       "completó. Si el slot ya no está retenido por el titular no hace nada")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Retención soltada o ya inexistente"),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos inválidos",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<Void> soltarRetencion(
+            @Parameter(description = "Identificador único del horario")
+            @PathVariable
+            @Positive(message = "El ID de Horario debe ser positivo")
+            Long idHorario,
+
+            @Parameter(description = "Identificador único del detalle/slot")
+            @PathVariable
+            @Positive(message = "El ID de Detalle debe ser positivo")
+            Long idDetalle,
+
+            @Parameter(description = "Titular de la retención (DNI del paciente)")
+            @RequestParam
+            @NotBlank(message = "El titular es requerido")
+            @Size(max = 50, message = "El titular no puede superar 50 caracteres")
+            String titular) {
+
+        log.info("Solicitud de soltar retención del slot: {} recibida", idDetalle);
+        horarioService.soltarRetencion(idHorario, idDetalle, titular);
+        log.info("Solicitud de soltar retención del slot: {} terminada, respuesta enviada", idDetalle);
+
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/slots/ocupar/batch")
+    @Operation(summary = "Ocupar varios slots",
+               description = "Marca varios slots como ocupados en una sola llamada. " +
+                       "Reintentar con la misma cita no produce error")
+    @ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Resultado de cada slot, los no ocupados indican el motivo",
+                content = @Content(schema = @Schema(implementation = OcuparSlotResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos inválidos",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<List<OcuparSlotResponse>> ocuparSlots(
+            @Parameter(description = "Slots a ocupar con el ID de su cita")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un slot")
+            @Size(max = 200, message = "No se pueden ocupar más de 200 slots por llamada")
+            List<@Valid OcuparSlotRequest> slots) {
+
+        log.info("Solicitud de ocupar {} slots recibida", slots.size());
+        List<OcuparSlotResponse> response = horarioService.ocuparSlots(slots);
+        log.info("Solicitud de ocupar slots terminada, respuesta enviada");
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/slots/liberar/batch")
+    @Operation(summary = "Liberar varios slots de sus citas",
+               description = "Libera varios slots en una sola llamada, cada uno solo si sigue ocupado por la " +
+                       "cita indicada. Reintentar no produce error")
+    @ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "200",
+                description = "Resultado de cada slot, indica si estaba ocupado por la cita y se liberó",
+                content = @Content(schema = @Schema(implementation = LiberarSlotResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Datos inválidos",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<List<LiberarSlotResponse>> liberarSlots(
+            @Parameter(description = "Slots a liberar con el ID de la cita que los ocupa")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un slot")
+            @Size(max = 200, message = "No se pueden liberar más de 200 slots por llamada")
+            List<@Valid LiberarSlotRequest> slots) {
+
+        log.info("Solicitud de liberar {} slots recibida", slots.size());
+        List<LiberarSlotResponse> response = horarioService.liberarSlots(slots);
+        log.info("Solicitud de liberar slots terminada, respuesta enviada");
+
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{idHorario}/slots/{idDetalle}/liberar")
     @Operation(summary = "Liberar slot", 
                description = "Libera un slot ocupado (cancela una cita)")
@@ -316,6 +597,70 @@ public class HorarioController {
         return ResponseEntity.ok(slot);
     }
 
+    @PostMapping("/client/slots/batch")
+    @Operation(summary = "Brindar varios slots",
+            description = "Obtiene los datos de varios slots en una sola llamada a partir de pares idHorario/idDetalle")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Slots obtenidos correctamente, los pares inexistentes se omiten",
+                    content = @Content(schema = @Schema(implementation = SlotClientResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Datos de entrada inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<SlotClientResponse>> brindarSlots(
+            @Parameter(description = "Pares idHorario/idDetalle de los slots")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un slot")
+            @Size(max = 200, message = "No se pueden solicitar más de 200 slots por llamada")
+            List<@Valid SlotClientRequest> slots) {
+
+        log.info("Solicitud de brindar {} slots recibida", slots.size());
+        List<SlotClientResponse> response = horarioService.brindarSlots(slots);
+        log.info("Solicitud de brindar slots terminada, respuesta enviada");
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/client/lote")
+    @Operation(summary = "Registrar lote de horarios",
+            description = "Registra varios horarios independientes en una sola llamada. Cada horario tiene su " +
+                    "propio resultado: CREADO, EXISTENTE (ya estaba registrado, no se duplica) o RECHAZADO")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Lote procesado, con el resultado de cada horario en el mismo orden",
+                    content = @Content(schema = @Schema(implementation = HorarioLoteResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Datos de entrada inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Servicio de Empleados, Especialidades o Consultorios no disponible",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<HorarioLoteResponse>> registrarLote(
+            @Parameter(description = "Horarios a registrar")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un horario")
+            @Size(max = 500, message = "No se pueden registrar más de 500 horarios por llamada")
+            List<@Valid HorarioRequest> requests) {
+
+        log.info("Solicitud de registro de lote de {} horarios recibida", requests.size());
+        List<HorarioLoteResponse> response = horarioService.registrarLote(requests);
+        log.info("Solicitud de registro de lote de horarios terminada, respuesta enviada");
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/client/slots/disponibles")
     @Operation(summary = "Buscar slot disponible",
             description = "Busca un slot disponible de un médico para una fecha y hora específica")
@@ -352,5 +697,48 @@ public class HorarioController {
         return ResponseEntity.ok(slot);
     }
 
+    @GetMapping("/disponibles/especialidad/{idEspecialidad}")
+    @Operation(summary = "Buscar primeros slots disponibles de una especialidad",
+            description = "Obtiene los primeros slots libres de una especialidad entre todos sus médicos, " +
+                    "ordenados por fecha y hora, en un rango de fechas (máximo 31 días)")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Slots disponibles obtenidos correctamente",
+                    content = @Content(schema = @Schema(implementation = SlotDisponibleResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Parámetros inválidos o rango de fechas inválido",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<SlotDisponibleResponse>> buscarPrimerosDisponibles(
+            @Parameter(description = "Identificador único de la especialidad")
+            @PathVariable
+            @Positive(message = "El ID de Especialidad debe ser positivo")
+            Long idEspecialidad,
+
+            @Parameter(description = "Fecha inicial (inclusive, opcional, por defecto hoy)")
+            @RequestParam(required = false)
+            LocalDate desde,
+
+            @Parameter(description = "Fecha final (inclusive, opcional, por defecto 31 días desde la inicial)")
+            @RequestParam(required = false)
+            LocalDate hasta,
+
+            @Parameter(description = "Cantidad máxima de slots a devolver")
+            @RequestParam(defaultValue = "10")
+            @Positive(message = "El límite debe ser positivo")
+            @Max(value = 100, message = "El límite no puede superar 100")
+            int limite) {
+
+        log.info("Solicitud de primeros slots disponibles para especialidad: {} recibida", idEspecialidad);
+        List<SlotDisponibleResponse> slots = horarioService.buscarPrimerosDisponibles(idEspecialidad, desde, hasta, limite);
+        log.info("Solicitud de primeros slots disponibles para especialidad: {} terminada, respuesta enviada", idEspecialidad);
+
+        return ResponseEntity.ok(slots);
+    }
+
 }
 
@@ -0,0 +1,23 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record HorarioLoteResponse(
+        @Schema(description = "Identificador único del horario creado o ya existente, null si fue rechazado",
+                example = "1")
+        Long idHorario,
+
+        @Schema(description = "Resultado del registro del horario", example = "CREADO")
+        ResultadoLote resultado,
+
+        @Schema(description = "Motivo del rechazo, null si no fue rechazado",
+                example = "El médico ya tiene un horario en ese rango de horas")
+        String mensaje
+) {
+
+    public enum ResultadoLote {
+        CREADO,
+        EXISTENTE,
+        RECHAZADO
+    }
+}
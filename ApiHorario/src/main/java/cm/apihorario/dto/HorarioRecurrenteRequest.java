@@ -0,0 +1,61 @@
+package cm.apihorario.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+public record HorarioRecurrenteRequest(
+        @Schema(description = "Identificador único del empleado", example = "1")
+        @NotNull(message = "El ID del empleado es obligatorio")
+        @Positive(message = "El ID debe ser positivo")
+        Long idEmpleado,
+
+        @Schema(description = "Número único del consultorio", example = "B0103")
+        @NotBlank(message = "El N° del consultorio es obligatorio")
+        String nro_consultorio,
+
+        @Schema(description = "Fecha del primer día del rango (inclusive)", example = "2025-11-03")
+        @NotNull(message = "La fecha de inicio es obligatoria")
+        @DateTimeFormat(pattern = "yyyy-MM-dd")
+        LocalDate fechaInicio,
+
+        @Schema(description = "Fecha del último día del rango (inclusive)", example = "2026-01-30")
+        @NotNull(message = "La fecha de fin es obligatoria")
+        @DateTimeFormat(pattern = "yyyy-MM-dd")
+        LocalDate fechaFin,
+
+        @Schema(description = "Días de la semana en los que se repite el horario",
+                example = "[\"MONDAY\", \"WEDNESDAY\", \"FRIDAY\"]")
+        @NotEmpty(message = "Debe indicar al menos un día de la semana")
+        Set<@NotNull DayOfWeek> diasSemana,
+
+        @Schema(description = "Hora de inicio de cada horario", example = "10:00:00")
+        @NotNull(message = "La hora de inicio es obligatoria")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaInicio,
+
+        @Schema(description = "Hora de fin de cada horario", example = "14:00:00")
+        @NotNull(message = "La hora de fin es obligatoria")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaFin,
+
+        @Schema(description = "Duración en min de cada slot del horario (por defecto es 30)",
+                example = "30")
+        @Positive(message = "La duración del slot debe ser mayor a 0")
+        Integer duracionSlotMinutos,
+
+        @Schema(description = "Identificador único de la especialidad", example = "1")
+        @NotNull(message = "El ID de la especialidad es obligatorio")
+        @Positive(message = "El ID debe ser positivo")
+        Long idEspecialidad
+) {
+}
@@ -42,7 +42,7 @@ public record HorarioResponse(
         @Schema(description = "Lista de slots del horario", example = "[]")
         List<DetalleHorarioResponse> detalles,
 
-        @Schema(description = "Total de slots del horario", example = "8")
+        @Schema(description = "Total de slots del horario, suma de los slots de cada estado", example = "8")
         long totalSlots,
 
         @Schema(description = "Slots disponibles del horario", example = "5")
@@ -54,6 +54,9 @@ public record HorarioResponse(
         @Schema(description = "Slots bloqueados del horario", example = "1")
         long slotsBloqueados,
 
+        @Schema(description = "Slots retenidos temporalmente durante una reserva", example = "0")
+        long slotsRetenidos,
+
         @Schema(description = "Valida si el horario ya no tiene slots disponibles"
                 , example = "true")
         boolean estaCompleto
@@ -0,0 +1,51 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Builder
+public record HorarioResumenResponse(
+
+        @Schema(description = "Identificador único del horario", example = "1")
+        Long id,
+
+        @Schema(description = "Identificador único del empleado", example = "1")
+        Long idEmpleado,
+
+        @Schema(description = "Identificador único de la especialidad", example = "1")
+        Long idEspecialidad,
+
+        @Schema(description = "Número del consultorio", example = "B0305")
+        String nroConsultorio,
+
+        @Schema(description = "Fecha del horario", example = "2025-10-22")
+        LocalDate fecha,
+
+        @Schema(description = "Hora de inicio del horario", example = "10:00:00")
+        LocalTime horaInicio,
+
+        @Schema(description = "Hora de fin del horario", example = "14:00:00")
+        LocalTime horaFin,
+
+        @Schema(description = "Total de slots del horario, suma de los slots de cada estado", example = "8")
+        long totalSlots,
+
+        @Schema(description = "Slots disponibles del horario", example = "5")
+        long slotsDisponibles,
+
+        @Schema(description = "Slots ocupados del horario", example = "2")
+        long slotsOcupados,
+
+        @Schema(description = "Slots bloqueados del horario", example = "1")
+        long slotsBloqueados,
+
+        @Schema(description = "Slots retenidos temporalmente durante una reserva", example = "0")
+        long slotsRetenidos,
+
+        @Schema(description = "Valida si el horario ya no tiene slots disponibles", example = "false")
+        boolean estaCompleto
+) {
+}
@@ -0,0 +1,28 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record LiberarSlotRequest(
+        @Schema(description = "Identificador único del horario", example = "1")
+        @NotNull(message = "El ID de Horario es requerido")
+        @Positive(message = "El ID de Horario debe ser positivo")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        @NotNull(message = "El ID de Detalle es requerido")
+        @Positive(message = "El ID de Detalle debe ser positivo")
+        Long idDetalle,
+
+        @Schema(description = "Identificador único de la cita que ocupa el slot", example = "10")
+        @NotNull(message = "El ID de Cita es requerido")
+        @Positive(message = "El ID de Cita debe ser positivo")
+        Long idCita,
+
+        @Schema(description = "Titular de la retención que tomó la cita, si aún no llegó a ocuparlo", example = "12345678")
+        @Size(max = 50, message = "El titular no puede superar 50 caracteres")
+        String titularRetencion
+) {
+}
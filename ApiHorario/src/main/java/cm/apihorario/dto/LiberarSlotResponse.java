@@ -0,0 +1,19 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record LiberarSlotResponse(
+        @Schema(description = "Identificador único del horario", example = "1")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        Long idDetalle,
+
+        @Schema(description = "Identificador único de la cita", example = "10")
+        Long idCita,
+
+        @Schema(description = "Indica si el slot estaba ocupado por la cita y quedó disponible. " +
+                "false si la cita no ocupaba el slot", example = "true")
+        boolean liberado
+) {
+}
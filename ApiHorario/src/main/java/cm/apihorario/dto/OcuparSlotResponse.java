@@ -0,0 +1,21 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record OcuparSlotResponse(
+        @Schema(description = "Identificador único del horario", example = "1")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        Long idDetalle,
+
+        @Schema(description = "Identificador único de la cita", example = "10")
+        Long idCita,
+
+        @Schema(description = "Indica si el slot quedó ocupado por la cita", example = "true")
+        boolean ocupado,
+
+        @Schema(description = "Motivo por el que no se ocupó el slot", example = "Slot no disponible")
+        String mensaje
+) {
+}
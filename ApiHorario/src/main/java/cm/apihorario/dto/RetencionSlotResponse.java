@@ -0,0 +1,17 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+public record RetencionSlotResponse(
+        @Schema(description = "Identificador único del horario", example = "1")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        Long idDetalle,
+
+        @Schema(description = "Momento en que vence la retención", example = "2025-10-22T10:05:00")
+        LocalDateTime retenidoHasta
+) {
+}
@@ -0,0 +1,18 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record SlotClientRequest(
+        @Schema(description = "Identificador único del horario", example = "1")
+        @NotNull(message = "El ID de Horario es requerido")
+        @Positive(message = "El ID de Horario debe ser positivo")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        @NotNull(message = "El ID de Detalle es requerido")
+        @Positive(message = "El ID de Detalle debe ser positivo")
+        Long idDetalle
+) {
+}
@@ -9,6 +9,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 public record SlotClientResponse(
+        Long idHorario,
+        Long idDetalle,
         EmpleadoClientResponse medico,
         EspecialidadResponse especialidad,
         LocalDate fecha,
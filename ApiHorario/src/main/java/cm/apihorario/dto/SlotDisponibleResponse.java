@@ -14,6 +14,9 @@ public record SlotDisponibleResponse(
         @Schema(description = "Identificador único del slot", example = "5")
         Long idSlot,
 
+        @Schema(description = "Identificador único del médico", example = "3")
+        Long idMedico,
+
         @Schema(description = "Fecha del slot", example = "2025-10-22")
         LocalDate fecha,
 
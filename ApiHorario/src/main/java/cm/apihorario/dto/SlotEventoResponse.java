@@ -0,0 +1,21 @@
+package cm.apihorario.dto;
+
+import cm.apihorario.repository.DetalleHorario;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+public record SlotEventoResponse(
+        @Schema(description = "Identificador único del horario", example = "1")
+        Long idHorario,
+
+        @Schema(description = "Identificador único del detalle/slot", example = "5")
+        Long idDetalle,
+
+        @Schema(description = "Nuevo estado del slot", example = "OCUPADO")
+        DetalleHorario.EstadoDetalleHorario estado,
+
+        @Schema(description = "Momento en que se confirmó el cambio", example = "2025-10-22T10:00:00")
+        LocalDateTime timestamp
+) {
+}
@@ -0,0 +1,38 @@
+package cm.apihorario.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record SolapamientoRequest(
+        @Schema(description = "Identificador único del empleado", example = "1")
+        @NotNull(message = "El ID del empleado es obligatorio")
+        @Positive(message = "El ID debe ser positivo")
+        Long idEmpleado,
+
+        @Schema(description = "Número único del consultorio", example = "B0103")
+        @NotBlank(message = "El N° del consultorio es obligatorio")
+        String nro_consultorio,
+
+        @Schema(description = "Fecha del horario", example = "2025-10-22")
+        @NotNull(message = "La fecha es obligatoria")
+        @DateTimeFormat(pattern = "yyyy-MM-dd")
+        LocalDate fecha,
+
+        @Schema(description = "Hora de inicio del horario", example = "10:00:00")
+        @NotNull(message = "La hora de inicio es obligatoria")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaInicio,
+
+        @Schema(description = "Hora de fin del horario", example = "14:00:00")
+        @NotNull(message = "La hora de fin es obligatoria")
+        @JsonFormat(pattern = "HH:mm:ss")
+        LocalTime horaFin
+) {
+}
@@ -0,0 +1,30 @@
+package cm.apihorario.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record SolapamientoResponse(
+        @Schema(description = "Identificador único del empleado", example = "1")
+        Long idEmpleado,
+
+        @Schema(description = "Número único del consultorio", example = "B0103")
+        String nroConsultorio,
+
+        @Schema(description = "Fecha del horario", example = "2025-10-22")
+        LocalDate fecha,
+
+        @Schema(description = "Hora de inicio del horario", example = "10:00:00")
+        LocalTime horaInicio,
+
+        @Schema(description = "Hora de fin del horario", example = "14:00:00")
+        LocalTime horaFin,
+
+        @Schema(description = "Indica si el horario se cruza con otro", example = "true")
+        boolean solapado,
+
+        @Schema(description = "Motivo del solapamiento", example = "El consultorio ya tiene un horario en ese rango de horas")
+        String motivo
+) {
+}
@@ -0,0 +1,7 @@
+package cm.apihorario.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
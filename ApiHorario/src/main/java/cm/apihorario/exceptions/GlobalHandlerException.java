@@ -94,6 +94,25 @@ public class GlobalHandlerException {
         return ResponseEntity.status(status).body(errorResponse);
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflictException(
+            ConflictException ex,
+            WebRequest request) {
+
+        HttpStatus status = HttpStatus.CONFLICT;
+        String uri = obtenerUri(request);
+
+        log.warn("ConflictException manejada: {} - URI: {}", ex.getMessage(), uri, ex);
+
+        ErrorResponse errorResponse = toErrorResponse(
+                status,
+                ex.getMessage(),
+                uri
+        );
+
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentNotValidException(
             MethodArgumentNotValidException ex,
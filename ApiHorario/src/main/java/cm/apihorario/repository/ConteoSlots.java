@@ -0,0 +1,14 @@
+package cm.apihorario.repository;
+
+/**
+ * Proyección de la cantidad de slots de un horario en un estado
+ */
+public interface ConteoSlots {
+
+    Long getIdHorario();
+
+    DetalleHorario.EstadoDetalleHorario getEstado();
+
+    Long getTotal();
+
+}
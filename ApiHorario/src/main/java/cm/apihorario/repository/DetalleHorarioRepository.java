@@ -0,0 +1,239 @@
+package cm.apihorario.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Transiciones de estado de un slot como operaciones condicionales sobre su fila. Un slot
+ * DISPONIBLE no tiene fila: tomarlo es un INSERT que solo se aplica si la fila no existe,
+ * devolverlo a DISPONIBLE es un DELETE, y los demás cambios son UPDATE cuya condición es el
+ * estado de origen. El número de filas afectadas indica si la transición se aplicó (1) o si
+ * el slot cambió de estado antes (0)
+ */
+public interface DetalleHorarioRepository extends JpaRepository<DetalleHorario, Long> {
+
+    /**
+     * Condición de los INSERT: el horario existe y el ID corresponde a uno de sus slots, según
+     * sus horas y su duración de slot (igual que {@link Horario#contieneSlot}). Así la validación
+     * y la transición son una sola sentencia
+     */
+    String SLOT_DEL_HORARIO = "h.id = :idHorario AND :idDetalle >= 0 AND " +
+            "CAST(:idDetalle AS BIGINT) / " + Horario.MAX_SLOTS + " = h.id AND " +
+            "MOD(CAST(:idDetalle AS BIGINT), " + Horario.MAX_SLOTS + ") < " +
+            "((HOUR(h.hora_fin) * 60 + MINUTE(h.hora_fin)) - " +
+            "(HOUR(h.hora_inicio) * 60 + MINUTE(h.hora_inicio))) / h.duracion_slot_minutos ";
+
+    /**
+     * Renueva una retención del mismo titular o toma una retención vencida
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("UPDATE DetalleHorario d SET " +
+            "d.retenidoPor = :titular, " +
+            "d.retenidoHasta = :hasta " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "(d.retenidoPor = :titular OR d.retenidoHasta <= :ahora)")
+    int renovarRetencion(@Param("idHorario") Long idHorario,
+                         @Param("idDetalle") Long idDetalle,
+                         @Param("titular") String titular,
+                         @Param("hasta") LocalDateTime hasta,
+                         @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Retiene un slot disponible (sin fila) mientras se completa una reserva
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO detalle_horario (id, id_horario, estado, retenido_por, retenido_hasta) " +
+            "SELECT :idDetalle, h.id, 'RETENIDO', :titular, :hasta FROM horario h " +
+            "WHERE " + SLOT_DEL_HORARIO +
+            "AND NOT EXISTS (SELECT 1 FROM detalle_horario d WHERE d.id = :idDetalle)",
+            nativeQuery = true)
+    int insertarRetenido(@Param("idHorario") Long idHorario,
+                         @Param("idDetalle") Long idDetalle,
+                         @Param("titular") String titular,
+                         @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Suelta la retención de un slot antes de que venza, solo si la tiene el titular brindado.
+     * El slot vuelve a DISPONIBLE
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleHorario d " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "d.retenidoPor = :titular")
+    int soltarRetencion(@Param("idHorario") Long idHorario,
+                        @Param("idDetalle") Long idDetalle,
+                        @Param("titular") String titular);
+
+    /**
+     * Ocupa un slot retenido por el mismo titular o con la retención vencida. Si ya está
+     * ocupado por la misma cita también cuenta como aplicado, para que los reintentos
+     * sean idempotentes
+     *
+     * @param titular Titular de la retención (puede ser null si no se retuvo)
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("UPDATE DetalleHorario d SET " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.OCUPADO, " +
+            "d.idCita = :idCita, " +
+            "d.retenidoPor = null, " +
+            "d.retenidoHasta = null " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND (" +
+            "(d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "(d.retenidoPor = :titular OR d.retenidoHasta <= :ahora)) OR " +
+            "(d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.OCUPADO AND d.idCita = :idCita))")
+    int ocupar(@Param("idHorario") Long idHorario,
+               @Param("idDetalle") Long idDetalle,
+               @Param("idCita") Long idCita,
+               @Param("titular") String titular,
+               @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Ocupa un slot disponible (sin fila)
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO detalle_horario (id, id_horario, estado, id_cita) " +
+            "SELECT :idDetalle, h.id, 'OCUPADO', :idCita FROM horario h " +
+            "WHERE " + SLOT_DEL_HORARIO +
+            "AND NOT EXISTS (SELECT 1 FROM detalle_horario d WHERE d.id = :idDetalle)",
+            nativeQuery = true)
+    int insertarOcupado(@Param("idHorario") Long idHorario,
+                        @Param("idDetalle") Long idDetalle,
+                        @Param("idCita") Long idCita);
+
+    /**
+     * Libera un slot ocupado, que vuelve a DISPONIBLE
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleHorario d " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.OCUPADO")
+    int liberar(@Param("idHorario") Long idHorario,
+                @Param("idDetalle") Long idDetalle);
+
+    /**
+     * Libera un slot solo si lo ocupa la cita brindada, que vuelve a DISPONIBLE
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleHorario d " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.OCUPADO AND " +
+            "d.idCita = :idCita")
+    int liberarDeCita(@Param("idHorario") Long idHorario,
+                      @Param("idDetalle") Long idDetalle,
+                      @Param("idCita") Long idCita);
+
+    /**
+     * Bloquea un slot ya bloqueado o con la retención vencida. Un slot ocupado o con una
+     * retención vigente no se modifica
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("UPDATE DetalleHorario d SET " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.BLOQUEADO, " +
+            "d.retenidoPor = null, " +
+            "d.retenidoHasta = null " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND (" +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.BLOQUEADO OR " +
+            "(d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "d.retenidoHasta <= :ahora))")
+    int bloquear(@Param("idHorario") Long idHorario,
+                 @Param("idDetalle") Long idDetalle,
+                 @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Bloquea un slot disponible (sin fila)
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO detalle_horario (id, id_horario, estado) " +
+            "SELECT :idDetalle, h.id, 'BLOQUEADO' FROM horario h " +
+            "WHERE " + SLOT_DEL_HORARIO +
+            "AND NOT EXISTS (SELECT 1 FROM detalle_horario d WHERE d.id = :idDetalle)",
+            nativeQuery = true)
+    int insertarBloqueado(@Param("idHorario") Long idHorario,
+                          @Param("idDetalle") Long idDetalle);
+
+    /**
+     * Desbloquea un slot bloqueado, que vuelve a DISPONIBLE
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleHorario d " +
+            "WHERE d.id = :idDetalle AND d.horario.id = :idHorario AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.BLOQUEADO")
+    int desbloquear(@Param("idHorario") Long idHorario,
+                    @Param("idDetalle") Long idDetalle);
+
+    /**
+     * De los slots brindados, obtiene los que siguen retenidos con la retención vencida
+     */
+    @Query("SELECT d.id FROM DetalleHorario d WHERE d.id IN :ids AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "d.retenidoHasta <= :ahora")
+    List<Long> findIdsRetencionVencida(@Param("ids") Collection<Long> ids,
+                                       @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Devuelve a DISPONIBLE los slots brindados que sigan retenidos con la retención vencida.
+     * Un slot cuya retención se renovó mientras tanto no se modifica
+     *
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleHorario d " +
+            "WHERE d.id IN :ids AND " +
+            "d.estado = cm.apihorario.repository.DetalleHorario.EstadoDetalleHorario.RETENIDO AND " +
+            "d.retenidoHasta <= :ahora")
+    int liberarRetencionesVencidas(@Param("ids") Collection<Long> ids,
+                                   @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Busca los slots en un estado
+     */
+    List<DetalleHorario> findByEstado(DetalleHorario.EstadoDetalleHorario estado);
+
+    /**
+     * Cuenta las filas de slots no disponibles por horario y estado de los horarios en un
+     * rango de fechas, sin cargar las entidades {@link DetalleHorario}
+     */
+    @Query("SELECT d.horario.id AS idHorario, d.estado AS estado, COUNT(d) AS total " +
+            "FROM DetalleHorario d WHERE d.horario.fecha BETWEEN :desde AND :hasta " +
+            "GROUP BY d.horario.id, d.estado")
+    List<ConteoSlots> contarPorHorarioYEstado(@Param("desde") LocalDate desde,
+                                              @Param("hasta") LocalDate hasta);
+
+    /**
+     * Obtiene solo el estado de la fila de un slot, para explicar por qué una transición no
+     * se aplicó. Vacío si el slot no tiene fila (está DISPONIBLE)
+     */
+    @Query("SELECT d.estado FROM DetalleHorario d WHERE d.id = :idDetalle AND d.horario.id = :idHorario")
+    Optional<DetalleHorario.EstadoDetalleHorario> findEstado(@Param("idHorario") Long idHorario,
+                                                             @Param("idDetalle") Long idDetalle);
+
+}
@@ -6,15 +6,21 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Entity
 @Table(name = "horario", indexes = {
         @Index(name = "idx_empleado_fecha", columnList = "id_empleado, fecha"),
-        @Index(name = "idx_fecha", columnList = "fecha")
+        @Index(name = "idx_fecha", columnList = "fecha"),
+        @Index(name = "idx_especialidad_fecha", columnList = "id_especialidad, fecha")
 })
 @Data
 @NoArgsConstructor
@@ -22,8 +28,13 @@ import java.util.List;
 @Builder
 public class Horario {
 
+    // Máximo de slots por horario (un día en slots de 1 minuto son 1440)
+    public static final int MAX_SLOTS = 2048;
+
+    // Secuencia con bloques de IDs para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horario_seq")
+    @SequenceGenerator(name = "horario_seq", sequenceName = "horario_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "id_empleado", nullable = false)
@@ -48,6 +59,7 @@ public class Horario {
     @Builder.Default
     private Integer duracionSlotMinutos = 30;
 
+    // Solo los slots que dejaron de estar DISPONIBLES tienen fila, ver getSlots()
     @OneToMany(
             mappedBy = "horario",
             cascade = CascadeType.ALL,
@@ -58,38 +70,75 @@ public class Horario {
     private List<DetalleHorario> detalles = new ArrayList<>();
 
     /**
-     * Agrega un detalle al horario
+     * Cantidad de slots completos que entran entre {@code hora_inicio} y {@code hora_fin}
      */
-    public void agregarDetalle(DetalleHorario detalle) {
-        detalles.add(detalle);
-        detalle.setHorario(this);
+    public int getTotalSlots() {
+        return (int) (Duration.between(horaInicio, horaFin).toMinutes() / duracionSlotMinutos);
     }
 
     /**
-     * Genera slots automáticamente basándose en {@code hora_inicio}, {@code hora_fin} y {@code duración}
+     * ID del slot número {@code numero} (desde 0). Se deriva del ID del horario, así cada
+     * slot tiene un ID único y estable sin necesidad de guardarlo
      */
-    public void generarSlots() {
-        LocalTime horaActual = this.horaInicio;
+    public Long idSlot(int numero) {
+        return id * MAX_SLOTS + numero;
+    }
 
-        while (horaActual.isBefore(this.horaFin)) {
-            LocalTime horaFinSlot = horaActual.plusMinutes(this.duracionSlotMinutos);
+    /**
+     * Arma todos los slots del horario a partir de {@code hora_inicio} y {@code duración}.
+     * Los que no tienen fila en {@code detalles} están disponibles
+     */
+    public List<SlotHorario> getSlots() {
+        Map<Long, DetalleHorario> filas = new HashMap<>();
+        detalles.forEach(d -> filas.put(d.getId(), d));
+
+        int total = getTotalSlots();
+        List<SlotHorario> slots = new ArrayList<>(total);
+        for (int numero = 0; numero < total; numero++) {
+            slots.add(armarSlot(numero, filas.get(idSlot(numero))));
+        }
 
-            if (horaFinSlot.isAfter(this.horaFin)) {
-                break;
-            }
+        return slots;
+    }
 
-            DetalleHorario detalle = DetalleHorario.builder()
-                    .idEmpleado(this.idEmpleado)
-                    .nroConsultorio(this.nroConsultorio)
-                    .horaInicio(horaActual)
-                    .horaFin(horaFinSlot)
-                    .estado(DetalleHorario.EstadoDetalleHorario.DISPONIBLE)
-                    .build();
+    /**
+     * Busca un slot del horario por su ID
+     *
+     * @return El slot, vacío si el ID no corresponde a un slot de este horario
+     */
+    public Optional<SlotHorario> getSlot(Long idDetalle) {
+        if (!contieneSlot(idDetalle)) {
+            return Optional.empty();
+        }
 
-            this.agregarDetalle(detalle);
+        DetalleHorario fila = detalles.stream()
+                .filter(d -> d.getId().equals(idDetalle))
+                .findFirst()
+                .orElse(null);
 
-            horaActual = horaFinSlot;
-        }
+        return Optional.of(armarSlot((int) (idDetalle % MAX_SLOTS), fila));
+    }
+
+    /**
+     * Verifica si el ID corresponde a un slot de este horario
+     */
+    public boolean contieneSlot(Long idDetalle) {
+        return idDetalle != null
+                && idDetalle >= 0
+                && idDetalle / MAX_SLOTS == id
+                && idDetalle % MAX_SLOTS < getTotalSlots();
+    }
+
+    private SlotHorario armarSlot(int numero, DetalleHorario fila) {
+        LocalTime inicio = horaInicio.plusMinutes((long) numero * duracionSlotMinutos);
+
+        return new SlotHorario(
+                idSlot(numero),
+                inicio,
+                inicio.plusMinutes(duracionSlotMinutos),
+                (fila != null) ? fila.getEstado() : DetalleHorario.EstadoDetalleHorario.DISPONIBLE,
+                (fila != null) ? fila.getIdCita() : null
+        );
     }
 
     /**
@@ -108,6 +157,12 @@ public class Horario {
             );
         }
 
+        if (duracionSlotMinutos != null && getTotalSlots() == 0) {
+            throw new IllegalArgumentException(
+                    "El rango de horas no alcanza para un slot de " + duracionSlotMinutos + " minutos"
+            );
+        }
+
         if (!fecha.isAfter(LocalDate.now())) {
             throw new IllegalArgumentException(
                     "La fecha del horario debe ser futura"
@@ -116,38 +171,40 @@ public class Horario {
     }
 
     /**
-     * Cuenta cuantos slots están disponibles
+     * Cuenta los slots de cada estado en una sola pasada sobre las filas de los slots
+     * no disponibles
      */
-    public long contarSlotsDisponibles() {
-        return detalles.stream()
-                .filter(d -> d.getEstado() == DetalleHorario.EstadoDetalleHorario.DISPONIBLE)
-                .count();
-    }
+    public Map<DetalleHorario.EstadoDetalleHorario, Long> contarSlotsPorEstado() {
+        Map<DetalleHorario.EstadoDetalleHorario, Long> filas = new EnumMap<>(DetalleHorario.EstadoDetalleHorario.class);
+        for (DetalleHorario detalle : detalles) {
+            filas.merge(detalle.getEstado(), 1L, Long::sum);
+        }
 
-    /**
-     * Cuenta cuantos slots están ocupados
-     */
-    public long contarSlotsOcupados() {
-        return detalles.stream()
-                .filter(d -> d.getEstado() == DetalleHorario.EstadoDetalleHorario.OCUPADO)
-                .count();
+        return contarSlotsPorEstado(filas);
     }
 
     /**
-     * Cuenta cuantos slots están bloqueados
+     * Completa el conteo de las filas de slots no disponibles con los slots DISPONIBLES,
+     * que son el resto del total
+     *
+     * @param filasPorEstado Cantidad de filas de {@link DetalleHorario} por estado
      */
-    public long contarSlotsBloqueados() {
-        return detalles.stream()
-                .filter(d -> d.getEstado() == DetalleHorario.EstadoDetalleHorario.BLOQUEADO)
-                .count();
-    }
+    public Map<DetalleHorario.EstadoDetalleHorario, Long> contarSlotsPorEstado(
+            Map<DetalleHorario.EstadoDetalleHorario, Long> filasPorEstado) {
 
-    /**
-     * Verifica si el horario está completamente ocupado
-     */
-    public boolean estaCompleto() {
-        return detalles.stream()
-                .noneMatch(d -> d.getEstado() == DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+        Map<DetalleHorario.EstadoDetalleHorario, Long> conteo = new EnumMap<>(DetalleHorario.EstadoDetalleHorario.class);
+        for (DetalleHorario.EstadoDetalleHorario estado : DetalleHorario.EstadoDetalleHorario.values()) {
+            conteo.put(estado, 0L);
+        }
+        conteo.putAll(filasPorEstado);
+
+        long noDisponibles = conteo.entrySet().stream()
+                .filter(e -> e.getKey() != DetalleHorario.EstadoDetalleHorario.DISPONIBLE)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        conteo.put(DetalleHorario.EstadoDetalleHorario.DISPONIBLE, getTotalSlots() - noDisponibles);
+
+        return conteo;
     }
 
 }
@@ -5,7 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface HorarioRepository extends JpaRepository<Horario, Long> {
@@ -17,16 +17,50 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
     List<Horario> findByEmpleadoYFecha(@Param("idEmpleado") Long idEmpleado, @Param("fecha") LocalDate fecha);
 
     /**
-     * Valida si es que existe solapamiento de horarios
+     * Busca los horarios de un rango de fechas, sin cargar sus slots
      */
-    @Query("SELECT COUNT(h) > 0 FROM Horario h WHERE " +
-            "h.fecha = :fecha AND " +
-            "(:horaInicio < h.horaFin AND :horaFin > h.horaInicio) AND " +
-            "(h.idEmpleado = :idMedico OR h.nroConsultorio = :nroConsultorio)")
-    boolean existeSolapamiento(@Param("idMedico") Long idMedico,
-                               @Param("nroConsultorio") String nroConsultorio,
-                               @Param("fecha") LocalDate fecha,
-                               @Param("horaInicio") LocalTime horaInicio,
-                               @Param("horaFin") LocalTime horaFin);
+    List<Horario> findByFechaBetweenOrderByFechaAscHoraInicioAsc(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Busca los horarios de una especialidad en un rango de fechas, sin cargar sus slots
+     */
+    List<Horario> findByIdEspecialidadAndFechaBetween(Long idEspecialidad, LocalDate desde, LocalDate hasta);
+
+    /**
+     * Busca los horarios de varios empleados en un rango de fechas, sin cargar sus slots
+     */
+    List<Horario> findByIdEmpleadoInAndFechaBetween(Collection<Long> idsEmpleado, LocalDate desde, LocalDate hasta);
+
+    /**
+     * Busca los horarios desde una fecha, sin cargar sus slots
+     */
+    List<Horario> findByFechaGreaterThanEqual(LocalDate fecha);
+
+    /**
+     * Busca varios horarios junto a las filas de sus slots no disponibles en una sola consulta
+     */
+    @Query("SELECT DISTINCT h FROM Horario h LEFT JOIN FETCH h.detalles WHERE h.id IN :ids")
+    List<Horario> findConDetallesPorIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca los horarios de un médico en una fecha junto a las filas de sus slots no disponibles
+     */
+    @Query("SELECT DISTINCT h FROM Horario h LEFT JOIN FETCH h.detalles " +
+            "WHERE h.idEmpleado = :idEmpleado AND h.fecha = :fecha")
+    List<Horario> findConDetallesPorEmpleadoYFecha(@Param("idEmpleado") Long idEmpleado,
+                                                   @Param("fecha") LocalDate fecha);
+
+    /**
+     * Busca, junto a las filas de sus slots no disponibles, todos los horarios de los médicos
+     * que tienen algún horario de una especialidad en cada fecha de un rango. Incluye los
+     * horarios de otras especialidades de esos médicos en esas fechas
+     */
+    @Query("SELECT DISTINCT h FROM Horario h LEFT JOIN FETCH h.detalles " +
+            "WHERE h.fecha BETWEEN :desde AND :hasta AND EXISTS (" +
+            "SELECT 1 FROM Horario e WHERE e.idEmpleado = h.idEmpleado AND e.fecha = h.fecha " +
+            "AND e.idEspecialidad = :idEspecialidad)")
+    List<Horario> findConDetallesPorEspecialidadYFechas(@Param("idEspecialidad") Long idEspecialidad,
+                                                        @Param("desde") LocalDate desde,
+                                                        @Param("hasta") LocalDate hasta);
 
 }
@@ -0,0 +1,24 @@
+package cm.apihorario.repository;
+
+import java.time.LocalTime;
+
+/**
+ * Slot de un horario. Las horas se calculan desde el inicio del horario y la duración de
+ * los slots; el estado y la cita salen de su fila en {@link DetalleHorario}, si la tiene
+ */
+public record SlotHorario(
+        Long id,
+        LocalTime horaInicio,
+        LocalTime horaFin,
+        DetalleHorario.EstadoDetalleHorario estado,
+        Long idCita
+) {
+
+    /**
+     * Verifica si el slot está disponible
+     */
+    public boolean estaDisponible() {
+        return estado == DetalleHorario.EstadoDetalleHorario.DISPONIBLE;
+    }
+
+}
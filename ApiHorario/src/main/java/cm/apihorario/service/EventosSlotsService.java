@@ -0,0 +1,173 @@
+package cm.apihorario.service;
+
+import cm.apihorario.dto.SlotEventoResponse;
+import cm.apihorario.exceptions.ServiceUnavailableException;
+import cm.apihorario.repository.DetalleHorario;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusión por SSE de los cambios de estado de los slots. Cada suscriptor tiene su propio
+ * buffer acotado y un hilo virtual que lo vacía hacia el cliente, por lo que un cliente
+ * lento no frena a los demás ni a la transacción que publica el cambio. Si el buffer de un
+ * suscriptor se llena se descarta su evento más antiguo y se le envía un evento
+ * {@code desfase} con la cantidad perdida, para que vuelva a consultar los listados.
+ * Los cambios deben publicarse después del commit que los confirma
+ */
+@Slf4j
+@Service
+public class EventosSlotsService {
+
+    private final int capacidadBuffer;
+    private final int maxSuscriptores;
+    private final long timeoutMs;
+    private final long latidoMs;
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+
+    // Identificador de cada evento, se envía como id del evento SSE
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public EventosSlotsService(
+            @Value("${horarios.eventos.buffer:256}") int capacidadBuffer,
+            @Value("${horarios.eventos.max-suscriptores:200}") int maxSuscriptores,
+            @Value("${horarios.eventos.timeout-ms:1800000}") long timeoutMs,
+            @Value("${horarios.eventos.latido-ms:15000}") long latidoMs) {
+        this.capacidadBuffer = capacidadBuffer;
+        this.maxSuscriptores = maxSuscriptores;
+        this.timeoutMs = timeoutMs;
+        this.latidoMs = latidoMs;
+    }
+
+    private record Evento(long id, SlotEventoResponse datos) {
+    }
+
+    /**
+     * Registra un nuevo suscriptor. La conexión se cierra al vencer {@code timeoutMs}; el
+     * cliente (EventSource) se vuelve a conectar solo
+     *
+     * @return Emisor SSE del suscriptor
+     * @throws ServiceUnavailableException Si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter suscribir() {
+        if (suscriptores.size() >= maxSuscriptores) {
+            log.warn("Suscripción a eventos de slots rechazada, máximo alcanzado: {}", maxSuscriptores);
+            throw new ServiceUnavailableException("Se alcanzó el máximo de suscriptores a eventos de slots");
+        }
+
+        Suscriptor suscriptor = new Suscriptor(new SseEmitter(timeoutMs));
+        suscriptores.add(suscriptor);
+        suscriptor.iniciar();
+
+        log.info("Nuevo suscriptor a eventos de slots, total: {}", suscriptores.size());
+        return suscriptor.emitter;
+    }
+
+    /**
+     * Publica el cambio de estado de un slot a todos los suscriptores. No bloquea: solo
+     * encola el evento en el buffer de cada uno
+     */
+    public void publicar(Long idHorario, Long idDetalle, DetalleHorario.EstadoDetalleHorario estado) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+
+        Evento evento = new Evento(
+                secuencia.incrementAndGet(),
+                new SlotEventoResponse(idHorario, idDetalle, estado, LocalDateTime.now())
+        );
+        suscriptores.forEach(s -> s.encolar(evento));
+    }
+
+    @PreDestroy
+    void cerrarTodos() {
+        suscriptores.forEach(s -> {
+            s.cerrar();
+            s.emitter.complete();
+        });
+    }
+
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Evento> buffer = new ArrayBlockingQueue<>(capacidadBuffer);
+        private final AtomicLong descartados = new AtomicLong();
+        private volatile boolean cerrado;
+        private Thread hilo;
+
+        private Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(this::cerrar);
+            emitter.onTimeout(this::cerrar);
+            emitter.onError(e -> cerrar());
+        }
+
+        private void iniciar() {
+            hilo = Thread.ofVirtual()
+                    .name("eventos-slots-", secuencia.get())
+                    .start(this::enviar);
+        }
+
+        private void encolar(Evento evento) {
+            while (!buffer.offer(evento)) {
+                if (buffer.poll() != null) {
+                    descartados.incrementAndGet();
+                }
+            }
+        }
+
+        private void enviar() {
+            try {
+                while (!cerrado) {
+                    Evento evento = buffer.poll(latidoMs, TimeUnit.MILLISECONDS);
+
+                    long perdidos = descartados.getAndSet(0);
+                    if (perdidos > 0) {
+                        emitter.send(SseEmitter.event().name("desfase").data(perdidos));
+                    }
+
+                    if (evento == null) {
+                        // Mantiene viva la conexión y detecta clientes que se fueron
+                        emitter.send(SseEmitter.event().comment("latido"));
+                        continue;
+                    }
+
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(evento.id()))
+                            .name("slot")
+                            .data(evento.datos()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Suscriptor a eventos de slots desconectado: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cerrar();
+            }
+        }
+
+        private void cerrar() {
+            cerrado = true;
+
+            if (suscriptores.remove(this)) {
+                log.info("Suscriptor a eventos de slots cerrado, total: {}", suscriptores.size());
+            }
+
+            if (hilo != null && hilo != Thread.currentThread()) {
+                hilo.interrupt();
+            }
+        }
+    }
+
+}
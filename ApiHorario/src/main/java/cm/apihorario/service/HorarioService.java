@@ -8,21 +8,59 @@ import cm.apihorario.client.empleado.EmpleadoClientResponse;
 import cm.apihorario.client.empleado.EmpleadoFeignClient;
 import cm.apihorario.client.especialidad.EspecialidadFeignClient;
 import cm.apihorario.client.especialidad.EspecialidadResponse;
+import cm.apihorario.dto.LiberarSlotRequest;
+import cm.apihorario.dto.LiberarSlotResponse;
+import cm.apihorario.dto.OcuparSlotRequest;
+import cm.apihorario.dto.OcuparSlotResponse;
+import cm.apihorario.dto.RetencionSlotResponse;
+import cm.apihorario.dto.SlotClientRequest;
 import cm.apihorario.dto.SlotClientResponse;
 import cm.apihorario.dto.SlotDisponibleResponse;
+import cm.apihorario.dto.SolapamientoRequest;
+import cm.apihorario.dto.SolapamientoResponse;
+import cm.apihorario.dto.HorarioLoteResponse;
 import cm.apihorario.dto.HorarioRequest;
+import cm.apihorario.dto.HorarioRecurrenteRequest;
 import cm.apihorario.dto.HorarioResponse;
+import cm.apihorario.dto.HorarioResumenResponse;
+import cm.apihorario.repository.ConteoSlots;
+import cm.apihorario.exceptions.ConflictException;
 import cm.apihorario.repository.DetalleHorario;
+import cm.apihorario.repository.DetalleHorarioRepository;
 import cm.apihorario.repository.Horario;
 import cm.apihorario.repository.HorarioRepository;
+import cm.apihorario.repository.SlotHorario;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -31,10 +69,31 @@ import java.util.List;
 public class HorarioService {
 
     private final HorarioRepository repository;
+    private final DetalleHorarioRepository detalleRepository;
+    private final SlotsDisponiblesService slotsDisponibles;
+    private final SolapamientoHorariosService solapamientos;
+    private final RetencionSlotsService retenciones;
+    private final EventosSlotsService eventos;
     private final EmpleadoFeignClient empleadoClient;
     private final EspecialidadFeignClient especialidadClient;
     private final ConsultorioFeignClient consultorioClient;
     private final CitaMedicaFeignClient citaMedicaClient;
+    private final TransactionTemplate transactionTemplate;
+
+    // Máximo de días que puede abarcar el resumen de horarios
+    private static final int MAX_DIAS_RESUMEN = 31;
+
+    // Máximo de días que puede abarcar un registro de horarios recurrentes
+    private static final int MAX_DIAS_RECURRENTE = 92;
+
+    // Máximo de días que puede abarcar la búsqueda de slots disponibles por especialidad
+    private static final int MAX_DIAS_DISPONIBLES = 31;
+
+    // Máximo de citas que ApiCitaMedica acepta por llamada batch
+    private static final int MAX_CITAS_POR_LOTE = 500;
+
+    // Máximo de IDs por consulta al cargar horarios junto a sus slots
+    private static final int MAX_HORARIOS_POR_LOTE = 500;
 
     // SERVICIOS CRUD
 
@@ -64,22 +123,172 @@ public class HorarioService {
         log.debug("Realizando validaciones");
         horario.validar();
 
-        existeSolapamiento(
-                horario.getIdEmpleado(),
-                horario.getNroConsultorio(),
-                horario.getFecha(),
-                horario.getHoraInicio(),
-                horario.getHoraFin()
-        );
+        // Valida contra el índice en memoria y reserva el rango hasta que la transacción termine
+        solapamientos.reservar(List.of(SolapamientoHorariosService.Candidato.de(horario)));
         log.debug("Validaciones realizadas correctamente");
 
-        log.debug("Generando slots automáticamente");
-        horario.generarSlots();
-
+        // Los slots no se insertan: se calculan desde el horario y solo tienen fila al dejar de estar disponibles
         Horario horarioGuardado = repository.save(horario);
         log.debug("Horario con ID: {} creado correctamente", horario.getId());
 
-        return toResponse(horarioGuardado);
+        despuesDeConfirmar(() -> slotsDisponibles.invalidar(horario.getIdEmpleado(), horario.getFecha()));
+
+        // Un horario recién creado no tiene citas
+        return toResponse(horarioGuardado, Map.of(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * Registra un mismo horario en cada día de la semana indicado dentro de un rango de
+     * fechas. El solapamiento con horarios existentes se valida en memoria para todo el
+     * lote a la vez, y los horarios se insertan en lotes JDBC (sus slots no tienen fila
+     * hasta que dejan de estar disponibles)
+     *
+     * @param request Objeto {@link HorarioRecurrenteRequest} con el patrón semanal y el rango de fechas
+     * @return Lista de objetos {@link HorarioResumenResponse} de los horarios registrados
+     * @throws IllegalArgumentException Si el rango es inválido, no contiene ninguno de los días
+     * indicados o alguna fecha se solapa con otro horario del médico o consultorio
+     */
+    @Transactional
+    public List<HorarioResumenResponse> registrarRecurrente(HorarioRecurrenteRequest request) {
+        log.info("Proceso de registro recurrente para médico: {} entre: {} y {} iniciado",
+                request.idEmpleado(), request.fechaInicio(), request.fechaFin());
+
+        log.debug("Realizando validaciones");
+        validarRango(request.fechaInicio(), request.fechaFin(), MAX_DIAS_RECURRENTE);
+
+        List<LocalDate> fechas = request.fechaInicio()
+                .datesUntil(request.fechaFin().plusDays(1))
+                .filter(f -> request.diasSemana().contains(f.getDayOfWeek()))
+                .toList();
+
+        if (fechas.isEmpty()) {
+            log.warn("El rango: {} - {} no contiene ninguno de los días: {}",
+                    request.fechaInicio(), request.fechaFin(), request.diasSemana());
+            throw new IllegalArgumentException("El rango de fechas no contiene ninguno de los días indicados");
+        }
+
+        List<Horario> horarios = fechas.stream()
+                .map(fecha -> Horario.builder()
+                        .idEmpleado(request.idEmpleado())
+                        .idEspecialidad(request.idEspecialidad())
+                        .nroConsultorio(request.nro_consultorio())
+                        .fecha(fecha)
+                        .horaInicio(request.horaInicio())
+                        .horaFin(request.horaFin())
+                        .duracionSlotMinutos(Objects.requireNonNullElse(request.duracionSlotMinutos(), 30))
+                        .build())
+                .toList();
+
+        horarios.forEach(Horario::validar);
+
+        solapamientos.reservar(horarios.stream().map(SolapamientoHorariosService.Candidato::de).toList());
+
+        // Se valida una sola vez que el médico, la especialidad y el consultorio existan
+        obtenerEmpleadoNombre(request.idEmpleado());
+        obtenerEspecialidadNombre(request.idEspecialidad());
+        obtenerConsultorio(request.nro_consultorio());
+        log.debug("Validaciones realizadas correctamente");
+
+        List<Horario> guardados = repository.saveAll(horarios);
+        log.info("{} horarios recurrentes registrados correctamente para médico: {}",
+                guardados.size(), request.idEmpleado());
+
+        despuesDeConfirmar(() -> fechas.forEach(f -> slotsDisponibles.invalidar(request.idEmpleado(), f)));
+
+        return guardados.stream()
+                .map(h -> toResumenResponse(h, h.contarSlotsPorEstado()))
+                .toList();
+    }
+
+    /**
+     * Registra un lote de horarios independientes, pensado para procesos masivos como la
+     * materialización de disponibilidades. A diferencia de {@link #registrarRecurrente}, un
+     * horario inválido o solapado no rechaza el lote: cada uno tiene su propio resultado.
+     * Un horario idéntico a uno ya registrado se informa como EXISTENTE, por lo que reenviar
+     * el mismo lote no duplica horarios
+     *
+     * @param requests Lista de objetos {@link HorarioRequest} con los horarios a registrar
+     * @return Lista de objetos {@link HorarioLoteResponse} en el mismo orden recibido
+     */
+    @Transactional
+    public List<HorarioLoteResponse> registrarLote(List<HorarioRequest> requests) {
+        log.info("Proceso de registro de lote de {} horarios iniciado", requests.size());
+
+        List<Horario> horarios = requests.stream()
+                .map(request -> Horario.builder()
+                        .idEmpleado(request.idEmpleado())
+                        .idEspecialidad(request.idEspecialidad())
+                        .nroConsultorio(request.nro_consultorio())
+                        .fecha(request.fecha())
+                        .horaInicio(request.horaInicio())
+                        .horaFin(request.horaFin())
+                        .duracionSlotMinutos(Objects.requireNonNullElse(request.duracionSlotMinutos(), 30))
+                        .build())
+                .toList();
+
+        log.debug("Realizando validaciones");
+        Map<ClaveHorario, Long> existentes = buscarExistentes(horarios);
+
+        // Médicos, especialidades y consultorios se validan una sola vez por ID distinto
+        Set<Long> empleadosInexistentes = buscarInexistentes(
+                horarios, Horario::getIdEmpleado, this::obtenerEmpleadoNombre);
+        Set<Long> especialidadesInexistentes = buscarInexistentes(
+                horarios, Horario::getIdEspecialidad, this::obtenerEspecialidadNombre);
+        Set<String> consultoriosInexistentes = buscarInexistentes(
+                horarios, Horario::getNroConsultorio, this::obtenerConsultorio);
+
+        HorarioLoteResponse[] resultados = new HorarioLoteResponse[horarios.size()];
+        List<Integer> candidatos = new ArrayList<>();
+
+        for (int i = 0; i < horarios.size(); i++) {
+            Horario horario = horarios.get(i);
+            Long idExistente = existentes.get(ClaveHorario.de(horario));
+
+            if (idExistente != null) {
+                resultados[i] = new HorarioLoteResponse(idExistente, HorarioLoteResponse.ResultadoLote.EXISTENTE, null);
+                continue;
+            }
+
+            String motivo = validarParaLote(
+                    horario, empleadosInexistentes, especialidadesInexistentes, consultoriosInexistentes);
+
+            if (motivo != null) {
+                resultados[i] = new HorarioLoteResponse(null, HorarioLoteResponse.ResultadoLote.RECHAZADO, motivo);
+            } else {
+                candidatos.add(i);
+            }
+        }
+
+        // Valida contra el índice en memoria y reserva solo los que no se solapan
+        List<SolapamientoHorariosService.Resultado> reservas = solapamientos.reservarSinSolapamiento(
+                candidatos.stream().map(i -> SolapamientoHorariosService.Candidato.de(horarios.get(i))).toList());
+        log.debug("Validaciones realizadas correctamente");
+
+        List<Horario> nuevos = new ArrayList<>();
+        for (int j = 0; j < candidatos.size(); j++) {
+            SolapamientoHorariosService.Resultado reserva = reservas.get(j);
+
+            if (reserva.solapado()) {
+                resultados[candidatos.get(j)] = new HorarioLoteResponse(
+                        null, HorarioLoteResponse.ResultadoLote.RECHAZADO, reserva.motivo());
+            } else {
+                nuevos.add(horarios.get(candidatos.get(j)));
+            }
+        }
+
+        repository.saveAll(nuevos);
+
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                resultados[i] = new HorarioLoteResponse(
+                        horarios.get(i).getId(), HorarioLoteResponse.ResultadoLote.CREADO, null);
+            }
+        }
+
+        despuesDeConfirmar(() -> nuevos.forEach(h -> slotsDisponibles.invalidar(h.getIdEmpleado(), h.getFecha())));
+        log.info("Lote de horarios registrado: {} creados de {}", nuevos.size(), requests.size());
+
+        return Arrays.asList(resultados);
     }
 
     /**
@@ -91,14 +300,12 @@ public class HorarioService {
     public List<HorarioResponse> listar() {
         log.info("Inicio de proceso de listar");
 
-        List<Horario> horarios = repository.findAll();
+        // Los slots de todos los horarios se cargan en pocas consultas en lugar de uno por horario
+        List<Horario> horarios = cargarConDetalles(repository.findAll());
 
         log.info("Horarios listados correctamente: {}", horarios.size());
 
-        return horarios
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return toResponses(horarios);
     }
 
     /**
@@ -110,14 +317,74 @@ public class HorarioService {
     public List<HorarioResponse> buscarPorEmpleadoYFecha(Long idEmpleado, LocalDate fecha) {
         log.info("Inicio de proceso de listar por médico y fecha");
 
-        List<Horario> horarios = repository.findByEmpleadoYFecha(idEmpleado, fecha);
+        List<Horario> horarios = repository.findConDetallesPorEmpleadoYFecha(idEmpleado, fecha);
 
         log.info("Horarios listados correctamente: {}", horarios.size());
 
-        return horarios
+        return toResponses(horarios);
+    }
+
+    /**
+     * Valida un lote de horarios candidatos contra los horarios existentes y entre sí,
+     * sin registrarlos. Se resuelve en memoria, sin consultas a la base de datos
+     *
+     * @param candidatos Lista de objetos {@link SolapamientoRequest} con los horarios a validar
+     * @return Lista de objetos {@link SolapamientoResponse} en el mismo orden recibido
+     */
+    public List<SolapamientoResponse> validarSolapamientos(List<SolapamientoRequest> candidatos) {
+        log.info("Inicio de proceso de validar solapamiento de {} horarios", candidatos.size());
+
+        List<SolapamientoResponse> response = solapamientos.validar(candidatos.stream()
+                        .map(c -> new SolapamientoHorariosService.Candidato(
+                                c.idEmpleado(), c.nro_consultorio(), c.fecha(), c.horaInicio(), c.horaFin()))
+                        .toList())
                 .stream()
-                .map(this::toResponse)
+                .map(r -> new SolapamientoResponse(
+                        r.candidato().idEmpleado(),
+                        r.candidato().nroConsultorio(),
+                        r.candidato().fecha(),
+                        r.candidato().horaInicio(),
+                        r.candidato().horaFin(),
+                        r.solapado(),
+                        r.motivo()))
                 .toList();
+
+        log.info("Horarios solapados: {} de {}",
+                response.stream().filter(SolapamientoResponse::solapado).count(), candidatos.size());
+
+        return response;
+    }
+
+    /**
+     * Resume la ocupación de los horarios de un rango de fechas. Los conteos se obtienen
+     * con una consulta agrupada por horario y estado, sin cargar los slots
+     *
+     * @param desde Fecha inicial (inclusive)
+     * @param hasta Fecha final (inclusive)
+     * @return Lista de objetos {@link HorarioResumenResponse} ordenada por fecha y hora de inicio
+     * @throws IllegalArgumentException Si el rango de fechas es inválido
+     */
+    @Transactional(readOnly = true)
+    public List<HorarioResumenResponse> resumir(LocalDate desde, LocalDate hasta) {
+        log.info("Inicio de proceso de resumen de horarios entre: {} y {}", desde, hasta);
+
+        validarRango(desde, hasta, MAX_DIAS_RESUMEN);
+
+        // Solo los slots no disponibles tienen fila, los disponibles son el resto del total de cada horario
+        Map<Long, Map<DetalleHorario.EstadoDetalleHorario, Long>> filas = new HashMap<>();
+        for (ConteoSlots conteo : detalleRepository.contarPorHorarioYEstado(desde, hasta)) {
+            filas.computeIfAbsent(conteo.getIdHorario(), id -> new EnumMap<>(DetalleHorario.EstadoDetalleHorario.class))
+                    .put(conteo.getEstado(), conteo.getTotal());
+        }
+
+        List<HorarioResumenResponse> response = repository.findByFechaBetweenOrderByFechaAscHoraInicioAsc(desde, hasta)
+                .stream()
+                .map(h -> toResumenResponse(h, h.contarSlotsPorEstado(filas.getOrDefault(h.getId(), Map.of()))))
+                .toList();
+
+        log.info("Horarios resumidos correctamente: {}", response.size());
+
+        return response;
     }
 
     /**
@@ -129,13 +396,21 @@ public class HorarioService {
     public void eliminar(Long id) {
         log.info("Inicio de proceso de eliminación para ID: {}", id);
 
-        if (!repository.existsById(id)) {
-            log.warn("Horario con ID: {} no encontrado", id);
-            throw new IllegalArgumentException("Horario no encontrado con ID: " + id);
-        }
+        Horario horario = repository.findById(id)
+                .orElseThrow(() -> {
+                    log.warn("Horario con ID: {} no encontrado", id);
+                    return new IllegalArgumentException("Horario no encontrado con ID: " + id);
+                });
+        SolapamientoHorariosService.Candidato rango = SolapamientoHorariosService.Candidato.de(horario);
 
-        repository.deleteById(id);
+        repository.delete(horario);
         log.info("Horario eliminado correctamente");
+
+        despuesDeConfirmar(() -> solapamientos.liberar(List.of(rango)));
+        despuesDeConfirmar(() -> slotsDisponibles.invalidarHorario(id));
+
+        // El aviso es una llamada remota: se hace fuera de la transacción y solo si se confirmó
+        despuesDeConfirmar(() -> notificarSlotCambiado(id, null));
     }
 
     // OTROS SERVICIOS
@@ -153,23 +428,120 @@ public class HorarioService {
     public void ocuparSlot(Long idHorario, Long idDetalle, Long idCita) {
         log.info("Inicio de proceso de ocupar slot: {}", idDetalle);
 
-        Horario horario = repository.findById(idHorario)
-                .orElseThrow(() -> {
-                    log.warn("Horario con ID: {} no encontrado", idHorario);
-                    return new IllegalArgumentException("Horario no encontrado con ID: " + idHorario);
-                });
+        confirmarTransicion(
+                idHorario,
+                idDetalle,
+                ocuparFila(idHorario, idDetalle, idCita, null),
+                "Solo se pueden ocupar slots disponibles"
+        );
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.OCUPADO);
+        log.info("Slot ocupado correctamente");
+    }
 
-        DetalleHorario detalle = horario.getDetalles().stream()
-                .filter(d -> d.getId().equals(idDetalle))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.warn("Detalle con ID: {} no encontrado", idDetalle);
-                    return new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
-                });
+    /**
+     * Retiene un slot por un tiempo limitado mientras se completa una reserva, para que
+     * otro paciente no pueda tomarlo en ese intervalo. Si el slot ya está tomado falla de
+     * inmediato. El mismo titular puede renovar su retención
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot
+     * @param titular Quién retiene el slot (DNI del paciente)
+     * @return Objeto {@link RetencionSlotResponse} con el vencimiento de la retención
+     * @throws IllegalArgumentException Si el slot no existe en el horario brindado
+     * @throws ConflictException Si el slot no está disponible o lo retiene otro titular
+     */
+    @Transactional
+    public RetencionSlotResponse retenerSlot(Long idHorario, Long idDetalle, String titular) {
+        log.info("Inicio de proceso de retener slot: {}", idDetalle);
 
-        detalle.ocupar(idCita);
-        repository.save(horario);
-        log.info("Slot ocupado correctamente");
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime hasta = retenciones.calcularVencimiento(ahora);
+
+        int filas = detalleRepository.renovarRetencion(idHorario, idDetalle, titular, hasta, ahora);
+        if (filas == 0) {
+            filas = insertarFila(() -> detalleRepository.insertarRetenido(idHorario, idDetalle, titular, hasta));
+        }
+
+        if (filas == 0) {
+            DetalleHorario.EstadoDetalleHorario estado = estadoActual(idHorario, idDetalle);
+
+            log.warn("Slot con ID: {} no se pudo retener. Estado actual: {}", idDetalle, estado);
+            throw new ConflictException("Slot con ID: " + idDetalle + " no está disponible. Estado actual: " + estado);
+        }
+
+        despuesDeConfirmar(() -> retenciones.agendar(idHorario, idDetalle, hasta));
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.RETENIDO);
+        log.info("Slot retenido correctamente hasta: {}", hasta);
+
+        return new RetencionSlotResponse(idHorario, idDetalle, hasta);
+    }
+
+    /**
+     * Suelta la retención de un slot cuando la reserva que la tomó no se completó, para no
+     * esperar a que venza. Si el slot ya no está retenido por el titular (venció, se ocupó o
+     * lo tomó otro) no hace nada, así que puede repetirse sin error
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot
+     * @param titular Quién retiene el slot (DNI del paciente)
+     */
+    @Transactional
+    public void soltarRetencion(Long idHorario, Long idDetalle, String titular) {
+        log.info("Inicio de proceso de soltar retención del slot: {}", idDetalle);
+
+        if (detalleRepository.soltarRetencion(idHorario, idDetalle, titular) == 0) {
+            log.info("Slot con ID: {} no está retenido por el titular, no hay retención que soltar", idDetalle);
+            return;
+        }
+
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+        log.info("Retención del slot soltada correctamente");
+    }
+
+    /**
+     * Ocupa varios slots en una sola llamada. Cada slot se resuelve por separado, en su
+     * propia transacción y con su propia operación condicional: los que no existen o no
+     * están disponibles se informan en la respuesta sin afectar al resto.
+     * Ocupar un slot que ya tiene la misma cita se considera exitoso, para que los
+     * reintentos sean idempotentes
+     *
+     * @param slots Lista de slots a ocupar con su cita
+     * @return Resultado de cada slot en el mismo orden recibido
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<OcuparSlotResponse> ocuparSlots(List<OcuparSlotRequest> slots) {
+        log.info("Inicio de proceso de ocupar {} slots", slots.size());
+
+        List<OcuparSlotResponse> resultados = slots.stream()
+                .map(s -> {
+                    try {
+                        // Si otra transacción gana la fila de un slot, solo se revierte ese slot
+                        transactionTemplate.executeWithoutResult(status -> {
+                            confirmarTransicion(
+                                    s.idHorario(),
+                                    s.idDetalle(),
+                                    ocuparFila(s.idHorario(), s.idDetalle(), s.idCita(), s.titularRetencion()),
+                                    "Solo se pueden ocupar slots disponibles"
+                            );
+                            notificarCambio(s.idHorario(), s.idDetalle(), DetalleHorario.EstadoDetalleHorario.OCUPADO);
+                        });
+                        return new OcuparSlotResponse(s.idHorario(), s.idDetalle(), s.idCita(), true, null);
+                    } catch (IllegalArgumentException e) {
+                        return new OcuparSlotResponse(s.idHorario(), s.idDetalle(), s.idCita(),
+                                false, "Slot no encontrado");
+                    } catch (IllegalStateException e) {
+                        log.warn("Slot con ID: {} no ocupado para Cita con ID: {}: {}",
+                                s.idDetalle(), s.idCita(), e.getMessage());
+                        return new OcuparSlotResponse(s.idHorario(), s.idDetalle(), s.idCita(),
+                                false, e.getMessage());
+                    }
+                })
+                .toList();
+
+        log.info("Slots ocupados correctamente: {} de {}",
+                resultados.stream().filter(OcuparSlotResponse::ocupado).count(), slots.size());
+
+        return resultados;
     }
 
     /**
@@ -185,23 +557,56 @@ public class HorarioService {
     public void liberarSlot(Long idHorario, Long idDetalle) {
         log.info("Inicio de proceso de liberar slot: {}", idDetalle);
 
-        Horario horario = repository.findById(idHorario)
-                .orElseThrow(() -> {
-                    log.warn("Horario con ID: {} no encontrado", idHorario);
-                    return new IllegalArgumentException("Horario no encontrado con ID: " + idHorario);
-                });
+        confirmarTransicion(
+                idHorario,
+                idDetalle,
+                detalleRepository.liberar(idHorario, idDetalle),
+                "Solo se pueden liberar slots ocupados"
+        );
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+        log.info("Slot liberado correctamente");
+    }
 
-        DetalleHorario detalle = horario.getDetalles().stream()
-                .filter(d -> d.getId().equals(idDetalle))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.warn("Detalle con ID: {} no encontrado", idDetalle);
-                    return new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
-                });
+    /**
+     * Libera varios slots en una sola llamada, cada uno solo si sigue ocupado por su cita.
+     * Se usa para compensar ocupaciones que no se confirmaron y para citas canceladas o
+     * eliminadas: si la cita no llegó a ocupar el slot pero su titular aún lo retiene, se
+     * suelta la retención; en otro caso no se toca el estado actual y el resultado lo indica
+     *
+     * @param slots Lista de slots a liberar con la cita que los ocupa
+     * @return Resultado de cada slot en el mismo orden recibido
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<LiberarSlotResponse> liberarSlots(List<LiberarSlotRequest> slots) {
+        log.info("Inicio de proceso de liberar {} slots", slots.size());
+
+        List<LiberarSlotResponse> resultados = slots.stream()
+                .map(s -> {
+                    boolean liberado = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        int filas = detalleRepository.liberarDeCita(s.idHorario(), s.idDetalle(), s.idCita());
+                        if (filas == 0 && s.titularRetencion() != null) {
+                            filas = detalleRepository.soltarRetencion(s.idHorario(), s.idDetalle(), s.titularRetencion());
+                        }
+
+                        if (filas == 0) {
+                            return false;
+                        }
+                        notificarCambio(s.idHorario(), s.idDetalle(), DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+                        return true;
+                    }));
+
+                    if (!liberado) {
+                        log.info("Slot con ID: {} no está ocupado ni retenido por la Cita con ID: {}, no se libera",
+                                s.idDetalle(), s.idCita());
+                    }
+                    return new LiberarSlotResponse(s.idHorario(), s.idDetalle(), s.idCita(), liberado);
+                })
+                .toList();
 
-        detalle.liberar();
-        repository.save(horario);
-        log.info("Slot liberado correctamente");
+        log.info("Slots liberados correctamente: {} de {}",
+                resultados.stream().filter(LiberarSlotResponse::liberado).count(), slots.size());
+
+        return resultados;
     }
 
     /**
@@ -217,22 +622,18 @@ public class HorarioService {
     public void bloquearSlot(Long idHorario, Long idDetalle) {
         log.info("Inicio de proceso de bloquear slot: {}", idDetalle);
 
-        Horario horario = repository.findById(idHorario)
-                .orElseThrow(() -> {
-                    log.warn("Horario con ID: {} no encontrado", idHorario);
-                    return new IllegalArgumentException("Horario no encontrado con ID: " + idHorario);
-                });
-
-        DetalleHorario detalle = horario.getDetalles().stream()
-                .filter(d -> d.getId().equals(idDetalle))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.warn("Detalle con ID: {} no encontrado", idDetalle);
-                    return new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
-                });
+        int filas = detalleRepository.bloquear(idHorario, idDetalle, LocalDateTime.now());
+        if (filas == 0) {
+            filas = insertarFila(() -> detalleRepository.insertarBloqueado(idHorario, idDetalle));
+        }
 
-        detalle.bloquear();
-        repository.save(horario);
+        confirmarTransicion(
+                idHorario,
+                idDetalle,
+                filas,
+                "Solo se pueden bloquear slots disponibles o con la retención vencida"
+        );
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.BLOQUEADO);
         log.info("Slot bloqueado correctamente");
     }
 
@@ -249,59 +650,196 @@ public class HorarioService {
     public void desbloquearSlot(Long idHorario, Long idDetalle) {
         log.info("Inicio de proceso de desbloquear slot: {}", idDetalle);
 
-        Horario horario = repository.findById(idHorario)
-                .orElseThrow(() -> {
-                    log.warn("Horario con ID: {} no encontrado", idHorario);
-                    return new IllegalArgumentException("Horario no encontrado con ID: " + idHorario);
-                });
-
-        DetalleHorario detalle = horario.getDetalles().stream()
-                .filter(d -> d.getId().equals(idDetalle))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.warn("Detalle con ID: {} no encontrado", idDetalle);
-                    return new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
-                });
-
-        detalle.desbloquear();
-        repository.save(horario);
+        confirmarTransicion(
+                idHorario,
+                idDetalle,
+                detalleRepository.desbloquear(idHorario, idDetalle),
+                "Solo se pueden desbloquear slots bloqueados"
+        );
+        notificarCambio(idHorario, idDetalle, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
         log.info("Slot desbloqueado correctamente");
     }
 
     // VALIDACIONES
 
     /**
-     * Valida que no hayan horarios cruzados para un médico
+     * Valida que el rango de fechas esté ordenado y no supere la cantidad máxima de días
      *
-     * @param idMedico Identificador único del médico
-     * @param fecha Fecha del horario
-     * @param horaInicio Hora de inicio del horario
-     * @param horaFin Hora de fin del horario
      * @throws IllegalArgumentException Si la validación no se cumple
      */
-    public void existeSolapamiento(
-            Long idMedico,
-            String nroConsultorio,
-            LocalDate fecha,
-            LocalTime horaInicio,
-            LocalTime horaFin
-    ) {
-        boolean existeSolapamiento = repository.existeSolapamiento(
-                idMedico,
-                nroConsultorio,
-                fecha,
-                horaInicio,
-                horaFin);
+    private void validarRango(LocalDate desde, LocalDate hasta, int maxDias) {
+        if (desde.isAfter(hasta)) {
+            log.warn("Rango de fechas inválido: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+
+        if (ChronoUnit.DAYS.between(desde, hasta) >= maxDias) {
+            log.warn("Rango de fechas demasiado amplio: {} - {}", desde, hasta);
+            throw new IllegalArgumentException("El rango de fechas no puede superar " + maxDias + " días");
+        }
+    }
+
+    /**
+     * Valida que el ID corresponda a un slot del horario. Los slots disponibles no tienen
+     * fila, por lo que se valida contra las horas y la duración de slot del horario.
+     * Las transiciones ya lo validan en su propia sentencia, así que solo se usa para
+     * explicar una transición que no afectó filas
+     *
+     * @throws IllegalArgumentException Si el horario no existe o el slot no es suyo
+     */
+    private void validarSlotExiste(Long idHorario, Long idDetalle) {
+        boolean existe = repository.findById(idHorario)
+                .map(h -> h.contieneSlot(idDetalle))
+                .orElse(false);
+
+        if (!existe) {
+            log.warn("Slot con ID: {} no encontrado en Horario con ID: {}", idDetalle, idHorario);
+            throw new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
+        }
+    }
+
+    /**
+     * Interpreta el resultado de una operación condicional sobre la fila de un slot. Si no
+     * afectó filas, consulta el estado del slot para explicar por qué
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot
+     * @param filasAfectadas Filas afectadas por la operación
+     * @param mensajeConflicto Mensaje a usar si el slot no estaba en el estado requerido
+     * @throws IllegalArgumentException Si el slot no existe en el horario brindado
+     * @throws IllegalStateException Si el slot no estaba en el estado requerido
+     */
+    private void confirmarTransicion(Long idHorario, Long idDetalle, int filasAfectadas, String mensajeConflicto) {
+        if (filasAfectadas > 0) {
+            return;
+        }
+
+        DetalleHorario.EstadoDetalleHorario estado = estadoActual(idHorario, idDetalle);
+
+        log.warn("Slot con ID: {} no cambió de estado. Estado actual: {}", idDetalle, estado);
+        throw new IllegalStateException(mensajeConflicto + ". Estado actual: " + estado);
+    }
+
+    /**
+     * Estado actual de un slot cuya transición no afectó filas. Si el slot no tiene fila,
+     * primero valida que exista en el horario, y recién ahí lo toma como DISPONIBLE
+     *
+     * @throws IllegalArgumentException Si el slot no existe en el horario brindado
+     */
+    private DetalleHorario.EstadoDetalleHorario estadoActual(Long idHorario, Long idDetalle) {
+        Optional<DetalleHorario.EstadoDetalleHorario> estado = detalleRepository.findEstado(idHorario, idDetalle);
+        if (estado.isPresent()) {
+            return estado.get();
+        }
 
-        if (existeSolapamiento) {
-            log.warn(
-                    "Ya existe un horario en la fecha: {}, en el consultorio: {} para médico: {} en ese rango de horas: {} - {}",
-                    fecha, nroConsultorio, idMedico, horaInicio, horaFin
-            );
-            throw new IllegalArgumentException(
-                    "Ya existe un horario en ese rango de horas en el mismo consultorio"
-            );
+        validarSlotExiste(idHorario, idDetalle);
+        return DetalleHorario.EstadoDetalleHorario.DISPONIBLE;
+    }
+
+    /**
+     * Ocupa un slot retenido por el titular, con la retención vencida o ya ocupado por la
+     * misma cita; si el slot está disponible (sin fila) inserta su fila
+     *
+     * @return Filas afectadas (0 o 1)
+     */
+    private int ocuparFila(Long idHorario, Long idDetalle, Long idCita, String titular) {
+        int filas = detalleRepository.ocupar(idHorario, idDetalle, idCita, titular, LocalDateTime.now());
+        if (filas > 0) {
+            return filas;
         }
+
+        return insertarFila(() -> detalleRepository.insertarOcupado(idHorario, idDetalle, idCita));
+    }
+
+    /**
+     * Inserta la fila de un slot disponible con su nuevo estado. Si otra transacción
+     * insertó la fila del mismo slot al mismo tiempo, la clave primaria la rechaza y se
+     * toma como 0 filas afectadas
+     */
+    private int insertarFila(IntSupplier insercion) {
+        try {
+            return insercion.getAsInt();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Fila de slot insertada por otra transacción: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Datos que identifican a un horario ya registrado, para reconocer reenvíos en un lote
+     */
+    private record ClaveHorario(Long idEmpleado, Long idEspecialidad, String nroConsultorio, LocalDate fecha,
+                                LocalTime horaInicio, LocalTime horaFin, Integer duracionSlotMinutos) {
+
+        static ClaveHorario de(Horario h) {
+            return new ClaveHorario(h.getIdEmpleado(), h.getIdEspecialidad(), h.getNroConsultorio(), h.getFecha(),
+                    h.getHoraInicio(), h.getHoraFin(), h.getDuracionSlotMinutos());
+        }
+    }
+
+    /**
+     * Busca con una sola consulta los horarios ya registrados idénticos a los del lote
+     *
+     * @return Mapa de los datos del horario a su ID
+     */
+    private Map<ClaveHorario, Long> buscarExistentes(List<Horario> horarios) {
+        if (horarios.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<Long> empleados = horarios.stream().map(Horario::getIdEmpleado).collect(Collectors.toSet());
+        LocalDate desde = horarios.stream().map(Horario::getFecha).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate hasta = horarios.stream().map(Horario::getFecha).max(Comparator.naturalOrder()).orElseThrow();
+
+        return repository.findByIdEmpleadoInAndFechaBetween(empleados, desde, hasta).stream()
+                .collect(Collectors.toMap(ClaveHorario::de, Horario::getId, (a, b) -> a));
+    }
+
+    /**
+     * Consulta una vez cada valor distinto del lote en otro microservicio
+     *
+     * @return Valores que el microservicio no encontró (404)
+     */
+    private <K> Set<K> buscarInexistentes(List<Horario> horarios, Function<Horario, K> clave, Consumer<K> obtener) {
+        Set<K> inexistentes = new HashSet<>();
+
+        horarios.stream().map(clave).distinct().forEach(valor -> {
+            try {
+                obtener.accept(valor);
+            } catch (EntityNotFoundException e) {
+                inexistentes.add(valor);
+            }
+        });
+
+        return inexistentes;
+    }
+
+    /**
+     * Valida un horario de un lote sin lanzar excepción
+     *
+     * @return Motivo del rechazo, o null si el horario es válido
+     */
+    private String validarParaLote(Horario horario, Set<Long> empleadosInexistentes,
+                                   Set<Long> especialidadesInexistentes, Set<String> consultoriosInexistentes) {
+        try {
+            horario.validar();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+
+        if (empleadosInexistentes.contains(horario.getIdEmpleado())) {
+            return "Médico con ID: " + horario.getIdEmpleado() + " no encontrado";
+        }
+
+        if (especialidadesInexistentes.contains(horario.getIdEspecialidad())) {
+            return "Especialidad con ID: " + horario.getIdEspecialidad() + " no encontrada";
+        }
+
+        if (consultoriosInexistentes.contains(horario.getNroConsultorio())) {
+            return "Consultorio con N°: " + horario.getNroConsultorio() + " no encontrado";
+        }
+
+        return null;
     }
 
     // SERVICIOS PARA OBTENER DATOS DE OTROS MICROSERVICIOS
@@ -356,18 +894,43 @@ public class HorarioService {
     }
 
     /**
-     * Obtiene la Cita Médica de un Slot a través del cliente {@code citaMedicaClient}
+     * Obtiene las Citas Médicas de los slots ocupados de varios horarios a través del
+     * cliente {@code citaMedicaClient}, en lotes de hasta {@code MAX_CITAS_POR_LOTE}
      *
-     * @param idCitaMedica Identificador único de la cita médica
-     * @return Objeto {@link CitaMedicaFeignResponse} que contiene los datos de la cita médica
+     * @param horarios Horarios cuyos slots se van a mostrar
+     * @return Mapa de ID de cita a objeto {@link CitaMedicaFeignResponse}, sin las citas que no existen
      */
-    private CitaMedicaFeignResponse obtenerCitaMedica(Long idCitaMedica) {
-        if (idCitaMedica == null || idCitaMedica <= 0) {
-            log.error("Intento de obtener Cita Médica con ID inválido: {}", idCitaMedica);
-            throw new IllegalArgumentException("Id inválido");
+    private Map<Long, CitaMedicaFeignResponse> obtenerCitasMedicas(List<Horario> horarios) {
+        List<Long> ids = horarios.stream()
+                .flatMap(h -> h.getDetalles().stream())
+                .map(DetalleHorario::getIdCita)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<Long, CitaMedicaFeignResponse> citas = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_CITAS_POR_LOTE) {
+            List<Long> lote = ids.subList(i, Math.min(i + MAX_CITAS_POR_LOTE, ids.size()));
+            citaMedicaClient.obtenerCitas(lote).forEach(c -> citas.put(c.id(), c));
         }
 
-        return citaMedicaClient.obtenerCita(idCitaMedica);
+        return citas;
+    }
+
+    /**
+     * Avisa a ApiCitaMedica a través del cliente {@code citaMedicaClient} que los datos
+     * de un horario o slot cambiaron, para que refresque la copia que guarda en sus citas.
+     * Si el aviso falla solo se registra, ApiCitaMedica seguirá usando su copia anterior
+     *
+     * @param idHorario Identificador único del horario
+     * @param idDetalle Identificador único del slot (null para todo el horario)
+     */
+    private void notificarSlotCambiado(Long idHorario, Long idDetalle) {
+        try {
+            citaMedicaClient.marcarSlotDesactualizado(idHorario, idDetalle);
+        } catch (Exception e) {
+            log.warn("No se pudo notificar el cambio del horario: {} a ApiCitaMedica: {}", idHorario, e.getMessage());
+        }
     }
 
     // SERVICIOS PARA BRINDAR DATOS A OTROS MICROSERVICIOS
@@ -386,20 +949,67 @@ public class HorarioService {
                     return new IllegalArgumentException("Horario no encontrado con ID: " + idHorario);
                 });
 
-        DetalleHorario detalle = horario.getDetalles().stream()
-                .filter(d -> d.getId().equals(idDetalle))
-                .findFirst()
+        SlotHorario slot = horario.getSlot(idDetalle)
                 .orElseThrow(() -> {
                     log.warn("Detalle con ID: {} no encontrado", idDetalle);
                     return new IllegalArgumentException("Detalle no encontrado con ID: " + idDetalle);
                 });
 
-        return toClientResponse(detalle, horario);
+        return toClientResponse(slot, horario);
+    }
+
+    /**
+     * Brinda los datos de varios Slots en una sola llamada. Los horarios de los slots se
+     * cargan con una única consulta y cada médico, especialidad y consultorio distinto se resuelve una
+     * sola vez, sin importar cuántos slots lo compartan
+     *
+     * @param slots Lista de pares idHorario/idDetalle a resolver
+     * @return Lista de objetos {@link SlotClientResponse}, los pares que no existen se omiten
+     */
+    @Transactional(readOnly = true)
+    public List<SlotClientResponse> brindarSlots(List<SlotClientRequest> slots) {
+        log.info("Inicio de proceso de brindar {} slots", slots.size());
+
+        Map<Long, Horario> horarios = repository.findConDetallesPorIds(
+                        slots.stream().map(SlotClientRequest::idHorario).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Horario::getId, Function.identity()));
+
+        Map<Long, EmpleadoClientResponse> medicos = new HashMap<>();
+        Map<Long, EspecialidadResponse> especialidades = new HashMap<>();
+        Map<String, ConsultorioResponse> consultorios = new HashMap<>();
+
+        List<SlotClientResponse> response = slots.stream()
+                .distinct()
+                .map(s -> {
+                    Horario horario = horarios.get(s.idHorario());
+                    SlotHorario slot = (horario != null) ? horario.getSlot(s.idDetalle()).orElse(null) : null;
+
+                    if (slot == null) {
+                        log.warn("Horario con ID: {} o Slot con ID: {} no encontrado", s.idHorario(), s.idDetalle());
+                        return null;
+                    }
+
+                    return toClientResponse(
+                            slot,
+                            horario,
+                            medicos.computeIfAbsent(horario.getIdEmpleado(), this::obtenerEmpleadoNombre),
+                            especialidades.computeIfAbsent(horario.getIdEspecialidad(), this::obtenerEspecialidadNombre),
+                            consultorios.computeIfAbsent(horario.getNroConsultorio(), this::obtenerConsultorio)
+                    );
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        log.info("Slots brindados correctamente: {}", response.size());
+
+        return response;
     }
 
     /**
      * Busca un slot disponible de un médico para una fecha y hora específica
-     * Si no hay un slot exacto a esa hora, busca el más cercano disponible
+     * Si no hay un slot exacto a esa hora, busca el más cercano disponible.
+     * La búsqueda se resuelve en el índice en memoria {@link SlotsDisponiblesService}
      *
      * @param idMedico Identificador único del médico
      * @param fecha Fecha para buscar el slot
@@ -411,79 +1021,181 @@ public class HorarioService {
     public SlotDisponibleResponse buscarSlotDisponible(Long idMedico, LocalDate fecha, LocalTime hora) {
         log.info("Buscando slot disponible para médico: {} en fecha: {} a hora: {}", idMedico, fecha, hora);
 
-        List<Horario> horarios = repository.findByEmpleadoYFecha(idMedico, fecha);
+        SlotsDisponiblesService.Busqueda busqueda = slotsDisponibles.buscarMasCercano(idMedico, fecha, hora);
 
-        if (horarios.isEmpty()) {
+        if (!busqueda.existeHorario()) {
             log.warn("No existe un horario para el médico: {} en la fecha: {}", idMedico, fecha);
             throw new IllegalArgumentException("No existe un horario para el médico en la fecha especificada");
         }
 
-        // Si solo hay un horario por día (como propone el usuario), usamos ese
-        // Si hay varios, tomamos el primero que tenga slots disponibles
-        Horario horarioSeleccionado = horarios.stream()
-                .filter(h -> h.contarSlotsDisponibles() > 0)
-                .findFirst()
+        SlotsDisponiblesService.SlotLibre slotDisponible = busqueda.slot()
                 .orElseThrow(() -> {
                     log.warn("No hay slots disponibles para el médico: {} en la fecha: {}", idMedico, fecha);
                     return new IllegalArgumentException("No hay slots disponibles para el médico en la fecha especificada");
                 });
 
-        DetalleHorario slotDisponible;
-
-        if (hora != null) {
-            // Buscar slot que coincida exactamente con la hora o el más cercano
-            slotDisponible = horarioSeleccionado.getDetalles().stream()
-                    .filter(d -> d.estaDisponible())
-                    .min((d1, d2) -> {
-                        // Comparar qué slot está más cerca de la hora deseada
-                        long diff1 = Math.abs(java.time.Duration.between(d1.getHoraInicio(), hora).toMinutes());
-                        long diff2 = Math.abs(java.time.Duration.between(d2.getHoraInicio(), hora).toMinutes());
-                        return Long.compare(diff1, diff2);
-                    })
-                    .orElseThrow(() -> {
-                        log.warn("No hay slots disponibles para el médico: {} en la fecha: {} a la hora: {}", idMedico, fecha, hora);
-                        return new IllegalArgumentException("No hay slots disponibles para el médico en la fecha y hora especificadas");
-                    });
-        } else {
-            // Si no se especifica hora, tomar el primer slot disponible
-            slotDisponible = horarioSeleccionado.getDetalles().stream()
-                    .filter(DetalleHorario::estaDisponible)
-                    .findFirst()
-                    .orElseThrow(() -> {
-                        log.warn("No hay slots disponibles para el médico: {} en la fecha: {}", idMedico, fecha);
-                        return new IllegalArgumentException("No hay slots disponibles para el médico en la fecha especificada");
-                    });
-        }
-
         log.info("Slot disponible encontrado: idHorario={}, idSlot={}, horaInicio={}",
-                horarioSeleccionado.getId(), slotDisponible.getId(), slotDisponible.getHoraInicio());
+                slotDisponible.idHorario(), slotDisponible.idSlot(), slotDisponible.horaInicio());
 
         return SlotDisponibleResponse.builder()
-                .idHorario(horarioSeleccionado.getId())
-                .idSlot(slotDisponible.getId())
+                .idHorario(slotDisponible.idHorario())
+                .idSlot(slotDisponible.idSlot())
+                .idMedico(idMedico)
                 .fecha(fecha)
-                .horaInicio(slotDisponible.getHoraInicio())
-                .horaFin(slotDisponible.getHoraFin())
+                .horaInicio(slotDisponible.horaInicio())
+                .horaFin(slotDisponible.horaFin())
                 .build();
     }
 
+    /**
+     * Busca los primeros slots libres de una especialidad entre todos sus médicos, en orden
+     * de fecha y hora. Los horarios de la especialidad se obtienen con una consulta y los
+     * slots libres salen del índice {@link SlotsDisponiblesService}, sin consultar cada
+     * médico por separado
+     *
+     * @param idEspecialidad Identificador único de la especialidad
+     * @param desde Fecha inicial (inclusive), si es null o ya pasó se usa la fecha actual
+     * @param hasta Fecha final (inclusive), si es null se busca hasta el máximo de días permitido
+     * @param limite Máximo de slots a devolver
+     * @return Lista de objetos {@link SlotDisponibleResponse} ordenada por fecha y hora de inicio
+     * @throws IllegalArgumentException Si el rango de fechas es inválido
+     */
+    @Transactional(readOnly = true)
+    public List<SlotDisponibleResponse> buscarPrimerosDisponibles(Long idEspecialidad, LocalDate desde,
+                                                                  LocalDate hasta, int limite) {
+        log.info("Buscando primeros {} slots disponibles para especialidad: {} entre: {} y {}",
+                limite, idEspecialidad, desde, hasta);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate inicio = (desde == null || desde.isBefore(ahora.toLocalDate())) ? ahora.toLocalDate() : desde;
+        LocalDate fin = (hasta != null) ? hasta : inicio.plusDays(MAX_DIAS_DISPONIBLES - 1);
+
+        validarRango(inicio, fin, MAX_DIAS_DISPONIBLES);
+
+        TreeMap<LocalDate, Set<Long>> medicosPorFecha = repository
+                .findByIdEspecialidadAndFechaBetween(idEspecialidad, inicio, fin).stream()
+                .collect(Collectors.groupingBy(
+                        Horario::getFecha,
+                        TreeMap::new,
+                        Collectors.mapping(Horario::getIdEmpleado, Collectors.toSet())
+                ));
+
+        List<SlotDisponibleResponse> slots = slotsDisponibles
+                .buscarPrimeros(idEspecialidad, medicosPorFecha, ahora, limite).stream()
+                .map(e -> SlotDisponibleResponse.builder()
+                        .idHorario(e.slot().idHorario())
+                        .idSlot(e.slot().idSlot())
+                        .idMedico(e.idEmpleado())
+                        .fecha(e.fecha())
+                        .horaInicio(e.slot().horaInicio())
+                        .horaFin(e.slot().horaFin())
+                        .build())
+                .toList();
+
+        log.info("Slots disponibles encontrados para especialidad: {}: {}", idEspecialidad, slots.size());
+
+        return slots;
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción actual confirme, o de inmediato si no hay
+     * transacción. Evita que el índice de slots refleje cambios que luego se revierten
+     */
+    private void despuesDeConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Después del commit, informa el nuevo estado de un slot al índice de slots libres y
+     * a los suscriptores de eventos
+     */
+    private void notificarCambio(Long idHorario, Long idDetalle, DetalleHorario.EstadoDetalleHorario estado) {
+        despuesDeConfirmar(() -> {
+            if (estado == DetalleHorario.EstadoDetalleHorario.DISPONIBLE) {
+                slotsDisponibles.slotDisponible(idDetalle);
+            } else {
+                slotsDisponibles.slotNoDisponible(idDetalle);
+            }
+            eventos.publicar(idHorario, idDetalle, estado);
+        });
+    }
+
+    /**
+     * Vuelve a cargar varios horarios junto a las filas de sus slots no disponibles, en lotes
+     * de {@value #MAX_HORARIOS_POR_LOTE}, conservando el orden recibido
+     */
+    private List<Horario> cargarConDetalles(List<Horario> horarios) {
+        List<Long> ids = horarios.stream().map(Horario::getId).toList();
+
+        Map<Long, Horario> conDetalles = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_HORARIOS_POR_LOTE) {
+            List<Long> lote = ids.subList(i, Math.min(i + MAX_HORARIOS_POR_LOTE, ids.size()));
+            repository.findConDetallesPorIds(lote).forEach(h -> conDetalles.put(h.getId(), h));
+        }
+
+        return ids.stream()
+                .map(conDetalles::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     // MAPEADORES A DTO
 
-    private HorarioResponse toResponse(Horario horario) {
-        List<HorarioResponse.DetalleHorarioResponse> detallesResponse = horario.getDetalles()
+    /**
+     * Mapea varios horarios resolviendo las citas de todos sus slots en una sola llamada
+     * a ApiCitaMedica (o pocas, si superan el tamaño de lote). Como en {@code brindarSlots},
+     * cada médico, especialidad y consultorio distinto se resuelve una sola vez
+     */
+    private List<HorarioResponse> toResponses(List<Horario> horarios) {
+        if (horarios.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, CitaMedicaFeignResponse> citas = obtenerCitasMedicas(horarios);
+
+        Map<Long, EmpleadoClientResponse> medicos = new HashMap<>();
+        Map<Long, EspecialidadResponse> especialidades = new HashMap<>();
+        Map<String, ConsultorioResponse> consultorios = new HashMap<>();
+
+        return horarios.stream()
+                .map(h -> toResponse(h, citas, medicos, especialidades, consultorios))
+                .toList();
+    }
+
+    private HorarioResponse toResponse(Horario horario,
+                                       Map<Long, CitaMedicaFeignResponse> citas,
+                                       Map<Long, EmpleadoClientResponse> medicos,
+                                       Map<Long, EspecialidadResponse> especialidades,
+                                       Map<String, ConsultorioResponse> consultorios) {
+        List<HorarioResponse.DetalleHorarioResponse> detallesResponse = horario.getSlots()
                 .stream()
-                .map(this::toDetalleHorarioResponse)
+                .map(s -> toDetalleHorarioResponse(s, citas))
                 .toList();
 
-        EmpleadoClientResponse empleado = obtenerEmpleadoNombre(horario.getIdEmpleado());
-        ConsultorioResponse consultorio = obtenerConsultorio(horario.getNroConsultorio());
-        EspecialidadResponse especialidad = obtenerEspecialidadNombre(horario.getIdEspecialidad());
+        EmpleadoClientResponse empleado = medicos.computeIfAbsent(horario.getIdEmpleado(), this::obtenerEmpleadoNombre);
+        ConsultorioResponse consultorio = consultorios.computeIfAbsent(horario.getNroConsultorio(), this::obtenerConsultorio);
+        EspecialidadResponse especialidad = especialidades.computeIfAbsent(
+                horario.getIdEspecialidad(), this::obtenerEspecialidadNombre);
+
+        Map<DetalleHorario.EstadoDetalleHorario, Long> conteo = horario.contarSlotsPorEstado();
+
+        long slotsDisponibles = conteo.get(DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
 
-        long slotsDisponibles = horario.contarSlotsDisponibles();
+        long slotsOcupados = conteo.get(DetalleHorario.EstadoDetalleHorario.OCUPADO);
 
-        long slotsOcupados = horario.contarSlotsOcupados();
+        long slotsBloqueados = conteo.get(DetalleHorario.EstadoDetalleHorario.BLOQUEADO);
 
-        long slotsBloqueados = horario.contarSlotsBloqueados();
+        long slotsRetenidos = conteo.get(DetalleHorario.EstadoDetalleHorario.RETENIDO);
 
         return HorarioResponse.builder()
                 .id(horario.getId())
@@ -494,39 +1206,82 @@ public class HorarioService {
                 .horaInicio(horario.getHoraInicio())
                 .horaFin(horario.getHoraFin())
                 .detalles(detallesResponse)
-                .totalSlots(horario.getDetalles().size())
+                .totalSlots(horario.getTotalSlots())
                 .slotsDisponibles(slotsDisponibles)
                 .slotsOcupados(slotsOcupados)
                 .slotsBloqueados(slotsBloqueados)
-                .estaCompleto(horario.estaCompleto())
+                .slotsRetenidos(slotsRetenidos)
+                .estaCompleto(slotsDisponibles == 0)
                 .build();
     }
 
-    private HorarioResponse.DetalleHorarioResponse toDetalleHorarioResponse(DetalleHorario detalle) {
-        CitaMedicaFeignResponse cita = (detalle.getIdCita() == null)
+    private HorarioResumenResponse toResumenResponse(Horario horario,
+                                                     Map<DetalleHorario.EstadoDetalleHorario, Long> conteo) {
+
+        long slotsDisponibles = conteo.getOrDefault(DetalleHorario.EstadoDetalleHorario.DISPONIBLE, 0L);
+        long slotsOcupados = conteo.getOrDefault(DetalleHorario.EstadoDetalleHorario.OCUPADO, 0L);
+        long slotsBloqueados = conteo.getOrDefault(DetalleHorario.EstadoDetalleHorario.BLOQUEADO, 0L);
+        long slotsRetenidos = conteo.getOrDefault(DetalleHorario.EstadoDetalleHorario.RETENIDO, 0L);
+
+        return HorarioResumenResponse.builder()
+                .id(horario.getId())
+                .idEmpleado(horario.getIdEmpleado())
+                .idEspecialidad(horario.getIdEspecialidad())
+                .nroConsultorio(horario.getNroConsultorio())
+                .fecha(horario.getFecha())
+                .horaInicio(horario.getHoraInicio())
+                .horaFin(horario.getHoraFin())
+                .totalSlots(horario.getTotalSlots())
+                .slotsDisponibles(slotsDisponibles)
+                .slotsOcupados(slotsOcupados)
+                .slotsBloqueados(slotsBloqueados)
+                .slotsRetenidos(slotsRetenidos)
+                .estaCompleto(slotsDisponibles == 0)
+                .build();
+    }
+
+    private HorarioResponse.DetalleHorarioResponse toDetalleHorarioResponse(SlotHorario slot,
+                                                                           Map<Long, CitaMedicaFeignResponse> citas) {
+        CitaMedicaFeignResponse cita = (slot.idCita() == null)
                 ? null
-                : obtenerCitaMedica(detalle.getIdCita());
+                : citas.get(slot.idCita());
+
+        if (slot.idCita() != null && cita == null) {
+            log.warn("Cita con ID: {} del Slot con ID: {} no encontrada", slot.idCita(), slot.id());
+        }
 
         return HorarioResponse.DetalleHorarioResponse.builder()
-                .id(detalle.getId())
-                .horaInicio(detalle.getHoraInicio())
-                .horaFin(detalle.getHoraFin())
-                .estado(detalle.getEstado())
+                .id(slot.id())
+                .horaInicio(slot.horaInicio())
+                .horaFin(slot.horaFin())
+                .estado(slot.estado())
                 .cita(cita)
-                .estaDisponible(detalle.estaDisponible())
+                .estaDisponible(slot.estaDisponible())
                 .build();
     }
 
-    private SlotClientResponse toClientResponse(DetalleHorario detalle, Horario horario) {
+    private SlotClientResponse toClientResponse(SlotHorario slot, Horario horario) {
 
-        EmpleadoClientResponse medico = obtenerEmpleadoNombre(detalle.getIdEmpleado());
+        EmpleadoClientResponse medico = obtenerEmpleadoNombre(horario.getIdEmpleado());
         EspecialidadResponse especialidad = obtenerEspecialidadNombre(horario.getIdEspecialidad());
-        ConsultorioResponse consultorio = obtenerConsultorio(detalle.getNroConsultorio());
+        ConsultorioResponse consultorio = obtenerConsultorio(horario.getNroConsultorio());
+
+        return toClientResponse(slot, horario, medico, especialidad, consultorio);
+    }
+
+    private SlotClientResponse toClientResponse(SlotHorario slot,
+                                                Horario horario,
+                                                EmpleadoClientResponse medico,
+                                                EspecialidadResponse especialidad,
+                                                ConsultorioResponse consultorio) {
+
         LocalDate fecha = horario.getFecha();
-        LocalTime hora = detalle.getHoraInicio();
-        DetalleHorario.EstadoDetalleHorario estado = detalle.getEstado();
+        LocalTime hora = slot.horaInicio();
+        DetalleHorario.EstadoDetalleHorario estado = slot.estado();
 
         return new SlotClientResponse(
+                horario.getId(),
+                slot.id(),
                 medico,
                 especialidad,
                 fecha,
@@ -0,0 +1,152 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.DetalleHorario;
+import cm.apihorario.repository.DetalleHorarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Vencimiento de las retenciones de slots. Cada retención se agenda en una cola de
+ * prioridad ordenada por vencimiento, y una tarea periódica toma solo las vencidas de
+ * la cabeza de la cola y las devuelve a DISPONIBLE en lotes, sin recorrer la tabla
+ */
+@Slf4j
+@Service
+public class RetencionSlotsService {
+
+    private final DetalleHorarioRepository detalleRepository;
+    private final SlotsDisponiblesService slotsDisponibles;
+    private final EventosSlotsService eventos;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration duracion;
+    private final int tamanoLote;
+
+    private final PriorityQueue<Vencimiento> vencimientos =
+            new PriorityQueue<>(Comparator.comparing(Vencimiento::hasta));
+
+    public RetencionSlotsService(
+            DetalleHorarioRepository detalleRepository,
+            SlotsDisponiblesService slotsDisponibles,
+            EventosSlotsService eventos,
+            TransactionTemplate transactionTemplate,
+            @Value("${horarios.retenciones.duracion-segundos:300}") long duracionSegundos,
+            @Value("${horarios.retenciones.lote:200}") int tamanoLote) {
+        this.detalleRepository = detalleRepository;
+        this.slotsDisponibles = slotsDisponibles;
+        this.eventos = eventos;
+        this.transactionTemplate = transactionTemplate;
+        this.duracion = Duration.ofSeconds(duracionSegundos);
+        this.tamanoLote = tamanoLote;
+    }
+
+    private record Vencimiento(LocalDateTime hasta, Long idHorario, Long idDetalle) {
+    }
+
+    /**
+     * Agenda las retenciones que ya estaban en la base de datos al iniciar
+     */
+    @PostConstruct
+    void cargar() {
+        List<DetalleHorario> retenidos = detalleRepository.findByEstado(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+        retenidos.forEach(d -> agendar(d.getHorario().getId(), d.getId(), d.getRetenidoHasta()));
+
+        log.info("Retenciones de slots agendadas al iniciar: {}", retenidos.size());
+    }
+
+    /**
+     * Calcula el vencimiento de una retención que empieza ahora
+     */
+    public LocalDateTime calcularVencimiento(LocalDateTime ahora) {
+        return ahora.plus(duracion);
+    }
+
+    /**
+     * Agenda la liberación de un slot retenido. Si la retención se renueva, el
+     * vencimiento anterior queda en la cola pero no libera el slot
+     */
+    public synchronized void agendar(Long idHorario, Long idDetalle, LocalDateTime hasta) {
+        vencimientos.add(new Vencimiento(hasta, idHorario, idDetalle));
+    }
+
+    /**
+     * Libera las retenciones vencidas, en lotes de hasta {@code tamanoLote} slots. Si un lote
+     * falla vuelve a la cola y se reintenta en la siguiente ejecución
+     */
+    @Scheduled(fixedDelayString = "${horarios.retenciones.intervalo-ms:5000}")
+    public void liberarVencidas() {
+        List<Vencimiento> lote;
+        do {
+            LocalDateTime ahora = LocalDateTime.now();
+            lote = tomarVencidos(ahora);
+
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            try {
+                liberar(lote, ahora);
+            } catch (RuntimeException e) {
+                // Reintentar ahora tomaría el mismo lote: se espera a la siguiente ejecución
+                log.warn("No se pudo liberar un lote de {} retenciones vencidas, se reintentará: {}",
+                        lote.size(), e.getMessage());
+                devolver(lote);
+                return;
+            }
+        } while (lote.size() == tamanoLote);
+    }
+
+    private synchronized List<Vencimiento> tomarVencidos(LocalDateTime ahora) {
+        List<Vencimiento> vencidos = new ArrayList<>();
+
+        while (vencidos.size() < tamanoLote && !vencimientos.isEmpty() && !vencimientos.peek().hasta().isAfter(ahora)) {
+            vencidos.add(vencimientos.poll());
+        }
+
+        return vencidos;
+    }
+
+    private synchronized void devolver(List<Vencimiento> lote) {
+        vencimientos.addAll(lote);
+    }
+
+    private void liberar(List<Vencimiento> lote, LocalDateTime ahora) {
+        Map<Long, Long> horarios = new HashMap<>();
+        lote.forEach(v -> horarios.put(v.idDetalle(), v.idHorario()));
+        List<Long> ids = List.copyOf(horarios.keySet());
+
+        List<Long> liberados = transactionTemplate.execute(status -> {
+            // Los renovados, ocupados o bloqueados desde que se agendaron quedan fuera
+            List<Long> vencidos = detalleRepository.findIdsRetencionVencida(ids, ahora);
+
+            if (!vencidos.isEmpty()) {
+                detalleRepository.liberarRetencionesVencidas(vencidos, ahora);
+            }
+
+            return vencidos;
+        });
+
+        if (liberados == null || liberados.isEmpty()) {
+            return;
+        }
+
+        liberados.forEach(id -> {
+            slotsDisponibles.slotDisponible(id);
+            eventos.publicar(horarios.get(id), id, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+        });
+        log.info("Retenciones vencidas liberadas: {} de {} agendadas", liberados.size(), ids.size());
+    }
+
+}
@@ -0,0 +1,494 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.Horario;
+import cm.apihorario.repository.HorarioRepository;
+import cm.apihorario.repository.SlotHorario;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de los slots libres de cada médico por fecha, ordenados por hora de
+ * inicio. Se carga desde la base de datos la primera vez que se consulta un médico y
+ * fecha, y luego se mantiene con los cambios de estado de los slots, por lo que buscar
+ * el slot libre más cercano a una hora no vuelve a consultar la base de datos.
+ * Los cambios deben informarse después del commit que los confirma
+ */
+@Slf4j
+@Service
+public class SlotsDisponiblesService {
+
+    private final HorarioRepository horarioRepository;
+    private final int maxEntradas;
+
+    private final Map<Clave, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Todos los slots (libres o no) de las entradas cargadas, para ubicar su entrada al cambiar de estado
+    private final Map<Long, Ubicacion> ubicaciones = new ConcurrentHashMap<>();
+
+    // Cargas que están leyendo la base de datos; cada una junta los cambios que se informan mientras tanto
+    private final Set<Carga> cargas = ConcurrentHashMap.newKeySet();
+
+    // Marca el último uso de cada entrada, para descartar primero las menos usadas
+    private final AtomicLong reloj = new AtomicLong();
+
+    // Los cambios informados toman el de lectura y pueden aplicarse a la vez entre sí. Una carga
+    // toma el de escritura para revisar los cambios y publicar sus entradas sin que un cambio
+    // se aplique en medio y se pierda por no encontrar todavía la ubicación del slot
+    private final ReentrantReadWriteLock publicacion = new ReentrantReadWriteLock();
+    private final Lock cambio = publicacion.readLock();
+    private final Lock carga = publicacion.writeLock();
+
+    public SlotsDisponiblesService(
+            HorarioRepository horarioRepository,
+            @Value("${horarios.slots-disponibles.max-entradas:5000}") int maxEntradas) {
+        this.horarioRepository = horarioRepository;
+        this.maxEntradas = maxEntradas;
+    }
+
+    /**
+     * Slot libre encontrado en el índice
+     */
+    public record SlotLibre(Long idHorario, Long idSlot, Long idEspecialidad, LocalTime horaInicio, LocalTime horaFin) {
+    }
+
+    /**
+     * Slot libre encontrado al buscar por especialidad, con su médico y fecha
+     */
+    public record SlotEncontrado(Long idEmpleado, LocalDate fecha, SlotLibre slot) {
+    }
+
+    /**
+     * Resultado de una búsqueda
+     *
+     * @param existeHorario false si el médico no tiene horarios en la fecha
+     * @param slot Slot libre más cercano a la hora pedida, vacío si no hay ninguno
+     */
+    public record Busqueda(boolean existeHorario, Optional<SlotLibre> slot) {
+    }
+
+    private record Clave(LocalDate fecha, Long idEmpleado) {
+    }
+
+    private record Ubicacion(Clave clave, SlotLibre slot) {
+    }
+
+    // Primer slot pendiente de la lista de un médico durante el merge de k vías
+    private record Cabeza(Long idEmpleado, SlotLibre slot, Iterator<SlotLibre> resto) {
+    }
+
+    private static final class Entrada {
+        // Un médico no puede tener horarios solapados en una fecha, la hora de inicio es única
+        private final TreeMap<LocalTime, SlotLibre> libres = new TreeMap<>();
+        private final Set<Long> horarios = new HashSet<>();
+        private final List<Long> slots = new ArrayList<>();
+        private volatile long ultimoUso;
+    }
+
+    /**
+     * Cambios informados mientras una carga lee la base de datos. Al guardar solo se descartan
+     * las entradas que tocan: la lectura del resto de médicos y fechas sigue vigente
+     */
+    private static final class Carga {
+        private final Set<Long> slots = ConcurrentHashMap.newKeySet();
+        private final Set<Long> horarios = ConcurrentHashMap.newKeySet();
+        private final Set<Clave> claves = ConcurrentHashMap.newKeySet();
+
+        private boolean afecta(Clave clave, Entrada entrada) {
+            return claves.contains(clave)
+                    || entrada.horarios.stream().anyMatch(horarios::contains)
+                    || entrada.slots.stream().anyMatch(slots::contains);
+        }
+    }
+
+    /**
+     * Busca el slot libre más cercano a una hora. Ante dos slots a la misma distancia
+     * se prefiere el anterior
+     *
+     * @param idEmpleado Identificador único del médico
+     * @param fecha Fecha a buscar
+     * @param hora Hora preferida, si es null se devuelve el primer slot libre del día
+     * @return Objeto {@link Busqueda} con el resultado
+     */
+    public Busqueda buscarMasCercano(Long idEmpleado, LocalDate fecha, LocalTime hora) {
+        Clave clave = new Clave(fecha, idEmpleado);
+        Entrada entrada = entradas.get(clave);
+
+        if (entrada == null) {
+            entrada = cargar(clave);
+        }
+        usar(entrada);
+
+        synchronized (entrada) {
+            if (entrada.horarios.isEmpty()) {
+                return new Busqueda(false, Optional.empty());
+            }
+
+            if (hora == null) {
+                Map.Entry<LocalTime, SlotLibre> primero = entrada.libres.firstEntry();
+                return new Busqueda(true, Optional.ofNullable(primero).map(Map.Entry::getValue));
+            }
+
+            Map.Entry<LocalTime, SlotLibre> antes = entrada.libres.floorEntry(hora);
+            Map.Entry<LocalTime, SlotLibre> despues = entrada.libres.ceilingEntry(hora);
+
+            if (antes == null || despues == null) {
+                Map.Entry<LocalTime, SlotLibre> unico = (antes != null) ? antes : despues;
+                return new Busqueda(true, Optional.ofNullable(unico).map(Map.Entry::getValue));
+            }
+
+            long distanciaAntes = Duration.between(antes.getKey(), hora).toMinutes();
+            long distanciaDespues = Duration.between(hora, despues.getKey()).toMinutes();
+
+            return new Busqueda(true, Optional.of(
+                    (distanciaAntes <= distanciaDespues) ? antes.getValue() : despues.getValue()
+            ));
+        }
+    }
+
+    /**
+     * Busca los primeros slots libres de una especialidad entre todos sus médicos, en orden
+     * de fecha y hora. Cada médico y fecha ya tiene sus slots libres ordenados por hora, así
+     * que las listas de una misma fecha se combinan con un merge de k vías que se detiene al
+     * juntar {@code limite} slots, sin recorrer el resto.
+     * Los médicos y fechas que aún no están en el índice se cargan con una sola consulta
+     *
+     * @param idEspecialidad Identificador único de la especialidad
+     * @param medicosPorFecha Médicos con horarios de la especialidad en cada fecha
+     * @param desde Momento desde el cual buscar, los slots que empiezan antes se descartan
+     * @param limite Máximo de slots a devolver
+     * @return Slots encontrados ordenados por fecha y hora de inicio
+     */
+    public List<SlotEncontrado> buscarPrimeros(Long idEspecialidad, SortedMap<LocalDate, Set<Long>> medicosPorFecha,
+                                               LocalDateTime desde, int limite) {
+        Map<Clave, Entrada> cargadas = cargarFaltantes(idEspecialidad, medicosPorFecha);
+        List<SlotEncontrado> encontrados = new ArrayList<>(limite);
+
+        for (Map.Entry<LocalDate, Set<Long>> dia : medicosPorFecha.entrySet()) {
+            LocalDate fecha = dia.getKey();
+            if (encontrados.size() >= limite) {
+                break;
+            }
+            if (fecha.isBefore(desde.toLocalDate())) {
+                continue;
+            }
+
+            LocalTime horaMinima = fecha.equals(desde.toLocalDate()) ? desde.toLocalTime() : null;
+            int restantes = limite - encontrados.size();
+
+            PriorityQueue<Cabeza> cabezas = new PriorityQueue<>(Comparator
+                    .comparing((Cabeza c) -> c.slot().horaInicio())
+                    .thenComparing(Cabeza::idEmpleado));
+
+            for (Long idEmpleado : dia.getValue()) {
+                Clave clave = new Clave(fecha, idEmpleado);
+                Entrada entrada = cargadas.getOrDefault(clave, entradas.get(clave));
+                if (entrada == null) {
+                    continue;
+                }
+                usar(entrada);
+
+                Iterator<SlotLibre> libres = copiarLibres(entrada, idEspecialidad, horaMinima, restantes).iterator();
+                if (libres.hasNext()) {
+                    cabezas.add(new Cabeza(idEmpleado, libres.next(), libres));
+                }
+            }
+
+            while (!cabezas.isEmpty() && encontrados.size() < limite) {
+                Cabeza cabeza = cabezas.poll();
+                encontrados.add(new SlotEncontrado(cabeza.idEmpleado(), fecha, cabeza.slot()));
+
+                if (cabeza.resto().hasNext()) {
+                    cabezas.add(new Cabeza(cabeza.idEmpleado(), cabeza.resto().next(), cabeza.resto()));
+                }
+            }
+        }
+
+        return encontrados;
+    }
+
+    /**
+     * Informa que un slot dejó de estar libre (ocupado o bloqueado)
+     */
+    public void slotNoDisponible(Long idDetalle) {
+        cambio.lock();
+        try {
+            cargas.forEach(c -> c.slots.add(idDetalle));
+
+            Ubicacion ubicacion = ubicaciones.get(idDetalle);
+            Entrada entrada = (ubicacion != null) ? entradas.get(ubicacion.clave()) : null;
+            if (entrada == null) {
+                return;
+            }
+
+            synchronized (entrada) {
+                entrada.libres.remove(ubicacion.slot().horaInicio(), ubicacion.slot());
+            }
+        } finally {
+            cambio.unlock();
+        }
+    }
+
+    /**
+     * Informa que un slot volvió a estar libre (liberado o desbloqueado)
+     */
+    public void slotDisponible(Long idDetalle) {
+        cambio.lock();
+        try {
+            cargas.forEach(c -> c.slots.add(idDetalle));
+
+            Ubicacion ubicacion = ubicaciones.get(idDetalle);
+            Entrada entrada = (ubicacion != null) ? entradas.get(ubicacion.clave()) : null;
+            if (entrada == null) {
+                return;
+            }
+
+            synchronized (entrada) {
+                entrada.libres.put(ubicacion.slot().horaInicio(), ubicacion.slot());
+            }
+        } finally {
+            cambio.unlock();
+        }
+    }
+
+    /**
+     * Descarta la entrada de un médico y fecha, se volverá a cargar en la próxima búsqueda.
+     * Se usa al crear horarios
+     */
+    public void invalidar(Long idEmpleado, LocalDate fecha) {
+        cambio.lock();
+        try {
+            Clave clave = new Clave(fecha, idEmpleado);
+            cargas.forEach(c -> c.claves.add(clave));
+            descartar(clave);
+        } finally {
+            cambio.unlock();
+        }
+    }
+
+    /**
+     * Descarta la entrada que contiene a un horario. Se usa al eliminar horarios
+     */
+    public void invalidarHorario(Long idHorario) {
+        cambio.lock();
+        try {
+            cargas.forEach(c -> c.horarios.add(idHorario));
+
+            entradas.entrySet().stream()
+                    .filter(e -> {
+                        synchronized (e.getValue()) {
+                            return e.getValue().horarios.contains(idHorario);
+                        }
+                    })
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .ifPresent(this::descartar);
+        } finally {
+            cambio.unlock();
+        }
+    }
+
+    /**
+     * Copia, bajo el lock de la entrada, sus primeros slots libres de la especialidad desde
+     * una hora. Un médico no puede aportar más de {@code maximo} slots al resultado
+     */
+    private List<SlotLibre> copiarLibres(Entrada entrada, Long idEspecialidad, LocalTime horaMinima, int maximo) {
+        List<SlotLibre> copia = new ArrayList<>();
+
+        synchronized (entrada) {
+            Collection<SlotLibre> libres = (horaMinima == null)
+                    ? entrada.libres.values()
+                    : entrada.libres.tailMap(horaMinima, true).values();
+
+            for (SlotLibre slot : libres) {
+                if (copia.size() >= maximo) {
+                    break;
+                }
+                if (idEspecialidad.equals(slot.idEspecialidad())) {
+                    copia.add(slot);
+                }
+            }
+        }
+
+        return copia;
+    }
+
+    private Entrada cargar(Clave clave) {
+        Carga enCurso = iniciarCarga();
+        try {
+            List<Horario> horarios = horarioRepository.findConDetallesPorEmpleadoYFecha(clave.idEmpleado(), clave.fecha());
+
+            return guardar(Map.of(clave, horarios), enCurso).get(clave);
+        } finally {
+            cargas.remove(enCurso);
+        }
+    }
+
+    /**
+     * Carga con una sola consulta los médicos y fechas de una especialidad que aún no
+     * están en el índice. Se traen todos los horarios de esos médicos en esas fechas (de
+     * cualquier especialidad) para que cada entrada quede completa
+     */
+    private Map<Clave, Entrada> cargarFaltantes(Long idEspecialidad, SortedMap<LocalDate, Set<Long>> medicosPorFecha) {
+        Map<Clave, List<Horario>> faltantes = new HashMap<>();
+        medicosPorFecha.forEach((fecha, medicos) -> medicos.stream()
+                .map(idEmpleado -> new Clave(fecha, idEmpleado))
+                .filter(clave -> !entradas.containsKey(clave))
+                .forEach(clave -> faltantes.put(clave, new ArrayList<>())));
+
+        if (faltantes.isEmpty()) {
+            return Map.of();
+        }
+
+        Carga enCurso = iniciarCarga();
+        try {
+            List<Horario> horarios = horarioRepository.findConDetallesPorEspecialidadYFechas(
+                    idEspecialidad, medicosPorFecha.firstKey(), medicosPorFecha.lastKey());
+
+            for (Horario h : horarios) {
+                List<Horario> delMedico = faltantes.get(new Clave(h.getFecha(), h.getIdEmpleado()));
+                if (delMedico != null) {
+                    delMedico.add(h);
+                }
+            }
+
+            return guardar(faltantes, enCurso);
+        } finally {
+            cargas.remove(enCurso);
+        }
+    }
+
+    /**
+     * Registra una carga antes de leer la base de datos, para que junte los cambios que se
+     * informen desde ese momento
+     */
+    private Carga iniciarCarga() {
+        Carga enCurso = new Carga();
+        cargas.add(enCurso);
+        return enCurso;
+    }
+
+    /**
+     * Arma las entradas de varios médicos y fechas y las guarda en el índice
+     *
+     * @param horarios Todos los horarios de cada médico y fecha, con las filas de sus slots
+     * @param enCurso Carga registrada antes de leer los horarios
+     * @return Entrada de cada médico y fecha, la que ya estaba en el índice si otra carga se adelantó
+     */
+    private Map<Clave, Entrada> guardar(Map<Clave, List<Horario>> horarios, Carga enCurso) {
+        Map<Clave, Entrada> armadas = new HashMap<>();
+        Map<Clave, List<Ubicacion>> nuevas = new HashMap<>();
+
+        horarios.forEach((clave, delMedico) -> {
+            Entrada entrada = new Entrada();
+            List<Ubicacion> ubicacionesEntrada = new ArrayList<>();
+            usar(entrada);
+
+            for (Horario h : delMedico) {
+                entrada.horarios.add(h.getId());
+
+                for (SlotHorario s : h.getSlots()) {
+                    SlotLibre slot = new SlotLibre(h.getId(), s.id(), h.getIdEspecialidad(), s.horaInicio(), s.horaFin());
+
+                    entrada.slots.add(slot.idSlot());
+                    ubicacionesEntrada.add(new Ubicacion(clave, slot));
+
+                    if (s.estaDisponible()) {
+                        entrada.libres.put(slot.horaInicio(), slot);
+                    }
+                }
+            }
+
+            armadas.put(clave, entrada);
+            nuevas.put(clave, ubicacionesEntrada);
+        });
+
+        carga.lock();
+        try {
+            Map<Clave, Entrada> resultado = new HashMap<>();
+            armadas.forEach((clave, entrada) -> {
+                // Si uno de sus slots cambió mientras se leía, la lectura pudo quedar desactualizada: se usa solo para esta búsqueda
+                if (enCurso.afecta(clave, entrada)) {
+                    log.debug("Índice de slots para médico: {} en fecha: {} no se guarda, hubo cambios durante la carga",
+                            clave.idEmpleado(), clave.fecha());
+                    resultado.put(clave, entrada);
+                    return;
+                }
+
+                nuevas.get(clave).forEach(u -> ubicaciones.put(u.slot().idSlot(), u));
+                Entrada existente = entradas.putIfAbsent(clave, entrada);
+                resultado.put(clave, (existente != null) ? existente : entrada);
+
+                log.debug("Índice de slots cargado para médico: {} en fecha: {} con {} slots libres",
+                        clave.idEmpleado(), clave.fecha(), entrada.libres.size());
+            });
+
+            if (entradas.size() > maxEntradas) {
+                descartarMenosUsadas();
+            }
+
+            return resultado;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Descarta las entradas usadas hace más tiempo hasta dejar el índice un 10% por debajo del
+     * máximo, para no recorrerlo en cada carga. Los días más consultados (normalmente los
+     * próximos) siguen en el índice aunque sean los de fecha más antigua
+     */
+    private void descartarMenosUsadas() {
+        int sobrantes = entradas.size() - maxEntradas + maxEntradas / 10;
+
+        // Se copia el último uso antes de ordenar, porque las búsquedas lo siguen cambiando
+        List<Clave> menosUsadas = entradas.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().ultimoUso))
+                .sorted(Map.Entry.comparingByValue())
+                .limit(sobrantes)
+                .map(Map.Entry::getKey)
+                .toList();
+        menosUsadas.forEach(this::descartar);
+
+        log.debug("Índice de slots lleno, se descartaron las {} entradas menos usadas", menosUsadas.size());
+    }
+
+    private void usar(Entrada entrada) {
+        entrada.ultimoUso = reloj.incrementAndGet();
+    }
+
+    private void descartar(Clave clave) {
+        Entrada entrada = entradas.remove(clave);
+        if (entrada == null) {
+            return;
+        }
+
+        synchronized (entrada) {
+            entrada.slots.forEach(id -> ubicaciones.computeIfPresent(id,
+                    (k, u) -> u.clave().equals(clave) ? null : u));
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.Horario;
+import cm.apihorario.repository.HorarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Índice en memoria de los rangos de horas ocupados por los horarios, por médico y fecha
+ * y por consultorio y fecha. Como los horarios de un mismo médico (o consultorio) en una
+ * fecha nunca se cruzan, cada clave guarda intervalos disjuntos ordenados por hora de
+ * inicio, y basta revisar el intervalo que empieza justo antes del fin del candidato para
+ * saber si hay solapamiento.
+ * Se carga al iniciar con los horarios desde hoy, y la validación y la reserva de un
+ * lote de horarios son atómicas, por lo que dos registros concurrentes no pueden
+ * ocupar el mismo rango. Cada día se descartan las fechas que ya pasaron.
+ * <p>
+ * El índice es local a esta instancia y la base de datos no tiene una restricción que
+ * impida el solapamiento, así que la garantía vale solo si ApiHorario corre en una sola
+ * instancia. Con varias instancias, cada una vería solo sus propias reservas
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SolapamientoHorariosService {
+
+    private final HorarioRepository repository;
+
+    private final Map<ClaveMedico, TreeMap<LocalTime, LocalTime>> porMedico = new HashMap<>();
+    private final Map<ClaveConsultorio, TreeMap<LocalTime, LocalTime>> porConsultorio = new HashMap<>();
+
+    /**
+     * Horario a validar o reservar
+     */
+    public record Candidato(Long idEmpleado, String nroConsultorio, LocalDate fecha,
+                            LocalTime horaInicio, LocalTime horaFin) {
+
+        public static Candidato de(Horario horario) {
+            return new Candidato(
+                    horario.getIdEmpleado(),
+                    horario.getNroConsultorio(),
+                    horario.getFecha(),
+                    horario.getHoraInicio(),
+                    horario.getHoraFin()
+            );
+        }
+    }
+
+    /**
+     * Resultado de validar un candidato
+     *
+     * @param solapado true si se cruza con otro horario o con un candidato anterior del lote
+     * @param motivo Qué se cruza (médico o consultorio), null si no hay solapamiento
+     */
+    public record Resultado(Candidato candidato, boolean solapado, String motivo) {
+    }
+
+    private record ClaveMedico(LocalDate fecha, Long idEmpleado) {
+    }
+
+    private record ClaveConsultorio(LocalDate fecha, String nroConsultorio) {
+    }
+
+    @PostConstruct
+    void cargar() {
+        List<Horario> horarios = repository.findByFechaGreaterThanEqual(LocalDate.now());
+
+        synchronized (this) {
+            horarios.forEach(h -> agregar(Candidato.de(h)));
+        }
+
+        log.info("Índice de solapamiento cargado con {} horarios", horarios.size());
+    }
+
+    /**
+     * Valida un lote de candidatos sin reservarlos. Cada candidato se compara con los
+     * horarios existentes y con los candidatos anteriores del mismo lote
+     *
+     * @param candidatos Horarios a validar
+     * @return Resultado de cada candidato en el mismo orden recibido
+     */
+    public synchronized List<Resultado> validar(List<Candidato> candidatos) {
+        List<Candidato> agregados = new ArrayList<>();
+        List<Resultado> resultados = new ArrayList<>(candidatos.size());
+
+        try {
+            for (Candidato c : candidatos) {
+                String motivo = buscarSolapamiento(c);
+                if (motivo == null) {
+                    agregar(c);
+                    agregados.add(c);
+                }
+                resultados.add(new Resultado(c, motivo != null, motivo));
+            }
+        } finally {
+            agregados.forEach(this::quitar);
+        }
+
+        return resultados;
+    }
+
+    /**
+     * Valida y reserva un lote de candidatos en una sola operación atómica. Si la
+     * transacción actual se revierte, la reserva se libera
+     *
+     * @param candidatos Horarios a reservar
+     * @throws IllegalArgumentException Si algún candidato se solapa, en ese caso no se reserva ninguno
+     */
+    public void reservar(List<Candidato> candidatos) {
+        synchronized (this) {
+            List<Resultado> solapados = validar(candidatos).stream()
+                    .filter(Resultado::solapado)
+                    .toList();
+
+            if (!solapados.isEmpty()) {
+                // Un mensaje por motivo (médico o consultorio) con sus fechas
+                String detalle = solapados.stream()
+                        .collect(Collectors.groupingBy(
+                                Resultado::motivo,
+                                LinkedHashMap::new,
+                                Collectors.mapping(r -> r.candidato().fecha(), Collectors.toCollection(TreeSet::new))
+                        ))
+                        .entrySet().stream()
+                        .map(e -> e.getKey() + " en las fechas: " + e.getValue())
+                        .collect(Collectors.joining("; "));
+
+                log.warn("Solapamiento de horarios: {}", detalle);
+                throw new IllegalArgumentException(detalle);
+            }
+
+            candidatos.forEach(this::agregar);
+        }
+
+        liberarSiSeRevierte(candidatos);
+    }
+
+    /**
+     * Valida un lote de candidatos y reserva, en la misma operación atómica, solo los que
+     * no se solapan. Si la transacción actual se revierte, la reserva se libera
+     *
+     * @param candidatos Horarios a reservar
+     * @return Resultado de cada candidato en el mismo orden recibido, los no solapados quedan reservados
+     */
+    public List<Resultado> reservarSinSolapamiento(List<Candidato> candidatos) {
+        List<Resultado> resultados = new ArrayList<>(candidatos.size());
+
+        synchronized (this) {
+            for (Candidato c : candidatos) {
+                String motivo = buscarSolapamiento(c);
+                if (motivo == null) {
+                    agregar(c);
+                }
+                resultados.add(new Resultado(c, motivo != null, motivo));
+            }
+        }
+
+        liberarSiSeRevierte(resultados.stream()
+                .filter(r -> !r.solapado())
+                .map(Resultado::candidato)
+                .toList());
+
+        return resultados;
+    }
+
+    /**
+     * Libera los rangos de horarios eliminados
+     */
+    public synchronized void liberar(List<Candidato> candidatos) {
+        candidatos.forEach(this::quitar);
+    }
+
+    /**
+     * Descarta los rangos de las fechas que ya pasaron. Un horario con fecha pasada ya no
+     * puede registrarse, así que esas claves solo ocupan memoria
+     */
+    @Scheduled(cron = "${horarios.solapamientos.purga-cron:0 5 0 * * *}")
+    public synchronized void purgarFechasPasadas() {
+        LocalDate hoy = LocalDate.now();
+        int antes = porMedico.size() + porConsultorio.size();
+
+        porMedico.keySet().removeIf(k -> k.fecha().isBefore(hoy));
+        porConsultorio.keySet().removeIf(k -> k.fecha().isBefore(hoy));
+
+        log.info("Índice de solapamiento purgado: {} claves de fechas pasadas descartadas",
+                antes - porMedico.size() - porConsultorio.size());
+    }
+
+    // AUXILIARES
+
+    private void liberarSiSeRevierte(List<Candidato> reservados) {
+        if (reservados.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    liberar(reservados);
+                }
+            }
+        });
+    }
+
+    private String buscarSolapamiento(Candidato c) {
+        if (seCruza(porMedico.get(new ClaveMedico(c.fecha(), c.idEmpleado())), c)) {
+            return "El médico ya tiene un horario en ese rango de horas";
+        }
+
+        if (seCruza(porConsultorio.get(new ClaveConsultorio(c.fecha(), c.nroConsultorio())), c)) {
+            return "El consultorio ya tiene un horario en ese rango de horas";
+        }
+
+        return null;
+    }
+
+    /**
+     * Con intervalos disjuntos, el único que puede cruzarse es el último que empieza
+     * antes del fin del candidato
+     */
+    private boolean seCruza(TreeMap<LocalTime, LocalTime> intervalos, Candidato c) {
+        if (intervalos == null) {
+            return false;
+        }
+
+        Map.Entry<LocalTime, LocalTime> anterior = intervalos.lowerEntry(c.horaFin());
+        return anterior != null && anterior.getValue().isAfter(c.horaInicio());
+    }
+
+    private void agregar(Candidato c) {
+        porMedico.computeIfAbsent(new ClaveMedico(c.fecha(), c.idEmpleado()), k -> new TreeMap<>())
+                .put(c.horaInicio(), c.horaFin());
+        porConsultorio.computeIfAbsent(new ClaveConsultorio(c.fecha(), c.nroConsultorio()), k -> new TreeMap<>())
+                .put(c.horaInicio(), c.horaFin());
+    }
+
+    private void quitar(Candidato c) {
+        quitar(porMedico, new ClaveMedico(c.fecha(), c.idEmpleado()), c);
+        quitar(porConsultorio, new ClaveConsultorio(c.fecha(), c.nroConsultorio()), c);
+    }
+
+    private <K> void quitar(Map<K, TreeMap<LocalTime, LocalTime>> indice, K clave, Candidato c) {
+        TreeMap<LocalTime, LocalTime> intervalos = indice.get(clave);
+        if (intervalos == null) {
+            return;
+        }
+
+        intervalos.remove(c.horaInicio(), c.horaFin());
+        if (intervalos.isEmpty()) {
+            indice.remove(clave);
+        }
+    }
+
+}
@@ -0,0 +1,337 @@
+package cm.apihorario.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class DetalleHorarioRepositoryTest {
+
+    private static final String TITULAR = "71234567";
+    private static final String OTRO_TITULAR = "79876543";
+    private static final Long ID_CITA = 100L;
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Autowired
+    private DetalleHorarioRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Horario horario;
+    private Long slot;
+    private LocalDateTime ahora;
+
+    @BeforeEach
+    void preparar() {
+        horario = horarioRepository.saveAndFlush(horario());
+        slot = horario.idSlot(0);
+        ahora = LocalDateTime.now();
+    }
+
+    // INSERCIONES: validan el rango del slot en la misma sentencia
+
+    @Test
+    void insertar_slotLibreDelHorario_insertaLaFila() {
+        assertThat(repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5))).isEqualTo(1);
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+    }
+
+    @Test
+    void insertar_slotQueYaTieneFila_noInserta() {
+        repository.insertarBloqueado(horario.getId(), slot);
+
+        assertThat(repository.insertarOcupado(horario.getId(), slot, ID_CITA)).isZero();
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.BLOQUEADO);
+    }
+
+    @Test
+    void insertar_slotFueraDeLasHorasDelHorario_noInserta() {
+        // 08:00 a 09:00 en slots de 30 minutos: solo existen los números 0 y 1
+        Long fueraDeRango = horario.idSlot(horario.getTotalSlots());
+
+        assertThat(repository.insertarOcupado(horario.getId(), fueraDeRango, ID_CITA)).isZero();
+        assertThat(repository.insertarBloqueado(horario.getId(), fueraDeRango)).isZero();
+        assertThat(repository.insertarRetenido(horario.getId(), fueraDeRango, TITULAR, ahora)).isZero();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void insertar_slotDeOtroHorario_noInserta() {
+        Horario otro = horarioRepository.saveAndFlush(horario());
+
+        assertThat(repository.insertarOcupado(horario.getId(), otro.idSlot(0), ID_CITA)).isZero();
+        assertThat(repository.insertarOcupado(horario.getId(), -1L, ID_CITA)).isZero();
+        assertThat(repository.count()).isZero();
+    }
+
+    // RETENCIONES
+
+    @Test
+    void renovarRetencion_soloElTitularOConLaRetencionVencida() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.renovarRetencion(horario.getId(), slot, OTRO_TITULAR, ahora.plusMinutes(10), ahora))
+                .isZero();
+        assertThat(repository.renovarRetencion(horario.getId(), slot, TITULAR, ahora.plusMinutes(10), ahora))
+                .isEqualTo(1);
+
+        // Vencida la retención, otro titular puede tomarla
+        LocalDateTime despues = ahora.plusMinutes(11);
+        assertThat(repository.renovarRetencion(horario.getId(), slot, OTRO_TITULAR, despues.plusMinutes(5), despues))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void soltarRetencion_soloLaDelTitular() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.soltarRetencion(horario.getId(), slot, OTRO_TITULAR)).isZero();
+        assertThat(repository.soltarRetencion(horario.getId(), slot, TITULAR)).isEqualTo(1);
+        assertThat(estado(slot)).isEmpty();
+    }
+
+    @Test
+    void liberarRetencionesVencidas_soloLasQueSiguenRetenidasYVencidas() {
+        Long renovado = horario.idSlot(1);
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.minusSeconds(1));
+        repository.insertarRetenido(horario.getId(), renovado, OTRO_TITULAR, ahora.minusSeconds(1));
+        repository.renovarRetencion(horario.getId(), renovado, OTRO_TITULAR, ahora.plusMinutes(5), ahora);
+
+        assertThat(repository.findIdsRetencionVencida(List.of(slot, renovado), ahora)).containsExactly(slot);
+        assertThat(repository.liberarRetencionesVencidas(List.of(slot, renovado), ahora)).isEqualTo(1);
+        assertThat(estado(slot)).isEmpty();
+        assertThat(estado(renovado)).contains(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+    }
+
+    @Test
+    void liberarRetencionesVencidas_noTocaLosOcupadosNiBloqueados() {
+        Long bloqueado = horario.idSlot(1);
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.minusSeconds(1));
+        repository.ocupar(horario.getId(), slot, ID_CITA, TITULAR, ahora);
+        repository.insertarBloqueado(horario.getId(), bloqueado);
+
+        assertThat(repository.findIdsRetencionVencida(List.of(slot, bloqueado), ahora)).isEmpty();
+        assertThat(repository.liberarRetencionesVencidas(List.of(slot, bloqueado), ahora)).isZero();
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.OCUPADO);
+    }
+
+    // OCUPAR
+
+    @Test
+    void ocupar_retenidoPorElTitular_loOcupa() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.ocupar(horario.getId(), slot, ID_CITA, TITULAR, ahora)).isEqualTo(1);
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.OCUPADO);
+    }
+
+    @Test
+    void ocupar_retencionVigenteDeOtroTitular_noLoOcupa() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.ocupar(horario.getId(), slot, ID_CITA, OTRO_TITULAR, ahora)).isZero();
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+    }
+
+    @Test
+    void ocupar_retencionVencida_loOcupaCualquiera() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.minusSeconds(1));
+
+        assertThat(repository.ocupar(horario.getId(), slot, ID_CITA, OTRO_TITULAR, ahora)).isEqualTo(1);
+    }
+
+    @Test
+    void ocupar_yaOcupadoPorLaMismaCita_esIdempotente() {
+        repository.insertarOcupado(horario.getId(), slot, ID_CITA);
+
+        assertThat(repository.ocupar(horario.getId(), slot, ID_CITA, null, ahora)).isEqualTo(1);
+        assertThat(repository.ocupar(horario.getId(), slot, ID_CITA + 1, null, ahora)).isZero();
+    }
+
+    @Test
+    void ocupar_conOtroIdDeHorario_noLoOcupa() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.ocupar(horario.getId() + 1, slot, ID_CITA, TITULAR, ahora)).isZero();
+    }
+
+    // BLOQUEAR, LIBERAR Y DESBLOQUEAR
+
+    @Test
+    void bloquear_retencionVigente_noLaBloquea() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.plusMinutes(5));
+
+        assertThat(repository.bloquear(horario.getId(), slot, ahora)).isZero();
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+    }
+
+    @Test
+    void bloquear_retencionVencidaOYaBloqueado_loBloquea() {
+        repository.insertarRetenido(horario.getId(), slot, TITULAR, ahora.minusSeconds(1));
+
+        assertThat(repository.bloquear(horario.getId(), slot, ahora)).isEqualTo(1);
+        assertThat(repository.bloquear(horario.getId(), slot, ahora)).isEqualTo(1);
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.BLOQUEADO);
+    }
+
+    @Test
+    void bloquear_ocupado_noLoBloquea() {
+        repository.insertarOcupado(horario.getId(), slot, ID_CITA);
+
+        assertThat(repository.bloquear(horario.getId(), slot, ahora)).isZero();
+        assertThat(estado(slot)).contains(DetalleHorario.EstadoDetalleHorario.OCUPADO);
+    }
+
+    @Test
+    void liberarYDesbloquear_soloDesdeSuEstadoDeOrigen() {
+        repository.insertarOcupado(horario.getId(), slot, ID_CITA);
+
+        assertThat(repository.desbloquear(horario.getId(), slot)).isZero();
+        assertThat(repository.liberarDeCita(horario.getId(), slot, ID_CITA + 1)).isZero();
+        assertThat(repository.liberar(horario.getId(), slot)).isEqualTo(1);
+        assertThat(estado(slot)).isEmpty();
+
+        repository.insertarBloqueado(horario.getId(), slot);
+
+        assertThat(repository.liberar(horario.getId(), slot)).isZero();
+        assertThat(repository.desbloquear(horario.getId(), slot)).isEqualTo(1);
+    }
+
+    // CONCURRENCIA
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void ocupacionesConcurrentesDeUnSlotLibre_soloUnaSeAplica() throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Horario libre = transaccion.execute(s -> horarioRepository.saveAndFlush(horario()));
+        Long idSlot = libre.idSlot(1);
+        int intentos = 8;
+        ExecutorService hilos = Executors.newFixedThreadPool(intentos);
+        CountDownLatch largada = new CountDownLatch(1);
+
+        try {
+            List<Future<Integer>> tareas = new ArrayList<>();
+            for (int i = 0; i < intentos; i++) {
+                long idCita = ID_CITA + i;
+                tareas.add(hilos.submit(() -> {
+                    largada.await();
+                    try {
+                        // Como HorarioService.insertarFila: perder la carrera por la clave primaria son 0 filas
+                        return transaccion.execute(s -> repository.insertarOcupado(libre.getId(), idSlot, idCita));
+                    } catch (DataIntegrityViolationException e) {
+                        return 0;
+                    }
+                }));
+            }
+
+            largada.countDown();
+            int aplicadas = 0;
+            for (Future<Integer> tarea : tareas) {
+                aplicadas += tarea.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(aplicadas).isEqualTo(1);
+            assertThat(repository.findEstado(libre.getId(), idSlot))
+                    .contains(DetalleHorario.EstadoDetalleHorario.OCUPADO);
+        } finally {
+            hilos.shutdownNow();
+            transaccion.executeWithoutResult(s -> {
+                repository.deleteAll();
+                horarioRepository.deleteAll();
+            });
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void renovacionConcurrenteConLaLiberacionDeVencidas_elSlotQuedaConsistente() throws Exception {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int vuelta = 0; vuelta < 50; vuelta++) {
+                Horario retenido = transaccion.execute(s -> horarioRepository.saveAndFlush(horario()));
+                Long idSlot = retenido.idSlot(0);
+                LocalDateTime momento = LocalDateTime.now();
+                transaccion.execute(s ->
+                        repository.insertarRetenido(retenido.getId(), idSlot, TITULAR, momento.minusSeconds(1)));
+                CountDownLatch largada = new CountDownLatch(1);
+
+                Future<Integer> renovacion = hilos.submit(() -> {
+                    largada.await();
+                    return transaccion.execute(s -> repository.renovarRetencion(
+                            retenido.getId(), idSlot, TITULAR, momento.plusMinutes(5), momento));
+                });
+                Future<Integer> liberacion = hilos.submit(() -> {
+                    largada.await();
+                    return transaccion.execute(s -> repository.liberarRetencionesVencidas(List.of(idSlot), momento));
+                });
+
+                largada.countDown();
+                int renovadas = renovacion.get(10, TimeUnit.SECONDS);
+                int liberadas = liberacion.get(10, TimeUnit.SECONDS);
+                Optional<DetalleHorario.EstadoDetalleHorario> estado = repository.findEstado(retenido.getId(), idSlot);
+
+                // O se renovó antes de barrer, o se liberó y la renovación no encontró la fila
+                if (renovadas == 1) {
+                    assertThat(liberadas).as("vuelta %d", vuelta).isZero();
+                    assertThat(estado).as("vuelta %d", vuelta).contains(DetalleHorario.EstadoDetalleHorario.RETENIDO);
+                } else {
+                    assertThat(liberadas).as("vuelta %d", vuelta).isEqualTo(1);
+                    assertThat(estado).as("vuelta %d", vuelta).isEmpty();
+                }
+            }
+        } finally {
+            hilos.shutdownNow();
+            transaccion.executeWithoutResult(s -> {
+                repository.deleteAll();
+                horarioRepository.deleteAll();
+            });
+        }
+    }
+
+    // AUXILIARES
+
+    private Optional<DetalleHorario.EstadoDetalleHorario> estado(Long idDetalle) {
+        return repository.findEstado(horario.getId(), idDetalle);
+    }
+
+    /**
+     * Horario de 08:00 a 09:00 en slots de 30 minutos
+     */
+    private static Horario horario() {
+        return Horario.builder()
+                .idEmpleado(10L)
+                .idEspecialidad(5L)
+                .nroConsultorio("101")
+                .fecha(LocalDate.now().plusDays(1))
+                .horaInicio(LocalTime.of(8, 0))
+                .horaFin(LocalTime.of(9, 0))
+                .duracionSlotMinutos(30)
+                .build();
+    }
+
+}
@@ -0,0 +1,195 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.DetalleHorario;
+import cm.apihorario.repository.DetalleHorarioRepository;
+import cm.apihorario.repository.Horario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetencionSlotsServiceTest {
+
+    private static final Long HORARIO = 1L;
+    private static final int TAMANO_LOTE = 2;
+
+    private DetalleHorarioRepository repository;
+    private SlotsDisponiblesService slotsDisponibles;
+    private EventosSlotsService eventos;
+    private RetencionSlotsService service;
+
+    /**
+     * Slots que la base de datos considera renovados, ocupados o bloqueados
+     */
+    private final Set<Long> vigentes = new HashSet<>();
+
+    /**
+     * Ids consultados en cada lote, en orden
+     */
+    private final List<List<Long>> lotes = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        repository = mock(DetalleHorarioRepository.class);
+        slotsDisponibles = mock(SlotsDisponiblesService.class);
+        eventos = mock(EventosSlotsService.class);
+
+        when(repository.findIdsRetencionVencida(anyCollection(), any())).thenAnswer(i -> {
+            Collection<Long> ids = i.getArgument(0);
+            lotes.add(List.copyOf(ids));
+            return ids.stream().filter(id -> !vigentes.contains(id)).toList();
+        });
+
+        service = new RetencionSlotsService(repository, slotsDisponibles, eventos, transaccion(), 300, TAMANO_LOTE);
+    }
+
+    @Test
+    void calcularVencimiento_sumaLaDuracionConfigurada() {
+        LocalDateTime ahora = LocalDateTime.of(2026, 10, 17, 9, 0);
+
+        assertThat(service.calcularVencimiento(ahora)).isEqualTo(ahora.plusSeconds(300));
+    }
+
+    @Test
+    void liberarVencidas_retencionVencida_vuelveADisponibleYSePublica() {
+        service.agendar(HORARIO, 2048L, LocalDateTime.now().minusSeconds(1));
+
+        service.liberarVencidas();
+
+        verify(repository).liberarRetencionesVencidas(eq(List.of(2048L)), any());
+        verify(slotsDisponibles).slotDisponible(2048L);
+        verify(eventos).publicar(HORARIO, 2048L, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+    }
+
+    @Test
+    void liberarVencidas_retencionAunVigente_sigueAgendada() {
+        service.agendar(HORARIO, 2048L, LocalDateTime.now().plusMinutes(5));
+
+        service.liberarVencidas();
+
+        verify(repository, never()).findIdsRetencionVencida(anyCollection(), any());
+        verify(slotsDisponibles, never()).slotDisponible(anyLong());
+    }
+
+    @Test
+    void liberarVencidas_retencionRenovadaEnLaBaseDeDatos_noSeLiberaNiSePublica() {
+        service.agendar(HORARIO, 2048L, LocalDateTime.now().minusSeconds(1));
+        vigentes.add(2048L);
+
+        service.liberarVencidas();
+
+        assertThat(lotes).containsExactly(List.of(2048L));
+        verify(repository, never()).liberarRetencionesVencidas(anyCollection(), any());
+        verify(slotsDisponibles, never()).slotDisponible(anyLong());
+        verify(eventos, never()).publicar(any(), any(), any());
+    }
+
+    @Test
+    void liberarVencidas_loteMixto_soloPublicaLosLiberados() {
+        LocalDateTime vencida = LocalDateTime.now().minusSeconds(1);
+        service.agendar(HORARIO, 2048L, vencida);
+        service.agendar(HORARIO, 2049L, vencida);
+        vigentes.add(2049L);
+
+        service.liberarVencidas();
+
+        verify(repository).liberarRetencionesVencidas(eq(List.of(2048L)), any());
+        verify(slotsDisponibles).slotDisponible(2048L);
+        verify(slotsDisponibles, never()).slotDisponible(2049L);
+        verify(eventos, never()).publicar(any(), eq(2049L), any());
+        verify(eventos).publicar(HORARIO, 2048L, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+    }
+
+    @Test
+    void liberarVencidas_masVencidasQueElLote_recorreTodosLosLotes() {
+        LocalDateTime vencida = LocalDateTime.now().minusMinutes(1);
+        for (long i = 0; i < 5; i++) {
+            service.agendar(HORARIO, 2048L + i, vencida.plusSeconds(i));
+        }
+        service.agendar(HORARIO, 4096L, LocalDateTime.now().plusMinutes(5));
+
+        service.liberarVencidas();
+
+        assertThat(lotes).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(lotes).flatExtracting(l -> l).doesNotContain(4096L);
+        verify(slotsDisponibles, times(5)).slotDisponible(anyLong());
+    }
+
+    @Test
+    void liberarVencidas_lasVencidasSeTomanUnaSolaVez() {
+        service.agendar(HORARIO, 2048L, LocalDateTime.now().minusSeconds(1));
+
+        service.liberarVencidas();
+        service.liberarVencidas();
+
+        assertThat(lotes).hasSize(1);
+    }
+
+    @Test
+    void liberarVencidas_falloDeLaBaseDeDatos_devuelveElLoteALaColaYLoReintenta() {
+        service.agendar(HORARIO, 2048L, LocalDateTime.now().minusSeconds(1));
+        service.agendar(HORARIO, 2049L, LocalDateTime.now().minusSeconds(1));
+        when(repository.liberarRetencionesVencidas(anyCollection(), any()))
+                .thenThrow(new IllegalStateException("Base de datos no disponible"))
+                .thenReturn(2);
+
+        service.liberarVencidas();
+
+        verify(slotsDisponibles, never()).slotDisponible(anyLong());
+
+        service.liberarVencidas();
+
+        assertThat(lotes).hasSize(2);
+        assertThat(lotes.get(1)).containsExactlyInAnyOrder(2048L, 2049L);
+        verify(slotsDisponibles).slotDisponible(2048L);
+        verify(slotsDisponibles).slotDisponible(2049L);
+    }
+
+    @Test
+    void cargar_agendaLasRetencionesQueYaEstabanEnLaBaseDeDatos() {
+        Horario horario = Horario.builder().id(HORARIO).build();
+        when(repository.findByEstado(DetalleHorario.EstadoDetalleHorario.RETENIDO)).thenReturn(List.of(
+                DetalleHorario.builder().id(2048L).horario(horario)
+                        .estado(DetalleHorario.EstadoDetalleHorario.RETENIDO)
+                        .retenidoHasta(LocalDateTime.now().minusSeconds(1)).build(),
+                DetalleHorario.builder().id(2049L).horario(horario)
+                        .estado(DetalleHorario.EstadoDetalleHorario.RETENIDO)
+                        .retenidoHasta(LocalDateTime.now().plusMinutes(5)).build()));
+
+        service.cargar();
+        service.liberarVencidas();
+
+        assertThat(lotes).containsExactly(List.of(2048L));
+        verify(eventos).publicar(HORARIO, 2048L, DetalleHorario.EstadoDetalleHorario.DISPONIBLE);
+    }
+
+    // AUXILIARES
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate transaccion() {
+        TransactionTemplate transaccion = mock(TransactionTemplate.class);
+        when(transaccion.execute(any())).thenAnswer(i ->
+                ((TransactionCallback<Object>) i.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        return transaccion;
+    }
+
+}
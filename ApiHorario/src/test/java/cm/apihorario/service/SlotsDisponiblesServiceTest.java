@@ -0,0 +1,223 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.DetalleHorario;
+import cm.apihorario.repository.Horario;
+import cm.apihorario.repository.HorarioRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotsDisponiblesServiceTest {
+
+    private static final Long ID_HORARIO = 1L;
+    private static final Long ID_EMPLEADO = 10L;
+    private static final LocalDate FECHA = LocalDate.now().plusDays(1);
+    private static final LocalTime OCHO = LocalTime.of(8, 0);
+
+    // Slots de 08:00 y 08:30 del horario 1
+    private static final Long PRIMER_SLOT = ID_HORARIO * Horario.MAX_SLOTS;
+    private static final Long SEGUNDO_SLOT = PRIMER_SLOT + 1;
+
+    @Test
+    void buscarMasCercano_devuelveElSlotLibreMasCercano() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                .thenAnswer(i -> List.of(horario(Set.of(PRIMER_SLOT))));
+
+        SlotsDisponiblesService service = new SlotsDisponiblesService(repository, 100);
+
+        SlotsDisponiblesService.Busqueda busqueda = service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        assertThat(busqueda.existeHorario()).isTrue();
+        assertThat(busqueda.slot()).map(SlotsDisponiblesService.SlotLibre::idSlot).contains(SEGUNDO_SLOT);
+    }
+
+    @Test
+    void slotNoDisponible_actualizaLaEntradaCargadaSinVolverALeer() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                .thenAnswer(i -> List.of(horario(Set.of())));
+
+        SlotsDisponiblesService service = new SlotsDisponiblesService(repository, 100);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        service.slotNoDisponible(PRIMER_SLOT);
+
+        assertThat(idSlot(service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO))).contains(SEGUNDO_SLOT);
+        verify(repository, times(1)).findConDetallesPorEmpleadoYFecha(any(), any());
+
+        service.slotDisponible(PRIMER_SLOT);
+
+        assertThat(idSlot(service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO))).contains(PRIMER_SLOT);
+    }
+
+    @Test
+    void cambioDuranteLaCarga_noGuardaLaLecturaDesactualizada() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        SlotsDisponiblesService[] service = new SlotsDisponiblesService[1];
+        Set<Long> ocupados = ConcurrentHashMap.newKeySet();
+
+        // La primera lectura ve el slot libre, y se ocupa antes de que la carga se guarde
+        when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                .thenAnswer(i -> {
+                    List<Horario> leidos = List.of(horario(Set.copyOf(ocupados)));
+                    if (ocupados.add(PRIMER_SLOT)) {
+                        service[0].slotNoDisponible(PRIMER_SLOT);
+                    }
+                    return leidos;
+                });
+
+        service[0] = new SlotsDisponiblesService(repository, 100);
+
+        service[0].buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        assertThat(idSlot(service[0].buscarMasCercano(ID_EMPLEADO, FECHA, OCHO))).contains(SEGUNDO_SLOT);
+        verify(repository, times(2)).findConDetallesPorEmpleadoYFecha(eq(ID_EMPLEADO), eq(FECHA));
+    }
+
+    @Test
+    void cargaYCambioConcurrentes_nuncaDejanUnSlotOcupadoComoLibre() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int vuelta = 0; vuelta < 2000; vuelta++) {
+                HorarioRepository repository = mock(HorarioRepository.class);
+                Set<Long> ocupados = ConcurrentHashMap.newKeySet();
+                when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                        .thenAnswer(i -> List.of(horario(Set.copyOf(ocupados))));
+
+                SlotsDisponiblesService service = new SlotsDisponiblesService(repository, 100);
+                CountDownLatch largada = new CountDownLatch(1);
+
+                Future<?> carga = hilos.submit(() -> {
+                    largada.await();
+                    return service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+                });
+
+                // Como el servicio, se confirma el cambio en la base y después se informa
+                Future<?> cambio = hilos.submit(() -> {
+                    largada.await();
+                    ocupados.add(PRIMER_SLOT);
+                    service.slotNoDisponible(PRIMER_SLOT);
+                    return null;
+                });
+
+                largada.countDown();
+                carga.get(5, TimeUnit.SECONDS);
+                cambio.get(5, TimeUnit.SECONDS);
+
+                assertThat(idSlot(service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO)))
+                        .as("vuelta %d", vuelta)
+                        .contains(SEGUNDO_SLOT);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void cambioDeOtroHorarioDuranteLaCarga_guardaLaEntrada() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        SlotsDisponiblesService[] service = new SlotsDisponiblesService[1];
+
+        // Mientras se lee, se ocupa un slot de un horario que no es de este médico y fecha
+        when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                .thenAnswer(i -> {
+                    service[0].slotNoDisponible(99L * Horario.MAX_SLOTS);
+                    return List.of(horario(Set.of()));
+                });
+
+        service[0] = new SlotsDisponiblesService(repository, 100);
+
+        service[0].buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+        service[0].buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        verify(repository, times(1)).findConDetallesPorEmpleadoYFecha(any(), any());
+    }
+
+    @Test
+    void indiceLleno_descartaLaEntradaMenosUsadaAunqueNoSeaLaDeFechaMasAntigua() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        when(repository.findConDetallesPorEmpleadoYFecha(eq(ID_EMPLEADO), any()))
+                .thenAnswer(i -> List.of(horario(Set.of())));
+
+        SlotsDisponiblesService service = new SlotsDisponiblesService(repository, 2);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA.plusDays(1), OCHO);
+
+        // La fecha más próxima se vuelve a usar, la siguiente queda como la menos usada
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA.plusDays(2), OCHO);
+
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA.plusDays(1), OCHO);
+
+        verify(repository, times(1)).findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA);
+        verify(repository, times(2)).findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA.plusDays(1));
+    }
+
+    @Test
+    void invalidar_vuelveACargarLaEntrada() {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        when(repository.findConDetallesPorEmpleadoYFecha(ID_EMPLEADO, FECHA))
+                .thenAnswer(i -> List.of(horario(Set.of())));
+
+        SlotsDisponiblesService service = new SlotsDisponiblesService(repository, 100);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        service.invalidar(ID_EMPLEADO, FECHA);
+        service.buscarMasCercano(ID_EMPLEADO, FECHA, OCHO);
+
+        verify(repository, times(2)).findConDetallesPorEmpleadoYFecha(any(), any());
+    }
+
+    // AUXILIARES
+
+    private static Optional<Long> idSlot(SlotsDisponiblesService.Busqueda busqueda) {
+        return busqueda.slot().map(SlotsDisponiblesService.SlotLibre::idSlot);
+    }
+
+    /**
+     * Horario de 08:00 a 09:00 en slots de 30 minutos, con los slots brindados ocupados
+     */
+    private static Horario horario(Set<Long> ocupados) {
+        Horario horario = Horario.builder()
+                .id(ID_HORARIO)
+                .idEmpleado(ID_EMPLEADO)
+                .idEspecialidad(5L)
+                .nroConsultorio("101")
+                .fecha(FECHA)
+                .horaInicio(OCHO)
+                .horaFin(LocalTime.of(9, 0))
+                .duracionSlotMinutos(30)
+                .build();
+
+        ocupados.forEach(id -> horario.getDetalles().add(DetalleHorario.builder()
+                .id(id)
+                .horario(horario)
+                .estado(DetalleHorario.EstadoDetalleHorario.OCUPADO)
+                .idCita(100L)
+                .build()));
+
+        return horario;
+    }
+
+}
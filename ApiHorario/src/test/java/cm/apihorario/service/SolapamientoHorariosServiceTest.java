@@ -0,0 +1,201 @@
+package cm.apihorario.service;
+
+import cm.apihorario.repository.Horario;
+import cm.apihorario.repository.HorarioRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SolapamientoHorariosServiceTest {
+
+    private static final Long MEDICO = 10L;
+    private static final Long OTRO_MEDICO = 11L;
+    private static final String CONSULTORIO = "101";
+    private static final String OTRO_CONSULTORIO = "102";
+    private static final LocalDate FECHA = LocalDate.now().plusDays(1);
+
+    @Test
+    void validar_rangoQueSeCruzaConUnHorarioCargado_esSolapado() {
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+
+        List<SolapamientoHorariosService.Resultado> resultados = service.validar(List.of(
+                candidato(MEDICO, OTRO_CONSULTORIO, 9, 11),
+                candidato(OTRO_MEDICO, CONSULTORIO, 7, 9),
+                candidato(OTRO_MEDICO, OTRO_CONSULTORIO, 9, 11)
+        ));
+
+        assertThat(resultados).extracting(SolapamientoHorariosService.Resultado::solapado)
+                .containsExactly(true, true, false);
+        assertThat(resultados.get(0).motivo()).contains("médico");
+        assertThat(resultados.get(1).motivo()).contains("consultorio");
+    }
+
+    @Test
+    void validar_rangosContiguos_noSeSolapan() {
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+
+        List<SolapamientoHorariosService.Resultado> resultados = service.validar(List.of(
+                candidato(MEDICO, CONSULTORIO, 10, 12),
+                candidato(MEDICO, CONSULTORIO, 6, 8)
+        ));
+
+        assertThat(resultados).noneMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void validar_comparaConLosCandidatosAnterioresDelLote_sinReservarlos() {
+        SolapamientoHorariosService service = servicio(List.of());
+
+        List<SolapamientoHorariosService.Resultado> resultados = service.validar(List.of(
+                candidato(MEDICO, CONSULTORIO, 8, 10),
+                candidato(MEDICO, OTRO_CONSULTORIO, 9, 11)
+        ));
+
+        assertThat(resultados).extracting(SolapamientoHorariosService.Resultado::solapado)
+                .containsExactly(false, true);
+
+        // validar no deja nada reservado
+        assertThat(service.validar(List.of(candidato(MEDICO, OTRO_CONSULTORIO, 9, 11))))
+                .noneMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void reservar_conSolapamiento_noReservaNingunoYExplicaElMotivo() {
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+
+        assertThatThrownBy(() -> service.reservar(List.of(
+                candidato(OTRO_MEDICO, OTRO_CONSULTORIO, 14, 16),
+                candidato(MEDICO, OTRO_CONSULTORIO, 9, 11)
+        )))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("médico")
+                .hasMessageContaining(FECHA.toString());
+
+        assertThat(service.validar(List.of(candidato(OTRO_MEDICO, OTRO_CONSULTORIO, 14, 16))))
+                .noneMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void reservarSinSolapamiento_reservaSoloLosQueNoSeCruzan() {
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+
+        List<SolapamientoHorariosService.Resultado> resultados = service.reservarSinSolapamiento(List.of(
+                candidato(MEDICO, CONSULTORIO, 9, 11),
+                candidato(OTRO_MEDICO, OTRO_CONSULTORIO, 9, 11)
+        ));
+
+        assertThat(resultados).extracting(SolapamientoHorariosService.Resultado::solapado)
+                .containsExactly(true, false);
+        assertThat(service.validar(List.of(candidato(OTRO_MEDICO, OTRO_CONSULTORIO, 10, 12))))
+                .allMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void liberar_dejaElRangoDisponible() {
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+
+        service.liberar(List.of(candidato(MEDICO, CONSULTORIO, 8, 10)));
+
+        assertThat(service.validar(List.of(candidato(MEDICO, CONSULTORIO, 8, 10))))
+                .noneMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void purgarFechasPasadas_descartaSoloLasFechasAnterioresAHoy() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        SolapamientoHorariosService service = servicio(List.of(horario(MEDICO, CONSULTORIO, 8, 10)));
+        service.reservar(List.of(new SolapamientoHorariosService.Candidato(
+                MEDICO, CONSULTORIO, ayer, LocalTime.of(8, 0), LocalTime.of(10, 0))));
+
+        service.purgarFechasPasadas();
+
+        assertThat(service.validar(List.of(new SolapamientoHorariosService.Candidato(
+                MEDICO, CONSULTORIO, ayer, LocalTime.of(8, 0), LocalTime.of(10, 0)))))
+                .noneMatch(SolapamientoHorariosService.Resultado::solapado);
+        assertThat(service.validar(List.of(candidato(MEDICO, CONSULTORIO, 8, 10))))
+                .allMatch(SolapamientoHorariosService.Resultado::solapado);
+    }
+
+    @Test
+    void reservasConcurrentesDelMismoRango_soloUnaSeAplica() throws Exception {
+        int intentos = 8;
+        ExecutorService hilos = Executors.newFixedThreadPool(intentos);
+
+        try {
+            for (int vuelta = 0; vuelta < 200; vuelta++) {
+                SolapamientoHorariosService service = servicio(List.of());
+                CountDownLatch largada = new CountDownLatch(1);
+
+                List<Future<Boolean>> tareas = new ArrayList<>();
+                for (int i = 0; i < intentos; i++) {
+                    // Mismo consultorio y rango, cada uno con otro médico
+                    long medico = 100L + i;
+                    tareas.add(hilos.submit(() -> {
+                        largada.await();
+                        try {
+                            service.reservar(List.of(candidato(medico, CONSULTORIO, 8, 10)));
+                            return true;
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        }
+                    }));
+                }
+
+                largada.countDown();
+                int reservadas = 0;
+                for (Future<Boolean> tarea : tareas) {
+                    if (tarea.get(5, TimeUnit.SECONDS)) {
+                        reservadas++;
+                    }
+                }
+
+                assertThat(reservadas).as("vuelta %d", vuelta).isEqualTo(1);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    // AUXILIARES
+
+    private static SolapamientoHorariosService servicio(List<Horario> cargados) {
+        HorarioRepository repository = mock(HorarioRepository.class);
+        when(repository.findByFechaGreaterThanEqual(any())).thenReturn(cargados);
+
+        SolapamientoHorariosService service = new SolapamientoHorariosService(repository);
+        service.cargar();
+        return service;
+    }
+
+    private static SolapamientoHorariosService.Candidato candidato(Long idEmpleado, String nroConsultorio,
+                                                                 int desde, int hasta) {
+        return new SolapamientoHorariosService.Candidato(
+                idEmpleado, nroConsultorio, FECHA, LocalTime.of(desde, 0), LocalTime.of(hasta, 0));
+    }
+
+    private static Horario horario(Long idEmpleado, String nroConsultorio, int desde, int hasta) {
+        return Horario.builder()
+                .idEmpleado(idEmpleado)
+                .idEspecialidad(5L)
+                .nroConsultorio(nroConsultorio)
+                .fecha(FECHA)
+                .horaInicio(LocalTime.of(desde, 0))
+                .horaFin(LocalTime.of(hasta, 0))
+                .build();
+    }
+
+}
@@ -76,6 +76,15 @@ public class PacienteController {
         return ResponseEntity.ok(service.buscarPorDniSimple(dni));
     }
 
+    /**
+     * Busca varios pacientes por DNI en una sola llamada (Versión Simple para listados de ApiCitaMedica).
+     * Los DNIs no registrados no aparecen en la respuesta.
+     **/
+    @PostMapping("/simple/dni/lote")
+    public ResponseEntity<List<PacienteSimpleResponse>> buscarPorDnisSimple(@RequestBody List<String> dnis) {
+        return ResponseEntity.ok(service.buscarPorDnisSimple(dnis));
+    }
+
     /**
      * Busca un paciente por su DNI (Versión Simple para uso unico en Microservicio ApiPago).
      **/
@@ -2,6 +2,7 @@ package com.CentroMedico.ApiPaciente.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +10,8 @@ public interface PacienteRepository extends JpaRepository<Paciente, Long> {
 
     Optional<Paciente> findByDni(String dni);
 
+    List<Paciente> findByDniIn(Collection<String> dnis);
+
     boolean existsByDni(String dni);
 
     List<Paciente> findByNombresContainingIgnoreCaseOrApellidosContainingIgnoreCase(String nombres, String apellidos);
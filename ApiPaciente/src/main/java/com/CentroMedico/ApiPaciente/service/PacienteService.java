@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.stream.Collectors;
 
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -20,6 +21,8 @@ public class PacienteService {
     private final PacienteRepository repository;
     private final HistoriaMedicaFeignClient historiaMedicaClient;
 
+    public static final int MAX_DNIS_POR_LOTE = 500;
+
     /**
      * Registra un nuevo paciente, validando que el DNI no exista previamente.
      * @param request Datos del paciente a registrar.
@@ -175,6 +178,25 @@ public class PacienteService {
         return toSimpleResponse(paciente);
     }
 
+    /**
+     * Metodo para uso exclusivo de microservicios.
+     * Busca varios pacientes por DNI en una sola consulta.
+     * @param dnis DNIs de los pacientes (como máximo {@value #MAX_DNIS_POR_LOTE}).
+     * @return PacienteSimpleResponse de los pacientes encontrados; los DNIs no registrados no aparecen.
+     * @throws IllegalArgumentException Si se piden más de {@value #MAX_DNIS_POR_LOTE} DNIs.
+     */
+    @Transactional(readOnly = true)
+    public List<PacienteSimpleResponse> buscarPorDnisSimple(List<String> dnis) {
+        log.info("Buscando {} pacientes por DNI para microservicio", dnis.size());
+        if (dnis.size() > MAX_DNIS_POR_LOTE) {
+            throw new IllegalArgumentException("No se pueden buscar más de " + MAX_DNIS_POR_LOTE + " pacientes por llamada");
+        }
+
+        return repository.findByDniIn(Set.copyOf(dnis)).stream()
+                .map(this::toSimpleResponse)
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public PacienteClientResponse brindarDatosSimples(String dni) {
         log.info("Buscando paciente por DNI para microservicio: {}", dni);
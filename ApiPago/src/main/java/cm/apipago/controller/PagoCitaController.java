@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -53,6 +54,32 @@ public class PagoCitaController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Registrar varios pagos cita",
+            description = "Crea varios pagos cita en una sola llamada. Los pagos con una clave de " +
+                    "idempotencia ya registrada se omiten")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Pagos Cita creados exitosamente"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Datos de entrada inválidos",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    public ResponseEntity<Void> registrarLote(
+            @Parameter(description = "Datos requeridos para registrar cada pago de cita")
+            @RequestBody
+            @NotEmpty(message = "Debe enviar al menos un pago")
+            @Size(max = 200, message = "No se pueden registrar más de 200 pagos por llamada")
+            List<@Valid PagoCitaRequest> requests) {
+
+        log.info("Solicitud de registrar lote de {} pagos recibida", requests.size());
+        service.registrarLote(requests);
+        log.info("Solicitud de registrar lote de pagos terminada, respuesta enviada");
+
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{dniPaciente}")
     @Operation(summary = "Buscar pago cita por DNI de paciente",
             description = "Obtiene un pago cita específico por DNI del paciente")
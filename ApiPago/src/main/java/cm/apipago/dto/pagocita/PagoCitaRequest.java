@@ -23,6 +23,11 @@ public record PagoCitaRequest(
         BigDecimal montoTotal,
 
         @Schema(description = "Método de Pago de la Cita Médica", example = "EFECTIVO")
-        PagoCita.MetodoPago metodoPago
+        PagoCita.MetodoPago metodoPago,
+
+        @Schema(description = "Clave para registrar el pago una sola vez aunque se reintente",
+                example = "REGISTRAR_PAGO-cita-1")
+        @Size(max = 100, message = "La clave de idempotencia no puede superar 100 caracteres")
+        String claveIdempotencia
 ) {
 }
@@ -10,7 +10,9 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "pago_cita")
+@Table(name = "pago_cita", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pago_cita_clave_idempotencia", columnNames = "clave_idempotencia")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +30,10 @@ public class PagoCita {
     @Column(name = "id_cita")
     private Long idCitaMedica;
 
+    // Clave enviada por el cliente para que los reintentos no registren el pago dos veces
+    @Column(name = "clave_idempotencia", length = 100)
+    private String claveIdempotencia;
+
     @Column(name = "dni_paciente", nullable = false)
     private String dniPaciente;
 
@@ -2,6 +2,7 @@ package cm.apipago.repository.pagocita;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,4 +10,8 @@ public interface PagoCitaRepository extends JpaRepository<PagoCita, Long> {
     Optional<PagoCita> findByDniPaciente(String dniPaciente);
 
     List<PagoCita> findAllByDniPaciente(String dniPaciente);
+
+    boolean existsByClaveIdempotencia(String claveIdempotencia);
+
+    List<PagoCita> findAllByClaveIdempotenciaIn(Collection<String> clavesIdempotencia);
 }
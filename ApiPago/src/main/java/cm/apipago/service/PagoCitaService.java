@@ -11,7 +11,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -33,13 +37,12 @@ public class PagoCitaService {
         log.info("Iniciando registro de pago de cita para cita ID: {}, DNI: {}",
                 request.idCitaMedica(), request.dniPaciente());
 
-        PagoCita pagoCita = PagoCita.builder()
-                .idCitaMedica(request.idCitaMedica())
-                .comprobantePago(null)
-                .dniPaciente(request.dniPaciente())
-                .montoTotal(request.montoTotal())
-                .metodoPago(request.metodoPago())
-                .build();
+        if (request.claveIdempotencia() != null && repository.existsByClaveIdempotencia(request.claveIdempotencia())) {
+            log.info("Pago con clave: {} ya registrado, se omite", request.claveIdempotencia());
+            return;
+        }
+
+        PagoCita pagoCita = toEntity(request);
 
         log.debug("Pago creado - Monto: {}, Método: {}",
                 request.montoTotal(), request.metodoPago());
@@ -50,6 +53,38 @@ public class PagoCitaService {
                 pagoCita.getId(), request.idCitaMedica());
     }
 
+    /**
+     * Registra varios Pagos de Cita en una sola transacción. Los pagos cuya clave de
+     * idempotencia ya fue registrada (o se repite en el mismo lote) se omiten
+     *
+     * @param requests Lista de objetos {@link PagoCitaRequest} a registrar
+     */
+    @Transactional
+    public void registrarLote(List<PagoCitaRequest> requests) {
+        log.info("Iniciando registro de lote de {} pagos de cita", requests.size());
+
+        Set<String> claves = requests.stream()
+                .map(PagoCitaRequest::claveIdempotencia)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Set<String> registradas = new HashSet<>();
+        if (!claves.isEmpty()) {
+            repository.findAllByClaveIdempotenciaIn(claves)
+                    .forEach(p -> registradas.add(p.getClaveIdempotencia()));
+        }
+
+        List<PagoCita> nuevos = requests.stream()
+                .filter(r -> r.claveIdempotencia() == null || registradas.add(r.claveIdempotencia()))
+                .map(this::toEntity)
+                .toList();
+
+        repository.saveAll(nuevos);
+
+        log.info("Lote de pagos registrado: {} nuevos, {} omitidos por clave repetida",
+                nuevos.size(), requests.size() - nuevos.size());
+    }
+
     @Transactional(readOnly = true)
     public List<PagoCitaResponse> buscarPorDniPaciente(String dni) {
         log.info("Inicio de búsqueda de todos por DNI: {}", dni);
@@ -93,4 +128,15 @@ public class PagoCitaService {
         );
     }
 
+    private PagoCita toEntity(PagoCitaRequest request) {
+        return PagoCita.builder()
+                .idCitaMedica(request.idCitaMedica())
+                .comprobantePago(null)
+                .dniPaciente(request.dniPaciente())
+                .montoTotal(request.montoTotal())
+                .metodoPago(request.metodoPago())
+                .claveIdempotencia(request.claveIdempotencia())
+                .build();
+    }
+
 }